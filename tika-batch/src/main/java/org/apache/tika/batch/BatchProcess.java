@@ -35,6 +35,8 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.io.CheckpointJournal;
+
 /**
  * This is the main processor class for a single process.
  * This class can only be run once.
@@ -72,6 +74,7 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
     //every hour or so.
     private int maxAliveTimeSeconds = -1;
     private boolean alreadyExecuted = false;
+    private CheckpointJournal checkpointJournal = null;
 
     public BatchProcess(FileResourceCrawler fileResourceCrawler, ConsumersManager consumersManager, StatusReporter reporter, Interrupter interrupter) {
         this.fileResourceCrawler = fileResourceCrawler;
@@ -137,6 +140,7 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
             result = shutdown(ex, completionService, timeoutChecker, state);
         } finally {
             shutdownConsumersManager();
+            closeCheckpointJournal();
         }
         LOG.trace("finishing up");
         return result;
@@ -497,6 +501,33 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
         this.maxAliveTimeSeconds = maxAliveTimeSeconds;
     }
 
+    /**
+     * Records the resources that have been processed or timed out in the
+     * journal, and skips those that are in it already, so that a restarted
+     * process picks up where this one stopped.  The journal is closed
+     * when this process has finished.
+     *
+     * @param checkpointJournal journal of completed resources
+     */
+    public void setCheckpointJournal(CheckpointJournal checkpointJournal) {
+        this.checkpointJournal = checkpointJournal;
+        fileResourceCrawler.setCheckpointJournal(checkpointJournal);
+        for (FileResourceConsumer consumer : consumersManager.getConsumers()) {
+            consumer.setCheckpointJournal(checkpointJournal);
+        }
+    }
+
+    private void closeCheckpointJournal() {
+        if (checkpointJournal == null) {
+            return;
+        }
+        try {
+            checkpointJournal.close();
+        } catch (IOException e) {
+            LOG.warn("couldn't close checkpoint journal", e);
+        }
+    }
+
     public enum BATCH_CONSTANTS {
         BATCH_PROCESS_EXCEEDED_MAX_ALIVE_TIME, BATCH_PROCESS_FATAL_MUST_RESTART
     }
@@ -530,6 +561,18 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
         }
     }
 
+    //don't let a restarted process hang on the same file again
+    private void checkpointTimedOut(FileStarted fs) {
+        if (checkpointJournal == null) {
+            return;
+        }
+        try {
+            checkpointJournal.add(fs.getResourceId());
+        } catch (IOException e) {
+            LOG.warn("couldn't write {} to checkpoint journal", fs.getResourceId(), e);
+        }
+    }
+
     private class TimeoutChecker implements Callable<IFileProcessorFutureResult> {
         @Override
         public TimeoutFutureResult call() throws Exception {
@@ -556,6 +599,7 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
                 FileStarted fs = consumer.checkForTimedOutMillis(timeoutThresholdMillis);
                 if (fs != null) {
                     timedOuts.add(fs);
+                    checkpointTimedOut(fs);
                 }
             }
         }
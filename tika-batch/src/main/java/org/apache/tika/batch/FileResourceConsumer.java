@@ -34,6 +34,7 @@ import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
+import org.apache.tika.io.CheckpointJournal;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
@@ -71,6 +72,7 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
     //after this has been set to ACTIVELY_CONSUMING,
     //this should only be set by setEndedState.
     private volatile STATE currentState = STATE.NOT_YET_STARTED;
+    private CheckpointJournal checkpointJournal = null;
 
     public FileResourceConsumer(ArrayBlockingQueue<FileResource> fileQueue) {
         this.fileQueue = fileQueue;
@@ -90,6 +92,7 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
                 if (consumed) {
                     numResourcesConsumed.incrementAndGet();
                 }
+                checkpoint(fileResource.getResourceId());
                 fileResource = getNextFileResource();
             }
         } catch (InterruptedException e) {
@@ -121,6 +124,28 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
      */
     public abstract boolean processFileResource(FileResource fileResource);
 
+    /**
+     * Ids of resources are recorded in this journal once they have been
+     * processed, whether or not that was successful, so that a restarted
+     * process doesn't process them again.
+     *
+     * @param checkpointJournal journal of completed resources
+     */
+    public void setCheckpointJournal(CheckpointJournal checkpointJournal) {
+        this.checkpointJournal = checkpointJournal;
+    }
+
+    private void checkpoint(String resourceId) {
+        if (checkpointJournal == null) {
+            return;
+        }
+        try {
+            checkpointJournal.add(resourceId);
+        } catch (IOException e) {
+            LOG.warn("couldn't write {} to checkpoint journal", resourceId, e);
+        }
+    }
+
     /**
      * Make sure to call this appropriately!
      */
@@ -17,14 +17,17 @@
 package org.apache.tika.batch;
 
 
+import java.io.IOException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.tika.extractor.DocumentSelector;
+import org.apache.tika.io.CheckpointJournal;
 import org.apache.tika.metadata.Metadata;
 
 public abstract class FileResourceCrawler implements Callable<IFileProcessorFutureResult> {
@@ -45,11 +48,13 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
     private int maxFilesToConsider = -1;
     private long maxConsecWaitInMillis = 300000;//300,000ms = 5 minutes
     private DocumentSelector documentSelector = null;
+    private CheckpointJournal checkpointJournal = null;
 
-    //number of files added to queue
-    private int added = 0;
+    //number of files added to queue; these are updated by
+    //every thread of a multi-threaded crawler
+    private final AtomicInteger added = new AtomicInteger();
     //number of files considered including those that were rejected by documentSelector
-    private int considered = 0;
+    private final AtomicInteger considered = new AtomicInteger();
 
     /**
      * @param queue        shared queue
@@ -86,53 +91,84 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
             //swallow
         }
 
-        return new FileResourceCrawlerFutureResult(considered, added);
+        return new FileResourceCrawlerFutureResult(considered.get(), added.get());
     }
 
     /**
+     * This may be called concurrently by several crawler threads.
+     *
      * @param fileResource resource to add
      * @return int status of the attempt (SKIPPED, ADDED, STOP_NOW) to add the resource to the queue.
      * @throws InterruptedException
      */
     protected int tryToAdd(FileResource fileResource) throws InterruptedException {
 
-        if (maxFilesToAdd > -1 && added >= maxFilesToAdd) {
+        if (maxFilesToAdd > -1 && added.get() >= maxFilesToAdd) {
             return STOP_NOW;
         }
 
-        if (maxFilesToConsider > -1 && considered > maxFilesToConsider) {
+        if (maxFilesToConsider > -1 && considered.get() > maxFilesToConsider) {
             return STOP_NOW;
         }
 
         boolean isAdded = false;
-        if (select(fileResource.getMetadata())) {
-            long start = System.currentTimeMillis();
-            while (queue.offer(fileResource, PAUSE_INCREMENT_MILLIS, TimeUnit.MILLISECONDS) == false) {
-                long elapsed = System.currentTimeMillis() - start;
-                LOG.info("FileResourceCrawler is pausing. Queue is full: {} after {} ms", queue.size(), elapsed);
-
-                if (maxConsecWaitInMillis > -1 && elapsed > maxConsecWaitInMillis) {
-                    timedOut = true;
-                    String msg = "FileResourceCrawler had to wait longer (" + elapsed + " ms) than allowed (" + maxConsecWaitInMillis + " ms)";
-                    LOG.error(msg);
-                    throw new InterruptedException(msg);
-                }
-                if (Thread
-                        .currentThread()
-                        .isInterrupted()) {
-                    LOG.info("FileResourceCrawler shutting down because of interrupted thread.");
-                    throw new InterruptedException("FileResourceCrawler interrupted.");
-                }
+        if (isCompleted(fileResource)) {
+            LOG.debug("skipping completed: {}", fileResource.getResourceId());
+        } else if (select(fileResource.getMetadata())) {
+            //reserve the slot first so that concurrent crawler threads can't
+            //add more than maxFilesToAdd between them
+            int count = added.incrementAndGet();
+            if (maxFilesToAdd > -1 && count > maxFilesToAdd) {
+                added.decrementAndGet();
+                return STOP_NOW;
+            }
+            try {
+                offer(fileResource);
+            } catch (InterruptedException e) {
+                added.decrementAndGet();
+                throw e;
             }
             isAdded = true;
-            added++;
         } else {
             LOG.debug("crawler did not select: {}", fileResource.getResourceId());
         }
-        considered++;
+        considered.incrementAndGet();
         return (isAdded) ? ADDED : SKIPPED;
     }
 
+    private void offer(FileResource fileResource) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        while (queue.offer(fileResource, PAUSE_INCREMENT_MILLIS, TimeUnit.MILLISECONDS) == false) {
+            long elapsed = System.currentTimeMillis() - start;
+            LOG.info("FileResourceCrawler is pausing. Queue is full: {} after {} ms", queue.size(), elapsed);
+
+            if (maxConsecWaitInMillis > -1 && elapsed > maxConsecWaitInMillis) {
+                timedOut = true;
+                String msg = "FileResourceCrawler had to wait longer (" + elapsed + " ms) than allowed (" + maxConsecWaitInMillis + " ms)";
+                LOG.error(msg);
+                throw new InterruptedException(msg);
+            }
+            if (Thread
+                    .currentThread()
+                    .isInterrupted()) {
+                LOG.info("FileResourceCrawler shutting down because of interrupted thread.");
+                throw new InterruptedException("FileResourceCrawler interrupted.");
+            }
+        }
+    }
+
+    private boolean isCompleted(FileResource fileResource) {
+        if (checkpointJournal == null) {
+            return false;
+        }
+        try {
+            return checkpointJournal.contains(fileResource.getResourceId());
+        } catch (IOException e) {
+            LOG.warn("couldn't read checkpoint journal", e);
+            return false;
+        }
+    }
+
     //Warning! Depending on the value of maxConsecWaitInMillis
     //this could try forever in vain to add poison to the queue.
     private void shutdown() throws InterruptedException {
@@ -184,8 +220,18 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
         this.documentSelector = documentSelector;
     }
 
+    /**
+     * Resources whose ids are in the journal were completed by an
+     * earlier run and are not added again.
+     *
+     * @param checkpointJournal journal of completed resources
+     */
+    public void setCheckpointJournal(CheckpointJournal checkpointJournal) {
+        this.checkpointJournal = checkpointJournal;
+    }
+
     public int getConsidered() {
-        return considered;
+        return considered.get();
     }
 
     protected boolean select(Metadata m) {
@@ -217,20 +263,22 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
     }
 
     /**
-     * Use sparingly.  This synchronizes on the queue!
+     * Poison is only added after the crawl has finished, so everything
+     * behind poison at the head of the queue is poison, too.  This only
+     * looks at the head of the queue.
      *
      * @return whether this queue contains any non-poison file resources
      */
     public boolean isQueueEmpty() {
-        int size = 0;
-        synchronized (queue) {
-            for (FileResource aQueue : queue) {
-                if (!(aQueue instanceof PoisonFileResource)) {
-                    size++;
-                }
-            }
-        }
-        return size == 0;
+        FileResource head = queue.peek();
+        return head == null || head instanceof PoisonFileResource;
+    }
+
+    /**
+     * @return number of resources in the queue, including poison
+     */
+    public int getQueueSize() {
+        return queue.size();
     }
 
     /**
@@ -250,7 +298,7 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
      * @return number of files that this crawler added to the queue
      */
     public int getAdded() {
-        return added;
+        return added.get();
     }
 
     /**
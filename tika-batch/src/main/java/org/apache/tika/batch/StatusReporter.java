@@ -49,6 +49,11 @@ public class StatusReporter implements Callable<IFileProcessorFutureResult> {
 
     private volatile boolean isShuttingDown = false;
 
+    //counts at the last report, to calculate the rates over the last interval
+    private long lastReport;
+    private int lastAdded = 0;
+    private int lastConsumed = 0;
+
     /**
      * Initialize with the crawler and consumers
      *
@@ -59,6 +64,7 @@ public class StatusReporter implements Callable<IFileProcessorFutureResult> {
         this.consumersManager = consumersManager;
         this.crawler = crawler;
         start = System.currentTimeMillis();
+        lastReport = start;
     }
 
     /**
@@ -122,7 +128,9 @@ public class StatusReporter implements Callable<IFileProcessorFutureResult> {
                 msg += "\n";
                 report(msg);
 
-                if (!crawler.isActive()) {
+                if (crawler.isActive()) {
+                    report(getRates(cnt, added, numberFormat));
+                } else {
                     msg = "The directory crawler has completed its crawl.\n";
                     report(msg);
                 }
@@ -138,6 +146,24 @@ public class StatusReporter implements Callable<IFileProcessorFutureResult> {
     }
 
 
+    /**
+     * Compares the rate at which the crawler adds files with the rate
+     * at which the consumers process them since the last report.  If the
+     * crawler is slower and the queue is close to empty, the consumers are
+     * waiting on the crawler.
+     */
+    private String getRates(int consumed, int added, NumberFormat numberFormat) {
+        long now = System.currentTimeMillis();
+        double elapsedSecs = Math.max(1, now - lastReport) / 1000.0;
+        int crawlRate = (int) ((added - lastAdded) / elapsedSecs);
+        int consumeRate = (int) ((consumed - lastConsumed) / elapsedSecs);
+        lastReport = now;
+        lastAdded = added;
+        lastConsumed = consumed;
+        return String.format(Locale.ROOT, "The crawler is adding %s files per sec, and the consumers are processing %s per sec; %s files are queued.\n",
+                numberFormat.format(crawlRate), numberFormat.format(consumeRate), numberFormat.format(crawler.getQueueSize()));
+    }
+
     /**
      * Set the amount of time to sleep between reports.
      *
@@ -19,6 +19,7 @@ package org.apache.tika.batch.builders;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -37,8 +38,10 @@ import org.apache.tika.batch.FileResourceCrawler;
 import org.apache.tika.batch.Interrupter;
 import org.apache.tika.batch.StatusReporter;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.CheckpointJournal;
 import org.apache.tika.util.ClassLoaderUtil;
 import org.apache.tika.util.XMLDOMUtil;
+import org.apache.tika.utils.StringUtils;
 import org.apache.tika.utils.XMLReaderUtils;
 
 
@@ -51,6 +54,7 @@ public class BatchProcessBuilder {
     public final static int DEFAULT_MAX_QUEUE_SIZE = 1000;
     public final static String MAX_QUEUE_SIZE_KEY = "maxQueueSize";
     public final static String NUM_CONSUMERS_KEY = "numConsumers";
+    public final static String CHECKPOINT_DIR_ATTR = "checkpointDir";
 
     /**
      * numConsumers is needed by both the crawler and the consumers. This utility method
@@ -175,6 +179,15 @@ public class BatchProcessBuilder {
             proc.setTimeoutCheckPulseMillis(timeoutCheckPulseMillis);
         }
         proc.setMaxAliveTimeSeconds(maxAliveTimeSeconds);
+
+        String checkpointDir = XMLDOMUtil.getString(CHECKPOINT_DIR_ATTR, runtimeAttributes, docElement);
+        if (!StringUtils.isBlank(checkpointDir)) {
+            try {
+                proc.setCheckpointJournal(CheckpointJournal.open(Paths.get(checkpointDir)));
+            } catch (IOException e) {
+                throw new RuntimeException("couldn't open checkpoint journal in " + checkpointDir, e);
+            }
+        }
         return proc;
     }
 
@@ -27,16 +27,32 @@ import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.tika.batch.FileResource;
 import org.apache.tika.batch.FileResourceCrawler;
 
+/**
+ * Crawls a directory tree.  By default, a single thread walks the tree
+ * depth first.  With {@link #setNumThreads(int)} &gt; 1, each directory is
+ * crawled as a separate task in a {@link ForkJoinPool}; idle crawler threads
+ * steal the subdirectories that busy ones haven't got to yet, so a few very
+ * large or very deep subdirectories don't leave the other threads idle.
+ * The crawl order then only applies to the files within a directory.
+ */
 public class FSDirectoryCrawler extends FileResourceCrawler {
 
     private final Path root;
     private final Path startDirectory;
     private final Comparator<Path> pathComparator = new FileNameComparator();
     private CRAWL_ORDER crawlOrder;
+    private int numThreads = 1;
+    //set when a limit is hit or a thread is interrupted in a multithreaded crawl
+    private volatile boolean stop = false;
 
     public FSDirectoryCrawler(ArrayBlockingQueue<FileResource> fileQueue, int numConsumers, Path root, CRAWL_ORDER crawlOrder) {
         super(fileQueue, numConsumers);
@@ -64,14 +80,66 @@ public class FSDirectoryCrawler extends FileResourceCrawler {
     }
 
     public void start() throws InterruptedException {
-        addFiles(startDirectory);
+        if (numThreads > 1) {
+            crawlInParallel();
+        } else {
+            addFiles(startDirectory);
+        }
     }
 
     private void addFiles(Path directory) throws InterruptedException {
+        List<Path> directories = new LinkedList<>();
+        if (!addFiles(directory, directories)) {
+            return;
+        }
+        for (Path f : directories) {
+            addFiles(f);
+        }
+    }
+
+    private void crawlInParallel() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(numThreads, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("fs-directory-crawler-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try {
+            //wait on the future rather than join so that the crawl can be interrupted
+            Future<Void> crawl = pool.submit(new DirectoryTask(startDirectory));
+            crawl.get();
+        } catch (InterruptedException e) {
+            stop = true;
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            //the pool may have wrapped the exception again
+            for (Throwable t = cause; t != null; t = t.getCause()) {
+                if (t instanceof InterruptedException) {
+                    throw (InterruptedException) t;
+                }
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Adds the files in a directory to the queue.
+     *
+     * @param directory   directory to crawl
+     * @param directories subdirectories of the directory are added to this list
+     * @return false if the crawler has hit a limit
+     * @throws InterruptedException
+     */
+    private boolean addFiles(Path directory, List<Path> directories) throws InterruptedException {
 
         if (directory == null) {
             LOG.warn("FSFileAdder asked to process null directory?!");
-            return;
+            return true;
         }
 
         List<Path> files = new ArrayList<>();
@@ -84,7 +152,7 @@ public class FSDirectoryCrawler extends FileResourceCrawler {
         }
         if (files.size() == 0) {
             LOG.info("Empty directory: {}", directory.toAbsolutePath());
-            return;
+            return true;
         }
 
 
@@ -95,7 +163,6 @@ public class FSDirectoryCrawler extends FileResourceCrawler {
         }
 
         int numFiles = 0;
-        List<Path> directories = new LinkedList<>();
         for (Path f : files) {
             if (Thread
                     .currentThread()
@@ -117,14 +184,11 @@ public class FSDirectoryCrawler extends FileResourceCrawler {
             int added = tryToAdd(new FSFileResource(root, f));
             if (added == FileResourceCrawler.STOP_NOW) {
                 LOG.debug("crawler has hit a limit: {} : {}", f.toAbsolutePath(), added);
-                return;
+                return false;
             }
             LOG.debug("trying to add: {} : {}", f.toAbsolutePath(), added);
         }
-
-        for (Path f : directories) {
-            addFiles(f);
-        }
+        return true;
     }
 
     /**
@@ -133,6 +197,9 @@ public class FSDirectoryCrawler extends FileResourceCrawler {
      * in a directory.  For example, it might be handy to call
      * mkdirs() on an output directory if your FileResourceConsumers
      * are writing to a file.
+     * <p/>
+     * In a multithreaded crawl, this is called concurrently for different
+     * directories.
      *
      * @param f file to handle
      */
@@ -140,12 +207,59 @@ public class FSDirectoryCrawler extends FileResourceCrawler {
         //no-op
     }
 
+    /**
+     * Number of threads to crawl the directory tree with.  The default is 1.
+     *
+     * @param numThreads number of crawler threads
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
     public enum CRAWL_ORDER {
         SORTED, //alphabetical order; necessary for cross-platform unit tests
         RANDOM, //shuffle
         OS_ORDER //operating system chooses
     }
 
+    private class DirectoryTask extends RecursiveAction {
+
+        private final Path directory;
+
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected void compute() {
+            if (stop) {
+                return;
+            }
+            List<Path> directories = new ArrayList<>();
+            try {
+                if (!addFiles(directory, directories)) {
+                    stop = true;
+                    return;
+                }
+            } catch (InterruptedException e) {
+                stop = true;
+                throw new CrawlInterruptedException(e);
+            }
+            List<DirectoryTask> tasks = new ArrayList<>(directories.size());
+            for (Path d : directories) {
+                tasks.add(new DirectoryTask(d));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    //carries an InterruptedException out of a DirectoryTask
+    private static class CrawlInterruptedException extends RuntimeException {
+        CrawlInterruptedException(InterruptedException e) {
+            super(e);
+        }
+    }
+
     //simple lexical order for the file name, we don't really care about localization.
     //we do want this, though, because file.compareTo behaves differently
     //on different OS's.
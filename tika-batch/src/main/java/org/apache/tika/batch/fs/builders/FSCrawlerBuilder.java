@@ -51,6 +51,7 @@ public class FSCrawlerBuilder implements ICrawlerBuilder {
 
 
     private final static String CRAWL_ORDER = "crawlOrder";
+    private final static String CRAWLER_THREADS_ATTR = "crawlerThreads";
     private final static String INPUT_DIR_ATTR = "inputDir";
     private final static String INPUT_START_DIR_ATTR = "startDir";
     private final static String MAX_FILE_SIZE_BYTES_ATTR = "maxFileSizeBytes";
@@ -91,11 +92,14 @@ public class FSCrawlerBuilder implements ICrawlerBuilder {
         } else {
             FSDirectoryCrawler.CRAWL_ORDER crawlOrder = getCrawlOrder(attributes.get(CRAWL_ORDER));
             Path startDir = PropsUtil.getPath(attributes.get(INPUT_START_DIR_ATTR), null);
+            FSDirectoryCrawler directoryCrawler;
             if (startDir == null) {
-                crawler = new FSDirectoryCrawler(queue, numConsumers, inputDir, crawlOrder);
+                directoryCrawler = new FSDirectoryCrawler(queue, numConsumers, inputDir, crawlOrder);
             } else {
-                crawler = new FSDirectoryCrawler(queue, numConsumers, inputDir, startDir, crawlOrder);
+                directoryCrawler = new FSDirectoryCrawler(queue, numConsumers, inputDir, startDir, crawlOrder);
             }
+            directoryCrawler.setNumThreads(PropsUtil.getInt(attributes.get(CRAWLER_THREADS_ATTR), 1));
+            crawler = directoryCrawler;
         }
 
         crawler.setMaxFilesToConsider(PropsUtil.getInt(attributes.get(MAX_FILES_TO_CONSIDER_ATTR), -1));
@@ -93,6 +93,19 @@ public class XMLDOMUtil {
         throw new RuntimeException("Need to specify a \"long\" value in -- " + attrName + " -- in commandline or in config file!");
     }
 
+    /**
+     * Get a String value.  Try the runtime attributes first and then back off to
+     * the document element.
+     *
+     * @param attrName          attribute name to find
+     * @param runtimeAttributes runtime attributes
+     * @param docElement        correct element that may have the specified attribute
+     * @return specified value or <code>null</code> if it isn't specified
+     */
+    public static String getString(String attrName, Map<String, String> runtimeAttributes, Node docElement) {
+        return getStringValue(attrName, runtimeAttributes, docElement);
+    }
+
     private static String getStringValue(String attrName, Map<String, String> runtimeAttributes, Node docElement) {
         String stringValue = runtimeAttributes.get(attrName);
         if (stringValue == null) {
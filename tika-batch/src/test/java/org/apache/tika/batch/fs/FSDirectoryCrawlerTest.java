@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.batch.fs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.tika.batch.FileResource;
+import org.apache.tika.io.CheckpointJournal;
+
+public class FSDirectoryCrawlerTest {
+
+    @TempDir
+    private Path root;
+
+    @TempDir
+    private Path checkpointDir;
+
+    @Test
+    public void testMultithreadedCrawl() throws Exception {
+        int numFiles = buildTree();
+        for (int numThreads : new int[]{1, 4}) {
+            ArrayBlockingQueue<FileResource> queue = new ArrayBlockingQueue<>(numFiles + 10);
+            FSDirectoryCrawler crawler = newCrawler(queue, numThreads);
+            crawler.call();
+            assertEquals(numFiles, crawler.getAdded());
+            assertEquals(numFiles, crawler.getConsidered());
+            assertFalse(crawler.isQueueEmpty());
+
+            Set<String> ids = new HashSet<>();
+            int poison = 0;
+            for (FileResource r : queue) {
+                if (r instanceof FSFileResource) {
+                    assertTrue(ids.add(r.getResourceId()), r.getResourceId());
+                } else {
+                    poison++;
+                }
+            }
+            assertEquals(numFiles, ids.size());
+            assertEquals(3, poison);
+            for (int i = 0; i < numFiles; i++) {
+                queue.poll();
+            }
+            assertTrue(crawler.isQueueEmpty());
+        }
+    }
+
+    @Test
+    public void testMaxFilesToAdd() throws Exception {
+        int numFiles = buildTree();
+        ArrayBlockingQueue<FileResource> queue = new ArrayBlockingQueue<>(numFiles + 10);
+        FSDirectoryCrawler crawler = newCrawler(queue, 4);
+        crawler.setMaxFilesToAdd(17);
+        crawler.call();
+        assertEquals(17, crawler.getAdded());
+        //17 files and the poison
+        assertEquals(20, queue.size());
+    }
+
+    @Test
+    public void testCheckpointJournal() throws Exception {
+        int numFiles = buildTree();
+        try (CheckpointJournal journal = CheckpointJournal.open(checkpointDir)) {
+            journal.add("top.txt");
+            journal.add(new FSFileResource(root, root.resolve("dir3/sub0/file1.txt")).getResourceId());
+            ArrayBlockingQueue<FileResource> queue = new ArrayBlockingQueue<>(numFiles + 10);
+            FSDirectoryCrawler crawler = newCrawler(queue, 4);
+            crawler.setCheckpointJournal(journal);
+            crawler.call();
+            assertEquals(numFiles - 2, crawler.getAdded());
+            assertEquals(numFiles, crawler.getConsidered());
+            for (FileResource r : queue) {
+                if (r instanceof FSFileResource) {
+                    assertFalse(journal.contains(r.getResourceId()), r.getResourceId());
+                }
+            }
+        }
+    }
+
+    private FSDirectoryCrawler newCrawler(ArrayBlockingQueue<FileResource> queue, int numThreads) {
+        FSDirectoryCrawler crawler = new FSDirectoryCrawler(queue, 2, root,
+                FSDirectoryCrawler.CRAWL_ORDER.SORTED);
+        crawler.setDocumentSelector(new FSDocumentSelector(null, null, -1, -1));
+        crawler.setNumThreads(numThreads);
+        return crawler;
+    }
+
+    private int buildTree() throws Exception {
+        int numFiles = 0;
+        for (int i = 0; i < 5; i++) {
+            Path dir = root.resolve("dir" + i);
+            for (int j = 0; j <= i; j++) {
+                dir = dir.resolve("sub" + j);
+                Files.createDirectories(dir);
+                for (int k = 0; k < 3; k++) {
+                    Files.writeString(dir.resolve("file" + k + ".txt"), "test");
+                    numFiles++;
+                }
+            }
+        }
+        Files.writeString(root.resolve("top.txt"), "test");
+        return numFiles + 1;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.detect;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.pipes.fetcher.RangeFetcher;
+import org.apache.tika.utils.StringUtils;
+
+/**
+ * Detector decorator that lets the wrapped detector see at most a fixed
+ * number of bytes of a document, so that the type of a large or remote
+ * document can be detected without reading or spooling all of it.
+ * <p>
+ * From a stream, only the first <code>maxBytes</code> are read.  With a
+ * {@link RangeFetcher}, the start of the document and the last
+ * <code>tailBytes</code> of the budget are fetched, and the detector gets a
+ * sparse temporary file of the full length with only those ranges filled
+ * in.  That is usually enough for the container detectors to read the
+ * central directory at the end of a zip file and the first entries at its
+ * start.
+ * <p>
+ * If the document is longer than the budget, the type may be less specific
+ * than with full detection, e.g. a zip file instead of a type of zip based
+ * container, and {@link Result#isTruncated()} is <code>true</code>.  Callers
+ * should record that with
+ * {@link org.apache.tika.metadata.TikaCoreProperties#DETECTION_TRUNCATED}.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class BoundedDetector implements Detector {
+
+    private static final long serialVersionUID = -2616395727853587393L;
+
+    public static final int DEFAULT_MAX_BYTES = 64 * 1024;
+
+    private final Detector detector;
+
+    private final int maxBytes;
+
+    private int tailBytes;
+
+    public BoundedDetector(Detector detector) {
+        this(detector, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param detector the detector to run on the bytes that are read
+     * @param maxBytes maximum number of bytes to read or fetch; by default a
+     *                 quarter of them are fetched from the end of the
+     *                 document
+     */
+    public BoundedDetector(Detector detector, int maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be > 0: " + maxBytes);
+        }
+        this.detector = detector;
+        this.maxBytes = maxBytes;
+        this.tailBytes = maxBytes / 4;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getTailBytes() {
+        return tailBytes;
+    }
+
+    /**
+     * @param tailBytes how many of the bytes in the budget to fetch from the
+     *                  end of the document with a {@link RangeFetcher}
+     */
+    public void setTailBytes(int tailBytes) {
+        if (tailBytes < 0 || tailBytes >= maxBytes) {
+            throw new IllegalArgumentException(
+                    "tailBytes must be >= 0 and < maxBytes (" + maxBytes + "): " + tailBytes);
+        }
+        this.tailBytes = tailBytes;
+    }
+
+    @Override
+    public MediaType detect(InputStream input, Metadata metadata) throws IOException {
+        if (input == null) {
+            return detector.detect(null, metadata);
+        }
+        return detectWithBudget(input, metadata).getMediaType();
+    }
+
+    /**
+     * Detects the type from at most the first <code>maxBytes</code> of the
+     * stream.  As with {@link Detector#detect(InputStream, Metadata)}, the
+     * stream is reset before this returns.  If the stream is a
+     * {@link TikaInputStream} backed by a file, the detector runs on the
+     * whole file.
+     */
+    public Result detectWithBudget(InputStream input, Metadata metadata) throws IOException {
+        TikaInputStream tis = TikaInputStream.cast(input);
+        if (tis != null && tis.hasFile()) {
+            return new Result(detector.detect(tis, metadata), false);
+        }
+        byte[] prefix = new byte[maxBytes + 1];
+        int length;
+        input.mark(maxBytes + 1);
+        try {
+            length = IOUtils.read(input, prefix);
+        } finally {
+            input.reset();
+        }
+        boolean truncated = length > maxBytes;
+        try (TikaInputStream bounded = TikaInputStream.get(
+                Arrays.copyOf(prefix, Math.min(length, maxBytes)))) {
+            return new Result(detector.detect(bounded, metadata), truncated);
+        }
+    }
+
+    /**
+     * Fetches the start and, if the fetcher reports the
+     * {@link RangeFetcher#TOTAL_LENGTH}, the end of the document, and
+     * detects the type from them.
+     *
+     * @throws TikaException if a range couldn't be fetched
+     * @throws IOException   if the detector failed on the fetched bytes
+     */
+    public Result detectWithBudget(RangeFetcher fetcher, String fetchKey, Metadata metadata,
+                                   ParseContext parseContext) throws IOException, TikaException {
+        int prefixBytes = maxBytes - tailBytes;
+        byte[] prefix = fetch(fetcher, fetchKey, 0, prefixBytes, metadata, parseContext);
+        long totalLength = getTotalLength(metadata);
+        if (prefix.length < prefixBytes || totalLength == prefix.length) {
+            //the whole document
+            try (TikaInputStream tis = TikaInputStream.get(prefix)) {
+                return new Result(detector.detect(tis, metadata), false);
+            }
+        }
+        if (totalLength < 0 || tailBytes == 0) {
+            try (TikaInputStream tis = TikaInputStream.get(prefix)) {
+                return new Result(detector.detect(tis, metadata), true);
+            }
+        }
+        long tailStart = Math.max(prefix.length, totalLength - tailBytes);
+        byte[] tail = fetch(fetcher, fetchKey, tailStart, (int) (totalLength - tailStart),
+                metadata, parseContext);
+        metadata.set(Metadata.CONTENT_LENGTH, Long.toString(totalLength));
+        TemporaryResources tmp = new TemporaryResources();
+        try {
+            Path path = tmp.createTempFile(metadata);
+            //the bytes in between are a hole in the file, they aren't written to disk
+            //on most file systems
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                write(channel, prefix, 0);
+                write(channel, tail, tailStart);
+            }
+            try (TikaInputStream tis = TikaInputStream.get(path, new Metadata(), tmp)) {
+                return new Result(detector.detect(tis, metadata),
+                        tailStart + tail.length < totalLength || tailStart > prefix.length);
+            }
+        } finally {
+            tmp.close();
+        }
+    }
+
+    private static byte[] fetch(RangeFetcher fetcher, String fetchKey, long start, int length,
+                                Metadata metadata, ParseContext parseContext)
+            throws IOException, TikaException {
+        byte[] bytes = new byte[length];
+        int read;
+        try (InputStream is = fetcher.fetch(fetchKey, start, start + length - 1, metadata,
+                parseContext)) {
+            //don't read more than was asked for if the range was ignored
+            read = IOUtils.read(is, bytes);
+        } catch (IOException e) {
+            //so that callers can tell a failed fetch from a failed detection
+            throw new TikaException("Couldn't fetch bytes " + start + "-" +
+                    (start + length - 1) + " of " + fetchKey, e);
+        }
+        return read < length ? Arrays.copyOf(bytes, read) : bytes;
+    }
+
+    private static long getTotalLength(Metadata metadata) {
+        String totalLength = metadata.get(RangeFetcher.TOTAL_LENGTH);
+        if (StringUtils.isBlank(totalLength)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(totalLength);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void write(FileChannel channel, byte[] bytes, long position)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * The detected type, and whether it was detected from only part of the
+     * document.
+     */
+    public static class Result {
+
+        private final MediaType mediaType;
+
+        private final boolean truncated;
+
+        public Result(MediaType mediaType, boolean truncated) {
+            this.mediaType = mediaType;
+            this.truncated = truncated;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * @return <code>true</code> if the document was longer than the
+         * budget, so that the detector didn't see all of it
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public String toString() {
+            return mediaType + (truncated ? " (truncated)" : "");
+        }
+    }
+}
@@ -17,10 +17,15 @@
 
 package org.apache.tika.detect;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import javax.imageio.spi.ServiceRegistry;
 
 import org.apache.tika.config.ServiceLoader;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 
 /**
  * A composite encoding detector based on all the {@link EncodingDetector} implementations
@@ -32,23 +37,46 @@ import org.apache.tika.config.ServiceLoader;
  * If you need to control the order of the Detectors, you should instead
  * construct your own {@link CompositeDetector} and pass in the list
  * of Detectors in the required order.
+ * <p>
+ * Before any of those, the {@link Utf8EncodingDetector} checks whether the
+ * input is valid UTF-8 with multi-byte sequences and doesn't declare another
+ * charset, in which case the other detectors aren't run.  Exclude the {@link Utf8EncodingDetector} to always
+ * run all of them.
  *
  * @since Apache Tika 1.15
  */
 public class DefaultEncodingDetector extends CompositeEncodingDetector {
 
+    private final Utf8EncodingDetector utf8EncodingDetector;
+
     public DefaultEncodingDetector() {
         this(new ServiceLoader(DefaultEncodingDetector.class.getClassLoader()));
     }
 
     public DefaultEncodingDetector(ServiceLoader loader) {
         super(loader.loadServiceProviders(EncodingDetector.class));
+        utf8EncodingDetector = new Utf8EncodingDetector();
     }
 
     public DefaultEncodingDetector(ServiceLoader loader,
                                    Collection<Class<? extends EncodingDetector>>
                                            excludeEncodingDetectors) {
         super(loader.loadServiceProviders(EncodingDetector.class), excludeEncodingDetectors);
+        utf8EncodingDetector = excludeEncodingDetectors.contains(Utf8EncodingDetector.class) ?
+                null : new Utf8EncodingDetector();
     }
 
+    @Override
+    public Charset detect(InputStream input, Metadata metadata) throws IOException {
+        if (utf8EncodingDetector != null) {
+            Charset detected = utf8EncodingDetector.detect(input, metadata);
+            if (detected != null) {
+                metadata.set(TikaCoreProperties.DETECTED_ENCODING, detected.name());
+                metadata.set(TikaCoreProperties.ENCODING_DETECTOR,
+                        Utf8EncodingDetector.class.getSimpleName());
+                return detected;
+            }
+        }
+        return super.detect(input, metadata);
+    }
 }
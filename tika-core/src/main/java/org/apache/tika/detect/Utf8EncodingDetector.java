@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.detect;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.tika.config.Field;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+
+/**
+ * Encoding detector that validates the start of the stream as UTF-8.
+ * It returns UTF-8 only if the bytes contain at least one multi-byte
+ * sequence and no invalid sequences.  Anything else, including pure ASCII,
+ * is left to other detectors.
+ * <p>
+ * Valid multi-byte UTF-8 sequences hardly ever occur by chance in text in
+ * other encodings, so this is a cheap and reliable first stage in front of
+ * the statistical detectors (see {@link DefaultEncodingDetector}).
+ * <p>
+ * A declared charset other than UTF-8 takes precedence, so this detector
+ * returns <code>null</code> if {@link Metadata#CONTENT_ENCODING} or the
+ * charset parameter of {@link Metadata#CONTENT_TYPE} names one, or if the
+ * start of the stream has a <code>charset=</code> or <code>encoding=</code>
+ * declaration, e.g. in an html meta tag or an xml declaration.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class Utf8EncodingDetector implements EncodingDetector {
+
+    private static final int DEFAULT_MARK_LIMIT = 12000;
+
+    private static final byte[] CHARSET = "charset".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] ENCODING = "encoding".getBytes(StandardCharsets.US_ASCII);
+
+    static final int INVALID = -1;
+
+    static final int ASCII = 0;
+
+    static final int MULTI_BYTE = 1;
+
+    private int markLimit = DEFAULT_MARK_LIMIT;
+
+    @Override
+    public Charset detect(InputStream input, Metadata metadata) throws IOException {
+        if (input == null) {
+            return null;
+        }
+        byte[] buffer = new byte[markLimit];
+        int length;
+        input.mark(markLimit);
+        try {
+            length = IOUtils.read(input, buffer);
+        } finally {
+            input.reset();
+        }
+        //a sequence may have been cut off at the mark limit
+        if (validate(buffer, 0, length, length == markLimit) == MULTI_BYTE &&
+                !declaresOtherCharset(metadata) && !declaresOtherCharset(buffer, length)) {
+            return StandardCharsets.UTF_8;
+        }
+        return null;
+    }
+
+    private static boolean declaresOtherCharset(Metadata metadata) {
+        if (metadata == null) {
+            return false;
+        }
+        String contentEncoding = metadata.get(Metadata.CONTENT_ENCODING);
+        if (contentEncoding != null && !isUtf8(contentEncoding)) {
+            return true;
+        }
+        String contentType = metadata.get(Metadata.CONTENT_TYPE);
+        if (contentType != null) {
+            MediaType mediaType = MediaType.parse(contentType);
+            String charset = mediaType == null ? null : mediaType.getParameters().get("charset");
+            return charset != null && !isUtf8(charset);
+        }
+        return false;
+    }
+
+    /**
+     * Looks for <code>charset=</code> and <code>encoding=</code> in the
+     * bytes.  Anything that looks like a declaration counts; if it isn't
+     * one, the other detectors are run needlessly, but get it right.
+     */
+    static boolean declaresOtherCharset(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            int end = -1;
+            if (matches(bytes, length, i, CHARSET)) {
+                end = i + CHARSET.length;
+            } else if (matches(bytes, length, i, ENCODING)) {
+                end = i + ENCODING.length;
+            }
+            if (end < 0) {
+                continue;
+            }
+            int j = skipSpaces(bytes, length, end);
+            if (j >= length || bytes[j] != '=') {
+                continue;
+            }
+            j = skipSpaces(bytes, length, j + 1);
+            if (j < length && (bytes[j] == '"' || bytes[j] == '\'')) {
+                j++;
+            }
+            int start = j;
+            while (j < length && isNameChar(bytes[j])) {
+                j++;
+            }
+            if (!isUtf8(new String(bytes, start, j - start, StandardCharsets.US_ASCII))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] bytes, int length, int offset, byte[] lowerCase) {
+        if (offset + lowerCase.length > length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length; i++) {
+            int b = bytes[offset + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerCase[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(byte[] bytes, int length, int offset) {
+        while (offset < length && (bytes[offset] == ' ' || bytes[offset] == '\t' ||
+                bytes[offset] == '\r' || bytes[offset] == '\n')) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static boolean isNameChar(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') ||
+                b == '-' || b == '_' || b == '.' || b == ':';
+    }
+
+    private static boolean isUtf8(String charset) {
+        String name = charset.trim();
+        return name.equalsIgnoreCase("UTF-8") || name.equalsIgnoreCase("UTF8");
+    }
+
+    /**
+     * Validates UTF-8 per RFC 3629, i.e. overlong encodings, surrogates and
+     * code points above U+10FFFF are invalid.
+     *
+     * @param bytes the bytes to validate
+     * @param offset where to start
+     * @param length number of bytes to validate
+     * @param truncated whether the bytes may end in the middle of a sequence
+     * @return {@link #INVALID}, {@link #ASCII} if there are only single byte
+     * characters, or {@link #MULTI_BYTE}
+     */
+    static int validate(byte[] bytes, int offset, int length, boolean truncated) {
+        int end = offset + length;
+        int i = offset;
+        int result = ASCII;
+        while (i < end) {
+            //skip ASCII eight bytes at a time
+            while (i + 8 <= end && (bytes[i] | bytes[i + 1] | bytes[i + 2] | bytes[i + 3] |
+                    bytes[i + 4] | bytes[i + 5] | bytes[i + 6] | bytes[i + 7]) >= 0) {
+                i += 8;
+            }
+            if (i >= end) {
+                break;
+            }
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            int trailing;
+            //allowed range of the second byte
+            int min = 0x80;
+            int max = 0xBF;
+            if (b >= 0xC2 && b <= 0xDF) {
+                trailing = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                trailing = 2;
+                if (b == 0xE0) {
+                    //overlong
+                    min = 0xA0;
+                } else if (b == 0xED) {
+                    //surrogates
+                    max = 0x9F;
+                }
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                trailing = 3;
+                if (b == 0xF0) {
+                    //overlong
+                    min = 0x90;
+                } else if (b == 0xF4) {
+                    //above U+10FFFF
+                    max = 0x8F;
+                }
+            } else {
+                return INVALID;
+            }
+            for (int j = 1; j <= trailing; j++) {
+                if (i + j >= end) {
+                    return truncated ? result : INVALID;
+                }
+                int next = bytes[i + j] & 0xFF;
+                if (j == 1 ? next < min || next > max : next < 0x80 || next > 0xBF) {
+                    return INVALID;
+                }
+            }
+            result = MULTI_BYTE;
+            i += trailing + 1;
+        }
+        return result;
+    }
+
+    public int getMarkLimit() {
+        return markLimit;
+    }
+
+    /**
+     * How far into the stream to read for validation.
+     * Default is 12000.
+     *
+     * @param markLimit
+     */
+    @Field
+    public void setMarkLimit(int markLimit) {
+        this.markLimit = markLimit;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.extractor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.exception.CorruptedFileException;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.DeferrableEmbeddedParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+
+/**
+ * Embedded document extractor that spools each embedded document and parses
+ * it on a bounded thread pool while the container keeps parsing.
+ * <p>
+ * This only works with the {@link org.apache.tika.parser.RecursiveParserWrapper},
+ * where each embedded document gets its own handler.  The wrapper reports
+ * the embedded documents in the same order and with the same embedded ids
+ * as an inline parse, and it applies the maximum embedded resources,
+ * the maximum depth and the total write limit when it reports them.  Embedded
+ * documents within an embedded document that is parsed concurrently are parsed
+ * inline on that document's thread. Without the wrapper, this falls back to
+ * parsing inline like the {@link ParsingEmbeddedDocumentExtractor}.
+ * <p>
+ * With a total write limit, which embedded document is truncated may vary from
+ * run to run, and unnamed embedded documents (<code>embedded-N</code>) may be
+ * numbered in a different order in their embedded resource paths.
+ */
+public class ConcurrentParsingEmbeddedDocumentExtractor extends ParsingEmbeddedDocumentExtractor {
+
+    private final ExecutorService executorService;
+
+    private final int maxPending;
+
+    private final int spoolToMemoryThreshold;
+
+    //deferred parses that have been submitted by this extractor, oldest first
+    private final Deque<Future<?>> pending = new ArrayDeque<>();
+
+    /**
+     * @param context                the container's parse context
+     * @param executorService        executor to parse the embedded documents on
+     * @param maxPending             maximum number of embedded documents that may be
+     *                               spooled or parsing but not yet reported
+     * @param spoolToMemoryThreshold embedded documents up to this many bytes are
+     *                               held in memory, larger ones are spooled to disk
+     */
+    public ConcurrentParsingEmbeddedDocumentExtractor(ParseContext context,
+                                                      ExecutorService executorService,
+                                                      int maxPending,
+                                                      int spoolToMemoryThreshold) {
+        super(context);
+        this.executorService = executorService;
+        this.maxPending = maxPending;
+        this.spoolToMemoryThreshold = spoolToMemoryThreshold;
+    }
+
+    @Override
+    public void parseEmbedded(TikaInputStream tis, ContentHandler handler, Metadata metadata,
+                              boolean outputHtml) throws SAXException, IOException {
+        Parser parser = context.get(Parser.class);
+        if (!(parser instanceof DeferrableEmbeddedParser)) {
+            super.parseEmbedded(tis, handler, metadata, outputHtml);
+            return;
+        }
+        awaitCapacity();
+        DeferrableEmbeddedParser.DeferredParse deferredParse =
+                ((DeferrableEmbeddedParser) parser).defer(context);
+        if (deferredParse == null) {
+            super.parseEmbedded(tis, handler, metadata, outputHtml);
+            return;
+        }
+        //embedded documents within this one are parsed inline on the worker thread
+        ParsingEmbeddedDocumentExtractor inlineExtractor =
+                new ParsingEmbeddedDocumentExtractor(deferredParse.getParseContext());
+        inlineExtractor.setWriteFileNameToContent(isWriteFileNameToContent());
+        deferredParse.getParseContext().set(EmbeddedDocumentExtractor.class, inlineExtractor);
+
+        TemporaryResources tmp = new TemporaryResources();
+        TikaInputStream spooled;
+        try {
+            spooled = spool(tis, tmp);
+        } catch (IOException | RuntimeException e) {
+            tmp.close();
+            deferredParse.complete(null);
+            throw e;
+        }
+        startEntry(handler, metadata, outputHtml);
+        try {
+            pending.add(executorService.submit(() -> parseDeferred(deferredParse, spooled,
+                    metadata, tmp)));
+        } catch (RejectedExecutionException e) {
+            //e.g. the executor has been shutdown
+            parseDeferred(deferredParse, spooled, metadata, tmp);
+        }
+        endEntry(handler, outputHtml);
+    }
+
+    private void parseDeferred(DeferrableEmbeddedParser.DeferredParse deferredParse,
+                               TikaInputStream tis, Metadata metadata, TemporaryResources tmp) {
+        ParseContext parseContext = deferredParse.getParseContext();
+        Throwable t = null;
+        try {
+            deferredParse.getParser()
+                    .parse(tis, new DefaultHandler(), metadata, parseContext);
+        } catch (CorruptedFileException e) {
+            //necessary to stop the parse to avoid infinite loops
+            //on corrupt sqlite3 files
+            t = new IOException(e);
+        } catch (TikaException e) {
+            recordException(e, parseContext);
+        } catch (Throwable e) {
+            t = e;
+        } finally {
+            try {
+                tis.close();
+                tmp.close();
+            } catch (IOException e) {
+                //swallow
+            }
+            deferredParse.complete(t);
+        }
+    }
+
+    /**
+     * Waits until fewer than maxPending deferred parses submitted by this
+     * extractor are outstanding.  The oldest are awaited first because they
+     * have to be reported first.
+     */
+    private void awaitCapacity() throws IOException {
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            pending.poll();
+        }
+        while (pending.size() >= maxPending) {
+            try {
+                pending.poll().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for an embedded document", e);
+            } catch (ExecutionException e) {
+                //parseDeferred doesn't throw, failures are reported via the deferred parse
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * The container stream moves on as soon as this returns, so the embedded
+     * document has to be copied.  Small documents are held in memory.
+     */
+    private TikaInputStream spool(TikaInputStream tis, TemporaryResources tmp)
+            throws IOException {
+        UnsynchronizedByteArrayOutputStream bos = UnsynchronizedByteArrayOutputStream.builder().get();
+        IOUtils.copyLarge(tis, bos, 0, spoolToMemoryThreshold + 1L);
+        if (bos.size() <= spoolToMemoryThreshold) {
+            return TikaInputStream.get(bos.toByteArray());
+        }
+        Path path = tmp.createTempFile();
+        try (OutputStream os = Files.newOutputStream(path)) {
+            bos.writeTo(os);
+            IOUtils.copyLarge(tis, os);
+        }
+        return TikaInputStream.get(path);
+    }
+}
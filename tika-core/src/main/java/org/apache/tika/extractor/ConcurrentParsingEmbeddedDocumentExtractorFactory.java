@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.extractor;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tika.config.Field;
+import org.apache.tika.exception.TikaConfigException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+
+/**
+ * Factory for {@link ConcurrentParsingEmbeddedDocumentExtractor}.  All extractors
+ * from one factory share a single pool of daemon threads.  Threads that have
+ * been idle for a minute exit, and {@link #close()} shuts the pool down.
+ */
+public class ConcurrentParsingEmbeddedDocumentExtractorFactory
+        implements EmbeddedDocumentExtractorFactory, Closeable {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private boolean writeFileNameToContent = true;
+
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    private int maxPending = -1;
+
+    private int spoolToMemoryThreshold = 1024 * 1024;
+
+    private transient ExecutorService executorService;
+
+    @Field
+    public void setWriteFileNameToContent(boolean writeFileNameToContent) {
+        this.writeFileNameToContent = writeFileNameToContent;
+    }
+
+    /**
+     * Number of threads to parse embedded documents on.  The default
+     * is the number of available processors.
+     *
+     * @param numThreads
+     */
+    @Field
+    public void setNumThreads(int numThreads) throws TikaConfigException {
+        if (numThreads < 1) {
+            throw new TikaConfigException("numThreads must be > 0");
+        }
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Maximum number of embedded documents per container that may be spooled or
+     * parsing but not yet reported.  The default is twice the number of threads.
+     *
+     * @param maxPending
+     */
+    @Field
+    public void setMaxPending(int maxPending) throws TikaConfigException {
+        if (maxPending < 1) {
+            throw new TikaConfigException("maxPending must be > 0");
+        }
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Embedded documents up to this many bytes are held in memory while
+     * they wait to be parsed, larger ones are spooled to disk.
+     *
+     * @param spoolToMemoryThreshold
+     */
+    @Field
+    public void setSpoolToMemoryThreshold(int spoolToMemoryThreshold) throws TikaConfigException {
+        if (spoolToMemoryThreshold < 0) {
+            throw new TikaConfigException("spoolToMemoryThreshold must be >= 0");
+        }
+        this.spoolToMemoryThreshold = spoolToMemoryThreshold;
+    }
+
+    @Override
+    public EmbeddedDocumentExtractor newInstance(Metadata metadata, ParseContext parseContext) {
+        ConcurrentParsingEmbeddedDocumentExtractor ex =
+                new ConcurrentParsingEmbeddedDocumentExtractor(parseContext,
+                        getExecutorService(), maxPending > 0 ? maxPending : 2 * numThreads,
+                        spoolToMemoryThreshold);
+        ex.setWriteFileNameToContent(writeFileNameToContent);
+        return ex;
+    }
+
+    /**
+     * Shuts down the thread pool.  Extractors that are still in use parse
+     * any further embedded documents inline.  A later call to
+     * {@link #newInstance(Metadata, ParseContext)} starts a new pool.
+     */
+    @Override
+    public synchronized void close() {
+        if (executorService != null) {
+            executorService.shutdown();
+            executorService = null;
+        }
+    }
+
+    private synchronized ExecutorService getExecutorService() {
+        if (executorService == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r,
+                                "tika-embedded-parser-" + THREAD_COUNTER.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            executorService = executor;
+        }
+        return executorService;
+    }
+}
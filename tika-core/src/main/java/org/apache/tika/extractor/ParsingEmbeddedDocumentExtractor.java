@@ -81,19 +81,7 @@ public class ParsingEmbeddedDocumentExtractor implements EmbeddedDocumentExtract
     public void parseEmbedded(
             TikaInputStream tis, ContentHandler handler, Metadata metadata, boolean outputHtml)
             throws SAXException, IOException {
-        if (outputHtml) {
-            AttributesImpl attributes = new AttributesImpl();
-            attributes.addAttribute("", "class", "class", "CDATA", "package-entry");
-            handler.startElement(XHTML, "div", "div", attributes);
-        }
-
-        String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
-        if (writeFileNameToContent && name != null && name.length() > 0 && outputHtml) {
-            handler.startElement(XHTML, "h1", "h1", new AttributesImpl());
-            char[] chars = name.toCharArray();
-            handler.characters(chars, 0, chars.length);
-            handler.endElement(XHTML, "h1", "h1");
-        }
+        startEntry(handler, metadata, outputHtml);
 
         // Use the delegate parser to parse this entry
         try {
@@ -112,6 +100,27 @@ public class ParsingEmbeddedDocumentExtractor implements EmbeddedDocumentExtract
             tis.removeCloseShield();
         }
 
+        endEntry(handler, outputHtml);
+    }
+
+    void startEntry(ContentHandler handler, Metadata metadata, boolean outputHtml)
+            throws SAXException {
+        if (outputHtml) {
+            AttributesImpl attributes = new AttributesImpl();
+            attributes.addAttribute("", "class", "class", "CDATA", "package-entry");
+            handler.startElement(XHTML, "div", "div", attributes);
+        }
+
+        String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
+        if (writeFileNameToContent && name != null && name.length() > 0 && outputHtml) {
+            handler.startElement(XHTML, "h1", "h1", new AttributesImpl());
+            char[] chars = name.toCharArray();
+            handler.characters(chars, 0, chars.length);
+            handler.endElement(XHTML, "h1", "h1");
+        }
+    }
+
+    void endEntry(ContentHandler handler, boolean outputHtml) throws SAXException {
         if (outputHtml) {
             handler.endElement(XHTML, "div", "div");
         }
@@ -16,8 +16,6 @@
  */
 package org.apache.tika.fork;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -25,14 +23,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.NotSerializableException;
+import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
-import java.util.zip.ZipEntry;
+import java.util.jar.Manifest;
 
 import org.apache.commons.io.IOUtils;
 import org.xml.sax.ContentHandler;
@@ -51,6 +52,11 @@ class ForkClient {
 
     private final File jar;
 
+    /**
+     * Whether the bootstrap jar was created by this client and is deleted on close
+     */
+    private final boolean ownsJar;
+
     private final Process process;
 
     private final DataOutputStream output;
@@ -62,6 +68,18 @@ class ForkClient {
 
     private volatile int filesProcessed = 0;
 
+    private final long createdNanos = System.nanoTime();
+
+    private volatile long startupNanos = -1;
+
+    private volatile long totalCallNanos = 0;
+
+    private volatile long maxCallNanos = 0;
+
+    private volatile double heapUsedFraction = -1;
+
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+
     public ForkClient(Path tikaDir, ParserFactoryFactory parserFactoryFactory, List<String> java,
                       TimeoutLimits timeoutLimits) throws IOException, TikaException {
         this(tikaDir, parserFactoryFactory, null, java, timeoutLimits);
@@ -82,6 +100,7 @@ class ForkClient {
                       ClassLoader classLoader, List<String> java, TimeoutLimits timeoutLimits)
             throws IOException, TikaException {
         jar = null;
+        ownsJar = false;
         loader = null;
         boolean ok = false;
         ProcessBuilder builder = new ProcessBuilder();
@@ -119,6 +138,7 @@ class ForkClient {
                 sendObject(classLoader, resources);
             }
             waitForStartBeacon();
+            startupNanos = System.nanoTime() - createdNanos;
             ok = true;
         } catch (Throwable t) {
             t.printStackTrace();
@@ -133,10 +153,27 @@ class ForkClient {
 
     public ForkClient(ClassLoader loader, Object object, List<String> java,
                       TimeoutLimits timeoutLimits) throws IOException, TikaException {
+        this(loader, object, null, java, timeoutLimits);
+    }
+
+    /**
+     * @param loader        class loader to send to the forked process
+     * @param object        parser to send to the forked process
+     * @param bootstrapJar  jar created by {@link #createBootstrapJar(List)} that is shared
+     *                      with other clients and not deleted by this one, or
+     *                      <code>null</code> to create one for this client
+     * @param java          java commandline to use for the commandline server
+     * @throws IOException
+     * @throws TikaException
+     */
+    public ForkClient(ClassLoader loader, Object object, File bootstrapJar, List<String> java,
+                      TimeoutLimits timeoutLimits) throws IOException, TikaException {
         boolean ok = false;
+        this.ownsJar = bootstrapJar == null;
         try {
             this.loader = loader;
-            this.jar = createBootstrapJar();
+            this.jar = bootstrapJar != null ? bootstrapJar :
+                    createBootstrapJar(Collections.emptyList());
 
             ProcessBuilder builder = new ProcessBuilder();
             List<String> command = new ArrayList<>(java);
@@ -158,6 +195,7 @@ class ForkClient {
             sendObject(loader, resources);
             sendObject(object, resources);
             waitForStartBeacon();
+            startupNanos = System.nanoTime() - createdNanos;
 
             ok = true;
         } finally {
@@ -170,15 +208,20 @@ class ForkClient {
     /**
      * Creates a temporary jar file that can be used to bootstrap the forked
      * server process. Remember to remove the file when no longer used.
+     * <p>
+     * If a class path is given, it is added to the jar's manifest, and the
+     * forked process loads the classes and resources it finds there from
+     * the file system instead of requesting them one by one from this process.
      *
+     * @param classPath jars and directories for the manifest's Class-Path
      * @return the created jar file
      * @throws IOException if the bootstrap archive could not be created
      */
-    private static File createBootstrapJar() throws IOException {
+    static File createBootstrapJar(List<URL> classPath) throws IOException {
         File file = Files.createTempFile("apache-tika-fork-", ".jar").toFile();
         boolean ok = false;
         try {
-            fillBootstrapJar(file);
+            fillBootstrapJar(file, classPath);
             ok = true;
         } finally {
             if (!ok) {
@@ -193,15 +236,26 @@ class ForkClient {
      * All the required <code>.class</code> files and a manifest with a
      * <code>Main-Class</code> entry are written into the archive.
      *
-     * @param file file to hold the bootstrap archive
+     * @param file      file to hold the bootstrap archive
+     * @param classPath jars and directories for the manifest's Class-Path
      * @throws IOException if the bootstrap archive could not be created
      */
-    private static void fillBootstrapJar(File file) throws IOException {
-        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(file))) {
-            String manifest = "Main-Class: " + ForkServer.class.getName() + "\n";
-            jar.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
-            jar.write(manifest.getBytes(UTF_8));
-
+    private static void fillBootstrapJar(File file, List<URL> classPath) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(Attributes.Name.MAIN_CLASS, ForkServer.class.getName());
+        if (!classPath.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (URL url : classPath) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(url.toExternalForm());
+            }
+            attributes.put(Attributes.Name.CLASS_PATH, sb.toString());
+        }
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(file), manifest)) {
             Class<?>[] bootstrap = {ForkServer.class, ForkObjectInputStream.class, ForkProxy.class,
                     ClassLoaderProxy.class, MemoryURLConnection.class, MemoryURLStreamHandler.class,
                     MemoryURLStreamHandlerFactory.class, MemoryURLStreamRecord.class,
@@ -251,19 +305,62 @@ class ForkClient {
     public synchronized Throwable call(String method, Object... args)
             throws IOException, TikaException {
         filesProcessed++;
-        List<ForkResource> r = new ArrayList<>(resources);
-        output.writeByte(ForkServer.CALL);
-        output.writeUTF(method);
-        for (Object arg : args) {
-            sendObject(arg, r);
+        long start = System.nanoTime();
+        try {
+            List<ForkResource> r = new ArrayList<>(resources);
+            output.writeByte(ForkServer.CALL);
+            output.writeUTF(method);
+            for (Object arg : args) {
+                sendObject(arg, r);
+            }
+            return waitForResponse(r);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            totalCallNanos += elapsed;
+            maxCallNanos = Math.max(maxCallNanos, elapsed);
+        }
+    }
+
+    /**
+     * Asks the server how much of its maximum heap is in use.  The server
+     * must be from a Tika version that understands {@link ForkServer#HEAP_USAGE}.
+     *
+     * @return the fraction of the max heap that is used, or -1 if the
+     * server couldn't be reached
+     */
+    public synchronized double updateHeapUsedFraction() {
+        try {
+            output.writeByte(ForkServer.HEAP_USAGE);
+            output.flush();
+            if (input.read() != ForkServer.HEAP_USAGE) {
+                return -1;
+            }
+            long used = input.readLong();
+            long max = input.readLong();
+            heapUsedFraction = max > 0 ? (double) used / max : -1;
+            return heapUsedFraction;
+        } catch (IOException e) {
+            return -1;
         }
-        return waitForResponse(r);
     }
 
     public int getFilesProcessed() {
         return filesProcessed;
     }
 
+    long getLastUsedMillis() {
+        return lastUsedMillis;
+    }
+
+    void setLastUsedMillis(long lastUsedMillis) {
+        this.lastUsedMillis = lastUsedMillis;
+    }
+
+    ForkClientStatistics getStatistics() {
+        return new ForkClientStatistics(id, filesProcessed, startupNanos / 1_000_000,
+                totalCallNanos / 1_000_000, maxCallNanos / 1_000_000, heapUsedFraction);
+    }
+
     /**
      * Serializes the object first into an in-memory buffer and then
      * writes it to the output stream with a preceding size integer.
@@ -322,7 +419,7 @@ class ForkClient {
                 //swallow
             }
         }
-        if (jar != null) {
+        if (jar != null && ownsJar) {
             jar.delete();
         }
     }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.fork;
+
+import java.util.Locale;
+
+/**
+ * Snapshot of the work done by one of the processes of a {@link ForkParser}.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class ForkClientStatistics {
+
+    private final int clientId;
+
+    private final int filesProcessed;
+
+    private final long startupMillis;
+
+    private final long totalParseMillis;
+
+    private final long maxParseMillis;
+
+    private final double heapUsedFraction;
+
+    public ForkClientStatistics(int clientId, int filesProcessed, long startupMillis,
+                                long totalParseMillis, long maxParseMillis,
+                                double heapUsedFraction) {
+        this.clientId = clientId;
+        this.filesProcessed = filesProcessed;
+        this.startupMillis = startupMillis;
+        this.totalParseMillis = totalParseMillis;
+        this.maxParseMillis = maxParseMillis;
+        this.heapUsedFraction = heapUsedFraction;
+    }
+
+    public int getClientId() {
+        return clientId;
+    }
+
+    public int getFilesProcessed() {
+        return filesProcessed;
+    }
+
+    /**
+     * @return milliseconds it took to start the process and initialize
+     * its parser, or -1 if it hasn't finished starting
+     */
+    public long getStartupMillis() {
+        return startupMillis;
+    }
+
+    public long getTotalParseMillis() {
+        return totalParseMillis;
+    }
+
+    public long getMeanParseMillis() {
+        return filesProcessed == 0 ? 0 : totalParseMillis / filesProcessed;
+    }
+
+    public long getMaxParseMillis() {
+        return maxParseMillis;
+    }
+
+    /**
+     * @return fraction of the max heap that the process reported in use
+     * after its last garbage collection, as of its last parse, or -1 if it
+     * hasn't been asked
+     */
+    public double getHeapUsedFraction() {
+        return heapUsedFraction;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "ForkClientStatistics{clientId=%d, filesProcessed=%d, startupMillis=%d, " +
+                        "meanParseMillis=%d, maxParseMillis=%d, heapUsedFraction=%.2f}",
+                clientId, filesProcessed, startupMillis, getMeanParseMillis(), maxParseMillis,
+                heapUsedFraction);
+    }
+}
@@ -17,16 +17,27 @@
 package org.apache.tika.fork;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -57,7 +68,21 @@ public class ForkParser implements Parser, Closeable {
     //of jars, not via legacy bootstrap etc.
     private final Path tikaBin;
     private final ParserFactoryFactory parserFactoryFactory;
-    private final Queue<ForkClient> pool = new LinkedList<>();
+    /**
+     * Idle clients, the most recently used first, so that the least used
+     * ones at the end are the first to reach the idle timeout.
+     */
+    private final Deque<ForkClient> pool = new ArrayDeque<>();
+    /**
+     * All clients that are started, idle or in use
+     */
+    private final Set<ForkClient> clients = ConcurrentHashMap.newKeySet();
+    private final Object bootstrapLock = new Object();
+    /**
+     * Bootstrap jar shared by the clients in the legacy mode, so it is only
+     * written once rather than for every process that is started
+     */
+    private File bootstrapJar;
     /**
      * Java command line
      */
@@ -80,6 +105,15 @@ public class ForkParser implements Parser, Closeable {
     @Field
     private int maxFilesProcessedPerClient = -1;
 
+    @Field
+    private long maxIdleMillis = -1;
+
+    @Field
+    private double maxHeapUsedFraction = -1;
+
+    @Field
+    private boolean useFileSystemClassPath = false;
+
     /**
      * If you have a directory with, say, tike-app.jar and you want the
      * forked process/server to build a parser
@@ -275,38 +309,158 @@ public class ForkParser implements Parser, Closeable {
         }
     }
 
-    public synchronized void close() {
-        for (ForkClient client : pool) {
-            client.close();
+    public void close() {
+        List<ForkClient> idle;
+        synchronized (this) {
+            idle = new ArrayList<>(pool);
+            pool.clear();
+            poolSize = 0;
+            notifyAll();
+        }
+        //clients that are in use are closed when they are released
+        closeClients(idle);
+        synchronized (bootstrapLock) {
+            if (bootstrapJar != null && !bootstrapJar.delete()) {
+                bootstrapJar.deleteOnExit();
+            }
+            bootstrapJar = null;
         }
-        pool.clear();
-        poolSize = 0;
     }
 
-    private synchronized ForkClient acquireClient() throws IOException, TikaException {
-        while (true) {
-            ForkClient client = pool.poll();
-
-            // Create a new process if there's room in the pool
-            if (client == null && currentlyInUse < poolSize) {
-                client = newClient();
+    /**
+     * Starts processes up to the pool size, so that the first parses
+     * don't have to wait for them.  The processes are started concurrently.
+     *
+     * @param numClients number of processes to start
+     * @throws IOException   if a process couldn't be started
+     * @throws TikaException if a process couldn't be started or this
+     *                       thread is interrupted
+     */
+    public void prewarm(int numClients) throws IOException, TikaException {
+        int toStart;
+        synchronized (this) {
+            toStart = Math.min(numClients, poolSize - currentlyInUse - pool.size());
+            if (toStart <= 0) {
+                return;
             }
-
-            // Ping the process, and get rid of it if it's inactive
-            if (client != null && !client.ping()) {
-                client.close();
-                client = null;
+            //reserve the slots, so that parse() doesn't start its own
+            currentlyInUse += toStart;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(toStart, r -> {
+            Thread t = new Thread(r, "fork-parser-prewarm");
+            t.setDaemon(true);
+            return t;
+        });
+        List<ForkClient> started = new ArrayList<>();
+        Throwable failure = null;
+        try {
+            List<Future<ForkClient>> futures = new ArrayList<>();
+            for (int i = 0; i < toStart; i++) {
+                futures.add(executor.submit(this::newClient));
             }
-
-            if (client != null) {
-                currentlyInUse++;
-                return client;
-            } else if (currentlyInUse >= poolSize) {
+            for (Future<ForkClient> future : futures) {
                 try {
-                    wait();
-                } catch (InterruptedException e) {
-                    throw new TikaException("Interrupted while waiting for a fork parser", e);
+                    started.add(future.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = e;
+        } finally {
+            executor.shutdownNow();
+            List<ForkClient> extra = new ArrayList<>();
+            synchronized (this) {
+                currentlyInUse -= toStart;
+                long now = System.currentTimeMillis();
+                for (ForkClient client : started) {
+                    if (currentlyInUse + pool.size() < poolSize) {
+                        client.setLastUsedMillis(now);
+                        pool.addFirst(client);
+                    } else {
+                        //closed in the meantime
+                        extra.add(client);
+                    }
                 }
+                notifyAll();
+            }
+            closeClients(extra);
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof TikaException) {
+            throw (TikaException) failure;
+        } else if (failure instanceof InterruptedException) {
+            throw new TikaException("Interrupted while starting fork parsers", failure);
+        } else if (failure != null) {
+            throw new TikaException("Unable to start fork parser", failure);
+        }
+    }
+
+    /**
+     * @return statistics for each of the processes that are currently
+     * running, ordered by client id
+     */
+    public List<ForkClientStatistics> getStatistics() {
+        List<ForkClientStatistics> statistics = new ArrayList<>();
+        for (ForkClient client : clients) {
+            statistics.add(client.getStatistics());
+        }
+        statistics.sort(Comparator.comparingInt(ForkClientStatistics::getClientId));
+        return statistics;
+    }
+
+    /**
+     * Takes an idle client or reserves a slot for a new one.  Starting and
+     * pinging the processes happens outside of the lock, so that other
+     * threads can acquire and release clients in the meantime.
+     */
+    private ForkClient acquireClient() throws IOException, TikaException {
+        while (true) {
+            ForkClient client;
+            boolean reserved = false;
+            List<ForkClient> expired;
+            synchronized (this) {
+                expired = removeExpiredClients();
+                client = pool.pollFirst();
+                if (client != null || currentlyInUse < poolSize) {
+                    currentlyInUse++;
+                    reserved = true;
+                } else if (expired.isEmpty()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        throw new TikaException("Interrupted while waiting for a fork parser", e);
+                    }
+                }
+            }
+            closeClients(expired);
+            if (!reserved) {
+                continue;
+            }
+            boolean ok = false;
+            try {
+                if (client == null) {
+                    client = newClient();
+                    ok = true;
+                } else if (client.ping()) {
+                    ok = true;
+                } else {
+                    // get rid of the inactive process and try again
+                    closeClients(Collections.singletonList(client));
+                }
+            } finally {
+                if (!ok) {
+                    synchronized (this) {
+                        currentlyInUse--;
+                        notifyAll();
+                    }
+                }
+            }
+            if (ok) {
+                return client;
             }
         }
     }
@@ -315,30 +469,117 @@ public class ForkParser implements Parser, Closeable {
         TimeoutLimits timeoutLimits = new TimeoutLimits(serverPulseMillis, serverParseTimeoutMillis,
                 serverWaitTimeoutMillis);
         if (loader == null && parser == null && tikaBin != null && parserFactoryFactory != null) {
-            return new ForkClient(tikaBin, parserFactoryFactory, java, timeoutLimits);
+            return started(new ForkClient(tikaBin, parserFactoryFactory, java, timeoutLimits));
         } else if (loader != null && parser != null && tikaBin == null &&
                 parserFactoryFactory == null) {
-            return new ForkClient(loader, parser, java, timeoutLimits);
+            return started(new ForkClient(loader, parser, getBootstrapJar(), java,
+                    timeoutLimits));
         } else if (loader != null && parser == null && tikaBin != null &&
                 parserFactoryFactory != null) {
-            return new ForkClient(tikaBin, parserFactoryFactory, loader, java, timeoutLimits);
+            return started(new ForkClient(tikaBin, parserFactoryFactory, loader, java,
+                    timeoutLimits));
         } else {
             //TODO: make this more useful
             throw new IllegalStateException("Unexpected combination of state items");
         }
     }
 
-    private synchronized void releaseClient(ForkClient client, boolean alive) {
-        currentlyInUse--;
-        if (currentlyInUse + pool.size() < poolSize && alive) {
-            if (maxFilesProcessedPerClient > 0 &&
-                    client.getFilesProcessed() >= maxFilesProcessedPerClient) {
-                client.close();
+    private File getBootstrapJar() throws IOException {
+        synchronized (bootstrapLock) {
+            if (bootstrapJar == null || !bootstrapJar.isFile()) {
+                List<URL> classPath = useFileSystemClassPath ?
+                        getFileSystemClassPath(loader) : Collections.emptyList();
+                bootstrapJar = ForkClient.createBootstrapJar(classPath);
+            }
+            return bootstrapJar;
+        }
+    }
+
+    /**
+     * Returns the local jars and directories that the loader and its
+     * parents load classes from, the system class path first.
+     */
+    static List<URL> getFileSystemClassPath(ClassLoader loader) throws IOException {
+        List<List<URL>> byLoader = new ArrayList<>();
+        ClassLoader system = ClassLoader.getSystemClassLoader();
+        for (ClassLoader l = loader; l != null; l = l.getParent()) {
+            List<URL> urls = new ArrayList<>();
+            if (l instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) l).getURLs()) {
+                    if ("file".equals(url.getProtocol())) {
+                        urls.add(url);
+                    }
+                }
+            }
+            if (l == system) {
+                String classPath = System.getProperty("java.class.path", "");
+                for (String entry : classPath.split(File.pathSeparator)) {
+                    if (!entry.isEmpty()) {
+                        urls.add(Paths.get(entry).toAbsolutePath().toUri().toURL());
+                    }
+                }
+            }
+            byLoader.add(urls);
+        }
+        //parents first, as they are asked first
+        Collections.reverse(byLoader);
+        Set<URL> classPath = new LinkedHashSet<>();
+        for (List<URL> urls : byLoader) {
+            classPath.addAll(urls);
+        }
+        return new ArrayList<>(classPath);
+    }
+
+    private ForkClient started(ForkClient client) {
+        clients.add(client);
+        return client;
+    }
+
+    private void releaseClient(ForkClient client, boolean alive) {
+        boolean recycle = !alive;
+        if (!recycle && maxFilesProcessedPerClient > 0 &&
+                client.getFilesProcessed() >= maxFilesProcessedPerClient) {
+            recycle = true;
+        }
+        if (!recycle && maxHeapUsedFraction > 0) {
+            double heapUsed = client.updateHeapUsedFraction();
+            recycle = heapUsed < 0 || heapUsed > maxHeapUsedFraction;
+        }
+        List<ForkClient> toClose;
+        synchronized (this) {
+            currentlyInUse--;
+            toClose = removeExpiredClients();
+            if (!recycle && currentlyInUse + pool.size() < poolSize) {
+                client.setLastUsedMillis(System.currentTimeMillis());
+                pool.addFirst(client);
             } else {
-                pool.offer(client);
+                toClose.add(client);
             }
             notifyAll();
-        } else {
+        }
+        closeClients(toClose);
+    }
+
+    /**
+     * Removes the clients that have been idle for longer than
+     * {@link #maxIdleMillis} from the end of the pool.  The caller has to
+     * hold the lock, and close the clients after releasing it.
+     */
+    private List<ForkClient> removeExpiredClients() {
+        List<ForkClient> expired = new ArrayList<>();
+        if (maxIdleMillis < 0) {
+            return expired;
+        }
+        long now = System.currentTimeMillis();
+        while (!pool.isEmpty() && now - pool.peekLast().getLastUsedMillis() > maxIdleMillis) {
+            expired.add(pool.pollLast());
+        }
+        return expired;
+    }
+
+    private void closeClients(List<ForkClient> toClose) {
+        for (ForkClient client : toClose) {
+            clients.remove(client);
             client.close();
         }
     }
@@ -391,4 +632,56 @@ public class ForkParser implements Parser, Closeable {
         this.maxFilesProcessedPerClient = maxFilesProcessedPerClient;
     }
 
+    /**
+     * Processes that haven't been used for longer than this are shut down
+     * the next time a parse starts or ends, instead of staying around until
+     * the server's own wait timeout.  Default value is -1, no limit.
+     *
+     * @param maxIdleMillis maximum milliseconds a process can be idle in the pool
+     */
+    public void setMaxIdleMillis(long maxIdleMillis) {
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * If set, the server is asked for its heap usage after each parse, and
+     * it is shut down and restarted when more than this fraction of its
+     * max heap was still in use after the last garbage collection.  This
+     * catches leaking parsers earlier than
+     * {@link #setMaxFilesProcessedPerServer(int)} when the files differ
+     * a lot in size.
+     * <p>
+     * The server has to support the {@link ForkServer#HEAP_USAGE} request,
+     * which was added in Tika 4.0.0.  An older server fails on the request,
+     * so its process is restarted after every parse.  Default value is -1,
+     * never check.
+     *
+     * @param maxHeapUsedFraction fraction of the max heap, between 0 and 1
+     */
+    public void setMaxHeapUsedFraction(double maxHeapUsedFraction) {
+        this.maxHeapUsedFraction = maxHeapUsedFraction;
+    }
+
+    /**
+     * Only used with a {@link ClassLoader} and {@link Parser}, not with a
+     * tika bin directory, which always uses the file system.
+     * <p>
+     * By default, the forked process asks this process for every class and
+     * resource it needs, one at a time over the pipe, which makes starting
+     * a process with many parsers slow.  If this is set, the jars and
+     * directories of the class loader (and the system class path) are
+     * listed in the manifest of the bootstrap jar, and the forked process
+     * loads what it finds there directly from the file system.  Only
+     * classes that aren't available locally are still sent over the pipe.
+     * <p>
+     * This has to be set before the first process is started.  Default is
+     * <code>false</code>.
+     *
+     * @param useFileSystemClassPath whether the forked process should load
+     *                               classes from the file system
+     */
+    public void setUseFileSystemClassPath(boolean useFileSystemClassPath) {
+        this.useFileSystemClassPath = useFileSystemClassPath;
+    }
+
 }
@@ -23,6 +23,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.NotSerializableException;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
@@ -51,6 +55,8 @@ class ForkServer implements Runnable {
     public static final byte INIT_PARSER_FACTORY_FACTORY = 6;
     public static final byte INIT_LOADER_PARSER = 7;
     public static final byte INIT_PARSER_FACTORY_FACTORY_LOADER = 8;
+    //reply is followed by the used and the max heap in bytes
+    public static final byte HEAP_USAGE = 9;
     private final Object[] lock = new Object[0];
     /**
      * Input stream for reading from the parent process
@@ -167,6 +173,10 @@ class ForkServer implements Runnable {
                     output.writeByte(PING);
                 } else if (request == CALL) {
                     call(classLoader, parser);
+                } else if (request == HEAP_USAGE) {
+                    output.writeByte(HEAP_USAGE);
+                    output.writeLong(getHeapUsedAfterCollection());
+                    output.writeLong(Runtime.getRuntime().maxMemory());
                 } else {
                     throw new IllegalStateException("Unexpected request");
                 }
@@ -178,6 +188,32 @@ class ForkServer implements Runnable {
         System.err.flush();
     }
 
+    /**
+     * Returns the heap that was in use right after the last collection of
+     * each heap pool, so that garbage that hasn't been collected yet isn't
+     * counted.  Pools that haven't been collected yet count as empty.
+     * Falls back to the current usage if the JVM doesn't report the usage
+     * after collections.
+     */
+    static long getHeapUsedAfterCollection() {
+        long used = 0;
+        boolean supported = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                    supported = true;
+                }
+            }
+        }
+        if (!supported) {
+            Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+        return used;
+    }
+
     private void initializeParserAndLoader()
             throws IOException, ClassNotFoundException, TikaException, SAXException {
         output.writeByte(READY);
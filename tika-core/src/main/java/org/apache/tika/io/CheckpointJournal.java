@@ -0,0 +1,621 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * On-disk journal of the ids of completed work, so that a batch job that is
+ * restarted after a crash can skip what it has already done.
+ * <p>
+ * Ids are appended to a log as they are added.  When the log holds
+ * {@link #setMaxBufferedIds(int)} ids, and whenever the journal is opened,
+ * the logged ids are written out in sorted order as an immutable segment
+ * file, and the segments are merged into one once there are more than a
+ * few of them.  A bloom filter over all ids answers most lookups of new ids
+ * without touching the disk.  Otherwise, each segment is searched with a
+ * sparse in-memory index of its ids and a single small read.
+ * <p>
+ * The log is flushed on every add, so the ids survive a crash of the JVM,
+ * but not necessarily of the operating system.  Only one journal at a time
+ * can have a directory open.  This class is thread safe.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class CheckpointJournal implements Closeable {
+
+    static final String LOG_FILE = "checkpoint.log";
+
+    static final String SEGMENT_PREFIX = "segment-";
+
+    static final String SEGMENT_SUFFIX = ".ids";
+
+    static final int MAX_SEGMENTS = 8;
+
+    private static final String LOCK_FILE = "checkpoint.lock";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    //one in this many ids of a segment is kept in its index
+    private static final int INDEX_INTERVAL = 64;
+
+    private static final int MAX_ID_BYTES = 1024 * 1024;
+
+    private static final int DEFAULT_MAX_BUFFERED_IDS = 100000;
+
+    private static final long MIN_BLOOM_FILTER_CAPACITY = 1 << 20;
+
+    private final Path directory;
+
+    private final FileChannel lockChannel;
+
+    private final FileLock lock;
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    private final Set<String> buffered = new HashSet<>();
+
+    private int maxBufferedIds = DEFAULT_MAX_BUFFERED_IDS;
+
+    private DataOutputStream log;
+
+    private BloomFilter bloomFilter;
+
+    private long size = 0;
+
+    private long nextSegment = 0;
+
+    private boolean closed = false;
+
+    private CheckpointJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        }
+        lock = fileLock;
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("Checkpoint journal is already open: " + directory);
+        }
+        try {
+            loadSegments();
+            List<byte[]> logged = readLog();
+            if (!logged.isEmpty()) {
+                writeSegment(logged);
+            }
+            Files.deleteIfExists(directory.resolve(LOG_FILE));
+            if (segments.size() > MAX_SEGMENTS) {
+                merge();
+            }
+            rebuildBloomFilter();
+            log = openLog();
+        } catch (IOException e) {
+            closeSegments();
+            lock.release();
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the journal in a directory, creating the directory if
+     * it doesn't exist yet.
+     *
+     * @param directory directory for the journal's files
+     * @return the journal
+     * @throws IOException if the journal can't be read, or if it is already
+     *                     open in this or another process
+     */
+    public static CheckpointJournal open(Path directory) throws IOException {
+        return new CheckpointJournal(directory);
+    }
+
+    /**
+     * Records an id.
+     *
+     * @param id id of the completed work
+     * @return false if the id had already been recorded
+     * @throws IOException if the id can't be written
+     */
+    public synchronized boolean add(String id) throws IOException {
+        if (contains(id)) {
+            return false;
+        }
+        byte[] key = id.getBytes(UTF_8);
+        if (key.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("id is longer than " + MAX_ID_BYTES + " bytes");
+        }
+        writeRecord(log, key);
+        log.flush();
+        buffered.add(id);
+        bloomFilter.add(key);
+        size++;
+        if (buffered.size() >= maxBufferedIds) {
+            flushBuffered();
+        } else if (size > bloomFilter.capacity) {
+            rebuildBloomFilter();
+        }
+        return true;
+    }
+
+    /**
+     * @param id id to look up
+     * @return whether the id has been recorded
+     * @throws IOException if a segment can't be read
+     */
+    public synchronized boolean contains(String id) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Checkpoint journal is closed");
+        }
+        if (buffered.contains(id)) {
+            return true;
+        }
+        byte[] key = id.getBytes(UTF_8);
+        if (!bloomFilter.mightContain(key)) {
+            return false;
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (segments.get(i).contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of ids that have been recorded
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Number of ids to collect in the log before they are written out as
+     * a sorted segment.  These ids are also kept in memory.  The default
+     * is 100000.
+     *
+     * @param maxBufferedIds maximum number of ids in the log
+     */
+    public synchronized void setMaxBufferedIds(int maxBufferedIds) {
+        this.maxBufferedIds = maxBufferedIds;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        //the log is turned into a segment the next time the journal is opened
+        try {
+            log.close();
+            closeSegments();
+        } finally {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    private void flushBuffered() throws IOException {
+        log.close();
+        List<byte[]> keys = new ArrayList<>(buffered.size());
+        for (String id : buffered) {
+            keys.add(id.getBytes(UTF_8));
+        }
+        //the ids are counted again by their segment
+        size -= buffered.size();
+        writeSegment(keys);
+        buffered.clear();
+        Files.delete(directory.resolve(LOG_FILE));
+        if (segments.size() > MAX_SEGMENTS) {
+            merge();
+        }
+        if (size > bloomFilter.capacity) {
+            rebuildBloomFilter();
+        }
+        log = openLog();
+    }
+
+    private DataOutputStream openLog() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(directory.resolve(LOG_FILE), StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Reads the ids in the log.  A record that was cut off by a crash
+     * ends the log.
+     */
+    private List<byte[]> readLog() throws IOException {
+        List<byte[]> keys = new ArrayList<>();
+        Path logFile = directory.resolve(LOG_FILE);
+        if (!Files.isRegularFile(logFile)) {
+            return keys;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(logFile)))) {
+            byte[] key = readRecord(in);
+            while (key != null) {
+                keys.add(key);
+                key = readRecord(in);
+            }
+        }
+        return keys;
+    }
+
+    private void loadSegments() throws IOException {
+        TreeMap<Long, Path> paths = new TreeMap<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(directory)) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(TMP_SUFFIX)) {
+                    //left over from a crash while writing a segment
+                    Files.delete(p);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        paths.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                name.length() - SEGMENT_SUFFIX.length())), p);
+                    } catch (NumberFormatException e) {
+                        //not ours
+                    }
+                }
+            }
+        }
+        for (Path p : paths.values()) {
+            addSegment(Segment.open(p));
+        }
+        if (!paths.isEmpty()) {
+            nextSegment = paths.lastKey() + 1;
+        }
+    }
+
+    private void addSegment(Segment segment) {
+        segments.add(segment);
+        size += segment.count;
+    }
+
+    private void writeSegment(List<byte[]> keys) throws IOException {
+        keys.sort(Arrays::compareUnsigned);
+        Path tmp = newTmpFile();
+        try (DataOutputStream out = newOutputStream(tmp)) {
+            byte[] last = null;
+            for (byte[] key : keys) {
+                if (last == null || !Arrays.equals(last, key)) {
+                    writeRecord(out, key);
+                }
+                last = key;
+            }
+        }
+        addSegment(Segment.open(commit(tmp)));
+    }
+
+    /**
+     * Merges all segments into one, dropping duplicates.
+     */
+    private void merge() throws IOException {
+        Path tmp = newTmpFile();
+        PriorityQueue<SegmentReader> readers = new PriorityQueue<>(
+                (a, b) -> Arrays.compareUnsigned(a.current, b.current));
+        try (DataOutputStream out = newOutputStream(tmp)) {
+            for (Segment segment : segments) {
+                SegmentReader reader = new SegmentReader(segment.path);
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            byte[] last = null;
+            while (!readers.isEmpty()) {
+                SegmentReader reader = readers.poll();
+                if (last == null || !Arrays.equals(last, reader.current)) {
+                    writeRecord(out, reader.current);
+                    last = reader.current;
+                }
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (SegmentReader reader : readers) {
+                reader.close();
+            }
+        }
+        Path merged = commit(tmp);
+        for (Segment segment : segments) {
+            segment.close();
+            size -= segment.count;
+            Files.delete(segment.path);
+        }
+        segments.clear();
+        addSegment(Segment.open(merged));
+    }
+
+    private void rebuildBloomFilter() throws IOException {
+        BloomFilter filter = new BloomFilter(Math.max(MIN_BLOOM_FILTER_CAPACITY, 2 * size));
+        for (Segment segment : segments) {
+            try (SegmentReader reader = new SegmentReader(segment.path)) {
+                while (reader.next()) {
+                    filter.add(reader.current);
+                }
+            }
+        }
+        for (String id : buffered) {
+            filter.add(id.getBytes(UTF_8));
+        }
+        bloomFilter = filter;
+    }
+
+    private Path newTmpFile() {
+        return directory.resolve(segmentName(nextSegment) + TMP_SUFFIX);
+    }
+
+    private Path commit(Path tmp) throws IOException {
+        Path segment = directory.resolve(segmentName(nextSegment++));
+        return Files.move(tmp, segment, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String segmentName(long n) {
+        return String.format(Locale.ROOT, "%s%012d%s", SEGMENT_PREFIX, n, SEGMENT_SUFFIX);
+    }
+
+    private void closeSegments() throws IOException {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private static DataOutputStream newOutputStream(Path path) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+    }
+
+    private static void writeRecord(DataOutputStream out, byte[] key) throws IOException {
+        out.writeInt(key.length);
+        out.write(key);
+    }
+
+    /**
+     * @return the next id or <code>null</code> at the end of the stream
+     * or of its last complete record
+     */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < 0 || length > MAX_ID_BYTES) {
+                return null;
+            }
+            byte[] key = new byte[length];
+            in.readFully(key);
+            return key;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sorted, immutable file of ids with every {@link #INDEX_INTERVAL}th
+     * id and its offset in memory.
+     */
+    private static class Segment implements Closeable {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final long length;
+
+        private final long count;
+
+        private final byte[][] indexKeys;
+
+        private final long[] indexOffsets;
+
+        private Segment(Path path, FileChannel channel, long length, long count,
+                        byte[][] indexKeys, long[] indexOffsets) {
+            this.path = path;
+            this.channel = channel;
+            this.length = length;
+            this.count = count;
+            this.indexKeys = indexKeys;
+            this.indexOffsets = indexOffsets;
+        }
+
+        static Segment open(Path path) throws IOException {
+            List<byte[]> keys = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            long count = 0;
+            long offset = 0;
+            try (SegmentReader reader = new SegmentReader(path)) {
+                while (reader.next()) {
+                    if (count++ % INDEX_INTERVAL == 0) {
+                        keys.add(reader.current);
+                        offsets.add(offset);
+                    }
+                    offset += 4 + reader.current.length;
+                }
+            }
+            long[] indexOffsets = new long[offsets.size()];
+            for (int i = 0; i < indexOffsets.length; i++) {
+                indexOffsets[i] = offsets.get(i);
+            }
+            return new Segment(path, FileChannel.open(path, StandardOpenOption.READ), offset, count,
+                    keys.toArray(new byte[0][]), indexOffsets);
+        }
+
+        boolean contains(byte[] key) throws IOException {
+            //find the last indexed id <= key
+            int block = -1;
+            int lo = 0;
+            int hi = indexKeys.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = Arrays.compareUnsigned(indexKeys[mid], key);
+                if (c == 0) {
+                    return true;
+                } else if (c < 0) {
+                    block = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            if (block < 0) {
+                return false;
+            }
+            long start = indexOffsets[block];
+            long end = block + 1 < indexOffsets.length ? indexOffsets[block + 1] : length;
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new EOFException("Checkpoint segment is truncated: " + path);
+                }
+            }
+            buffer.flip();
+            byte[] bytes = buffer.array();
+            while (buffer.hasRemaining()) {
+                int keyLength = buffer.getInt();
+                int offset = buffer.position();
+                int c = Arrays.compareUnsigned(bytes, offset, offset + keyLength, key, 0, key.length);
+                if (c == 0) {
+                    return true;
+                } else if (c > 0) {
+                    return false;
+                }
+                buffer.position(offset + keyLength);
+            }
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static class SegmentReader implements Closeable {
+
+        private final DataInputStream in;
+
+        private byte[] current;
+
+        SegmentReader(Path path) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        }
+
+        boolean next() throws IOException {
+            current = readRecord(in);
+            return current != null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Bloom filter with about a 1% false positive rate up to its capacity.
+     */
+    private static class BloomFilter {
+
+        private static final int NUM_HASHES = 7;
+
+        private static final int BITS_PER_ID = 10;
+
+        private final long capacity;
+
+        private final long numBits;
+
+        private final long[] bits;
+
+        BloomFilter(long capacity) {
+            this.capacity = capacity;
+            this.numBits = capacity * BITS_PER_ID;
+            this.bits = new long[(int) ((numBits + 63) / 64)];
+        }
+
+        void add(byte[] key) {
+            long h1 = hash(key, 0);
+            long h2 = hash(key, h1) | 1;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(byte[] key) {
+            long h1 = hash(key, 0);
+            long h2 = hash(key, h1) | 1;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        //FNV-1a, with murmur3's finalizer to spread the bits
+        private static long hash(byte[] key, long seed) {
+            long h = 0xcbf29ce484222325L ^ seed;
+            for (byte b : key) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -29,19 +29,23 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Blob;
 import java.sql.SQLException;
 
+import org.apache.commons.io.function.IORunnable;
 import org.apache.commons.io.input.TaggedInputStream;
 import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
 
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.pipes.fetcher.RangeFetcherChannel;
 import org.apache.tika.utils.StringUtils;
 
 /**
@@ -98,6 +102,18 @@ public class TikaInputStream extends TaggedInputStream {
      * then the value is <code>null</code>.
      */
     private Path path;
+    /**
+     * Channel over a remote document that is fetched in ranges, or
+     * <code>null</code>.  See {@link #get(RangeFetcherChannel, Metadata)}.
+     */
+    private RangeFetcherChannel rangeChannel;
+    /**
+     * File that is still being written and will hold the contents of this
+     * stream once {@link #awaitPendingPath} returns, or <code>null</code>.
+     * See {@link #get(InputStream, Path, IORunnable, TemporaryResources, Metadata)}.
+     */
+    private Path pendingPath;
+    private IORunnable awaitPendingPath;
     /**
      * Total length of the stream, or -1 if unknown.
      */
@@ -458,6 +474,61 @@ public class TikaInputStream extends TaggedInputStream {
         return stream;
     }
 
+    /**
+     * Creates a TikaInputStream over a document that is fetched in ranges.
+     * The stream reads the document from the start, while parsers that need
+     * random access can use {@link #getSeekableByteChannel()} to read only
+     * the parts they need.  {@link #getPath()} still spools the whole
+     * document to a temporary file.
+     *
+     * @param channel  channel over the document
+     * @param metadata metadata instance
+     * @return a TikaInputStream instance
+     * @throws IOException if the length of the document can't be read
+     * @since Apache Tika 4.0.0
+     */
+    public static TikaInputStream get(RangeFetcherChannel channel, Metadata metadata)
+            throws IOException {
+        long length = channel.size();
+        metadata.set(Metadata.CONTENT_LENGTH, Long.toString(length));
+        TikaInputStream stream = new TikaInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel.duplicate())),
+                new TemporaryResources(), length, getExtension(metadata));
+        stream.rangeChannel = channel;
+        return stream;
+    }
+
+    /**
+     * Creates a TikaInputStream over a file that is still being written,
+     * e.g. a document that is being downloaded in parts.  The stream reads
+     * from <code>stream</code>, which has to wait for the parts of the file
+     * it reads.  {@link #getPath()} waits with <code>awaitPath</code> until
+     * the file is complete and then returns it instead of spooling another
+     * copy.  The length of the document has to be set in the metadata.
+     *
+     * @param stream    stream over the contents of the file
+     * @param path      file that will hold the whole document
+     * @param awaitPath waits until the file is complete, or throws an
+     *                  IOException if it won't be
+     * @param tmp       tracker for temporary resources, including the file
+     * @param metadata  metadata instance
+     * @return a TikaInputStream instance
+     * @since Apache Tika 4.0.0
+     */
+    public static TikaInputStream get(InputStream stream, Path path, IORunnable awaitPath,
+                                      TemporaryResources tmp, Metadata metadata) {
+        if (!stream.markSupported()) {
+            stream = new BufferedInputStream(stream);
+        }
+        String contentLength = metadata.get(Metadata.CONTENT_LENGTH);
+        TikaInputStream tis = new TikaInputStream(stream, tmp,
+                contentLength == null ? -1 : Long.parseLong(contentLength),
+                getExtension(metadata));
+        tis.pendingPath = path;
+        tis.awaitPendingPath = awaitPath;
+        return tis;
+    }
+
     /**
      * Creates a TikaInputStream from the given database BLOB.
      * <p>
@@ -726,6 +797,17 @@ public class TikaInputStream extends TaggedInputStream {
         if (path != null) {
             return path;
         }
+        if (pendingPath != null) {
+            if (maxBytes > -1 && length > maxBytes) {
+                return null;
+            }
+            //the stream keeps reading from the same file
+            awaitPendingPath.run();
+            path = pendingPath;
+            pendingPath = null;
+            awaitPendingPath = null;
+            return path;
+        }
         if (position > 0) {
             throw new IOException("Stream is already being read");
         } else {
@@ -788,6 +870,32 @@ public class TikaInputStream extends TaggedInputStream {
         return channel;
     }
 
+    /**
+     * @return <code>true</code> if {@link #getSeekableByteChannel()} doesn't
+     * need to spool the stream to a temporary file
+     */
+    public boolean hasSeekableByteChannel() {
+        return path != null || rangeChannel != null;
+    }
+
+    /**
+     * Returns a new read-only channel over the whole document.  If this stream
+     * was created from a {@link RangeFetcherChannel}, the channel fetches only
+     * the ranges that are read; otherwise it is a channel over
+     * {@link #getPath()}.  The channel is closed when this stream is closed,
+     * and it may also be closed by the caller.
+     *
+     * @return channel at position 0
+     * @throws IOException if the file can't be opened
+     * @since Apache Tika 4.0.0
+     */
+    public SeekableByteChannel getSeekableByteChannel() throws IOException {
+        if (path == null && rangeChannel != null) {
+            return rangeChannel.duplicate();
+        }
+        return getFileChannel();
+    }
+
     public boolean hasLength() {
         return length != -1;
     }
@@ -368,6 +368,15 @@ public interface TikaCoreProperties {
      */
     Property ENCODING_DETECTOR = Property.externalText(TIKA_META_PREFIX + "encodingDetector");
 
+    /**
+     * Set when the media type was detected from only part of the document
+     * because of a byte budget, see {@link org.apache.tika.detect.BoundedDetector}.
+     * The type may be less specific than with full detection, e.g. a zip file
+     * instead of a type of zip based container.
+     */
+    Property DETECTION_TRUNCATED =
+            Property.internalBoolean(TIKA_META_WARN_PREFIX + "detection_truncated");
+
     /**
      * General metadata key for the count of non-final versions available within a file.  This
      * was added initially to support generalizing incremental updates in PDF.
@@ -37,6 +37,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.sax.ExtractionBudgetContentHandler;
 import org.apache.tika.sax.SecureContentHandler;
 
 public class AutoDetectParser extends CompositeParser {
@@ -217,18 +218,32 @@ public class AutoDetectParser extends CompositeParser {
                                            AutoDetectParserConfig autoDetectParserConfig) {
         if (context.get(RecursiveParserWrapper.RecursivelySecureContentHandler.class) != null) {
             //using the recursiveparserwrapper. we should decorate this handler
-            return autoDetectParserConfig.getContentHandlerDecoratorFactory()
-                    .decorate(handler, metadata, context);
+            return limitToBudget(autoDetectParserConfig.getContentHandlerDecoratorFactory()
+                    .decorate(handler, metadata, context), context);
         }
         ParseRecord parseRecord = context.get(ParseRecord.class);
         if (parseRecord == null || parseRecord.getDepth() == 0) {
-            return autoDetectParserConfig.getContentHandlerDecoratorFactory()
-                    .decorate(handler, metadata, context);
+            return limitToBudget(autoDetectParserConfig.getContentHandlerDecoratorFactory()
+                    .decorate(handler, metadata, context), context);
         }
         //else do not decorate
         return handler;
     }
 
+    /**
+     * Embedded documents write to the handler of their container, so the
+     * characters are counted against the budget once, in the handler of
+     * the outermost document or of each document with the
+     * {@link RecursiveParserWrapper}.
+     */
+    private static ContentHandler limitToBudget(ContentHandler handler, ParseContext context) {
+        ExtractionBudget budget = context.get(ExtractionBudget.class);
+        if (budget == null || handler == null) {
+            return handler;
+        }
+        return new ExtractionBudgetContentHandler(handler, budget, context);
+    }
+
     private void maybeSpool(TikaInputStream tis, AutoDetectParserConfig autoDetectParserConfig,
                             Metadata metadata) throws IOException {
         if (tis.hasFile()) {
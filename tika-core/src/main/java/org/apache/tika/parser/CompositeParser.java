@@ -327,6 +327,10 @@ public class CompositeParser implements Parser {
             //this should never happen
             return;
         }
+        recordEmbeddedMetadata(record, metadata);
+    }
+
+    static void recordEmbeddedMetadata(ParseRecord record, Metadata metadata) {
         for (Exception e : record.getExceptions()) {
             metadata.add(TikaCoreProperties.EMBEDDED_EXCEPTION, ExceptionUtils.getStackTrace(e));
         }
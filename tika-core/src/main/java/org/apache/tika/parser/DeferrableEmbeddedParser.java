@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.IOException;
+
+import org.xml.sax.SAXException;
+
+/**
+ * A stateful parser for embedded documents (see {@link RecursiveParserWrapper})
+ * that allows an embedded document to be parsed later and on another thread.
+ * Whatever is reported by a deferred parse is held back and reported in
+ * the order in which {@link #defer(ParseContext)} was called, so the results
+ * are the same as if the embedded documents had been parsed one after the other.
+ * <p>
+ * See {@link org.apache.tika.extractor.ConcurrentParsingEmbeddedDocumentExtractor}.
+ */
+public interface DeferrableEmbeddedParser extends Parser {
+
+    /**
+     * Reserves the next slot for an embedded document.  This must be called on
+     * the thread that is parsing the container document, and it may report the
+     * results of earlier deferred parses that have completed.
+     *
+     * @param context the container's parse context
+     * @return a deferred parse or <code>null</code> if this parser can't defer
+     * right now, in which case the caller must parse the embedded document inline
+     * @throws SAXException if reporting an earlier deferred parse failed
+     * @throws IOException if reporting an earlier deferred parse failed
+     */
+    DeferredParse defer(ParseContext context) throws SAXException, IOException;
+
+    interface DeferredParse {
+
+        /**
+         * @return the parser to use on the worker thread
+         */
+        Parser getParser();
+
+        /**
+         * @return a parse context to use on the worker thread instead of the
+         * container's parse context
+         */
+        ParseContext getParseContext();
+
+        /**
+         * This must be called exactly once when the deferred parse has finished,
+         * whether or not it was successful.
+         *
+         * @param t the exception that should be rethrown on the container's thread
+         *          or <code>null</code>
+         */
+        void complete(Throwable t);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of characters extracted from a document and its
+ * embedded documents, e.g. to get the first N characters for a preview or
+ * for language detection.
+ * <p>
+ * Set it in the {@link ParseContext} of a parse with the
+ * {@link AutoDetectParser}, which drops the characters over the budget.
+ * Unlike the write limit of the content handler, the budget is visible to
+ * the parsers: parsers of paged or multipart formats check
+ * {@link #isExhausted(ParseContext)} and stop iterating pages, sheets or
+ * entries once it is spent, instead of parsing the rest of the document to
+ * throw the text away.  The parse ends normally, and
+ * {@link org.apache.tika.metadata.TikaCoreProperties#WRITE_LIMIT_REACHED}
+ * is set if text was dropped.
+ * <p>
+ * An instance is for a single parse; it is safe to spend from several
+ * threads, e.g. when embedded documents are parsed concurrently.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class ExtractionBudget {
+
+    private final long maxCharacters;
+
+    private final AtomicLong characterCount = new AtomicLong();
+
+    /**
+     * @param maxCharacters maximum number of characters to extract
+     */
+    public ExtractionBudget(long maxCharacters) {
+        if (maxCharacters < 0) {
+            throw new IllegalArgumentException("maxCharacters must be >= 0: " + maxCharacters);
+        }
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * @param context parse context, may be <code>null</code>
+     * @return <code>true</code> if the context has a budget that is spent
+     */
+    public static boolean isExhausted(ParseContext context) {
+        if (context == null) {
+            return false;
+        }
+        ExtractionBudget budget = context.get(ExtractionBudget.class);
+        return budget != null && budget.isExhausted();
+    }
+
+    /**
+     * Spends up to <code>length</code> characters of the budget.
+     *
+     * @param length number of characters to be written
+     * @return how many of them may be written, from 0 to <code>length</code>
+     */
+    public int spend(int length) {
+        while (true) {
+            long count = characterCount.get();
+            long available = maxCharacters - count;
+            if (available <= 0) {
+                return 0;
+            }
+            int n = (int) Math.min(length, available);
+            if (characterCount.compareAndSet(count, count + n)) {
+                return n;
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> once all of the characters have been spent
+     */
+    public boolean isExhausted() {
+        return characterCount.get() >= maxCharacters;
+    }
+
+    public long getMaxCharacters() {
+        return maxCharacters;
+    }
+
+    /**
+     * @return number of characters spent so far
+     */
+    public long getCharacterCount() {
+        return characterCount.get();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.Serializable;
+
+/**
+ * Set in the {@link ParseContext} when only the metadata of documents is
+ * needed, e.g. to index document properties with the
+ * {@link org.apache.tika.sax.BasicContentHandlerFactory.HANDLER_TYPE#IGNORE}
+ * handler type.  Parsers that support it read the document properties or
+ * headers and skip the body: no text is extracted, and embedded documents
+ * aren't extracted either.  The handler still gets an (empty) XHTML
+ * document.
+ * <p>
+ * Metadata that parsers derive from the body, e.g. character counts per
+ * page, isn't available in this mode.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public final class MetadataOnly implements Serializable {
+
+    private static final long serialVersionUID = 2436386473151624374L;
+
+    public static final MetadataOnly INSTANCE = new MetadataOnly();
+
+    private MetadataOnly() {
+    }
+
+    /**
+     * @param context parse context, may be <code>null</code>
+     * @return whether only metadata should be extracted
+     */
+    public static boolean isMetadataOnly(ParseContext context) {
+        return context != null && context.get(MetadataOnly.class) != null;
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tika.exception.TikaConfigException;
+
+/**
+ * Pages to extract, set in the {@link ParseContext} to get e.g. only the
+ * first five pages of a long PDF or a few slides of a presentation.
+ * Parsers that support it skip the pages outside the range, and stop once
+ * they are past the last page of the range, instead of extracting
+ * everything.  Which unit is a "page" depends on the format: the pages of a
+ * PDF, the slides of a presentation, or the pages of a word processing
+ * document as far as they are marked by page breaks in the file.
+ * <p>
+ * Pages are numbered from 1.  Metadata and document level content, e.g.
+ * headers and footers that aren't part of a page, are still extracted.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class PageRange implements Serializable {
+
+    private static final long serialVersionUID = -4307539216398735542L;
+
+    private final int[] firsts;
+
+    private final int[] lasts;
+
+    /**
+     * @param first first page to extract, from 1
+     * @param last  last page to extract, inclusive
+     */
+    public PageRange(int first, int last) {
+        this(new int[]{first}, new int[]{last});
+    }
+
+    private PageRange(int[] firsts, int[] lasts) {
+        for (int i = 0; i < firsts.length; i++) {
+            if (firsts[i] < 1 || lasts[i] < firsts[i]) {
+                throw new IllegalArgumentException(
+                        "Invalid page range: " + firsts[i] + "-" + lasts[i]);
+            }
+        }
+        this.firsts = firsts;
+        this.lasts = lasts;
+    }
+
+    /**
+     * Parses ranges like <code>1-5</code>, <code>1,3,7-9</code> or
+     * <code>10-</code> (page 10 to the end).
+     *
+     * @param ranges comma separated pages and ranges of pages
+     * @return the page range
+     * @throws TikaConfigException if the ranges can't be parsed
+     */
+    public static PageRange parse(String ranges) throws TikaConfigException {
+        List<int[]> parsed = new ArrayList<>();
+        try {
+            for (String range : ranges.split(",")) {
+                range = range.trim();
+                int dash = range.indexOf('-');
+                if (dash < 0) {
+                    int page = Integer.parseInt(range);
+                    parsed.add(new int[]{page, page});
+                } else {
+                    String last = range.substring(dash + 1).trim();
+                    parsed.add(new int[]{Integer.parseInt(range.substring(0, dash).trim()),
+                            last.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(last)});
+                }
+            }
+            int[] firsts = new int[parsed.size()];
+            int[] lasts = new int[parsed.size()];
+            for (int i = 0; i < firsts.length; i++) {
+                firsts[i] = parsed.get(i)[0];
+                lasts[i] = parsed.get(i)[1];
+            }
+            return new PageRange(firsts, lasts);
+        } catch (IllegalArgumentException e) {
+            throw new TikaConfigException("Can't parse page range: " + ranges, e);
+        }
+    }
+
+    /**
+     * @param page page number, from 1
+     * @return whether the page is in the range
+     */
+    public boolean contains(int page) {
+        for (int i = 0; i < firsts.length; i++) {
+            if (page >= firsts[i] && page <= lasts[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param first first page number, from 1
+     * @param last  last page number, inclusive
+     * @return whether any of the pages from first to last is in the range
+     */
+    public boolean overlaps(int first, int last) {
+        for (int i = 0; i < firsts.length; i++) {
+            if (first <= lasts[i] && last >= firsts[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param page page number, from 1
+     * @return whether the page and all following pages are outside the range,
+     * so that the parser can stop
+     */
+    public boolean isAfterLast(int page) {
+        for (int last : lasts) {
+            if (page <= last) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < firsts.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(firsts[i]);
+            if (lasts[i] == Integer.MAX_VALUE) {
+                sb.append('-');
+            } else if (lasts[i] != firsts[i]) {
+                sb.append('-').append(lasts[i]);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -85,6 +85,15 @@ public class ParseContext implements Serializable {
         }
     }
 
+    /**
+     * @return a shallow copy of this context
+     */
+    ParseContext copy() {
+        ParseContext copy = new ParseContext();
+        copy.context.putAll(context);
+        return copy;
+    }
+
     public boolean isEmpty() {
         return context.size() == 0;
     }
@@ -111,4 +111,32 @@ public class ParseRecord {
     public List<Metadata> getMetadataList() {
         return metadataList;
     }
+
+    /**
+     * @return an empty record at this record's depth for an embedded
+     * document that is parsed on another thread
+     */
+    ParseRecord newEmbeddedRecord() {
+        ParseRecord record = new ParseRecord();
+        record.depth = depth;
+        return record;
+    }
+
+    void merge(ParseRecord other) {
+        for (String parser : other.parsers) {
+            addParserClass(parser);
+        }
+        for (Exception e : other.exceptions) {
+            addException(e);
+        }
+        for (String warning : other.warnings) {
+            addWarning(warning);
+        }
+        for (Metadata m : other.metadataList) {
+            addMetadata(m);
+        }
+        if (other.writeLimitReached) {
+            writeLimitReached = true;
+        }
+    }
 }
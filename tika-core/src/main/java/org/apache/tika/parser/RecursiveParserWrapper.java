@@ -18,7 +18,14 @@ package org.apache.tika.parser;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.input.CloseShieldInputStream;
@@ -166,6 +173,7 @@ public class RecursiveParserWrapper extends ParserDecorator {
                             throwOnWriteLimitReached, context);
             context.set(RecursivelySecureContentHandler.class, secureContentHandler);
             getWrappedParser().parse(tis, secureContentHandler, metadata, context);
+            parserState.commitDeferred(true);
         } catch (Throwable e) {
             if (e instanceof EncryptedDocumentException) {
                 metadata.set(TikaCoreProperties.IS_ENCRYPTED, "true");
@@ -178,6 +186,8 @@ public class RecursiveParserWrapper extends ParserDecorator {
                 throw e;
             }
         } finally {
+            parserState.commitDeferredQuietly();
+            recordLateEmbeddedMetadata(parserState, metadata, context);
             tmp.dispose();
             long elapsedMillis = System.currentTimeMillis() - started;
             metadata.set(TikaCoreProperties.PARSE_TIME_MILLIS, Long.toString(elapsedMillis));
@@ -187,6 +197,22 @@ public class RecursiveParserWrapper extends ParserDecorator {
         }
     }
 
+    /**
+     * Embedded documents that were parsed on other threads may be reported after
+     * the container's {@link CompositeParser} has recorded the parse record.
+     */
+    private void recordLateEmbeddedMetadata(ParserState parserState, Metadata metadata,
+                                            ParseContext context) {
+        ParseRecord parseRecord = context.get(ParseRecord.class);
+        if (parseRecord == null || parserState.lateRecords.isEmpty()) {
+            return;
+        }
+        metadata.set(TikaCoreProperties.TIKA_PARSED_BY_FULL_SET, parseRecord.getParsers());
+        for (ParseRecord lateRecord : parserState.lateRecords) {
+            CompositeParser.recordEmbeddedMetadata(lateRecord, metadata);
+        }
+    }
+
     public static String getResourceName(Metadata metadata, AtomicInteger counter) {
         String objectName = "";
         if (metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY) != null) {
@@ -205,7 +231,8 @@ public class RecursiveParserWrapper extends ParserDecorator {
     }
 
 
-    private class EmbeddedParserDecorator extends StatefulParser {
+    private class EmbeddedParserDecorator extends StatefulParser
+            implements DeferrableEmbeddedParser {
 
         private static final long serialVersionUID = 207648200464263337L;
         private final ParserState parserState;
@@ -225,12 +252,28 @@ public class RecursiveParserWrapper extends ParserDecorator {
             this.parserState = parseState;
         }
 
+        @Override
+        public DeferredParse defer(ParseContext context) throws SAXException, IOException {
+            if (!parserState.canDefer()) {
+                return null;
+            }
+            parserState.commitDeferred(false);
+            DeferredEmbeddedParse deferredParse =
+                    new DeferredEmbeddedParse(getWrappedParser(), location, embeddedIdPath,
+                            parserState, context);
+            parserState.deferred.add(deferredParse);
+            return deferredParse;
+        }
+
         @Override
         public void parse(InputStream stream, ContentHandler ignore, Metadata metadata,
                           ParseContext context) throws IOException, SAXException, TikaException {
 
+            //report anything that was deferred before this document so that
+            //the order of embedded documents is the same as when parsing inline
+            parserState.commitDeferred(true);
             //Test to see if we should avoid parsing
-            if (parserState.recursiveParserWrapperHandler.hasHitMaximumEmbeddedResources()) {
+            if (parserState.hasHitMaximumEmbeddedResources()) {
                 return;
             }
             // Work out what this thing is
@@ -239,16 +282,16 @@ public class RecursiveParserWrapper extends ParserDecorator {
 
             metadata.add(TikaCoreProperties.EMBEDDED_RESOURCE_PATH, objectLocation);
 
+            int embeddedId = parserState.nextEmbeddedId();
             String idPath =
                     this.embeddedIdPath.equals("/") ?
-                            this.embeddedIdPath + ++parserState.embeddedCount :
-                            this.embeddedIdPath + "/" + ++parserState.embeddedCount;
+                            this.embeddedIdPath + embeddedId :
+                            this.embeddedIdPath + "/" + embeddedId;
             metadata.add(TikaCoreProperties.EMBEDDED_ID_PATH, idPath);
-            metadata.set(TikaCoreProperties.EMBEDDED_ID, parserState.embeddedCount);
+            metadata.set(TikaCoreProperties.EMBEDDED_ID, embeddedId);
             //get a fresh handler
-            ContentHandler localHandler =
-                    parserState.recursiveParserWrapperHandler.getNewContentHandler();
-            parserState.recursiveParserWrapperHandler.startEmbeddedDocument(localHandler, metadata);
+            ContentHandler localHandler = parserState.getNewContentHandler();
+            parserState.startEmbeddedDocument(localHandler, metadata);
 
             Parser preContextParser = context.get(Parser.class);
             context.set(Parser.class,
@@ -274,6 +317,9 @@ public class RecursiveParserWrapper extends ParserDecorator {
             try {
                 tis.setCloseShield();
                 super.parse(tis, secureContentHandler, metadata, context);
+                //children that were deferred while parsing this document
+                //have to be reported before this document
+                parserState.commitDeferred(true);
             } catch (SAXException e) {
                 if (WriteLimitReachedException.isWriteLimitReached(e)) {
                     metadata.add(TikaCoreProperties.WRITE_LIMIT_REACHED, "true");
@@ -300,14 +346,14 @@ public class RecursiveParserWrapper extends ParserDecorator {
                     throw e;
                 }
             } finally {
+                parserState.commitDeferredQuietly();
                 tis.removeCloseShield();
                 context.set(Parser.class, preContextParser);
                 context.set(RecursivelySecureContentHandler.class, preParseHandler);
                 context.set(ParentContentHandler.class, preParseParentHandler);
                 long elapsedMillis = System.currentTimeMillis() - started;
                 metadata.set(TikaCoreProperties.PARSE_TIME_MILLIS, Long.toString(elapsedMillis));
-                parserState.recursiveParserWrapperHandler
-                        .endEmbeddedDocument(localHandler, metadata);
+                parserState.endEmbeddedDocument(localHandler, metadata);
                 if (tmp != null) {
                     tis.close();
                 }
@@ -321,16 +367,279 @@ public class RecursiveParserWrapper extends ParserDecorator {
      */
     private static class ParserState {
         private final AbstractRecursiveParserWrapperHandler recursiveParserWrapperHandler;
-        private AtomicInteger unknownCount = new AtomicInteger(0);
+        private final AtomicInteger unknownCount;
         private int embeddedCount = 0;//this is effectively 1-indexed
+        //deferred parses in the order in which they have to be reported.
+        //This is only touched by the thread that is parsing the container.
+        private final Deque<DeferredEmbeddedParse> deferred = new ArrayDeque<>();
+        //records from deferred parses that were reported after the
+        //container's parser had finished
+        private final List<ParseRecord> lateRecords = new ArrayList<>();
+
         private ParserState(AbstractRecursiveParserWrapperHandler handler) {
+            this(handler, new AtomicInteger(0));
+        }
+
+        private ParserState(AbstractRecursiveParserWrapperHandler handler,
+                            AtomicInteger unknownCount) {
             this.recursiveParserWrapperHandler = handler;
+            this.unknownCount = unknownCount;
+        }
+
+        boolean hasHitMaximumEmbeddedResources() {
+            return recursiveParserWrapperHandler.hasHitMaximumEmbeddedResources();
+        }
+
+        int getMaxEmbeddedDepth() {
+            return recursiveParserWrapperHandler.getMaxEmbeddedDepth();
+        }
+
+        ContentHandler getNewContentHandler() {
+            return recursiveParserWrapperHandler.getNewContentHandler();
+        }
+
+        int nextEmbeddedId() {
+            return ++embeddedCount;
+        }
+
+        void startEmbeddedDocument(ContentHandler handler, Metadata metadata) throws SAXException {
+            recursiveParserWrapperHandler.startEmbeddedDocument(handler, metadata);
+        }
+
+        void endEmbeddedDocument(ContentHandler handler, Metadata metadata) throws SAXException {
+            recursiveParserWrapperHandler.endEmbeddedDocument(handler, metadata);
+        }
+
+        boolean canDefer() {
+            return true;
+        }
+
+        /**
+         * Reports deferred parses in order.
+         *
+         * @param waitForAll if <code>false</code>, this stops at the first
+         *                   deferred parse that has not completed yet
+         */
+        void commitDeferred(boolean waitForAll) throws SAXException, IOException {
+            while (!deferred.isEmpty()) {
+                DeferredEmbeddedParse head = deferred.peek();
+                if (!head.isDone()) {
+                    if (!waitForAll) {
+                        return;
+                    }
+                    head.await();
+                }
+                deferred.poll();
+                head.commit(this);
+            }
+        }
+
+        /**
+         * Waits for and reports deferred parses when the container has
+         * already failed.
+         */
+        void commitDeferredQuietly() {
+            while (!deferred.isEmpty()) {
+                try {
+                    commitDeferred(true);
+                } catch (SAXException | IOException | RuntimeException e) {
+                    //swallow, the container's exception takes precedence
+                    if (Thread.currentThread().isInterrupted()) {
+                        //don't wait on the rest
+                        deferred.clear();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * State for an embedded document that is parsed on another thread.
+     * This records what the parse reports so that it can be replayed
+     * on the container's {@link ParserState} in order.
+     */
+    private static class DeferredParserState extends ParserState {
+        private final ParserState owner;
+        private final List<DeferredEvent> events = new ArrayList<>();
+
+        private DeferredParserState(ParserState owner) {
+            super(owner.recursiveParserWrapperHandler, owner.unknownCount);
+            this.owner = owner;
+        }
+
+        @Override
+        boolean hasHitMaximumEmbeddedResources() {
+            //this is only a best effort to avoid parsing documents that won't be
+            //reported; the limit is enforced when the events are replayed
+            return owner.hasHitMaximumEmbeddedResources();
+        }
+
+        @Override
+        void startEmbeddedDocument(ContentHandler handler, Metadata metadata)
+                throws SAXException {
+            //the handler sets the depth when this is replayed, but parsers
+            //may already rely on it, e.g. the XHTMLContentHandler writes it out
+            String idPath = metadata.get(TikaCoreProperties.EMBEDDED_ID_PATH);
+            int depth = idPath.substring(1).split("/").length;
+            //stop where the handler would stop an inline parse
+            if (depth >= getMaxEmbeddedDepth()) {
+                throw new SAXException("Max embedded depth reached: " + depth);
+            }
+            metadata.set(TikaCoreProperties.EMBEDDED_DEPTH, depth);
+            events.add(new DeferredEvent(true, handler, metadata));
+        }
+
+        @Override
+        void endEmbeddedDocument(ContentHandler handler, Metadata metadata) {
+            events.add(new DeferredEvent(false, handler, metadata));
+        }
+
+        @Override
+        boolean canDefer() {
+            return false;
+        }
+    }
+
+    private static class DeferredEvent {
+        private final boolean start;
+        private final ContentHandler handler;
+        private final Metadata metadata;
+
+        private DeferredEvent(boolean start, ContentHandler handler, Metadata metadata) {
+            this.start = start;
+            this.handler = handler;
+            this.metadata = metadata;
+        }
+    }
+
+    private class DeferredEmbeddedParse implements DeferrableEmbeddedParser.DeferredParse {
+        private final String embeddedIdPath;
+        private final DeferredParserState state;
+        private final EmbeddedParserDecorator parser;
+        private final ParseContext parseContext;
+        private final ParseRecord containerRecord;
+        private final ParseRecord parseRecord;
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Throwable throwable;
+
+        private DeferredEmbeddedParse(Parser wrappedParser, String location,
+                                      String embeddedIdPath, ParserState owner,
+                                      ParseContext context) {
+            this.embeddedIdPath = embeddedIdPath;
+            this.state = new DeferredParserState(owner);
+            this.parser = new EmbeddedParserDecorator(wrappedParser, location, embeddedIdPath,
+                    state);
+            this.parseContext = context.copy();
+            this.parseContext.set(Parser.class, parser);
+            this.containerRecord = context.get(ParseRecord.class);
+            if (containerRecord != null) {
+                parseRecord = containerRecord.newEmbeddedRecord();
+                parseContext.set(ParseRecord.class, parseRecord);
+            } else {
+                parseRecord = null;
+            }
+        }
+
+        @Override
+        public Parser getParser() {
+            return parser;
+        }
+
+        @Override
+        public ParseContext getParseContext() {
+            return parseContext;
+        }
+
+        @Override
+        public void complete(Throwable t) {
+            throwable = t;
+            completed.countDown();
+        }
+
+        private boolean isDone() {
+            return completed.getCount() == 0;
+        }
+
+        private void await() throws IOException {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for an embedded document", e);
+            }
+        }
+
+        /**
+         * Replays the recorded events on the owner's state.  Embedded ids
+         * are assigned now so that they are the same as with an inline parse.
+         */
+        private void commit(ParserState owner) throws SAXException, IOException {
+            Map<String, String> ids = new HashMap<>();
+            int skipDepth = 0;
+            for (DeferredEvent event : state.events) {
+                if (skipDepth > 0) {
+                    skipDepth += event.start ? 1 : -1;
+                    continue;
+                }
+                if (!event.start) {
+                    owner.endEmbeddedDocument(event.handler, event.metadata);
+                    continue;
+                }
+                if (owner.hasHitMaximumEmbeddedResources() ||
+                        event.metadata.getInt(TikaCoreProperties.EMBEDDED_DEPTH) >=
+                                owner.getMaxEmbeddedDepth()) {
+                    //skip this document and its children
+                    skipDepth = 1;
+                    continue;
+                }
+                int embeddedId = owner.nextEmbeddedId();
+                ids.put(event.metadata.get(TikaCoreProperties.EMBEDDED_ID),
+                        Integer.toString(embeddedId));
+                event.metadata.set(TikaCoreProperties.EMBEDDED_ID, embeddedId);
+                event.metadata.set(TikaCoreProperties.EMBEDDED_ID_PATH,
+                        updateIdPath(event.metadata.get(TikaCoreProperties.EMBEDDED_ID_PATH),
+                                ids));
+                owner.startEmbeddedDocument(event.handler, event.metadata);
+            }
+            if (containerRecord != null) {
+                containerRecord.merge(parseRecord);
+                if (containerRecord.getDepth() == 0) {
+                    owner.lateRecords.add(parseRecord);
+                }
+            }
+            Throwable t = throwable;
+            if (t == null) {
+                return;
+            }
+            if (t instanceof SAXException) {
+                throw (SAXException) t;
+            } else if (t instanceof IOException) {
+                throw (IOException) t;
+            } else if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new IOException(t);
+        }
+
+        private String updateIdPath(String idPath, Map<String, String> ids) {
+            String deferredPath = embeddedIdPath.equals("/") ? idPath.substring(1) :
+                    idPath.substring(embeddedIdPath.length() + 1);
+            StringBuilder sb = new StringBuilder();
+            if (!embeddedIdPath.equals("/")) {
+                sb.append(embeddedIdPath);
+            }
+            for (String id : deferredPath.split("/")) {
+                sb.append("/").append(ids.get(id));
+            }
+            return sb.toString();
         }
     }
 
     static class SecureHandlerCounter {
         private final int totalWriteLimit;
-        private boolean writeLimitReached = false;
+        private volatile boolean writeLimitReached = false;
         //total chars written to all handlers
         private int totalChars = 0;
 
@@ -338,15 +647,16 @@ public class RecursiveParserWrapper extends ParserDecorator {
             this.totalWriteLimit = totalWriteLimit;
         }
         /**
-         * Given the requested length, how many characters are actually available
+         * Given the requested length, how many characters are actually available.
+         * These are counted as written.  This is synchronized because embedded
+         * documents may be parsed concurrently.
          * @param length
          * @return
          */
-        int getAvailable(int length) {
-            return Math.min(totalWriteLimit - totalChars, length);
-        }
-        void addChars(int numChars) {
-            totalChars += numChars;
+        synchronized int claimAvailable(int length) {
+            int available = Math.min(totalWriteLimit - totalChars, length);
+            totalChars += available;
+            return available;
         }
 
     }
@@ -408,9 +718,8 @@ public class RecursiveParserWrapper extends ParserDecorator {
                 super.characters(ch, start, length);
                 return;
             }
-            int availableLength = handlerCounter.getAvailable(length);
+            int availableLength = handlerCounter.claimAvailable(length);
             super.characters(ch, start, availableLength);
-            handlerCounter.addChars(availableLength);
             if (availableLength < length) {
                 handleWriteLimitReached();
             }
@@ -426,9 +735,8 @@ public class RecursiveParserWrapper extends ParserDecorator {
                 super.ignorableWhitespace(ch, start, length);
                 return;
             }
-            int availableLength = handlerCounter.getAvailable(length);
+            int availableLength = handlerCounter.claimAvailable(length);
             super.ignorableWhitespace(ch, start, availableLength);
-            handlerCounter.addChars(availableLength);
             if (availableLength < length) {
                 handleWriteLimitReached();
             }
@@ -44,10 +44,16 @@ public class HandlerConfig implements Serializable {
      * contents of embedded files and returns a single metadata object for the file no
      * matter how many embedded objects there are; this option throws away metadata from
      * embedded objects and silently skips exceptions in embedded objects.
+     *
+     * {@link PARSE_MODE#DETECT} only detects the media type of the file and
+     * returns a single metadata object with the content type.  If
+     * {@link #setDetectMaxBytes(int)} is set, at most that many bytes are read
+     * or fetched, see {@link org.apache.tika.detect.BoundedDetector}.
      */
     public enum PARSE_MODE {
         RMETA,
-        CONCATENATE;
+        CONCATENATE,
+        DETECT;
 
         public static PARSE_MODE parseMode(String modeString) {
             for (PARSE_MODE m : PARSE_MODE.values()) {
@@ -77,6 +83,10 @@ public class HandlerConfig implements Serializable {
     boolean throwOnWriteLimitReached = true;
     PARSE_MODE parseMode = PARSE_MODE.RMETA;
 
+    int detectMaxBytes = -1;
+
+    int rangeFetchBlockSize = -1;
+
 
     public HandlerConfig() {
 
@@ -140,10 +150,53 @@ public class HandlerConfig implements Serializable {
         this.parseMode = PARSE_MODE.parseMode(parseMode);
     }
 
+    public int getDetectMaxBytes() {
+        return detectMaxBytes;
+    }
+
+    /**
+     * @param detectMaxBytes maximum number of bytes to read or fetch in
+     *                       {@link PARSE_MODE#DETECT}, or -1 to detect on the
+     *                       whole file
+     */
+    public void setDetectMaxBytes(int detectMaxBytes) {
+        this.detectMaxBytes = detectMaxBytes;
+    }
+
+    public int getRangeFetchBlockSize() {
+        return rangeFetchBlockSize;
+    }
+
+    /**
+     * @param rangeFetchBlockSize if &gt; 0 and the fetcher is a
+     *                            {@link org.apache.tika.pipes.fetcher.RangeFetcher},
+     *                            the document is fetched lazily in blocks of this
+     *                            size, so that parsers of containers such as zip
+     *                            files only fetch the parts they read.  See
+     *                            {@link org.apache.tika.pipes.fetcher.RangeFetcherChannel}.
+     */
+    public void setRangeFetchBlockSize(int rangeFetchBlockSize) {
+        this.rangeFetchBlockSize = rangeFetchBlockSize;
+    }
+
+    /**
+     * @return whether only the metadata of the container document is
+     * returned: the {@link BasicContentHandlerFactory.HANDLER_TYPE#IGNORE}
+     * handler keeps no content, and embedded documents aren't returned in
+     * {@link PARSE_MODE#CONCATENATE} mode or with maxEmbeddedResources 0.
+     * Such parses can skip the body, see {@link org.apache.tika.parser.MetadataOnly}.
+     */
+    public boolean isMetadataOnly() {
+        return type == BasicContentHandlerFactory.HANDLER_TYPE.IGNORE &&
+                (parseMode == PARSE_MODE.CONCATENATE ||
+                        (parseMode == PARSE_MODE.RMETA && maxEmbeddedResources == 0));
+    }
+
     @Override
     public String toString() {
         return "HandlerConfig{" + "type=" + type + ", writeLimit=" + writeLimit + ", maxEmbeddedResources=" + maxEmbeddedResources +
-                ", throwOnWriteLimitReached=" + throwOnWriteLimitReached + ", parseMode=" + parseMode + '}';
+                ", throwOnWriteLimitReached=" + throwOnWriteLimitReached + ", parseMode=" + parseMode +
+                ", detectMaxBytes=" + detectMaxBytes + ", rangeFetchBlockSize=" + rangeFetchBlockSize + '}';
     }
 
     @Override
@@ -157,7 +210,8 @@ public class HandlerConfig implements Serializable {
 
         HandlerConfig that = (HandlerConfig) o;
         return writeLimit == that.writeLimit && maxEmbeddedResources == that.maxEmbeddedResources && throwOnWriteLimitReached == that.throwOnWriteLimitReached &&
-                type == that.type && parseMode == that.parseMode;
+                type == that.type && parseMode == that.parseMode && detectMaxBytes == that.detectMaxBytes &&
+                rangeFetchBlockSize == that.rangeFetchBlockSize;
     }
 
     @Override
@@ -167,6 +221,8 @@ public class HandlerConfig implements Serializable {
         result = 31 * result + maxEmbeddedResources;
         result = 31 * result + Boolean.hashCode(throwOnWriteLimitReached);
         result = 31 * result + Objects.hashCode(parseMode);
+        result = 31 * result + detectMaxBytes;
+        result = 31 * result + rangeFetchBlockSize;
         return result;
     }
 }
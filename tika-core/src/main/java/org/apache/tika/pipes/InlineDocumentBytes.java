@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes;
+
+import java.io.Serializable;
+
+/**
+ * The bytes of a document, set in the {@link org.apache.tika.parser.ParseContext}
+ * of a {@link FetchEmitTuple} by clients that already hold a small document
+ * in memory.  The {@link PipesServer} parses these bytes instead of fetching
+ * the document, and the fetcher of the fetch key isn't used.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class InlineDocumentBytes implements Serializable {
+
+    private static final long serialVersionUID = 4906527342781537045L;
+
+    private final byte[] bytes;
+
+    private final String resourceName;
+
+    /**
+     * @param bytes        the document
+     * @param resourceName the name of the document, used for detection,
+     *                     or <code>null</code>
+     */
+    public InlineDocumentBytes(byte[] bytes, String resourceName) {
+        this.bytes = bytes;
+        this.resourceName = resourceName;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+}
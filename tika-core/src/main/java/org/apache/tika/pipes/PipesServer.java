@@ -41,6 +41,7 @@ import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import org.apache.tika.config.TikaConfig;
+import org.apache.tika.detect.BoundedDetector;
 import org.apache.tika.detect.Detector;
 import org.apache.tika.exception.EncryptedDocumentException;
 import org.apache.tika.exception.TikaConfigException;
@@ -63,6 +64,7 @@ import org.apache.tika.metadata.listfilter.NoOpListFilter;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.DigestingParser;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.RecursiveParserWrapper;
@@ -76,6 +78,8 @@ import org.apache.tika.pipes.extractor.EmbeddedDocumentBytesConfig;
 import org.apache.tika.pipes.extractor.EmittingEmbeddedDocumentBytesHandler;
 import org.apache.tika.pipes.fetcher.Fetcher;
 import org.apache.tika.pipes.fetcher.FetcherManager;
+import org.apache.tika.pipes.fetcher.RangeFetcher;
+import org.apache.tika.pipes.fetcher.RangeFetcherChannel;
 import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.ContentHandlerFactory;
 import org.apache.tika.sax.RecursiveParserWrapperHandler;
@@ -358,10 +362,15 @@ public class PipesServer implements Runnable {
     private void actuallyParse(FetchEmitTuple t) {
 
         long start = System.currentTimeMillis();
-        Fetcher fetcher = getFetcher(t);
-        if (fetcher == null) {
-            //rely on proper logging/exception handling in getFetcher
-            return;
+        Fetcher fetcher = null;
+        //there's nothing to fetch if the client sent the bytes or fetched the document
+        if (t.getParseContext().get(InlineDocumentBytes.class) == null &&
+                t.getParseContext().get(PrefetchedDocument.class) == null) {
+            fetcher = getFetcher(t);
+            if (fetcher == null) {
+                //rely on proper logging/exception handling in getFetcher
+                return;
+            }
         }
 
         if (LOG.isTraceEnabled()) {
@@ -481,6 +490,22 @@ public class PipesServer implements Runnable {
     }
 
     protected MetadataListAndEmbeddedBytes parseFromTuple(FetchEmitTuple t, Fetcher fetcher) {
+        InlineDocumentBytes inlineDocumentBytes = t.getParseContext().get(InlineDocumentBytes.class);
+        if (inlineDocumentBytes != null) {
+            return parseInlineBytes(t, inlineDocumentBytes);
+        }
+        PrefetchedDocument prefetchedDocument = t.getParseContext().get(PrefetchedDocument.class);
+        if (prefetchedDocument != null) {
+            return parsePrefetched(t, prefetchedDocument);
+        }
+        HandlerConfig handlerConfig = t.getParseContext().get(HandlerConfig.class);
+        if (handlerConfig != null && handlerConfig.getParseMode() == HandlerConfig.PARSE_MODE.DETECT) {
+            return detectFromTuple(t, fetcher, handlerConfig);
+        }
+        if (handlerConfig != null && handlerConfig.getRangeFetchBlockSize() > 0 &&
+                fetcher instanceof RangeFetcher) {
+            return parseFromRanges(t, (RangeFetcher) fetcher, handlerConfig.getRangeFetchBlockSize());
+        }
 
         Metadata metadata = new Metadata();
         try (InputStream stream = fetcher.fetch(t.getFetchKey().getFetchKey(), metadata, t.getParseContext())) {
@@ -496,6 +521,111 @@ public class PipesServer implements Runnable {
         return null;
     }
 
+    private MetadataListAndEmbeddedBytes parseInlineBytes(FetchEmitTuple t,
+                                                          InlineDocumentBytes inlineDocumentBytes) {
+        Metadata metadata = new Metadata();
+        if (inlineDocumentBytes.getResourceName() != null) {
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, inlineDocumentBytes.getResourceName());
+        }
+        try (TikaInputStream tis = TikaInputStream.get(inlineDocumentBytes.getBytes(), metadata)) {
+            return parseWithStream(t, tis, metadata);
+        } catch (TikaException | IOException e) {
+            LOG.warn("fetch exception " + t.getId(), e);
+            write(STATUS.FETCH_EXCEPTION, ExceptionUtils.getStackTrace(e));
+        }
+        return null;
+    }
+
+    private MetadataListAndEmbeddedBytes parsePrefetched(FetchEmitTuple t,
+                                                         PrefetchedDocument prefetchedDocument) {
+        Metadata metadata = prefetchedDocument.getMetadata();
+        boolean hasName = !StringUtils.isBlank(metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY));
+        try (TikaInputStream tis = prefetchedDocument.getBytes() != null ?
+                TikaInputStream.get(prefetchedDocument.getBytes(), metadata) :
+                TikaInputStream.get(Paths.get(prefetchedDocument.getPath()), metadata)) {
+            if (!hasName) {
+                //not the name of the temp file, as if the fetcher's stream was parsed
+                metadata.remove(TikaCoreProperties.RESOURCE_NAME_KEY);
+            }
+            return parseWithStream(t, tis, metadata);
+        } catch (TikaException | IOException e) {
+            LOG.warn("fetch exception " + t.getId(), e);
+            write(STATUS.FETCH_EXCEPTION, ExceptionUtils.getStackTrace(e));
+        }
+        return null;
+    }
+
+    /**
+     * Parses a document that is fetched lazily in blocks, so that parsers
+     * that need random access only fetch the ranges they read.
+     */
+    private MetadataListAndEmbeddedBytes parseFromRanges(FetchEmitTuple t, RangeFetcher fetcher,
+                                                         int blockSize) {
+        Metadata metadata = new Metadata();
+        try (TikaInputStream tis = TikaInputStream.get(RangeFetcherChannel.open(fetcher,
+                t.getFetchKey().getFetchKey(), metadata, t.getParseContext(), blockSize,
+                RangeFetcherChannel.DEFAULT_MAX_CACHED_BLOCKS), metadata)) {
+            return parseWithStream(t, tis, metadata);
+        } catch (SecurityException e) {
+            LOG.error("security exception " + t.getId(), e);
+            throw e;
+        } catch (TikaException | IOException e) {
+            LOG.warn("fetch exception " + t.getId(), e);
+            write(STATUS.FETCH_EXCEPTION, ExceptionUtils.getStackTrace(e));
+        }
+        return null;
+    }
+
+    /**
+     * Only detects the media type.  With a byte budget, only the ranges the
+     * {@link BoundedDetector} needs are fetched from a {@link RangeFetcher}.
+     * A failed fetch is a {@link STATUS#FETCH_EXCEPTION}, but if the detector
+     * fails, the type is <code>application/octet-stream</code>, as in tika-server.
+     */
+    private MetadataListAndEmbeddedBytes detectFromTuple(FetchEmitTuple t, Fetcher fetcher,
+                                                         HandlerConfig handlerConfig) {
+        Metadata metadata = new Metadata();
+        String fetchKey = t.getFetchKey().getFetchKey();
+        try {
+            ParseContext parseContext = setupParseContext(t);
+            BoundedDetector.Result result;
+            if (handlerConfig.getDetectMaxBytes() > 0 && fetcher instanceof RangeFetcher) {
+                result = new BoundedDetector(detector, handlerConfig.getDetectMaxBytes())
+                        .detectWithBudget((RangeFetcher) fetcher, fetchKey, metadata, parseContext);
+            } else {
+                InputStream stream;
+                try {
+                    stream = fetcher.fetch(fetchKey, metadata, parseContext);
+                } catch (IOException e) {
+                    throw new TikaException("Couldn't fetch " + fetchKey, e);
+                }
+                try (TikaInputStream tis = TikaInputStream.get(stream)) {
+                    if (handlerConfig.getDetectMaxBytes() > 0) {
+                        result = new BoundedDetector(detector, handlerConfig.getDetectMaxBytes())
+                                .detectWithBudget(tis, metadata);
+                    } else {
+                        result = new BoundedDetector.Result(detector.detect(tis, metadata), false);
+                    }
+                }
+            }
+            metadata.set(Metadata.CONTENT_TYPE, result.getMediaType().toString());
+            if (result.isTruncated()) {
+                metadata.set(TikaCoreProperties.DETECTION_TRUNCATED, true);
+            }
+        } catch (SecurityException e) {
+            LOG.error("security exception " + t.getId(), e);
+            throw e;
+        } catch (TikaException e) {
+            LOG.warn("fetch exception " + t.getId(), e);
+            write(STATUS.FETCH_EXCEPTION, ExceptionUtils.getStackTrace(e));
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Unable to detect MIME type for " + t.getId(), e);
+            metadata.set(Metadata.CONTENT_TYPE, MediaType.OCTET_STREAM.toString());
+        }
+        return new MetadataListAndEmbeddedBytes(Collections.singletonList(metadata), null);
+    }
+
     private String getNoFetcherMsg(String fetcherName) {
         StringBuilder sb = new StringBuilder();
         sb.append("Fetcher '").append(fetcherName).append("'");
@@ -560,6 +690,12 @@ public class PipesServer implements Runnable {
             parseContext.set(HandlerConfig.class, HandlerConfig.DEFAULT_HANDLER_CONFIG);
         }
         EmbeddedDocumentBytesConfig embeddedDocumentBytesConfig = parseContext.get(EmbeddedDocumentBytesConfig.class);
+        if (parseContext.get(HandlerConfig.class).isMetadataOnly() &&
+                (embeddedDocumentBytesConfig == null ||
+                        !embeddedDocumentBytesConfig.isExtractEmbeddedDocumentBytes())) {
+            //nothing but the container's metadata is returned, so parsers can skip the body
+            parseContext.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+        }
         if (embeddedDocumentBytesConfig == null) {
             //make sure there's one here -- or do we make this default in fetchemit tuple?
             parseContext.set(EmbeddedDocumentBytesConfig.class, EmbeddedDocumentBytesConfig.SKIP);
@@ -799,7 +935,7 @@ public class PipesServer implements Runnable {
             try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bos)) {
                 objectOutputStream.writeObject(metadata);
             }
-            write(STATUS.INTERMEDIATE_RESULT, bos.toByteArray());
+            write(STATUS.INTERMEDIATE_RESULT, bos);
         } catch (IOException e) {
             LOG.error("problem writing intermediate data (forking process shutdown?)", e);
             exit(1);
@@ -812,7 +948,7 @@ public class PipesServer implements Runnable {
             try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bos)) {
                 objectOutputStream.writeObject(emitData);
             }
-            write(STATUS.PARSE_SUCCESS, bos.toByteArray());
+            write(STATUS.PARSE_SUCCESS, bos);
         } catch (IOException e) {
             LOG.error("problem writing emit data (forking process shutdown?)", e);
             exit(1);
@@ -824,6 +960,22 @@ public class PipesServer implements Runnable {
         write(status, bytes);
     }
 
+    /**
+     * Writes the serialized bytes straight from the buffer, without the
+     * copy that {@link UnsynchronizedByteArrayOutputStream#toByteArray()} makes.
+     */
+    private void write(STATUS status, UnsynchronizedByteArrayOutputStream bos) {
+        try {
+            output.write(status.getByte());
+            output.writeInt(bos.size());
+            bos.writeTo(output);
+            output.flush();
+        } catch (IOException e) {
+            LOG.error("problem writing data (forking process shutdown?)", e);
+            exit(1);
+        }
+    }
+
     private void write(STATUS status, byte[] bytes) {
         try {
             int len = bytes.length;
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes;
+
+import java.io.Serializable;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * A document that was fetched before it was sent to the {@link PipesServer},
+ * set in the {@link org.apache.tika.parser.ParseContext} of a
+ * {@link FetchEmitTuple} by the {@link org.apache.tika.pipes.async.AsyncProcessor}
+ * when it fetches ahead.  The server parses the bytes or the local file
+ * instead of fetching the document again.  The file is owned by the sender,
+ * which deletes it after the tuple has been processed.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class PrefetchedDocument implements Serializable {
+
+    private static final long serialVersionUID = -1837254021788915623L;
+
+    private final byte[] bytes;
+
+    private final String path;
+
+    private final Metadata metadata;
+
+    private PrefetchedDocument(byte[] bytes, String path, Metadata metadata) {
+        this.bytes = bytes;
+        this.path = path;
+        this.metadata = metadata;
+    }
+
+    /**
+     * @param bytes    the document
+     * @param metadata the metadata that the fetcher set
+     */
+    public static PrefetchedDocument inMemory(byte[] bytes, Metadata metadata) {
+        return new PrefetchedDocument(bytes, null, metadata);
+    }
+
+    /**
+     * @param path     local file with the document
+     * @param metadata the metadata that the fetcher set
+     */
+    public static PrefetchedDocument onDisk(String path, Metadata metadata) {
+        return new PrefetchedDocument(null, path, metadata);
+    }
+
+    /**
+     * @return the document, or <code>null</code> if it is in a file
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the file with the document, or <code>null</code> if it is in memory
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public Metadata getMetadata() {
+        return metadata;
+    }
+}
@@ -20,6 +20,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.tika.exception.TikaConfigException;
 import org.apache.tika.pipes.PipesConfigBase;
@@ -35,6 +38,18 @@ public class AsyncConfig extends PipesConfigBase {
 
     private boolean emitIntermediateResults = false;
 
+    private String checkpointDir = null;
+
+    private int prefetchDepth = 0;
+
+    private long prefetchMaxBytes = 1024L * 1024L * 1024L;
+
+    private int prefetchMaxInMemoryBytes = 1024 * 1024;
+
+    private String queueClassKey = null;
+
+    private Map<String, Double> queueClassWeights = Collections.emptyMap();
+
     private PipesReporter pipesReporter = PipesReporter.NO_OP_REPORTER;
 
     public static AsyncConfig load(Path p) throws IOException, TikaConfigException {
@@ -117,4 +132,114 @@ public class AsyncConfig extends PipesConfigBase {
     public boolean isEmitIntermediateResults() {
         return emitIntermediateResults;
     }
+
+    /**
+     * Directory for a {@link org.apache.tika.io.CheckpointJournal} of the
+     * ids of the tuples that have been processed.  Tuples that are in the
+     * journal are skipped, so that a restarted run picks up where the
+     * previous one stopped.  The default is <code>null</code>, no journal.
+     *
+     * @param checkpointDir directory for the journal
+     */
+    public void setCheckpointDir(String checkpointDir) {
+        this.checkpointDir = checkpointDir;
+    }
+
+    public String getCheckpointDir() {
+        return checkpointDir;
+    }
+
+    /**
+     * Number of tuples that each worker fetches ahead while the pipes
+     * server parses the current one, so that fetching and parsing overlap.
+     * The prefetched documents are sent to the server as
+     * {@link org.apache.tika.pipes.PrefetchedDocument}s.  Tuples that are
+     * parsed from inline bytes, detected only or fetched in ranges, and
+     * tuples for the file system fetcher are not prefetched.  The default
+     * is 0, the pipes server fetches each document itself.
+     *
+     * @param prefetchDepth tuples to fetch ahead per worker
+     */
+    public void setPrefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    /**
+     * Maximum number of bytes of prefetched documents that may be held, in
+     * memory and in temp files, by all workers together.  When the budget
+     * is used up, the tuple is sent without the document and the pipes server
+     * fetches it.  A document that is larger than what's left of the budget
+     * is still prefetched, and its bytes past the budget are written to a
+     * temp file that isn't counted, so that it isn't fetched twice.
+     *
+     * @param prefetchMaxBytes the budget for prefetched documents
+     */
+    public void setPrefetchMaxBytes(long prefetchMaxBytes) {
+        this.prefetchMaxBytes = prefetchMaxBytes;
+    }
+
+    public long getPrefetchMaxBytes() {
+        return prefetchMaxBytes;
+    }
+
+    /**
+     * Prefetched documents up to this size are kept in memory, larger ones
+     * are written to temp files.
+     *
+     * @param prefetchMaxInMemoryBytes largest document to keep in memory
+     */
+    public void setPrefetchMaxInMemoryBytes(int prefetchMaxInMemoryBytes) {
+        this.prefetchMaxInMemoryBytes = prefetchMaxInMemoryBytes;
+    }
+
+    public int getPrefetchMaxInMemoryBytes() {
+        return prefetchMaxInMemoryBytes;
+    }
+
+    /**
+     * Metadata field of the tuples whose value is the tuple's class in the
+     * queue, e.g. a tenant or a priority.  Workers take tuples from the
+     * classes in proportion to the classes' weights, so that a burst of
+     * tuples of one class doesn't hold up the others.  Tuples without the
+     * field are in the class "default".  The default is <code>null</code>,
+     * the queue is first in, first out.
+     *
+     * @param queueClassKey metadata field that holds the class
+     */
+    public void setQueueClassKey(String queueClassKey) {
+        this.queueClassKey = queueClassKey;
+    }
+
+    public String getQueueClassKey() {
+        return queueClassKey;
+    }
+
+    /**
+     * Weights of the queue classes, see {@link #setQueueClassKey(String)}.
+     * A class with weight 4 gets four tuples processed for each one of a
+     * class with weight 1 while both have tuples waiting.  Classes that
+     * aren't listed have weight 1.
+     *
+     * @param queueClassWeights class names and their weights, which must be &gt; 0
+     */
+    public void setQueueClassWeights(Map<String, String> queueClassWeights) {
+        Map<String, Double> weights = new HashMap<>();
+        for (Map.Entry<String, String> e : queueClassWeights.entrySet()) {
+            double weight = Double.parseDouble(e.getValue());
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("weight of queue class " + e.getKey() +
+                        " must be > 0: " + e.getValue());
+            }
+            weights.put(e.getKey(), weight);
+        }
+        this.queueClassWeights = weights;
+    }
+
+    public Map<String, Double> getQueueClassWeights() {
+        return queueClassWeights;
+    }
 }
@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,14 +51,26 @@ public class AsyncEmitter implements Callable<Integer> {
     private final AsyncConfig asyncConfig;
     private final EmitterManager emitterManager;
     private final ArrayBlockingQueue<EmitData> emitDataQueue;
+    private final BiConsumer<EmitData, Boolean> emittedListener;
 
     Instant lastEmitted = Instant.now();
 
     public AsyncEmitter(AsyncConfig asyncConfig, ArrayBlockingQueue<EmitData> emitData,
                         EmitterManager emitterManager) {
+        this(asyncConfig, emitData, emitterManager, null);
+    }
+
+    /**
+     * @param emittedListener called with each EmitData after the emitter
+     *                        was called, and whether it was emitted
+     *                        successfully; may be <code>null</code>
+     */
+    AsyncEmitter(AsyncConfig asyncConfig, ArrayBlockingQueue<EmitData> emitData,
+                 EmitterManager emitterManager, BiConsumer<EmitData, Boolean> emittedListener) {
         this.asyncConfig = asyncConfig;
         this.emitDataQueue = emitData;
         this.emitterManager = emitterManager;
+        this.emittedListener = emittedListener;
     }
 
     @Override
@@ -120,7 +133,12 @@ public class AsyncEmitter implements Callable<Integer> {
             LOG.debug("about to emit {} files, {} estimated bytes", size, estimatedSize);
             for (Map.Entry<String, List<EmitData>> e : map.entrySet()) {
                 Emitter emitter = emitterManager.getEmitter(e.getKey());
-                tryToEmit(emitter, e.getValue());
+                boolean success = tryToEmit(emitter, e.getValue());
+                if (emittedListener != null) {
+                    for (EmitData emitData : e.getValue()) {
+                        emittedListener.accept(emitData, success);
+                    }
+                }
                 emitted += e.getValue().size();
             }
 
@@ -131,13 +149,15 @@ public class AsyncEmitter implements Callable<Integer> {
             lastEmitted = Instant.now();
         }
 
-        private void tryToEmit(Emitter emitter, List<EmitData> cachedEmitData) {
+        private boolean tryToEmit(Emitter emitter, List<EmitData> cachedEmitData) {
 
             try {
                 emitter.emit(cachedEmitData);
+                return true;
             } catch (IOException | TikaEmitterException e) {
                 LOG.warn("emitter class ({}): {}", emitter.getClass(),
                         ExceptionUtils.getStackTrace(e));
+                return false;
             }
         }
     }
@@ -19,9 +19,16 @@ package org.apache.tika.pipes.async;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
@@ -34,11 +41,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.CheckpointJournal;
 import org.apache.tika.pipes.FetchEmitTuple;
 import org.apache.tika.pipes.PipesClient;
 import org.apache.tika.pipes.PipesException;
 import org.apache.tika.pipes.PipesReporter;
 import org.apache.tika.pipes.PipesResult;
+import org.apache.tika.pipes.PrefetchedDocument;
 import org.apache.tika.pipes.emitter.EmitData;
 import org.apache.tika.pipes.emitter.EmitterManager;
 import org.apache.tika.pipes.pipesiterator.PipesIterator;
@@ -57,12 +66,19 @@ public class AsyncProcessor implements Closeable {
 
     private static final Logger LOG = LoggerFactory.getLogger(AsyncProcessor.class);
 
-    private final ArrayBlockingQueue<FetchEmitTuple> fetchEmitTuples;
+    private final FairFetchEmitQueue fetchEmitTuples;
     private final ArrayBlockingQueue<EmitData> emitData;
     private final ExecutorCompletionService<Integer> executorCompletionService;
     private final ExecutorService executorService;
     private final AsyncConfig asyncConfig;
     private final AtomicLong totalProcessed = new AtomicLong(0);
+    private final AtomicLong totalSkipped = new AtomicLong(0);
+    //null unless AsyncConfig has a checkpointDir
+    private final CheckpointJournal checkpointJournal;
+    //ids of tuples whose EmitData is waiting to be emitted, by EmitData identity
+    private final Map<EmitData, String> pendingCheckpoints = new ConcurrentHashMap<>();
+    //null unless AsyncConfig has a prefetchDepth
+    private final Prefetcher prefetcher;
     private static long MAX_OFFER_WAIT_MS = 120000;
     private volatile int numParserThreadsFinished = 0;
     private volatile int numEmitterThreadsFinished = 0;
@@ -75,14 +91,22 @@ public class AsyncProcessor implements Closeable {
 
     public AsyncProcessor(Path tikaConfigPath, PipesIterator pipesIterator) throws TikaException, IOException {
         this.asyncConfig = AsyncConfig.load(tikaConfigPath);
-        this.fetchEmitTuples = new ArrayBlockingQueue<>(asyncConfig.getQueueSize());
+        this.fetchEmitTuples = new FairFetchEmitQueue(asyncConfig.getQueueSize(),
+                asyncConfig.getQueueClassKey(), asyncConfig.getQueueClassWeights());
         this.emitData = new ArrayBlockingQueue<>(100);
         //+1 is the watcher thread
         this.executorService = Executors.newFixedThreadPool(
                 asyncConfig.getNumClients() + asyncConfig.getNumEmitters() + 1);
         this.executorCompletionService =
                 new ExecutorCompletionService<>(executorService);
+        this.checkpointJournal = asyncConfig.getCheckpointDir() == null ? null :
+                CheckpointJournal.open(Paths.get(asyncConfig.getCheckpointDir()));
+        Prefetcher prefetcher = null;
         try {
+            if (asyncConfig.getPrefetchDepth() > 0) {
+                prefetcher = new Prefetcher(asyncConfig);
+            }
+            this.prefetcher = prefetcher;
             if (!tikaConfigPath.toAbsolutePath().equals(asyncConfig.getTikaConfig().toAbsolutePath())) {
                 LOG.warn("TikaConfig for AsyncProcessor ({}) is different " +
                                 "from TikaConfig for workers ({}). If this is intended," +
@@ -113,11 +137,18 @@ public class AsyncProcessor implements Closeable {
             EmitterManager emitterManager = EmitterManager.load(asyncConfig.getTikaConfig());
             for (int i = 0; i < asyncConfig.getNumEmitters(); i++) {
                 executorCompletionService.submit(
-                        new AsyncEmitter(asyncConfig, emitData, emitterManager));
+                        new AsyncEmitter(asyncConfig, emitData, emitterManager,
+                                checkpointJournal == null ? null : this::emitted));
             }
         } catch (Exception e) {
             LOG.error("problem initializing AsyncProcessor", e);
             executorService.shutdownNow();
+            if (prefetcher != null) {
+                prefetcher.close();
+            }
+            if (checkpointJournal != null) {
+                checkpointJournal.close();
+            }
             asyncConfig.getPipesReporter().error(e);
             throw e;
         }
@@ -151,6 +182,7 @@ public class AsyncProcessor implements Closeable {
             throw new IllegalStateException(
                     "Can't call offer after calling close() or " + "shutdownNow()");
         }
+        newFetchEmitTuples = removeCompleted(newFetchEmitTuples);
         if (newFetchEmitTuples.size() > asyncConfig.getQueueSize()) {
             throw new OfferLargerThanQueueSize(newFetchEmitTuples.size(),
                     asyncConfig.getQueueSize());
@@ -187,9 +219,68 @@ public class AsyncProcessor implements Closeable {
                     "Can't call offer after calling close() or " + "shutdownNow()");
         }
         checkActive();
+        if (isCompleted(t)) {
+            return true;
+        }
         return fetchEmitTuples.offer(t, offerMs, TimeUnit.MILLISECONDS);
     }
 
+    private List<FetchEmitTuple> removeCompleted(List<FetchEmitTuple> tuples) {
+        if (checkpointJournal == null) {
+            return tuples;
+        }
+        List<FetchEmitTuple> remaining = new ArrayList<>(tuples.size());
+        for (FetchEmitTuple t : tuples) {
+            if (!isCompleted(t)) {
+                remaining.add(t);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * @return whether the tuple is in the checkpoint journal, i.e. it
+     * was processed by an earlier run and can be skipped
+     */
+    private boolean isCompleted(FetchEmitTuple t) {
+        if (checkpointJournal == null) {
+            return false;
+        }
+        try {
+            if (checkpointJournal.contains(t.getId())) {
+                LOG.debug("skipping completed tuple: {}", t.getId());
+                totalSkipped.incrementAndGet();
+                return true;
+            }
+        } catch (IOException e) {
+            LOG.warn("couldn't read checkpoint journal", e);
+        }
+        return false;
+    }
+
+    private void checkpoint(String id) {
+        if (checkpointJournal == null || id == null) {
+            return;
+        }
+        try {
+            checkpointJournal.add(id);
+        } catch (IOException e) {
+            LOG.warn("couldn't write {} to checkpoint journal", id, e);
+        }
+    }
+
+    /**
+     * The tuple's id is dropped from the pending checkpoints whether or not
+     * it was emitted, so failed emits don't pile up; only emitted tuples
+     * are checkpointed.
+     */
+    private void emitted(EmitData emitData, boolean success) {
+        String id = pendingCheckpoints.remove(emitData);
+        if (success) {
+            checkpoint(id);
+        }
+    }
+
     public void finished() throws InterruptedException {
         for (int i = 0; i < asyncConfig.getNumClients(); i++) {
             boolean offered = fetchEmitTuples.offer(PipesIterator.COMPLETED_SEMAPHORE,
@@ -251,34 +342,73 @@ public class AsyncProcessor implements Closeable {
     @Override
     public void close() throws IOException {
         executorService.shutdownNow();
-        asyncConfig.getPipesReporter().close();
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        try {
+            asyncConfig.getPipesReporter().close();
+        } finally {
+            if (checkpointJournal != null) {
+                checkpointJournal.close();
+            }
+        }
     }
 
     public long getTotalProcessed() {
         return totalProcessed.get();
     }
 
+    /**
+     * @return number of tuples that were skipped because they were
+     * in the checkpoint journal
+     */
+    public long getTotalSkipped() {
+        return totalSkipped.get();
+    }
+
+    /**
+     * @return statistics of each class of the queue that has had a tuple,
+     * see {@link AsyncConfig#setQueueClassKey(String)}
+     */
+    public Map<String, QueueClassStatistics> getQueueStatistics() {
+        return fetchEmitTuples.getStatistics();
+    }
+
     private class FetchEmitWorker implements Callable<Integer> {
 
         private final AsyncConfig asyncConfig;
-        private final ArrayBlockingQueue<FetchEmitTuple> fetchEmitTuples;
+        private final BlockingQueue<FetchEmitTuple> fetchEmitTuples;
         private final ArrayBlockingQueue<EmitData> emitDataQueue;
 
         private FetchEmitWorker(AsyncConfig asyncConfig,
-                                ArrayBlockingQueue<FetchEmitTuple> fetchEmitTuples,
+                                BlockingQueue<FetchEmitTuple> fetchEmitTuples,
                                 ArrayBlockingQueue<EmitData> emitDataQueue) {
             this.asyncConfig = asyncConfig;
             this.fetchEmitTuples = fetchEmitTuples;
             this.emitDataQueue = emitDataQueue;
         }
 
+        //tuples taken from the queue, whose documents are being fetched ahead
+        private final Deque<Prefetcher.Prefetch> prefetches = new ArrayDeque<>();
+        private boolean completed = false;
+
         @Override
         public Integer call() throws Exception {
 
             try (PipesClient pipesClient = new PipesClient(asyncConfig)) {
                 while (true) {
-                    FetchEmitTuple t = fetchEmitTuples.poll(1, TimeUnit.SECONDS);
+                    FetchEmitTuple t;
+                    Prefetcher.Prefetch prefetch = null;
+                    if (prefetcher == null) {
+                        t = fetchEmitTuples.poll(1, TimeUnit.SECONDS);
+                    } else {
+                        prefetch = nextPrefetch();
+                        t = prefetch == null ? null : prefetch.getTuple();
+                    }
                     if (t == null) {
+                        if (completed) {
+                            return PARSER_FUTURE_CODE;
+                        }
                         //skip
                         if (LOG.isTraceEnabled()) {
                             LOG.trace("null fetch emit tuple");
@@ -289,39 +419,105 @@ public class AsyncProcessor implements Closeable {
                         }
                         return PARSER_FUTURE_CODE;
                     } else {
-                        PipesResult result = null;
-                        long start = System.currentTimeMillis();
                         try {
-                            result = pipesClient.process(t);
-                        } catch (IOException e) {
-                            LOG.warn("pipesClient crash", e);
-                            result = PipesResult.UNSPECIFIED_CRASH;
-                        }
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("timer -- pipes client process: {} ms",
-                                    System.currentTimeMillis() - start);
-                        }
-                        long offerStart = System.currentTimeMillis();
-
-                        if (shouldEmit(result)) {
-                            LOG.trace("adding result to emitter queue: " + result.getEmitData());
-                            boolean offered = emitDataQueue.offer(result.getEmitData(),
-                                    MAX_OFFER_WAIT_MS,
-                                    TimeUnit.MILLISECONDS);
-                            if (! offered) {
-                                throw new RuntimeException("Couldn't offer emit data to queue " +
-                                        "within " + MAX_OFFER_WAIT_MS + " ms");
+                            process(pipesClient, t, prefetch);
+                        } finally {
+                            if (prefetch != null) {
+                                prefetch.close();
                             }
                         }
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("timer -- offered: {} ms",
-                                    System.currentTimeMillis() - offerStart);
-                        }
-                        long elapsed = System.currentTimeMillis() - start;
-                        asyncConfig.getPipesReporter().report(t, result, elapsed);
-                        totalProcessed.incrementAndGet();
                     }
                 }
+            } finally {
+                for (Prefetcher.Prefetch prefetch : prefetches) {
+                    prefetch.close();
+                }
+            }
+        }
+
+        /**
+         * Tops up the tuples that are fetched ahead, and returns the oldest
+         * one, or <code>null</code> if there is none yet.
+         */
+        private Prefetcher.Prefetch nextPrefetch() throws InterruptedException {
+            while (!completed && prefetches.size() <= asyncConfig.getPrefetchDepth()) {
+                //only wait if there's nothing else to do
+                FetchEmitTuple next = prefetches.isEmpty() ?
+                        fetchEmitTuples.poll(1, TimeUnit.SECONDS) : fetchEmitTuples.poll();
+                if (next == null) {
+                    break;
+                } else if (next == PipesIterator.COMPLETED_SEMAPHORE) {
+                    //finish the tuples that were fetched ahead first
+                    completed = true;
+                } else {
+                    prefetches.add(prefetcher.prefetch(next));
+                }
+            }
+            return prefetches.poll();
+        }
+
+        private void process(PipesClient pipesClient, FetchEmitTuple t,
+                             Prefetcher.Prefetch prefetch) throws InterruptedException {
+            PipesResult result = null;
+            long start = System.currentTimeMillis();
+            try {
+                if (prefetch != null) {
+                    t.getParseContext().set(PrefetchedDocument.class, prefetch.await());
+                }
+                result = pipesClient.process(t);
+            } catch (IOException e) {
+                LOG.warn("pipesClient crash", e);
+                result = PipesResult.UNSPECIFIED_CRASH;
+            } finally {
+                if (prefetch != null) {
+                    //the reporter and emitters see the tuple as it was offered
+                    t.getParseContext().set(PrefetchedDocument.class, null);
+                }
+            }
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("timer -- pipes client process: {} ms",
+                        System.currentTimeMillis() - start);
+            }
+            long offerStart = System.currentTimeMillis();
+
+            if (shouldEmit(result)) {
+                LOG.trace("adding result to emitter queue: " + result.getEmitData());
+                if (checkpointJournal != null) {
+                    //checkpointed once it has been emitted
+                    pendingCheckpoints.put(result.getEmitData(), t.getId());
+                }
+                boolean offered = emitDataQueue.offer(result.getEmitData(),
+                        MAX_OFFER_WAIT_MS,
+                        TimeUnit.MILLISECONDS);
+                if (! offered) {
+                    throw new RuntimeException("Couldn't offer emit data to queue " +
+                            "within " + MAX_OFFER_WAIT_MS + " ms");
+                }
+            } else if (isFinal(result)) {
+                checkpoint(t.getId());
+            }
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("timer -- offered: {} ms",
+                        System.currentTimeMillis() - offerStart);
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            asyncConfig.getPipesReporter().report(t, result, elapsed);
+            totalProcessed.incrementAndGet();
+        }
+
+        /**
+         * Results that might turn out differently if the tuple is
+         * processed again are not checkpointed.
+         */
+        private boolean isFinal(PipesResult result) {
+            switch (result.getStatus()) {
+                case CLIENT_UNAVAILABLE_WITHIN_MS:
+                case FETCHER_INITIALIZATION_EXCEPTION:
+                case EMIT_EXCEPTION:
+                case INTERRUPTED_EXCEPTION:
+                    return false;
+                default:
+                    return true;
             }
         }
 
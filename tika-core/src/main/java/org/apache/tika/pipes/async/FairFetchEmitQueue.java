@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.tika.pipes.FetchEmitTuple;
+import org.apache.tika.pipes.pipesiterator.PipesIterator;
+
+/**
+ * Bounded queue of tuples that are grouped in classes by the value of a
+ * metadata field of the tuple, e.g. a tenant or a priority.  The classes
+ * are served in proportion to their weights (stride scheduling): a class
+ * with weight 4 gets four tuples taken for each tuple of a class with
+ * weight 1, as long as both have tuples waiting.  Within a class, tuples
+ * are taken in the order they were added.
+ * <p>
+ * A class that has been idle doesn't build up credit; it starts at the
+ * current position of the busy classes.  The
+ * {@link PipesIterator#COMPLETED_SEMAPHORE} is only taken once all
+ * classes are empty.
+ * <p>
+ * Only the classes that have tuples waiting are scheduled, a class is
+ * dropped from the schedule when its last tuple is taken.  Its statistics
+ * and its position are kept, so that a class that comes back is scheduled
+ * as if it had stayed.
+ * <p>
+ * Without a class key, all tuples are in the {@link #DEFAULT_CLASS} and
+ * this is a plain FIFO queue.
+ *
+ * @since Apache Tika 4.0.0
+ */
+class FairFetchEmitQueue extends AbstractQueue<FetchEmitTuple>
+        implements BlockingQueue<FetchEmitTuple> {
+
+    static final String DEFAULT_CLASS = "default";
+
+    private final int capacity;
+
+    private final String classKey;
+
+    private final Map<String, Double> weights;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    //classes with tuples waiting
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+
+    //every class that has had a tuple
+    private final Map<String, ClassState> classes = new LinkedHashMap<>();
+
+    private final ArrayDeque<FetchEmitTuple> semaphores = new ArrayDeque<>();
+
+    private int count = 0;
+
+    //pass of the class that was served last
+    private double virtualTime = 0;
+
+    /**
+     * @param capacity maximum number of tuples in all classes together
+     * @param classKey metadata field of the tuples that holds their class,
+     *                 or <code>null</code> to put all tuples in one class
+     * @param weights  weights of the classes, classes that aren't in this
+     *                 map have weight 1
+     */
+    FairFetchEmitQueue(int capacity, String classKey, Map<String, Double> weights) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        this.capacity = capacity;
+        this.classKey = classKey;
+        this.weights = weights;
+    }
+
+    private String getClassName(FetchEmitTuple t) {
+        if (classKey == null || t.getMetadata() == null) {
+            return DEFAULT_CLASS;
+        }
+        String value = t.getMetadata().get(classKey);
+        return value == null ? DEFAULT_CLASS : value;
+    }
+
+    private void enqueue(FetchEmitTuple t) {
+        if (t == PipesIterator.COMPLETED_SEMAPHORE) {
+            semaphores.add(t);
+        } else {
+            String name = getClassName(t);
+            Lane lane = lanes.get(name);
+            if (lane == null) {
+                ClassState state = classes.computeIfAbsent(name,
+                        n -> new ClassState(weights.getOrDefault(n, 1.0), classes.size()));
+                state.pass = Math.max(state.pass, virtualTime);
+                lane = new Lane(name, state);
+                lanes.put(name, lane);
+            }
+            lane.entries.add(new Entry(t, System.nanoTime()));
+            lane.state.offered++;
+        }
+        count++;
+        notEmpty.signal();
+    }
+
+    /**
+     * @return the class with tuples that is furthest behind, the one that
+     * was seen first if there is a tie, or <code>null</code> if all classes
+     * are empty
+     */
+    private Lane nextLane() {
+        Lane next = null;
+        for (Lane lane : lanes.values()) {
+            if (next == null || lane.state.pass < next.state.pass ||
+                    (lane.state.pass == next.state.pass && lane.state.order < next.state.order)) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    private FetchEmitTuple dequeue() {
+        Lane next = nextLane();
+        FetchEmitTuple t;
+        if (next == null) {
+            t = semaphores.poll();
+        } else {
+            Entry entry = next.entries.poll();
+            if (next.entries.isEmpty()) {
+                lanes.remove(next.name);
+            }
+            ClassState state = next.state;
+            virtualTime = state.pass;
+            state.pass += 1.0 / state.weight;
+            long waitNanos = System.nanoTime() - entry.addedNanos;
+            state.taken++;
+            state.totalWaitNanos += waitNanos;
+            state.maxWaitNanos = Math.max(state.maxWaitNanos, waitNanos);
+            t = entry.tuple;
+        }
+        count--;
+        notFull.signal();
+        return t;
+    }
+
+    @Override
+    public boolean offer(FetchEmitTuple t) {
+        if (t == null) {
+            throw new NullPointerException();
+        }
+        lock.lock();
+        try {
+            if (count == capacity) {
+                return false;
+            }
+            enqueue(t);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(FetchEmitTuple t, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (t == null) {
+            throw new NullPointerException();
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            enqueue(t);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(FetchEmitTuple t) throws InterruptedException {
+        if (t == null) {
+            throw new NullPointerException();
+        }
+        lock.lockInterruptibly();
+        try {
+            while (count == capacity) {
+                notFull.await();
+            }
+            enqueue(t);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FetchEmitTuple poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FetchEmitTuple poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FetchEmitTuple take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the tuple that {@link #poll()} would return, without taking
+     * it or counting it in the statistics
+     */
+    @Override
+    public FetchEmitTuple peek() {
+        lock.lock();
+        try {
+            Lane next = nextLane();
+            return next == null ? semaphores.peek() : next.entries.peek().tuple;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super FetchEmitTuple> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super FetchEmitTuple> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && count > 0) {
+                c.add(dequeue());
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return iterator over a snapshot of the tuples, by class
+     */
+    @Override
+    public Iterator<FetchEmitTuple> iterator() {
+        lock.lock();
+        try {
+            List<FetchEmitTuple> tuples = new ArrayList<>(count);
+            for (Lane lane : lanes.values()) {
+                for (Entry entry : lane.entries) {
+                    tuples.add(entry.tuple);
+                }
+            }
+            tuples.addAll(semaphores);
+            return Collections.unmodifiableList(tuples).iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return statistics of each class that has had a tuple, in the order
+     * the classes were first seen
+     */
+    Map<String, QueueClassStatistics> getStatistics() {
+        lock.lock();
+        try {
+            Map<String, QueueClassStatistics> statistics = new LinkedHashMap<>();
+            for (Map.Entry<String, ClassState> e : classes.entrySet()) {
+                ClassState state = e.getValue();
+                Lane lane = lanes.get(e.getKey());
+                statistics.put(e.getKey(), new QueueClassStatistics(e.getKey(), state.weight,
+                        lane == null ? 0 : lane.entries.size(), state.offered, state.taken,
+                        TimeUnit.NANOSECONDS.toMillis(state.totalWaitNanos),
+                        TimeUnit.NANOSECONDS.toMillis(state.maxWaitNanos)));
+            }
+            return statistics;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of classes that have tuples waiting
+     */
+    int getActiveClasses() {
+        lock.lock();
+        try {
+            return lanes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Lane {
+        private final String name;
+        private final ClassState state;
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+        Lane(String name, ClassState state) {
+            this.name = name;
+            this.state = state;
+        }
+    }
+
+    private static class ClassState {
+        private final double weight;
+        //when the class was first seen
+        private final int order;
+        private double pass = 0;
+        private long offered = 0;
+        private long taken = 0;
+        private long totalWaitNanos = 0;
+        private long maxWaitNanos = 0;
+
+        ClassState(double weight, int order) {
+            this.weight = weight;
+            this.order = order;
+        }
+    }
+
+    private static class Entry {
+        private final FetchEmitTuple tuple;
+        private final long addedNanos;
+
+        Entry(FetchEmitTuple tuple, long addedNanos) {
+            this.tuple = tuple;
+            this.addedNanos = addedNanos;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.pipes.FetchEmitTuple;
+import org.apache.tika.pipes.HandlerConfig;
+import org.apache.tika.pipes.InlineDocumentBytes;
+import org.apache.tika.pipes.PrefetchedDocument;
+import org.apache.tika.pipes.fetcher.Fetcher;
+import org.apache.tika.pipes.fetcher.FetcherManager;
+import org.apache.tika.pipes.fetcher.fs.FileSystemFetcher;
+
+/**
+ * Fetches documents for the {@link AsyncProcessor}'s workers ahead of
+ * time, into memory or temp files, within a budget of bytes.  A prefetch
+ * never waits for the budget; if it is used up, the tuple is left for the
+ * pipes server to fetch as usual.  If the budget runs out while a document
+ * is being fetched, the rest of it is written to a temp file, outside of the
+ * budget, rather than dropping what was fetched and fetching it again.
+ * Fetch exceptions are left to the pipes
+ * server to report, too.  A fetch that doesn't finish within the pipes
+ * timeout is cancelled, and the pipes server fetches the document under
+ * its own timeout.
+ */
+class Prefetcher implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Prefetcher.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final FetcherManager fetcherManager;
+
+    private final ExecutorService executorService;
+
+    private final long maxBytes;
+
+    private final int maxInMemoryBytes;
+
+    private final long timeoutMillis;
+
+    private long bytesHeld = 0;
+
+    Prefetcher(AsyncConfig asyncConfig) throws IOException, TikaException {
+        this.fetcherManager = FetcherManager.load(asyncConfig.getTikaConfig());
+        this.maxBytes = asyncConfig.getPrefetchMaxBytes();
+        this.maxInMemoryBytes = asyncConfig.getPrefetchMaxInMemoryBytes();
+        this.timeoutMillis = asyncConfig.getTimeoutMillis();
+        //each worker has at most prefetchDepth fetches in flight
+        this.executorService = Executors.newFixedThreadPool(
+                asyncConfig.getNumClients() * asyncConfig.getPrefetchDepth(), r -> {
+                    Thread t = new Thread(r, "async-prefetcher");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Starts fetching the tuple's document in the background.
+     */
+    Prefetch prefetch(FetchEmitTuple t) {
+        Prefetch prefetch = new Prefetch(t);
+        if (isPrefetchable(t)) {
+            prefetch.future = executorService.submit(() -> fetch(prefetch));
+        }
+        return prefetch;
+    }
+
+    private boolean isPrefetchable(FetchEmitTuple t) {
+        if (t.getFetchKey() == null || t.getParseContext().get(InlineDocumentBytes.class) != null ||
+                t.getParseContext().get(PrefetchedDocument.class) != null) {
+            return false;
+        }
+        HandlerConfig handlerConfig = t.getParseContext().get(HandlerConfig.class);
+        //these don't read all of the document on purpose
+        return handlerConfig == null ||
+                (handlerConfig.getParseMode() != HandlerConfig.PARSE_MODE.DETECT &&
+                        handlerConfig.getRangeFetchBlockSize() <= 0);
+    }
+
+    private Void fetch(Prefetch prefetch) {
+        FetchEmitTuple t = prefetch.tuple;
+        Metadata metadata = new Metadata();
+        Path tmp = null;
+        long reserved = 0;
+        PrefetchedDocument document = null;
+        try {
+            Fetcher fetcher = fetcherManager.getFetcher(t.getFetchKey().getFetcherName());
+            if (fetcher instanceof FileSystemFetcher) {
+                //the pipes server can read the file as quickly as it can read a copy
+                return null;
+            }
+            if (getBytesHeld() >= maxBytes) {
+                LOG.debug("prefetch budget used up, not prefetching {}", t.getId());
+                return null;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            OutputStream out = bytes;
+            boolean overBudget = false;
+            try (InputStream is = fetcher.fetch(t.getFetchKey().getFetchKey(), metadata,
+                    t.getParseContext())) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = is.read(buffer)) != -1) {
+                    if (!overBudget && reserve(n)) {
+                        reserved += n;
+                    } else if (!overBudget) {
+                        LOG.debug("prefetch budget used up, writing the rest of {} to a temp file",
+                                t.getId());
+                        overBudget = true;
+                    }
+                    if (tmp == null && (overBudget || reserved > maxInMemoryBytes)) {
+                        tmp = Files.createTempFile("tika-prefetch-", ".tmp");
+                        out = Files.newOutputStream(tmp);
+                        bytes.writeTo(out);
+                        bytes = null;
+                    }
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                if (tmp != null) {
+                    out.close();
+                }
+            }
+            document = tmp == null ? PrefetchedDocument.inMemory(bytes.toByteArray(), metadata) :
+                    PrefetchedDocument.onDisk(tmp.toAbsolutePath().toString(), metadata);
+        } catch (TikaException | IOException | RuntimeException e) {
+            LOG.debug("couldn't prefetch {}, the pipes server will fetch it", t.getId(), e);
+        } finally {
+            if (document == null) {
+                release(reserved, tmp);
+            } else if (!prefetch.setDocument(document, reserved, tmp)) {
+                //the prefetch was closed while fetching
+                release(reserved, tmp);
+            }
+        }
+        return null;
+    }
+
+    private synchronized boolean reserve(long n) {
+        if (bytesHeld + n > maxBytes) {
+            return false;
+        }
+        bytesHeld += n;
+        return true;
+    }
+
+    private void release(long reserved, Path tmp) {
+        synchronized (this) {
+            bytesHeld -= reserved;
+        }
+        if (tmp != null) {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                LOG.warn("couldn't delete prefetched file {}", tmp, e);
+            }
+        }
+    }
+
+    synchronized long getBytesHeld() {
+        return bytesHeld;
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * A tuple whose document may be fetched ahead.  Close it when the tuple
+     * has been processed, to release the document.
+     */
+    class Prefetch implements Closeable {
+
+        private final FetchEmitTuple tuple;
+
+        private Future<Void> future;
+
+        private PrefetchedDocument document;
+
+        private long reserved;
+
+        private Path tmp;
+
+        private boolean closed = false;
+
+        private Prefetch(FetchEmitTuple tuple) {
+            this.tuple = tuple;
+        }
+
+        FetchEmitTuple getTuple() {
+            return tuple;
+        }
+
+        private synchronized boolean setDocument(PrefetchedDocument document, long reserved,
+                                                 Path tmp) {
+            if (closed) {
+                return false;
+            }
+            this.document = document;
+            this.reserved = reserved;
+            this.tmp = tmp;
+            return true;
+        }
+
+        /**
+         * Waits up to the pipes timeout for the fetch to finish.  If it
+         * doesn't, the fetch is cancelled and its bytes are released.
+         *
+         * @return the document, or <code>null</code> if it wasn't prefetched
+         */
+        PrefetchedDocument await() throws InterruptedException {
+            if (future != null) {
+                try {
+                    future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    LOG.debug("prefetch failed", e);
+                } catch (TimeoutException e) {
+                    LOG.warn("prefetch of {} timed out after {} ms, the pipes server will " +
+                            "fetch it", tuple.getId(), timeoutMillis);
+                    //a fetch that finishes after all releases its bytes, as this is closed
+                    close();
+                    future.cancel(true);
+                    return null;
+                }
+            }
+            synchronized (this) {
+                return document;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            if (document != null) {
+                release(reserved, tmp);
+                document = null;
+            }
+        }
+    }
+}
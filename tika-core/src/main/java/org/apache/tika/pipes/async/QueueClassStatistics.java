@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import java.util.Locale;
+
+/**
+ * Snapshot of the tuples of one class of the {@link AsyncProcessor}'s
+ * queue.  See {@link AsyncConfig#setQueueClassKey(String)}.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class QueueClassStatistics {
+
+    private final String name;
+
+    private final double weight;
+
+    private final int queued;
+
+    private final long offered;
+
+    private final long taken;
+
+    private final long totalWaitMillis;
+
+    private final long maxWaitMillis;
+
+    public QueueClassStatistics(String name, double weight, int queued, long offered,
+                                long taken, long totalWaitMillis, long maxWaitMillis) {
+        this.name = name;
+        this.weight = weight;
+        this.queued = queued;
+        this.offered = offered;
+        this.taken = taken;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return number of tuples of this class that are waiting in the queue
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * @return number of tuples of this class that have been added to the queue
+     */
+    public long getOffered() {
+        return offered;
+    }
+
+    /**
+     * @return number of tuples of this class that workers have taken
+     */
+    public long getTaken() {
+        return taken;
+    }
+
+    /**
+     * @return total time the taken tuples waited in the queue
+     */
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public long getMeanWaitMillis() {
+        return taken == 0 ? 0 : totalWaitMillis / taken;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "QueueClassStatistics{name=%s, weight=%.2f, queued=%d, offered=%d, taken=%d, " +
+                        "meanWaitMillis=%d, maxWaitMillis=%d}",
+                name, weight, queued, offered, taken, getMeanWaitMillis(), maxWaitMillis);
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.fetcher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.FilenameUtils;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+
+/**
+ * Downloads a document from a {@link RangeFetcher} in parts of a fixed size,
+ * several at a time, into a temporary file.
+ * <p>
+ * The parts are fetched in order by a pool of <code>concurrency</code>
+ * threads that is shared by all downloads of this downloader.  Each download
+ * has at most <code>concurrency</code> parts queued or in flight and submits
+ * the next part when one completes, so a large document doesn't hold up the
+ * downloads that start after it.  The returned stream can be read as soon as
+ * the first part has landed; it waits for each part in turn, so parsing can
+ * start while the rest of the document is still being downloaded.  Its
+ * {@link TikaInputStream#getPath()} waits for the download to complete and
+ * returns the temporary file.
+ * <p>
+ * Each part is checked against its expected length and, if the fetcher
+ * reports it, against {@link RangeFetcher#RANGE_CONTENT_MD5}.  If the
+ * fetcher reports an {@link RangeFetcher#ENTITY_TAG}, all parts have to come
+ * from the same version of the document.  A part that fails a check or can't
+ * be fetched makes the stream throw an IOException.
+ * <p>
+ * The fetcher gets a copy of the caller's metadata with each request, e.g.
+ * for request headers that are set per fetch.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class ParallelRangeDownloader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelRangeDownloader.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExecutorService executor;
+
+    private final int concurrency;
+
+    /**
+     * @param concurrency maximum number of parts to fetch at once
+     */
+    public ParallelRangeDownloader(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be > 0");
+        }
+        this.concurrency = concurrency;
+        executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "parallel-range-download");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Fetches the first part, and if the document is longer, starts fetching
+     * the other parts in the background.  If the fetcher doesn't report
+     * {@link RangeFetcher#TOTAL_LENGTH}, e.g. because an http server
+     * doesn't support range requests, the response to the first request is
+     * taken to be the whole document.
+     *
+     * @param fetcher      fetcher of the parts
+     * @param fetchKey     key of the document
+     * @param metadata     metadata that the fetcher sets on the fetch of the
+     *                     first part
+     * @param parseContext passed to the fetcher
+     * @param partSize     number of bytes per range request
+     * @return stream over the whole document
+     */
+    public InputStream fetch(RangeFetcher fetcher, String fetchKey, Metadata metadata,
+                             ParseContext parseContext, long partSize)
+            throws IOException, TikaException {
+        return fetch(fetcher, fetchKey, metadata, parseContext, partSize, -1);
+    }
+
+    /**
+     * Like {@link #fetch(RangeFetcher, String, Metadata, ParseContext, long)},
+     * but only downloads the first <code>maxLength</code> bytes of a longer
+     * document.  Callers can compare {@link RangeFetcher#TOTAL_LENGTH} in the
+     * metadata with <code>maxLength</code> to find out if the document was
+     * truncated.
+     *
+     * @param maxLength maximum number of bytes to download, or -1 for no limit
+     */
+    public InputStream fetch(RangeFetcher fetcher, String fetchKey, Metadata metadata,
+                             ParseContext parseContext, long partSize, long maxLength)
+            throws IOException, TikaException {
+        if (partSize < 1) {
+            throw new IllegalArgumentException("partSize must be > 0");
+        }
+        if (maxLength == 0 || maxLength < -1) {
+            throw new IllegalArgumentException("maxLength must be > 0 or -1");
+        }
+        Metadata requestMetadata = copy(metadata);
+        Metadata firstMetadata = copy(requestMetadata);
+        long firstEnd = (maxLength > -1 ? Math.min(partSize, maxLength) : partSize) - 1;
+        InputStream first = fetcher.fetch(fetchKey, 0, firstEnd, firstMetadata, parseContext);
+        for (String n : firstMetadata.names()) {
+            if (!n.equals(RangeFetcher.RANGE_CONTENT_MD5.getName())) {
+                metadata.remove(n);
+                for (String v : firstMetadata.getValues(n)) {
+                    metadata.add(n, v);
+                }
+            }
+        }
+        String totalLength = firstMetadata.get(RangeFetcher.TOTAL_LENGTH);
+        long length;
+        try {
+            length = totalLength == null ? -1 : Long.parseLong(totalLength);
+        } catch (NumberFormatException e) {
+            first.close();
+            throw new IOException("Couldn't parse the length of " + fetchKey + ": " + totalLength);
+        }
+        if (maxLength > -1 && length > maxLength) {
+            length = maxLength;
+        }
+        if (length <= firstEnd + 1) {
+            return first;
+        }
+        metadata.set(Metadata.CONTENT_LENGTH, Long.toString(length));
+        TemporaryResources tmp = new TemporaryResources();
+        try {
+            Path path = tmp.createTempFile(FilenameUtils.getSuffixFromPath(fetchKey));
+            Download download = new Download(fetcher, fetchKey, requestMetadata, parseContext,
+                    length, partSize, firstMetadata.get(RangeFetcher.ENTITY_TAG), path);
+            tmp.addResource(download);
+            try (InputStream is = first) {
+                download.writePart(0, is, firstMetadata);
+            }
+            download.start();
+            return TikaInputStream.get(download.newInputStream(), path, download::awaitAll, tmp,
+                    metadata);
+        } catch (IOException | RuntimeException e) {
+            tmp.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the threads; downloads that are still running fail.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private class Download implements Closeable {
+
+        private final RangeFetcher fetcher;
+        private final String fetchKey;
+        private final Metadata requestMetadata;
+        private final ParseContext parseContext;
+        private final long length;
+        private final long partSize;
+        private final int parts;
+        private final String entityTag;
+        private final FileChannel channel;
+        private final BitSet done = new BitSet();
+        //parts that are queued or in flight
+        private final List<Future<?>> futures = new ArrayList<>();
+        private int nextPart = 1;
+        private Throwable failure;
+        private boolean closed;
+
+        Download(RangeFetcher fetcher, String fetchKey, Metadata requestMetadata,
+                 ParseContext parseContext, long length, long partSize, String entityTag,
+                 Path path) throws IOException {
+            this.fetcher = fetcher;
+            this.fetchKey = fetchKey;
+            this.requestMetadata = requestMetadata;
+            this.parseContext = parseContext;
+            this.length = length;
+            this.partSize = partSize;
+            this.parts = (int) ((length + partSize - 1) / partSize);
+            this.entityTag = entityTag;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        synchronized void start() {
+            for (int i = 0; i < concurrency; i++) {
+                submitNextPart();
+            }
+        }
+
+        private synchronized void submitNextPart() {
+            if (closed || failure != null || nextPart >= parts) {
+                return;
+            }
+            futures.removeIf(Future::isDone);
+            final int part = nextPart++;
+            try {
+                futures.add(executor.submit(() -> fetchPart(part)));
+            } catch (RejectedExecutionException e) {
+                fail(e);
+            }
+        }
+
+        private void fetchPart(int part) {
+            if (isClosed()) {
+                return;
+            }
+            try {
+                fetchPartNow(part);
+            } finally {
+                submitNextPart();
+            }
+        }
+
+        private void fetchPartNow(int part) {
+            long start = part * partSize;
+            long end = Math.min(length, start + partSize) - 1;
+            Metadata partMetadata = copy(requestMetadata);
+            try (InputStream is = fetcher.fetch(fetchKey, start, end, partMetadata,
+                    parseContext)) {
+                String partEntityTag = partMetadata.get(RangeFetcher.ENTITY_TAG);
+                if (entityTag != null && partEntityTag != null &&
+                        !entityTag.equals(partEntityTag)) {
+                    throw new IOException(fetchKey + " changed during the download: " +
+                            entityTag + " -> " + partEntityTag);
+                }
+                writePart(part, is, partMetadata);
+            } catch (IOException | TikaException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        void writePart(int part, InputStream is, Metadata partMetadata) throws IOException {
+            long position = part * partSize;
+            long expected = Math.min(length, position + partSize) - position;
+            String contentMd5 = partMetadata.get(RangeFetcher.RANGE_CONTENT_MD5);
+            MessageDigest digest = contentMd5 == null ? null : md5();
+            byte[] bytes = new byte[BUFFER_SIZE];
+            long written = 0;
+            int n = is.read(bytes);
+            while (n != -1 && written < expected) {
+                n = (int) Math.min(n, expected - written);
+                if (digest != null) {
+                    digest.update(bytes, 0, n);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, n);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, position + written + buffer.position());
+                }
+                written += n;
+                n = is.read(bytes);
+            }
+            if (written != expected || n != -1) {
+                throw new IOException("Expected " + expected + " bytes for part " + part + " of " +
+                        fetchKey + " but got " + (n == -1 ? written : "more"));
+            }
+            if (digest != null && !MessageDigest.isEqual(digest.digest(),
+                    Base64.getDecoder().decode(contentMd5.trim()))) {
+                throw new IOException("Checksum mismatch for part " + part + " of " + fetchKey);
+            }
+            synchronized (this) {
+                done.set(part);
+                notifyAll();
+            }
+        }
+
+        private synchronized void fail(Throwable t) {
+            if (failure == null && !closed) {
+                LOG.warn("failed to fetch part of {}", fetchKey, t);
+                failure = t;
+            }
+            notifyAll();
+        }
+
+        private synchronized boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void awaitAll() throws IOException {
+            for (int part = 0; part < parts; part++) {
+                awaitPart(part);
+            }
+        }
+
+        synchronized void awaitPart(int part) throws IOException {
+            while (!done.get(part)) {
+                if (failure != null) {
+                    throw new IOException("Couldn't download " + fetchKey, failure);
+                }
+                if (closed) {
+                    throw new IOException("Stream closed");
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException("interrupted while waiting for " + fetchKey);
+                }
+            }
+        }
+
+        InputStream newInputStream() {
+            return new InputStream() {
+                private long position = 0;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    int n = read(b, 0, 1);
+                    return n == -1 ? -1 : b[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    Objects.checkFromIndexSize(off, len, b.length);
+                    if (position >= length) {
+                        return -1;
+                    }
+                    if (len == 0) {
+                        return 0;
+                    }
+                    int part = (int) (position / partSize);
+                    awaitPart(part);
+                    //don't read beyond the part that is known to be complete
+                    long partEnd = Math.min(length, (part + 1) * partSize);
+                    int n = channel.read(ByteBuffer.wrap(b, off,
+                            (int) Math.min(len, partEnd - position)), position);
+                    if (n > 0) {
+                        position += n;
+                    }
+                    return n;
+                }
+
+                @Override
+                public int available() {
+                    return 0;
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                closed = true;
+                for (Future<?> future : futures) {
+                    future.cancel(false);
+                }
+                notifyAll();
+            }
+            channel.close();
+        }
+    }
+
+    private static Metadata copy(Metadata metadata) {
+        Metadata copy = new Metadata();
+        for (String n : metadata.names()) {
+            for (String v : metadata.getValues(n)) {
+                copy.add(n, v);
+            }
+        }
+        return copy;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
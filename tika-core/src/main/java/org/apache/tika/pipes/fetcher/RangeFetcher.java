@@ -21,6 +21,8 @@ import java.io.InputStream;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Property;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
 
 /**
@@ -29,11 +31,39 @@ import org.apache.tika.parser.ParseContext;
 public interface RangeFetcher extends Fetcher {
     //At some point, Tika 3.x?, we may want to add optional ranges to the fetchKey?
 
+    /**
+     * Implementations should set this to the length of the whole object on a
+     * range fetch, if it is known, e.g. from the Content-Range header.
+     */
+    Property TOTAL_LENGTH = Property.internalText(TikaCoreProperties.TIKA_META_PREFIX +
+            "fetchTotalLength");
+
+    /**
+     * Implementations may set this to the base64 MD5 of the bytes returned by
+     * a fetch, if it is known, e.g. from the Content-MD5 header, so that
+     * callers can verify them.
+     */
+    Property RANGE_CONTENT_MD5 = Property.internalText(TikaCoreProperties.TIKA_META_PREFIX +
+            "fetchRangeContentMd5");
+
+    /**
+     * Implementations may set this to the entity tag of the object, so that
+     * callers that combine several ranges can check that they all come from
+     * the same version of it.
+     */
+    Property ENTITY_TAG = Property.internalText(TikaCoreProperties.TIKA_META_PREFIX +
+            "fetchEntityTag");
+
     default InputStream fetch(String fetchKey, long startOffset, long endOffset, Metadata metadata)
             throws TikaException, IOException {
         return fetch(fetchKey, startOffset, endOffset, metadata, new ParseContext());
     }
 
+    /**
+     * Fetches the bytes from <code>startOffset</code> to <code>endOffset</code>,
+     * inclusive.  The stream has to start at <code>startOffset</code>;
+     * implementations throw if the source didn't honour the range.
+     */
     InputStream fetch(String fetchKey, long startOffset, long endOffset, Metadata metadata, ParseContext parseContext)
             throws TikaException, IOException;
 
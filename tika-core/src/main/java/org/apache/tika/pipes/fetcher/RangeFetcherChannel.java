@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.fetcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+
+/**
+ * Read-only channel over a document that is fetched lazily, one block at a
+ * time, with range requests to a {@link RangeFetcher}.  The most recently
+ * used blocks are cached.
+ * <p>
+ * Parsers of container formats that keep their index at the end of the
+ * file, such as the central directory of a zip file, can seek to it and then
+ * read only the entries they need, instead of downloading and spooling the
+ * whole document.  Use {@link org.apache.tika.io.TikaInputStream#get(RangeFetcherChannel, Metadata)}
+ * to hand it to parsers, which get it from
+ * {@link org.apache.tika.io.TikaInputStream#getSeekableByteChannel()}.
+ * <p>
+ * {@link #duplicate()} returns a channel with its own position that shares
+ * the block cache.  A single channel is not thread safe, but duplicates can
+ * be used from different threads.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class RangeFetcherChannel implements SeekableByteChannel {
+
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    public static final int DEFAULT_MAX_CACHED_BLOCKS = 64;
+
+    private final BlockCache cache;
+
+    private long position = 0;
+
+    private boolean open = true;
+
+    private RangeFetcherChannel(BlockCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Opens a channel with the default block size and cache size.
+     *
+     * @see #open(RangeFetcher, String, Metadata, ParseContext, int, int)
+     */
+    public static RangeFetcherChannel open(RangeFetcher fetcher, String fetchKey,
+                                           Metadata metadata, ParseContext parseContext)
+            throws IOException {
+        return open(fetcher, fetchKey, metadata, parseContext, DEFAULT_BLOCK_SIZE,
+                DEFAULT_MAX_CACHED_BLOCKS);
+    }
+
+    /**
+     * Fetches the first block to find the length of the document.
+     *
+     * @param fetcher         fetcher for the blocks
+     * @param fetchKey        key of the document
+     * @param metadata        metadata that the fetcher sets on the fetch of
+     *                        the first block, which has to include
+     *                        {@link RangeFetcher#TOTAL_LENGTH} unless the
+     *                        document fits in one block
+     * @param parseContext    passed to the fetcher
+     * @param blockSize       number of bytes to fetch per request
+     * @param maxCachedBlocks maximum number of blocks to keep in memory
+     * @return the channel
+     * @throws IOException if the first block can't be fetched or the length of
+     *                     the document is unknown
+     */
+    public static RangeFetcherChannel open(RangeFetcher fetcher, String fetchKey,
+                                           Metadata metadata, ParseContext parseContext,
+                                           int blockSize, int maxCachedBlocks)
+            throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be > 0");
+        }
+        if (maxCachedBlocks < 1) {
+            throw new IllegalArgumentException("maxCachedBlocks must be > 0");
+        }
+        BlockCache cache = new BlockCache(fetcher, fetchKey, parseContext, blockSize,
+                maxCachedBlocks);
+        byte[] first = cache.fetch(0, blockSize, metadata);
+        String totalLength = metadata.get(RangeFetcher.TOTAL_LENGTH);
+        if (totalLength != null) {
+            try {
+                cache.length = Long.parseLong(totalLength);
+            } catch (NumberFormatException e) {
+                throw new IOException("Couldn't parse the length of " + fetchKey + ": " +
+                        totalLength);
+            }
+        } else if (first.length < blockSize) {
+            cache.length = first.length;
+        } else {
+            throw new IOException("The fetcher didn't report the length of " + fetchKey);
+        }
+        cache.put(0, first);
+        return new RangeFetcherChannel(cache);
+    }
+
+    /**
+     * @return a new channel at position 0 that shares the cached blocks with
+     * this one
+     */
+    public RangeFetcherChannel duplicate() {
+        return new RangeFetcherChannel(cache);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= cache.length) {
+            return -1;
+        }
+        int n = 0;
+        while (dst.hasRemaining() && position < cache.length) {
+            long block = position / cache.blockSize;
+            int offset = (int) (position % cache.blockSize);
+            byte[] bytes = cache.get(block);
+            int len = Math.min(dst.remaining(), bytes.length - offset);
+            if (len <= 0) {
+                throw new IOException("Block " + block + " of " + cache.fetchKey +
+                        " is shorter than expected");
+            }
+            dst.put(bytes, offset, len);
+            position += len;
+            n += len;
+        }
+        return n;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("position must be >= 0");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return cache.length;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes this channel; duplicates stay open.
+     */
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    /**
+     * @return the number of range requests made so far
+     */
+    public long getFetchCount() {
+        return cache.fetchCount.get();
+    }
+
+    /**
+     * @return the number of bytes fetched so far
+     */
+    public long getFetchedBytes() {
+        return cache.fetchedBytes.get();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private static class BlockCache {
+        private final RangeFetcher fetcher;
+        private final String fetchKey;
+        private final ParseContext parseContext;
+        private final int blockSize;
+        private final Map<Long, byte[]> blocks;
+        private final AtomicLong fetchCount = new AtomicLong();
+        private final AtomicLong fetchedBytes = new AtomicLong();
+        private long length;
+
+        BlockCache(RangeFetcher fetcher, String fetchKey, ParseContext parseContext,
+                   int blockSize, int maxCachedBlocks) {
+            this.fetcher = fetcher;
+            this.fetchKey = fetchKey;
+            this.parseContext = parseContext;
+            this.blockSize = blockSize;
+            this.blocks = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                    return size() > maxCachedBlocks;
+                }
+            };
+        }
+
+        synchronized byte[] get(long block) throws IOException {
+            byte[] bytes = blocks.get(block);
+            if (bytes == null) {
+                long start = block * blockSize;
+                bytes = fetch(start, (int) Math.min(blockSize, length - start), new Metadata());
+                blocks.put(block, bytes);
+            }
+            return bytes;
+        }
+
+        synchronized void put(long block, byte[] bytes) {
+            blocks.put(block, bytes);
+        }
+
+        byte[] fetch(long start, int len, Metadata metadata) throws IOException {
+            fetchCount.incrementAndGet();
+            try (InputStream is = fetcher.fetch(fetchKey, start, start + len - 1, metadata,
+                    parseContext)) {
+                byte[] bytes = new byte[len];
+                int read = IOUtils.read(is, bytes);
+                fetchedBytes.addAndGet(read);
+                if (read < len) {
+                    byte[] shorter = new byte[read];
+                    System.arraycopy(bytes, 0, shorter, 0, read);
+                    return shorter;
+                }
+                return bytes;
+            } catch (TikaException e) {
+                throw new IOException("Couldn't fetch bytes " + start + "-" + (start + len - 1) +
+                        " of " + fetchKey, e);
+            }
+        }
+    }
+}
@@ -44,6 +44,7 @@ public abstract class AbstractRecursiveParserWrapperHandler extends DefaultHandl
     private final int maxEmbeddedResources;
     private int embeddedResources = 0;
     private int embeddedDepth = 0;
+    private int maxEmbeddedDepth = MAX_DEPTH;
 
     public AbstractRecursiveParserWrapperHandler(ContentHandlerFactory contentHandlerFactory) {
         this(contentHandlerFactory, -1);
@@ -74,10 +75,10 @@ public abstract class AbstractRecursiveParserWrapperHandler extends DefaultHandl
     public void startEmbeddedDocument(ContentHandler contentHandler, Metadata metadata)
             throws SAXException {
         embeddedResources++;
-        embeddedDepth++;
-        if (embeddedDepth >= MAX_DEPTH) {
-            throw new SAXException("Max embedded depth reached: " + embeddedDepth);
+        if (embeddedDepth + 1 >= maxEmbeddedDepth) {
+            throw new SAXException("Max embedded depth reached: " + (embeddedDepth + 1));
         }
+        embeddedDepth++;
         metadata.set(TikaCoreProperties.EMBEDDED_DEPTH, embeddedDepth);
     }
 
@@ -118,6 +119,24 @@ public abstract class AbstractRecursiveParserWrapperHandler extends DefaultHandl
         return maxEmbeddedResources > -1 && embeddedResources >= maxEmbeddedResources;
     }
 
+    /**
+     * @return the depth at which embedded documents are no longer parsed
+     */
+    public int getMaxEmbeddedDepth() {
+        return maxEmbeddedDepth;
+    }
+
+    /**
+     * Embedded documents at this depth or deeper are not parsed;
+     * {@link #startEmbeddedDocument(ContentHandler, Metadata)} throws
+     * instead.  The default is 100.
+     *
+     * @param maxEmbeddedDepth
+     */
+    public void setMaxEmbeddedDepth(int maxEmbeddedDepth) {
+        this.maxEmbeddedDepth = maxEmbeddedDepth;
+    }
+
     public ContentHandlerFactory getContentHandlerFactory() {
         return contentHandlerFactory;
     }
@@ -40,6 +40,8 @@ public class BasicContentHandlerFactory implements ContentHandlerFactory, WriteL
 
     private final ParseContext parseContext;
 
+    private final boolean fusedTextHandler;
+
     /**
      * Create a BasicContentHandlerFactory with {@link #throwOnWriteLimitReached} is true
      * @param type       basic type of handler
@@ -62,10 +64,31 @@ public class BasicContentHandlerFactory implements ContentHandlerFactory, WriteL
      */
     public BasicContentHandlerFactory(HANDLER_TYPE type, int writeLimit,
                                       boolean throwOnWriteLimitReached, ParseContext parseContext) {
+        this(type, writeLimit, throwOnWriteLimitReached, parseContext, false);
+    }
+
+    /**
+     *
+     * @param type basic type of handler
+     * @param writeLimit maximum number of characters to store
+     * @param throwOnWriteLimitReached whether or not to throw a
+     *          {@link org.apache.tika.exception.WriteLimitReachedException}
+     *                                 when the write limit has been reached
+     * @param parseContext to store the writelimitreached warning if
+     *                 throwOnWriteLimitReached is set to <code>false</code>
+     * @param fusedTextHandler whether to use a {@link FusedTextContentHandler}
+     *                         instead of the chain of decorators for the
+     *                         {@link HANDLER_TYPE#TEXT} and {@link HANDLER_TYPE#BODY}
+     *                         types; the output is the same
+     */
+    public BasicContentHandlerFactory(HANDLER_TYPE type, int writeLimit,
+                                      boolean throwOnWriteLimitReached, ParseContext parseContext,
+                                      boolean fusedTextHandler) {
         this.type = type;
         this.writeLimit = writeLimit;
         this.throwOnWriteLimitReached = throwOnWriteLimitReached;
         this.parseContext = parseContext;
+        this.fusedTextHandler = fusedTextHandler;
         if (throwOnWriteLimitReached == false && parseContext == null) {
             throw new IllegalArgumentException("parse context must not be null if " +
                     "throwOnWriteLimitReached is false");
@@ -110,7 +133,10 @@ public class BasicContentHandlerFactory implements ContentHandlerFactory, WriteL
     @Override
     public ContentHandler getNewContentHandler() {
 
-        if (type == HANDLER_TYPE.BODY) {
+        if (fusedTextHandler && (type == HANDLER_TYPE.TEXT || type == HANDLER_TYPE.BODY)) {
+            return new FusedTextContentHandler(type == HANDLER_TYPE.BODY, writeLimit,
+                    throwOnWriteLimitReached, parseContext);
+        } else if (type == HANDLER_TYPE.BODY) {
             return new BodyContentHandler(
                     new WriteOutContentHandler(new ToTextContentHandler(), writeLimit,
                     throwOnWriteLimitReached, parseContext));
@@ -144,6 +170,13 @@ public class BasicContentHandlerFactory implements ContentHandlerFactory, WriteL
         if (type == HANDLER_TYPE.IGNORE) {
             return new DefaultHandler();
         }
+        //with a write limit, the BODY chain counts the characters outside
+        //the body as well, keep that chain for the same output
+        if (fusedTextHandler && (type == HANDLER_TYPE.TEXT ||
+                (type == HANDLER_TYPE.BODY && writeLimit < 0))) {
+            return new FusedTextContentHandler(new OutputStreamWriter(os, charset),
+                    type == HANDLER_TYPE.BODY, writeLimit, true, null);
+        }
         try {
             if (writeLimit > -1) {
                 switch (type) {
@@ -199,6 +232,14 @@ public class BasicContentHandlerFactory implements ContentHandlerFactory, WriteL
         TEXT, HTML, XML
     }
 
+    /**
+     * @return whether the {@link HANDLER_TYPE#TEXT} and {@link HANDLER_TYPE#BODY}
+     * handlers are {@link FusedTextContentHandler}s
+     */
+    public boolean isFusedTextHandler() {
+        return fusedTextHandler;
+    }
+
     public int getWriteLimit() {
         return writeLimit;
     }
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import org.apache.tika.parser.ExtractionBudget;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseRecord;
+
+/**
+ * Content handler decorator that only passes on the characters that fit in
+ * an {@link ExtractionBudget}.  The characters over the budget are dropped
+ * without an exception, so that the parse ends normally, and the
+ * {@link ParseRecord} records that the write limit was reached.  Only the
+ * characters in the XHTML &lt;body&gt; are counted, not e.g. the title, unless
+ * the events aren't XHTML.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class ExtractionBudgetContentHandler extends ContentHandlerDecorator {
+
+    private final ExtractionBudget budget;
+
+    private final ParseContext parseContext;
+
+    private boolean html = false;
+
+    private int bodyDepth = 0;
+
+    /**
+     * @param handler      the content handler to be decorated
+     * @param budget       the budget to spend the characters from
+     * @param parseContext where to record that characters were dropped, may
+     *                     be <code>null</code>
+     */
+    public ExtractionBudgetContentHandler(ContentHandler handler, ExtractionBudget budget,
+                                          ParseContext parseContext) {
+        super(handler);
+        this.budget = budget;
+        this.parseContext = parseContext;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String name, Attributes atts)
+            throws SAXException {
+        if (XHTMLContentHandler.XHTML.equals(uri)) {
+            if ("html".equals(localName)) {
+                html = true;
+            } else if ("body".equals(localName)) {
+                bodyDepth++;
+            }
+        }
+        super.startElement(uri, localName, name, atts);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String name) throws SAXException {
+        if (XHTMLContentHandler.XHTML.equals(uri) && "body".equals(localName) && bodyDepth > 0) {
+            bodyDepth--;
+        }
+        super.endElement(uri, localName, name);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        int n = spend(length);
+        if (n > 0) {
+            super.characters(ch, start, n);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        int n = spend(length);
+        if (n > 0) {
+            super.ignorableWhitespace(ch, start, n);
+        }
+    }
+
+    private int spend(int length) {
+        if (html && bodyDepth == 0) {
+            return length;
+        }
+        int n = budget.spend(length);
+        if (n < length && parseContext != null) {
+            ParseRecord parseRecord = parseContext.get(ParseRecord.class);
+            if (parseRecord != null) {
+                parseRecord.setWriteLimitReached(true);
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseRecord;
+
+/**
+ * Text output handler that does the work of the
+ * {@link BodyContentHandler} / {@link WriteOutContentHandler} /
+ * {@link ToTextContentHandler} chain in a single handler, so each character
+ * event is handled by one loop instead of passing through several
+ * decorators.
+ * <p>
+ * The output is the same as that of the chain: optionally only the content
+ * of the XHTML body, without the content of &lt;script&gt; and
+ * &lt;style&gt; elements, up to the write limit.  Like the
+ * {@link SafeContentHandler}, invalid XML characters are replaced with
+ * U+FFFD while they are copied to the output.
+ *
+ * @since Apache Tika 4.0.0
+ */
+public class FusedTextContentHandler extends DefaultHandler {
+
+    private static final String STYLE = "STYLE";
+    private static final String SCRIPT = "SCRIPT";
+
+    private static final char REPLACEMENT = '\ufffd';
+
+    private static final int BUFFER_SIZE = 8192;
+
+    //where we are relative to /xhtml:html/xhtml:body/descendant::node(),
+    //the states of BodyContentHandler's matcher
+    private static final byte OUTSIDE = 0;
+    private static final byte IN_HTML = 1;
+    private static final byte IN_BODY = 2;
+    private static final byte BELOW_BODY = 3;
+    private static final byte FAIL = 4;
+
+    /**
+     * The character stream, or <code>null</code> if the characters are
+     * collected in {@link #text}.
+     */
+    private final Writer writer;
+
+    private final StringBuilder text;
+
+    private final boolean bodyOnly;
+
+    private final int writeLimit;
+
+    private final boolean throwOnWriteLimitReached;
+
+    private final ParseContext parseContext;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int bufferLength = 0;
+
+    private int writeCount = 0;
+
+    private boolean writeLimitReached;
+
+    private byte state = OUTSIDE;
+
+    private byte[] states = new byte[16];
+
+    private int depth = 0;
+
+    private int styleDepth = 0;
+
+    private int scriptDepth = 0;
+
+    /**
+     * Creates a handler that collects the text in memory. Use
+     * {@link #toString()} to get it.
+     *
+     * @param bodyOnly                 whether to only output the content of
+     *                                 the XHTML body, as {@link BodyContentHandler}
+     * @param writeLimit               maximum number of characters to write,
+     *                                 or -1 for no limit
+     * @param throwOnWriteLimitReached whether to throw a
+     *                                 {@link WriteLimitReachedException} when
+     *                                 the write limit is reached
+     * @param parseContext             where to record the write limit if it
+     *                                 is reached and not thrown
+     */
+    public FusedTextContentHandler(boolean bodyOnly, int writeLimit,
+                                   boolean throwOnWriteLimitReached, ParseContext parseContext) {
+        this(null, bodyOnly, writeLimit, throwOnWriteLimitReached, parseContext);
+    }
+
+    /**
+     * Creates a handler that writes the text to the given writer.
+     *
+     * @param writer                   character stream
+     * @param bodyOnly                 whether to only output the content of
+     *                                 the XHTML body, as {@link BodyContentHandler}
+     * @param writeLimit               maximum number of characters to write,
+     *                                 or -1 for no limit
+     * @param throwOnWriteLimitReached whether to throw a
+     *                                 {@link WriteLimitReachedException} when
+     *                                 the write limit is reached
+     * @param parseContext             where to record the write limit if it
+     *                                 is reached and not thrown
+     */
+    public FusedTextContentHandler(Writer writer, boolean bodyOnly, int writeLimit,
+                                   boolean throwOnWriteLimitReached, ParseContext parseContext) {
+        this.writer = writer;
+        this.text = writer == null ? new StringBuilder() : null;
+        this.bodyOnly = bodyOnly;
+        this.writeLimit = writeLimit;
+        this.throwOnWriteLimitReached = throwOnWriteLimitReached;
+        this.parseContext = parseContext;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts)
+            throws SAXException {
+        if (bodyOnly) {
+            if (depth == states.length) {
+                states = Arrays.copyOf(states, depth * 2);
+            }
+            states[depth++] = state;
+            state = descend(state, uri, localName);
+            if (state != BELOW_BODY) {
+                return;
+            }
+        }
+        if (STYLE.equalsIgnoreCase(qName)) {
+            styleDepth++;
+        } else if (SCRIPT.equalsIgnoreCase(qName)) {
+            scriptDepth++;
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (bodyOnly) {
+            boolean matches = state == BELOW_BODY;
+            //like MatchingContentHandler, ignore unbalanced end elements
+            if (depth > 0) {
+                state = states[--depth];
+            }
+            if (!matches) {
+                return;
+            }
+        }
+        if (STYLE.equalsIgnoreCase(qName)) {
+            styleDepth--;
+        } else if (SCRIPT.equalsIgnoreCase(qName)) {
+            scriptDepth--;
+        }
+    }
+
+    private static byte descend(byte state, String uri, String localName) {
+        switch (state) {
+            case OUTSIDE:
+                return isXHTML(uri, localName, "html") ? IN_HTML : FAIL;
+            case IN_HTML:
+                return isXHTML(uri, localName, "body") ? IN_BODY : FAIL;
+            case IN_BODY:
+            case BELOW_BODY:
+                return BELOW_BODY;
+            default:
+                return FAIL;
+        }
+    }
+
+    private static boolean isXHTML(String uri, String localName, String name) {
+        return XHTMLContentHandler.XHTML.equals(uri) && name.equals(localName);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (writeLimitReached || (bodyOnly && state != IN_BODY && state != BELOW_BODY)) {
+            return;
+        }
+        boolean output = styleDepth + scriptDepth == 0;
+        if (writeLimit == -1 || writeCount + length <= writeLimit) {
+            if (output) {
+                write(ch, start, length, start + length);
+            }
+            writeCount += length;
+        } else {
+            if (output) {
+                write(ch, start, writeLimit - writeCount, start + length);
+            }
+            handleWriteLimitReached();
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        characters(ch, start, length);
+    }
+
+    /**
+     * Copies the given characters to the buffer, replacing invalid XML
+     * characters.  <code>end</code> may be after the characters that are
+     * written, a surrogate pair is valid if both halves are before it.
+     */
+    private void write(char[] ch, int start, int length, int end) throws SAXException {
+        int to = start + length;
+        int i = start;
+        while (i < to) {
+            if (bufferLength == buffer.length) {
+                try {
+                    flushBuffer();
+                } catch (IOException e) {
+                    throw new SAXException("Error writing", e);
+                }
+            }
+            int limit = Math.min(to, i + buffer.length - bufferLength);
+            while (i < limit) {
+                //copy runs of characters that are always valid in one go
+                int run = i;
+                while (i < limit && ch[i] >= 0x20 && ch[i] < 0xD800) {
+                    i++;
+                }
+                System.arraycopy(ch, run, buffer, bufferLength, i - run);
+                bufferLength += i - run;
+                if (i < limit) {
+                    buffer[bufferLength++] = filter(ch, start, end, i);
+                    i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the character at the given position or its replacement, with
+     * the same result as {@link SafeContentHandler}, which reads code points
+     * from <code>start</code> to <code>end</code>.
+     */
+    private static char filter(char[] ch, int start, int end, int i) {
+        char c = ch[i];
+        if (c < 0x20) {
+            return c == 0x09 || c == 0x0A || c == 0x0D ? c : REPLACEMENT;
+        } else if (Character.isHighSurrogate(c)) {
+            return i + 1 < end && Character.isLowSurrogate(ch[i + 1]) ? c : REPLACEMENT;
+        } else if (Character.isLowSurrogate(c)) {
+            return i > start && Character.isHighSurrogate(ch[i - 1]) ? c : REPLACEMENT;
+        } else {
+            return c <= 0xFFFD ? c : REPLACEMENT;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (writer == null) {
+            text.append(buffer, 0, bufferLength);
+        } else {
+            writer.write(buffer, 0, bufferLength);
+        }
+        bufferLength = 0;
+    }
+
+    private void handleWriteLimitReached() throws WriteLimitReachedException {
+        writeLimitReached = true;
+        writeCount = writeLimit;
+        if (throwOnWriteLimitReached) {
+            throw new WriteLimitReachedException(writeLimit);
+        } else {
+            ParseRecord parseRecord = parseContext.get(ParseRecord.class);
+            if (parseRecord != null) {
+                parseRecord.setWriteLimitReached(true);
+            }
+        }
+    }
+
+    /**
+     * Flushes the character stream, if there is one.
+     */
+    @Override
+    public void endDocument() throws SAXException {
+        try {
+            flushBuffer();
+            if (writer != null) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new SAXException("Error flushing character output", e);
+        }
+    }
+
+    /**
+     * Returns the text if it was collected in memory, otherwise the
+     * <code>toString()</code> of the writer.
+     */
+    @Override
+    public String toString() {
+        try {
+            flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer == null ? text.toString() : writer.toString();
+    }
+}
@@ -208,8 +208,12 @@ public class SecureContentHandler extends ContentHandlerDecorator {
      */
     protected void advance(int length) throws SAXException {
         characterCount += length;
+        //only look at the stream once there is enough output to matter
+        if (characterCount <= threshold) {
+            return;
+        }
         long byteCount = getByteCount();
-        if (characterCount > threshold && characterCount > byteCount * ratio) {
+        if (characterCount > byteCount * ratio) {
             throw new SecureSAXException(
                     "Suspected zip bomb: " + byteCount + " input bytes produced " + characterCount +
                             " output characters");
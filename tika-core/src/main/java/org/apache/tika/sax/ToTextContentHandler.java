@@ -20,9 +20,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
-import java.util.Locale;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -36,6 +36,12 @@ import org.xml.sax.helpers.DefaultHandler;
  * As of Tika 1.20, this handler ignores content within &lt;script&gt; and
  * &lt;style&gt; tags.
  * </p>
+ * <p>
+ * If this handler creates the character stream itself, the characters are
+ * collected in a reused buffer and written in batches.  A writer that is
+ * passed in is written to directly, so that it sees all characters as soon
+ * as they arrive.
+ * </p>
  *
  * @since Apache Tika 0.10
  */
@@ -43,10 +49,22 @@ public class ToTextContentHandler extends DefaultHandler {
 
     private static final String STYLE = "STYLE";
     private static final String SCRIPT = "SCRIPT";
+
+    private static final int BUFFER_SIZE = 8192;
+
     /**
      * The character stream.
      */
     private final Writer writer;
+
+    /**
+     * Characters not yet written to the character stream, or
+     * <code>null</code> if characters are written directly.
+     */
+    private final char[] buffer;
+
+    private int bufferLength = 0;
+
     private int styleDepth = 0;
     private int scriptDepth = 0;
 
@@ -57,7 +75,12 @@ public class ToTextContentHandler extends DefaultHandler {
      * @param writer writer
      */
     public ToTextContentHandler(Writer writer) {
+        this(writer, false);
+    }
+
+    private ToTextContentHandler(Writer writer, boolean buffered) {
         this.writer = writer;
+        this.buffer = buffered ? new char[BUFFER_SIZE] : null;
     }
 
     /**
@@ -70,7 +93,7 @@ public class ToTextContentHandler extends DefaultHandler {
      */
     public ToTextContentHandler(OutputStream stream, String encoding)
             throws UnsupportedEncodingException {
-        this(new OutputStreamWriter(stream, encoding));
+        this(new OutputStreamWriter(stream, encoding), true);
     }
 
     /**
@@ -79,7 +102,7 @@ public class ToTextContentHandler extends DefaultHandler {
      * method to access the collected character content.
      */
     public ToTextContentHandler() {
-        this(new StringWriter());
+        this(new StringWriter(), true);
     }
 
     /**
@@ -93,12 +116,71 @@ public class ToTextContentHandler extends DefaultHandler {
         }
 
         try {
-            writer.write(ch, start, length);
+            append(ch, start, length);
         } catch (IOException e) {
             throw new SAXException("Error writing: " + new String(ch, start, length), e);
         }
     }
 
+    /**
+     * Writes the given characters, via the buffer if there is one.
+     */
+    void append(char[] ch, int start, int length) throws IOException {
+        if (buffer == null) {
+            writer.write(ch, start, length);
+        } else if (length > BUFFER_SIZE - bufferLength) {
+            flushBuffer();
+            if (length >= BUFFER_SIZE) {
+                writer.write(ch, start, length);
+            } else {
+                System.arraycopy(ch, start, buffer, 0, length);
+                bufferLength = length;
+            }
+        } else {
+            System.arraycopy(ch, start, buffer, bufferLength, length);
+            bufferLength += length;
+        }
+    }
+
+    void append(char ch) throws IOException {
+        if (buffer == null) {
+            writer.write(ch);
+        } else {
+            if (bufferLength == BUFFER_SIZE) {
+                flushBuffer();
+            }
+            buffer[bufferLength++] = ch;
+        }
+    }
+
+    void append(String string) throws IOException {
+        append(string, 0, string.length());
+    }
+
+    void append(String string, int start, int length) throws IOException {
+        if (buffer == null) {
+            writer.write(string, start, length);
+        } else if (length > BUFFER_SIZE - bufferLength) {
+            flushBuffer();
+            if (length >= BUFFER_SIZE) {
+                writer.write(string, start, length);
+            } else {
+                string.getChars(start, start + length, buffer, 0);
+                bufferLength = length;
+            }
+        } else {
+            string.getChars(start, start + length, buffer, bufferLength);
+            bufferLength += length;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (bufferLength > 0) {
+            writer.write(buffer, 0, bufferLength);
+            bufferLength = 0;
+        }
+    }
+
 
     /**
      * Writes the given ignorable characters to the given character stream.
@@ -120,6 +202,7 @@ public class ToTextContentHandler extends DefaultHandler {
     @Override
     public void endDocument() throws SAXException {
         try {
+            flushBuffer();
             writer.flush();
         } catch (IOException e) {
             throw new SAXException("Error flushing character output", e);
@@ -129,22 +212,18 @@ public class ToTextContentHandler extends DefaultHandler {
     @Override
     public void startElement(String uri, String localName, String qName, Attributes atts)
             throws SAXException {
-        String uc = (qName == null) ? "" : qName.toUpperCase(Locale.ENGLISH);
-        if (uc.equals(STYLE)) {
+        if (STYLE.equalsIgnoreCase(qName)) {
             styleDepth++;
-        }
-        if (uc.equals(SCRIPT)) {
+        } else if (SCRIPT.equalsIgnoreCase(qName)) {
             scriptDepth++;
         }
     }
 
     @Override
     public void endElement(String uri, String localName, String qName) throws SAXException {
-        String uc = (qName == null) ? "" : qName.toUpperCase(Locale.ENGLISH);
-        if (uc.equals(STYLE)) {
+        if (STYLE.equalsIgnoreCase(qName)) {
             styleDepth--;
-        }
-        if (uc.equals(SCRIPT)) {
+        } else if (SCRIPT.equalsIgnoreCase(qName)) {
             scriptDepth--;
         }
     }
@@ -158,6 +237,11 @@ public class ToTextContentHandler extends DefaultHandler {
      */
     @Override
     public String toString() {
+        try {
+            flushBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return writer.toString();
     }
 
@@ -16,6 +16,7 @@
  */
 package org.apache.tika.sax;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Collections;
@@ -99,15 +100,14 @@ public class ToXMLContentHandler extends ToTextContentHandler {
         currentElement = new ElementInfo(currentElement, namespaces);
 
         write('<');
-        write(currentElement.getQName(uri, localName));
+        writeQName(uri, localName);
 
         for (int i = 0; i < atts.getLength(); i++) {
             write(' ');
-            write(currentElement.getQName(atts.getURI(i), atts.getLocalName(i)));
+            writeQName(atts.getURI(i), atts.getLocalName(i));
             write('=');
             write('"');
-            char[] ch = atts.getValue(i).toCharArray();
-            writeEscaped(ch, 0, ch.length, true);
+            writeEscaped(atts.getValue(i));
             write('"');
         }
 
@@ -121,8 +121,7 @@ public class ToXMLContentHandler extends ToTextContentHandler {
             }
             write('=');
             write('"');
-            char[] ch = entry.getKey().toCharArray();
-            writeEscaped(ch, 0, ch.length, true);
+            writeEscaped(entry.getKey());
             write('"');
         }
         namespaces.clear();
@@ -168,7 +167,11 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the character could not be written
      */
     protected void write(char ch) throws SAXException {
-        super.characters(new char[]{ch}, 0, 1);
+        try {
+            append(ch);
+        } catch (IOException e) {
+            throw new SAXException("Error writing: " + ch, e);
+        }
     }
 
     /**
@@ -178,31 +181,25 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the character string could not be written
      */
     protected void write(String string) throws SAXException {
-        super.characters(string.toCharArray(), 0, string.length());
+        try {
+            append(string);
+        } catch (IOException e) {
+            throw new SAXException("Error writing: " + string, e);
+        }
     }
 
-    /**
-     * Writes the given characters as-is followed by the given entity.
-     *
-     * @param ch     character array
-     * @param from   start position in the array
-     * @param to     end position in the array
-     * @param entity entity code
-     * @return next position in the array,
-     * after the characters plus one entity
-     * @throws SAXException if the characters could not be written
-     */
-    private int writeCharsAndEntity(char[] ch, int from, int to, String entity)
-            throws SAXException {
-        super.characters(ch, from, to - from);
-        write('&');
-        write(entity);
-        write(';');
-        return to + 1;
+    private void writeQName(String uri, String localName) throws SAXException {
+        String prefix = currentElement.getPrefix(uri);
+        if (prefix.length() > 0) {
+            write(prefix);
+            write(':');
+        }
+        write(localName);
     }
 
     /**
      * Writes the given characters with XML meta characters escaped.
+     * Runs of characters that need no escaping are written in one go.
      *
      * @param ch        character array
      * @param from      start position in the array
@@ -212,21 +209,58 @@ public class ToXMLContentHandler extends ToTextContentHandler {
      * @throws SAXException if the characters could not be written
      */
     private void writeEscaped(char[] ch, int from, int to, boolean attribute) throws SAXException {
-        int pos = from;
-        while (pos < to) {
-            if (ch[pos] == '<') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "lt");
-            } else if (ch[pos] == '>') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "gt");
-            } else if (ch[pos] == '&') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "amp");
-            } else if (attribute && ch[pos] == '"') {
-                from = pos = writeCharsAndEntity(ch, from, pos, "quot");
-            } else {
-                pos++;
+        try {
+            int pos = from;
+            while (pos < to) {
+                String entity = entity(ch[pos], attribute);
+                if (entity != null) {
+                    append(ch, from, pos - from);
+                    append(entity);
+                    from = ++pos;
+                } else {
+                    pos++;
+                }
             }
+            append(ch, from, to - from);
+        } catch (IOException e) {
+            throw new SAXException("Error writing: " + new String(ch, from, to - from), e);
+        }
+    }
+
+    /**
+     * Writes the given attribute value with XML meta characters escaped.
+     */
+    private void writeEscaped(String value) throws SAXException {
+        try {
+            int from = 0;
+            int length = value.length();
+            for (int pos = 0; pos < length; pos++) {
+                String entity = entity(value.charAt(pos), true);
+                if (entity != null) {
+                    append(value, from, pos - from);
+                    append(entity);
+                    from = pos + 1;
+                }
+            }
+            append(value, from, length - from);
+        } catch (IOException e) {
+            throw new SAXException("Error writing: " + value, e);
+        }
+    }
+
+    private static String entity(char ch, boolean attribute) {
+        switch (ch) {
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '&':
+                return "&amp;";
+            case '"':
+                return attribute ? "&quot;" : null;
+            default:
+                return null;
         }
-        super.characters(ch, from, to - from);
     }
 
     private static class ElementInfo {
@@ -257,15 +291,6 @@ public class ToXMLContentHandler extends ToTextContentHandler {
             }
         }
 
-        public String getQName(String uri, String localName) throws SAXException {
-            String prefix = getPrefix(uri);
-            if (prefix.length() > 0) {
-                return prefix + ":" + localName;
-            } else {
-                return localName;
-            }
-        }
-
     }
 
 }
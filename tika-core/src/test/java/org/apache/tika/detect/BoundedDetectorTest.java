@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.detect;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.pipes.fetcher.RangeFetcher;
+
+public class BoundedDetectorTest {
+
+    @Test
+    public void testStream() throws Exception {
+        RecordingDetector recording = new RecordingDetector();
+        BoundedDetector detector = new BoundedDetector(recording, 100);
+        byte[] data = bytes(1000);
+        InputStream stream = new ByteArrayInputStream(data);
+        BoundedDetector.Result result = detector.detectWithBudget(stream, new Metadata());
+        assertTrue(result.isTruncated());
+        assertEquals(MediaType.OCTET_STREAM, result.getMediaType());
+        assertArrayEquals(Arrays.copyOf(data, 100), recording.seen);
+        //the stream is reset
+        assertEquals(data[0], (byte) stream.read());
+
+        data = bytes(100);
+        result = detector.detectWithBudget(new ByteArrayInputStream(data), new Metadata());
+        assertFalse(result.isTruncated());
+        assertArrayEquals(data, recording.seen);
+
+        assertEquals(MediaType.text("plain"), new BoundedDetector(new TextDetector(), 10)
+                .detect(new ByteArrayInputStream("plain text".getBytes(US_ASCII)), new Metadata()));
+    }
+
+    @Test
+    public void testRangeFetcher() throws Exception {
+        RecordingDetector recording = new RecordingDetector();
+        BoundedDetector detector = new BoundedDetector(recording, 400);
+        ArrayRangeFetcher fetcher = new ArrayRangeFetcher(bytes(10000), true);
+        Metadata metadata = new Metadata();
+        BoundedDetector.Result result =
+                detector.detectWithBudget(fetcher, "key", metadata, new ParseContext());
+        assertTrue(result.isTruncated());
+        assertEquals(Arrays.asList("0-299", "9900-9999"), fetcher.ranges);
+        //the detector sees a file of the full length, with a hole in the middle
+        byte[] expected = new byte[10000];
+        System.arraycopy(fetcher.data, 0, expected, 0, 300);
+        System.arraycopy(fetcher.data, 9900, expected, 9900, 100);
+        assertArrayEquals(expected, recording.seen);
+        assertEquals("10000", metadata.get(Metadata.CONTENT_LENGTH));
+
+        //short documents are fetched at once
+        fetcher = new ArrayRangeFetcher(bytes(250), true);
+        result = detector.detectWithBudget(fetcher, "key", new Metadata(), new ParseContext());
+        assertFalse(result.isTruncated());
+        assertEquals(Arrays.asList("0-299"), fetcher.ranges);
+        assertArrayEquals(fetcher.data, recording.seen);
+
+        //the ranges meet
+        fetcher = new ArrayRangeFetcher(bytes(380), true);
+        result = detector.detectWithBudget(fetcher, "key", new Metadata(), new ParseContext());
+        assertFalse(result.isTruncated());
+        assertEquals(Arrays.asList("0-299", "300-379"), fetcher.ranges);
+        assertArrayEquals(fetcher.data, recording.seen);
+
+        //without the total length, only the start is fetched
+        fetcher = new ArrayRangeFetcher(bytes(10000), false);
+        result = detector.detectWithBudget(fetcher, "key", new Metadata(), new ParseContext());
+        assertTrue(result.isTruncated());
+        assertEquals(Arrays.asList("0-299"), fetcher.ranges);
+        assertArrayEquals(Arrays.copyOf(fetcher.data, 300), recording.seen);
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i % 251 + 1);
+        }
+        return bytes;
+    }
+
+    private static class RecordingDetector implements Detector {
+
+        private byte[] seen;
+
+        @Override
+        public MediaType detect(InputStream input, Metadata metadata) throws IOException {
+            TikaInputStream tis = TikaInputStream.cast(input);
+            seen = tis.hasFile() ? IOUtils.toByteArray(tis.getPath().toUri()) :
+                    IOUtils.toByteArray(input);
+            return MediaType.OCTET_STREAM;
+        }
+    }
+
+    private static class ArrayRangeFetcher implements RangeFetcher {
+
+        private final byte[] data;
+
+        private final boolean reportLength;
+
+        private final List<String> ranges = new ArrayList<>();
+
+        ArrayRangeFetcher(byte[] data, boolean reportLength) {
+            this.data = data;
+            this.reportLength = reportLength;
+        }
+
+        @Override
+        public String getName() {
+            return "array";
+        }
+
+        @Override
+        public InputStream fetch(String fetchKey, Metadata metadata, ParseContext parseContext) {
+            return new ByteArrayInputStream(data);
+        }
+
+        @Override
+        public InputStream fetch(String fetchKey, long startOffset, long endOffset,
+                                 Metadata metadata, ParseContext parseContext) {
+            long end = Math.min(endOffset, data.length - 1);
+            ranges.add(startOffset + "-" + endOffset);
+            if (reportLength) {
+                metadata.set(TOTAL_LENGTH, Integer.toString(data.length));
+            }
+            metadata.set(Metadata.CONTENT_LENGTH, Long.toString(end - startOffset + 1));
+            return new ByteArrayInputStream(data, (int) startOffset,
+                    (int) (end - startOffset + 1));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.detect;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.tika.detect.Utf8EncodingDetector.ASCII;
+import static org.apache.tika.detect.Utf8EncodingDetector.INVALID;
+import static org.apache.tika.detect.Utf8EncodingDetector.MULTI_BYTE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.config.ServiceLoader;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+
+public class Utf8EncodingDetectorTest {
+
+    @Test
+    public void testValidate() {
+        assertEquals(ASCII, validate(new byte[0]));
+        assertEquals(ASCII, validate("plain ASCII text, longer than eight bytes".getBytes(UTF_8)));
+        assertEquals(MULTI_BYTE, validate("Grüße aus Köln".getBytes(UTF_8)));
+        assertEquals(MULTI_BYTE, validate("日本語のテキスト".getBytes(UTF_8)));
+        assertEquals(MULTI_BYTE, validate("emoji 😀 at the end".getBytes(UTF_8)));
+        assertEquals(INVALID, validate("Grüße aus Köln".getBytes(ISO_8859_1)));
+
+        //overlong encodings
+        assertEquals(INVALID, validate(0xC0, 0xAF));
+        assertEquals(INVALID, validate(0xE0, 0x80, 0xAF));
+        assertEquals(INVALID, validate(0xF0, 0x80, 0x80, 0xAF));
+        //surrogate
+        assertEquals(INVALID, validate(0xED, 0xA0, 0x80));
+        //above U+10FFFF
+        assertEquals(INVALID, validate(0xF4, 0x90, 0x80, 0x80));
+        assertEquals(INVALID, validate(0xF5, 0x80, 0x80, 0x80));
+        //lone continuation byte
+        assertEquals(INVALID, validate('a', 0x80));
+        //bad continuation byte
+        assertEquals(INVALID, validate(0xC3, 'a'));
+
+        //a sequence that is cut off is only fine if the input was truncated
+        byte[] cutOff = {'a', (byte) 0xC3, (byte) 0xA9, 'b', (byte) 0xE6, (byte) 0x97};
+        assertEquals(INVALID, Utf8EncodingDetector.validate(cutOff, 0, cutOff.length, false));
+        assertEquals(MULTI_BYTE, Utf8EncodingDetector.validate(cutOff, 0, cutOff.length, true));
+    }
+
+    @Test
+    public void testDetect() throws Exception {
+        Utf8EncodingDetector detector = new Utf8EncodingDetector();
+        assertNull(detector.detect(null, new Metadata()));
+        assertNull(detector.detect(stream("only ASCII".getBytes(UTF_8)), new Metadata()));
+        assertNull(detector.detect(stream("café".getBytes(ISO_8859_1)), new Metadata()));
+
+        byte[] bytes = "café crème".getBytes(UTF_8);
+        InputStream stream = stream(bytes);
+        assertEquals(UTF_8, detector.detect(stream, new Metadata()));
+        //the stream has been reset
+        assertEquals(bytes.length, stream.readAllBytes().length);
+
+        //the second byte of the é is beyond the mark limit
+        detector.setMarkLimit(4);
+        assertNull(detector.detect(stream(bytes), new Metadata()));
+        detector.setMarkLimit(5);
+        assertEquals(UTF_8, detector.detect(stream(bytes), new Metadata()));
+    }
+
+    @Test
+    public void testDefaultEncodingDetector() throws Exception {
+        byte[] bytes = "café crème".getBytes(UTF_8);
+        Metadata metadata = new Metadata();
+        assertEquals(UTF_8, new DefaultEncodingDetector().detect(stream(bytes), metadata));
+        assertEquals("UTF-8", metadata.get(TikaCoreProperties.DETECTED_ENCODING));
+        assertEquals("Utf8EncodingDetector", metadata.get(TikaCoreProperties.ENCODING_DETECTOR));
+
+        //tika-core doesn't have any other encoding detectors
+        assertNull(new DefaultEncodingDetector(new ServiceLoader(),
+                Collections.singleton(Utf8EncodingDetector.class))
+                .detect(stream(bytes), new Metadata()));
+        assertNull(new DefaultEncodingDetector()
+                .detect(stream("ASCII".getBytes(StandardCharsets.US_ASCII)), new Metadata()));
+    }
+
+    @Test
+    public void testDeclaredCharset() throws Exception {
+        Utf8EncodingDetector detector = new Utf8EncodingDetector();
+        byte[] bytes = "café crème".getBytes(UTF_8);
+
+        //declared in the metadata
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "text/plain; charset=ISO-8859-1");
+        assertNull(detector.detect(stream(bytes), metadata));
+        metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_ENCODING, "windows-1252");
+        assertNull(detector.detect(stream(bytes), metadata));
+        metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "text/html; charset=utf-8");
+        assertEquals(UTF_8, detector.detect(stream(bytes), metadata));
+
+        //declared in the document
+        assertNull(detector.detect(stream(("<meta charset=\"windows-1252\">café")
+                .getBytes(UTF_8)), new Metadata()));
+        assertNull(detector.detect(stream(("<?xml version=\"1.0\" encoding='ISO-8859-1'?><a>café</a>")
+                .getBytes(UTF_8)), new Metadata()));
+        assertEquals(UTF_8, detector.detect(stream(("<meta http-equiv=\"Content-Type\" " +
+                "content=\"text/html; CHARSET = UTF-8\">café").getBytes(UTF_8)), new Metadata()));
+        //not a declaration
+        assertEquals(UTF_8, detector.detect(stream("the charset of this café"
+                .getBytes(UTF_8)), new Metadata()));
+    }
+
+    private static int validate(byte[] bytes) {
+        return Utf8EncodingDetector.validate(bytes, 0, bytes.length, false);
+    }
+
+    private static int validate(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return validate(bytes);
+    }
+
+    private static InputStream stream(byte[] bytes) {
+        return new BufferedInputStream(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.fork;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+
+/**
+ * Reports how long it takes to start a {@link ForkParser} process with an
+ * {@link AutoDetectParser}, with the classes sent over the pipe and with
+ * the classes loaded from the file system.  Run it with the parsers to
+ * measure on the class path.
+ */
+public class ForkParserStartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        for (boolean useFileSystemClassPath : new boolean[]{false, true}) {
+            long total = 0;
+            long firstParse = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                try (ForkParser parser = new ForkParser(
+                        ForkParserStartupBenchmark.class.getClassLoader(),
+                        new AutoDetectParser())) {
+                    parser.setUseFileSystemClassPath(useFileSystemClassPath);
+                    parser.setPoolSize(1);
+                    long start = System.nanoTime();
+                    parser.prewarm(1);
+                    long started = System.nanoTime();
+                    parser.parse(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)),
+                            new BodyContentHandler(), new Metadata(), new ParseContext());
+                    total += started - start;
+                    firstParse += System.nanoTime() - started;
+                }
+            }
+            System.out.printf(Locale.ROOT,
+                    "%-22s startup %6d ms, first parse %6d ms%n",
+                    useFileSystemClassPath ? "file system classpath" : "classes over pipe",
+                    total / ITERATIONS / 1_000_000, firstParse / ITERATIONS / 1_000_000);
+        }
+    }
+}
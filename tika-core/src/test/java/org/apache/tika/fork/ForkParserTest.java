@@ -39,6 +39,7 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -192,6 +193,105 @@ public class ForkParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testPrewarmAndStatistics() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                new ForkTestParser())) {
+            parser.setPoolSize(2);
+            parser.prewarm(3);
+            List<ForkClientStatistics> statistics = parser.getStatistics();
+            assertEquals(2, statistics.size());
+            for (ForkClientStatistics s : statistics) {
+                assertEquals(0, s.getFilesProcessed());
+                assertTrue(s.getStartupMillis() >= 0);
+            }
+            for (int i = 0; i < 4; i++) {
+                ContentHandler output = new BodyContentHandler();
+                parser.parse(new ByteArrayInputStream(new byte[0]), output, new Metadata(),
+                        new ParseContext());
+                assertEquals("Hello, World!", output.toString().trim());
+            }
+            //serial parses reuse the most recently used process
+            statistics = parser.getStatistics();
+            assertEquals(2, statistics.size());
+            assertEquals(4, statistics.get(0).getFilesProcessed() +
+                    statistics.get(1).getFilesProcessed());
+            assertTrue(statistics.get(0).getFilesProcessed() == 0 ||
+                    statistics.get(1).getFilesProcessed() == 0);
+        }
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                new ForkTestParser())) {
+            parser.setMaxIdleMillis(100);
+            parser.parse(new ByteArrayInputStream(new byte[0]), new BodyContentHandler(),
+                    new Metadata(), new ParseContext());
+            int firstId = parser.getStatistics().get(0).getClientId();
+            Thread.sleep(500);
+            parser.parse(new ByteArrayInputStream(new byte[0]), new BodyContentHandler(),
+                    new Metadata(), new ParseContext());
+            List<ForkClientStatistics> statistics = parser.getStatistics();
+            assertEquals(1, statistics.size());
+            assertTrue(statistics.get(0).getClientId() != firstId);
+        }
+    }
+
+    @Test
+    public void testHeapRecycling() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                new ForkTestParser())) {
+            //a small young generation, so the process has been collected and
+            //reports its heap usage after collection
+            parser.setJavaCommand(Arrays.asList("java", "-Xmx32m", "-Xmn1m",
+                    "-XX:+UseSerialGC", "-Djava.awt.headless=true"));
+            parser.setMaxHeapUsedFraction(0.9);
+            parser.parse(new ByteArrayInputStream(new byte[0]), new BodyContentHandler(),
+                    new Metadata(), new ParseContext());
+            List<ForkClientStatistics> statistics = parser.getStatistics();
+            assertEquals(1, statistics.size());
+            double heapUsed = statistics.get(0).getHeapUsedFraction();
+            assertTrue(heapUsed > 0 && heapUsed < 0.9, "heap used: " + heapUsed);
+
+            //every process is over this limit
+            parser.setMaxHeapUsedFraction(0.0001);
+            parser.parse(new ByteArrayInputStream(new byte[0]), new BodyContentHandler(),
+                    new Metadata(), new ParseContext());
+            assertEquals(0, parser.getStatistics().size());
+        }
+    }
+
+    @Test
+    public void testFileSystemClassPath() throws Exception {
+        for (boolean useFileSystemClassPath : new boolean[]{false, true}) {
+            try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                    new ForkTestParser.ForkTestParserReportingClassLoader())) {
+                parser.setUseFileSystemClassPath(useFileSystemClassPath);
+                parser.setPoolSize(2);
+                for (int i = 0; i < 4; i++) {
+                    ContentHandler output = new BodyContentHandler();
+                    Metadata metadata = new Metadata();
+                    parser.parse(new ByteArrayInputStream(new byte[0]), output, metadata,
+                            new ParseContext());
+                    assertEquals("Hello, World!", output.toString().trim());
+                    String loader = metadata.get("class-loader");
+                    if (useFileSystemClassPath) {
+                        assertTrue(!loader.equals(ClassLoaderProxy.class.getName()), loader);
+                    } else {
+                        assertEquals(ClassLoaderProxy.class.getName(), loader);
+                    }
+                }
+                //the second process is started with the same bootstrap jar
+                parser.prewarm(2);
+                assertEquals(2, parser.getStatistics().size());
+                for (ForkClientStatistics s : parser.getStatistics()) {
+                    assertTrue(s.getStartupMillis() >= 0);
+                }
+            }
+        }
+    }
+
     @Test
     public void testPulseAndTimeouts() throws Exception {
 
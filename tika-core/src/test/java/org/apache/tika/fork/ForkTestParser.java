@@ -67,6 +67,15 @@ class ForkTestParser implements Parser {
         }
     }
 
+    static class ForkTestParserReportingClassLoader extends ForkTestParser {
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                          ParseContext context) throws IOException, SAXException, TikaException {
+            metadata.set("class-loader", getClass().getClassLoader().getClass().getName());
+            super.parse(stream, handler, metadata, context);
+        }
+    }
+
     static class ForkTestParserWaiting extends ForkTestParser {
         @Override
         public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CheckpointJournalTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testAddAndReopen() throws Exception {
+        try (CheckpointJournal journal = CheckpointJournal.open(dir)) {
+            journal.setMaxBufferedIds(10);
+            for (int i = 0; i < 1000; i += 2) {
+                assertTrue(journal.add(id(i)));
+            }
+            assertFalse(journal.add(id(10)));
+            assertEquals(500, journal.size());
+            assertContainsEvens(journal);
+            //segments have been merged along the way
+            assertTrue(countSegments() <= CheckpointJournal.MAX_SEGMENTS);
+        }
+        try (CheckpointJournal journal = CheckpointJournal.open(dir)) {
+            assertEquals(500, journal.size());
+            assertContainsEvens(journal);
+            assertTrue(journal.add("été/café.doc"));
+            assertTrue(journal.contains("été/café.doc"));
+        }
+        try (CheckpointJournal journal = CheckpointJournal.open(dir)) {
+            assertEquals(501, journal.size());
+            assertTrue(journal.contains("été/café.doc"));
+        }
+    }
+
+    @Test
+    public void testTruncatedLog() throws Exception {
+        try (CheckpointJournal journal = CheckpointJournal.open(dir)) {
+            journal.add("a");
+            journal.add("b");
+        }
+        //a record cut off by a crash
+        Files.write(dir.resolve(CheckpointJournal.LOG_FILE), new byte[]{0, 0, 0, 9, 'c'},
+                StandardOpenOption.APPEND);
+        try (CheckpointJournal journal = CheckpointJournal.open(dir)) {
+            assertTrue(journal.contains("a"));
+            assertTrue(journal.contains("b"));
+            assertFalse(journal.contains("c"));
+            assertEquals(2, journal.size());
+            assertTrue(journal.add("c"));
+        }
+    }
+
+    @Test
+    public void testAlreadyOpen() throws Exception {
+        try (CheckpointJournal journal = CheckpointJournal.open(dir)) {
+            assertThrows(IOException.class, () -> CheckpointJournal.open(dir));
+        }
+    }
+
+    private static void assertContainsEvens(CheckpointJournal journal) throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0, journal.contains(id(i)), id(i));
+        }
+    }
+
+    private static String id(int i) {
+        return "dir" + (i % 7) + "/file" + i + ".pdf";
+    }
+
+    private int countSegments() throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir,
+                CheckpointJournal.SEGMENT_PREFIX + "*")) {
+            for (Path p : ds) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.TikaTest;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.sax.BasicContentHandlerFactory;
+import org.apache.tika.sax.BodyContentHandler;
+
+public class ExtractionBudgetTest extends TikaTest {
+
+    @Test
+    public void testSpend() {
+        ExtractionBudget budget = new ExtractionBudget(10);
+        assertEquals(4, budget.spend(4));
+        assertFalse(budget.isExhausted());
+        assertEquals(6, budget.spend(8));
+        assertTrue(budget.isExhausted());
+        assertEquals(0, budget.spend(3));
+        assertEquals(10, budget.getCharacterCount());
+
+        ParseContext context = new ParseContext();
+        assertFalse(ExtractionBudget.isExhausted(context));
+        assertFalse(ExtractionBudget.isExhausted(null));
+        context.set(ExtractionBudget.class, budget);
+        assertTrue(ExtractionBudget.isExhausted(context));
+    }
+
+    @Test
+    public void testFirstCharacters() throws Exception {
+        Metadata metadata = new Metadata();
+        String text = parse(new ParseContext(), metadata);
+        assertContains("some_embedded_content", text);
+        assertNull(metadata.get(TikaCoreProperties.WRITE_LIMIT_REACHED));
+
+        for (int max : new int[]{0, 5, 20, 40}) {
+            ParseContext context = new ParseContext();
+            ExtractionBudget budget = new ExtractionBudget(max);
+            context.set(ExtractionBudget.class, budget);
+            metadata = new Metadata();
+            String prefix = parse(context, metadata);
+            //the characters of the embedded documents are only counted once
+            assertEquals(text.substring(0, max), prefix);
+            assertTrue(budget.isExhausted());
+            assertEquals("true", metadata.get(TikaCoreProperties.WRITE_LIMIT_REACHED));
+        }
+    }
+
+    @Test
+    public void testRecursive() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(ExtractionBudget.class, new ExtractionBudget(30));
+        List<Metadata> metadataList = getRecursiveMetadata("mock/embedded.xml",
+                AUTO_DETECT_PARSER, new Metadata(), context, false,
+                BasicContentHandlerFactory.HANDLER_TYPE.BODY);
+        int length = 0;
+        for (Metadata metadata : metadataList) {
+            String content = metadata.get(TikaCoreProperties.TIKA_CONTENT);
+            length += content == null ? 0 : content.length();
+        }
+        assertEquals(30, length);
+    }
+
+    private String parse(ParseContext context, Metadata metadata) throws Exception {
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        try (InputStream is = getResourceAsStream("/test-documents/mock/embedded.xml")) {
+            AUTO_DETECT_PARSER.parse(is, handler, metadata, context);
+        }
+        return handler.toString();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.exception.TikaConfigException;
+
+public class PageRangeTest {
+
+    @Test
+    public void testParse() throws Exception {
+        PageRange range = PageRange.parse("1, 3,7-9");
+        assertEquals("1,3,7-9", range.toString());
+        assertTrue(range.contains(1));
+        assertFalse(range.contains(2));
+        assertTrue(range.contains(8));
+        assertFalse(range.contains(10));
+        assertTrue(range.overlaps(4, 7));
+        assertFalse(range.overlaps(4, 6));
+        assertFalse(range.isAfterLast(9));
+        assertTrue(range.isAfterLast(10));
+
+        range = PageRange.parse("10-");
+        assertEquals("10-", range.toString());
+        assertFalse(range.contains(9));
+        assertTrue(range.contains(Integer.MAX_VALUE));
+        assertFalse(range.isAfterLast(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(TikaConfigException.class, () -> PageRange.parse("0-3"));
+        assertThrows(TikaConfigException.class, () -> PageRange.parse("5-3"));
+        assertThrows(TikaConfigException.class, () -> PageRange.parse("1,a"));
+        assertThrows(TikaConfigException.class, () -> PageRange.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> new PageRange(2, 1));
+    }
+}
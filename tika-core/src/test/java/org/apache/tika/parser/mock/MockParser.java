@@ -59,6 +59,7 @@ import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.ParseRecord;
 import org.apache.tika.parser.Parser;
@@ -131,7 +132,12 @@ public class MockParser implements Parser {
         NodeList actions = root.getChildNodes();
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
         xhtml.startDocument();
+        boolean metadataOnly = MetadataOnly.isMetadataOnly(context);
         for (int i = 0; i < actions.getLength(); i++) {
+            //like real parsers, skip the body if only metadata is needed
+            if (metadataOnly && !"metadata".equals(actions.item(i).getNodeName())) {
+                continue;
+            }
             executeAction(actions.item(i), metadata, context, xhtml);
         }
         xhtml.endDocument();
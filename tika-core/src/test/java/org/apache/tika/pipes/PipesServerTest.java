@@ -17,11 +17,18 @@
 package org.apache.tika.pipes;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -33,12 +40,15 @@ import org.junit.jupiter.api.io.TempDir;
 import org.apache.tika.TikaTest;
 import org.apache.tika.extractor.BasicEmbeddedDocumentBytesHandler;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.pipes.emitter.EmitKey;
 import org.apache.tika.pipes.extractor.EmbeddedDocumentBytesConfig;
 import org.apache.tika.pipes.fetcher.FetchKey;
 import org.apache.tika.pipes.fetcher.Fetcher;
 import org.apache.tika.pipes.fetcher.FetcherManager;
+import org.apache.tika.pipes.fetcher.RangeFetcher;
+import org.apache.tika.sax.BasicContentHandlerFactory;
 
 public class PipesServerTest extends TikaTest {
 
@@ -78,6 +88,283 @@ public class PipesServerTest extends TikaTest {
                 parseData.metadataList.get(0).get("X-TIKA:digest:SHA-256"));
     }
 
+    @Test
+    public void testMetadataOnly(@TempDir Path tmp) throws Exception {
+        Path tikaConfig = tmp.resolve("tika-config.xml");
+        String xml = IOUtils.toString(
+                PipesServerTest.class.getResourceAsStream("TIKA-3941.xml"), StandardCharsets.UTF_8);
+        xml = xml.replace("BASE_PATH", tmp.toAbsolutePath().toString());
+        Files.write(tikaConfig, xml.getBytes(StandardCharsets.UTF_8));
+        //the mock parser skips everything but the metadata actions in metadata-only mode
+        Files.write(tmp.resolve("mock.xml"), ("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>" +
+                "<mock><metadata action=\"add\" name=\"dc:creator\">Nikolai Lobachevsky</metadata>" +
+                "<throw class=\"java.io.IOException\">body</throw></mock>")
+                .getBytes(StandardCharsets.UTF_8));
+
+        PipesServer pipesServer = new PipesServer(tikaConfig,
+                UnsynchronizedByteArrayInputStream.builder().setByteArray(new byte[0]).get(),
+                new PrintStream(UnsynchronizedByteArrayOutputStream.builder().get(), true,
+                        StandardCharsets.UTF_8.name()),
+                -1, 30000, 30000);
+        pipesServer.initializeResources();
+        Fetcher fetcher = FetcherManager.load(tikaConfig).getFetcher();
+
+        Metadata metadata = parseMock(pipesServer, fetcher, new HandlerConfig(
+                BasicContentHandlerFactory.HANDLER_TYPE.IGNORE, HandlerConfig.PARSE_MODE.CONCATENATE,
+                -1, -1, true));
+        assertEquals("Nikolai Lobachevsky", metadata.get(TikaCoreProperties.CREATOR));
+        assertNull(metadata.get(TikaCoreProperties.CONTAINER_EXCEPTION));
+
+        metadata = parseMock(pipesServer, fetcher, new HandlerConfig(
+                BasicContentHandlerFactory.HANDLER_TYPE.IGNORE, HandlerConfig.PARSE_MODE.RMETA,
+                -1, 0, true));
+        assertEquals("Nikolai Lobachevsky", metadata.get(TikaCoreProperties.CREATOR));
+        assertNull(metadata.get(TikaCoreProperties.CONTAINER_EXCEPTION));
+
+        //embedded documents are returned, so the body is parsed
+        metadata = parseMock(pipesServer, fetcher, new HandlerConfig(
+                BasicContentHandlerFactory.HANDLER_TYPE.IGNORE, HandlerConfig.PARSE_MODE.RMETA,
+                -1, -1, true));
+        assertContains("body", metadata.get(TikaCoreProperties.CONTAINER_EXCEPTION));
+
+        metadata = parseMock(pipesServer, fetcher, new HandlerConfig(
+                BasicContentHandlerFactory.HANDLER_TYPE.TEXT, HandlerConfig.PARSE_MODE.CONCATENATE,
+                -1, -1, true));
+        assertContains("body", metadata.get(TikaCoreProperties.CONTAINER_EXCEPTION));
+    }
+
+    private static Metadata parseMock(PipesServer pipesServer, Fetcher fetcher,
+                                      HandlerConfig handlerConfig) throws Exception {
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(HandlerConfig.class, handlerConfig);
+        FetchEmitTuple fetchEmitTuple = new FetchEmitTuple("id",
+                new FetchKey("fs", "mock.xml"),
+                new EmitKey("", ""), new Metadata(), parseContext);
+        return pipesServer.parseFromTuple(fetchEmitTuple, fetcher).metadataList.get(0);
+    }
+
+    @Test
+    public void testDetect(@TempDir Path tmp) throws Exception {
+        Path tikaConfig = tmp.resolve("tika-config.xml");
+        String xml = IOUtils.toString(
+                PipesServerTest.class.getResourceAsStream("TIKA-3941.xml"), StandardCharsets.UTF_8);
+        xml = xml.replace("BASE_PATH", tmp.toAbsolutePath().toString());
+        Files.write(tikaConfig, xml.getBytes(StandardCharsets.UTF_8));
+
+        PipesServer pipesServer = new PipesServer(tikaConfig,
+                UnsynchronizedByteArrayInputStream.builder().setByteArray(new byte[0]).get(),
+                new PrintStream(UnsynchronizedByteArrayOutputStream.builder().get(), true,
+                        StandardCharsets.UTF_8.name()),
+                -1, 30000, 30000);
+        pipesServer.initializeResources();
+
+        HandlerConfig handlerConfig = new HandlerConfig();
+        handlerConfig.setParseMode(HandlerConfig.PARSE_MODE.DETECT);
+        handlerConfig.setDetectMaxBytes(4000);
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(HandlerConfig.class, handlerConfig);
+        FetchEmitTuple fetchEmitTuple = new FetchEmitTuple("id",
+                new FetchKey("bytes", "mock.xml"),
+                new EmitKey("", ""), new Metadata(), parseContext);
+
+        byte[] bytes = new byte[100000];
+        Arrays.fill(bytes, (byte) ' ');
+        byte[] mock = IOUtils.toByteArray(
+                PipesServerTest.class.getResourceAsStream("/test-documents/mock_times.xml"));
+        System.arraycopy(mock, 0, bytes, 0, mock.length);
+        List<String> ranges = new ArrayList<>();
+        RangeFetcher fetcher = new RangeFetcher() {
+            @Override
+            public String getName() {
+                return "bytes";
+            }
+
+            @Override
+            public InputStream fetch(String fetchKey, Metadata metadata,
+                                     ParseContext parseContext) {
+                throw new AssertionError("only ranges should be fetched");
+            }
+
+            @Override
+            public InputStream fetch(String fetchKey, long startOffset, long endOffset,
+                                     Metadata metadata, ParseContext parseContext) {
+                ranges.add(startOffset + "-" + endOffset);
+                metadata.set(TOTAL_LENGTH, Integer.toString(bytes.length));
+                return new ByteArrayInputStream(bytes, (int) startOffset,
+                        (int) (endOffset - startOffset + 1));
+            }
+        };
+        PipesServer.MetadataListAndEmbeddedBytes parseData =
+                pipesServer.parseFromTuple(fetchEmitTuple, fetcher);
+        assertEquals(1, parseData.metadataList.size());
+        Metadata metadata = parseData.metadataList.get(0);
+        assertEquals("application/mock+xml", metadata.get(Metadata.CONTENT_TYPE));
+        assertEquals("true", metadata.get(TikaCoreProperties.DETECTION_TRUNCATED));
+        assertEquals(Arrays.asList("0-2999", "99000-99999"), ranges);
+    }
+
+    @Test
+    public void testDetectFailures(@TempDir Path tmp) throws Exception {
+        Path tikaConfig = tmp.resolve("tika-config.xml");
+        String xml = IOUtils.toString(
+                PipesServerTest.class.getResourceAsStream("TIKA-3941.xml"), StandardCharsets.UTF_8);
+        xml = xml.replace("BASE_PATH", tmp.toAbsolutePath().toString());
+        Files.write(tikaConfig, xml.getBytes(StandardCharsets.UTF_8));
+
+        PipesServer pipesServer = new PipesServer(tikaConfig,
+                UnsynchronizedByteArrayInputStream.builder().setByteArray(new byte[0]).get(),
+                new PrintStream(UnsynchronizedByteArrayOutputStream.builder().get(), true,
+                        StandardCharsets.UTF_8.name()),
+                -1, 30000, 30000);
+        pipesServer.initializeResources();
+
+        HandlerConfig handlerConfig = new HandlerConfig();
+        handlerConfig.setParseMode(HandlerConfig.PARSE_MODE.DETECT);
+        handlerConfig.setDetectMaxBytes(4000);
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(HandlerConfig.class, handlerConfig);
+        FetchEmitTuple fetchEmitTuple = new FetchEmitTuple("id",
+                new FetchKey("bytes", "mock.xml"),
+                new EmitKey("", ""), new Metadata(), parseContext);
+
+        //a failed fetch is a fetch exception
+        RangeFetcher failingFetcher = new RangeFetcher() {
+            @Override
+            public String getName() {
+                return "bytes";
+            }
+
+            @Override
+            public InputStream fetch(String fetchKey, Metadata metadata,
+                                     ParseContext parseContext) throws IOException {
+                throw new IOException("fetch failed");
+            }
+
+            @Override
+            public InputStream fetch(String fetchKey, long startOffset, long endOffset,
+                                     Metadata metadata, ParseContext parseContext)
+                    throws IOException {
+                throw new IOException("fetch failed");
+            }
+        };
+        assertNull(pipesServer.parseFromTuple(fetchEmitTuple, failingFetcher));
+
+        //if the detector fails on a fetched stream, the type is octet-stream
+        Fetcher brokenStreamFetcher = new Fetcher() {
+            @Override
+            public String getName() {
+                return "bytes";
+            }
+
+            @Override
+            public InputStream fetch(String fetchKey, Metadata metadata,
+                                     ParseContext parseContext) {
+                return new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("detection failed");
+                    }
+                };
+            }
+        };
+        PipesServer.MetadataListAndEmbeddedBytes parseData =
+                pipesServer.parseFromTuple(fetchEmitTuple, brokenStreamFetcher);
+        assertEquals("application/octet-stream",
+                parseData.metadataList.get(0).get(Metadata.CONTENT_TYPE));
+    }
+
+    @Test
+    public void testRangeFetchBlockSize(@TempDir Path tmp) throws Exception {
+        Path tikaConfig = tmp.resolve("tika-config.xml");
+        String xml = IOUtils.toString(
+                PipesServerTest.class.getResourceAsStream("TIKA-3941.xml"), StandardCharsets.UTF_8);
+        xml = xml.replace("BASE_PATH", tmp.toAbsolutePath().toString());
+        Files.write(tikaConfig, xml.getBytes(StandardCharsets.UTF_8));
+
+        PipesServer pipesServer = new PipesServer(tikaConfig,
+                UnsynchronizedByteArrayInputStream.builder().setByteArray(new byte[0]).get(),
+                new PrintStream(UnsynchronizedByteArrayOutputStream.builder().get(), true,
+                        StandardCharsets.UTF_8.name()),
+                -1, 30000, 30000);
+        pipesServer.initializeResources();
+
+        HandlerConfig handlerConfig = new HandlerConfig();
+        handlerConfig.setRangeFetchBlockSize(100);
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(HandlerConfig.class, handlerConfig);
+        FetchEmitTuple fetchEmitTuple = new FetchEmitTuple("id",
+                new FetchKey("bytes", "mock.xml"),
+                new EmitKey("", ""), new Metadata(), parseContext);
+
+        byte[] bytes = IOUtils.toByteArray(
+                PipesServerTest.class.getResourceAsStream("/test-documents/mock_times.xml"));
+        List<String> ranges = new ArrayList<>();
+        RangeFetcher fetcher = new RangeFetcher() {
+            @Override
+            public String getName() {
+                return "bytes";
+            }
+
+            @Override
+            public InputStream fetch(String fetchKey, Metadata metadata,
+                                     ParseContext parseContext) {
+                throw new AssertionError("only ranges should be fetched");
+            }
+
+            @Override
+            public InputStream fetch(String fetchKey, long startOffset, long endOffset,
+                                     Metadata metadata, ParseContext parseContext) {
+                ranges.add(startOffset + "-" + endOffset);
+                metadata.set(TOTAL_LENGTH, Integer.toString(bytes.length));
+                int end = (int) Math.min(endOffset, bytes.length - 1);
+                return new ByteArrayInputStream(bytes, (int) startOffset,
+                        (int) (end - startOffset + 1));
+            }
+        };
+        PipesServer.MetadataListAndEmbeddedBytes parseData =
+                pipesServer.parseFromTuple(fetchEmitTuple, fetcher);
+        assertEquals(1, parseData.metadataList.size());
+        Metadata metadata = parseData.metadataList.get(0);
+        assertEquals("application/mock+xml", metadata.get(Metadata.CONTENT_TYPE));
+        assertEquals(Integer.toString(bytes.length), metadata.get(Metadata.CONTENT_LENGTH));
+        //the document is read once, a block at a time
+        assertEquals(10, ranges.size());
+        assertEquals("0-99", ranges.get(0));
+        assertEquals("900-974", ranges.get(9));
+    }
+
+    @Test
+    public void testInlineDocumentBytes(@TempDir Path tmp) throws Exception {
+        Path tikaConfig = tmp.resolve("tika-config.xml");
+        String xml = IOUtils.toString(
+                PipesServerTest.class.getResourceAsStream("TIKA-3941.xml"), StandardCharsets.UTF_8);
+        xml = xml.replace("BASE_PATH", tmp.toAbsolutePath().toString());
+        Files.write(tikaConfig, xml.getBytes(StandardCharsets.UTF_8));
+
+        PipesServer pipesServer = new PipesServer(tikaConfig,
+                UnsynchronizedByteArrayInputStream.builder().setByteArray(new byte[0]).get(),
+                new PrintStream(UnsynchronizedByteArrayOutputStream.builder().get(), true,
+                        StandardCharsets.UTF_8.name()),
+                -1, 30000, 30000);
+        pipesServer.initializeResources();
+
+        byte[] bytes = IOUtils.toByteArray(
+                PipesServerTest.class.getResourceAsStream("/test-documents/mock_times.xml"));
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(InlineDocumentBytes.class, new InlineDocumentBytes(bytes, "mock.xml"));
+        FetchEmitTuple fetchEmitTuple = new FetchEmitTuple("id",
+                new FetchKey("not-a-fetcher", "mock.xml"),
+                new EmitKey("", ""), new Metadata(), parseContext);
+        //the fetcher isn't used
+        PipesServer.MetadataListAndEmbeddedBytes parseData =
+                pipesServer.parseFromTuple(fetchEmitTuple, null);
+        assertEquals(1, parseData.metadataList.size());
+        Metadata metadata = parseData.metadataList.get(0);
+        assertEquals("application/mock+xml", metadata.get(Metadata.CONTENT_TYPE));
+        assertEquals("mock.xml", metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY));
+        assertEquals(Integer.toString(bytes.length), metadata.get(Metadata.CONTENT_LENGTH));
+    }
+
     @Test
     public void testEmbeddedStreamEmitter(@TempDir Path tmp) throws Exception {
         if (Files.isDirectory(tmp)) {
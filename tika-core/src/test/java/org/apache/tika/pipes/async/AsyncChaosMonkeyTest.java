@@ -74,6 +74,15 @@ public class AsyncChaosMonkeyTest {
 
 
     public Path setUp(boolean emitIntermediateResults) throws SQLException, IOException {
+        return setUp(emitIntermediateResults, null);
+    }
+
+    /**
+     * @param prefetch if not null, async settings for prefetching; the
+     *                 documents are then fetched by the {@link MockFetcher}
+     */
+    public Path setUp(boolean emitIntermediateResults, String prefetch)
+            throws SQLException, IOException {
         ok = 0;
         oom = 0;
         timeouts = 0;
@@ -84,10 +93,12 @@ public class AsyncChaosMonkeyTest {
                 "  <emitter class=\"org.apache.tika.pipes.async.MockEmitter\">\n" +
                 "         <name>mock</name>\n" + "  </emitter>" +
                 "  </emitters>" + "  <fetchers>" +
+                (prefetch != null ?
+                        "    <fetcher class=\"org.apache.tika.pipes.async.MockFetcher\"/>" :
                 "    <fetcher class=\"org.apache.tika.pipes.fetcher.fs.FileSystemFetcher\">" +
                 "      <name>mock</name>\n" + "      <basePath>" +
                 ProcessUtils.escapeCommandLine(inputDir.toAbsolutePath().toString()) +
-                "</basePath>\n" + "    </fetcher>" + "  </fetchers>" +
+                "</basePath>\n" + "    </fetcher>") + "  </fetchers>" +
                 " <autoDetectParserConfig>\n" +
                         "    <digesterFactory\n" +
                         "        class=\"org.apache.tika.pipes.async.MockDigesterFactory\"/>\n" +
@@ -100,7 +111,8 @@ public class AsyncChaosMonkeyTest {
                         "</tikaConfig><forkedJvmArgs><arg>-Xmx512m</arg" +
                         "></forkedJvmArgs><maxForEmitBatchBytes>1000000</maxForEmitBatchBytes>" +
                         "<timeoutMillis>5000</timeoutMillis>" +
-                        "<numClients>4</numClients></async>" +
+                        "<numClients>4</numClients>" +
+                        (prefetch != null ? prefetch : "") + "</async>" +
                         "</properties>";
         Files.write(tikaConfigPath, xml.getBytes(StandardCharsets.UTF_8));
         Random r = new Random();
@@ -122,6 +134,7 @@ public class AsyncChaosMonkeyTest {
         }
         MockEmitter.EMIT_DATA.clear();
         MockReporter.RESULTS.clear();
+        MockFetcher.FETCHES.set(0);
         return tikaConfigPath;
     }
 
@@ -199,4 +212,66 @@ public class AsyncChaosMonkeyTest {
         assertEquals(totalFiles, emitKeys.size());
         assertEquals(oom, observedOOM);
     }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        //the mock document is larger than 100 bytes, so it is prefetched to a temp file,
+        //and it goes over a budget of 100 bytes, but isn't fetched again
+        for (String prefetch : new String[]{"<prefetchDepth>3</prefetchDepth>",
+                "<prefetchDepth>3</prefetchDepth><prefetchMaxInMemoryBytes>100" +
+                        "</prefetchMaxInMemoryBytes>",
+                "<prefetchDepth>3</prefetchDepth><prefetchMaxBytes>100</prefetchMaxBytes>"}) {
+            AsyncProcessor processor = new AsyncProcessor(setUp(false, prefetch));
+            for (int i = 0; i < totalFiles; i++) {
+                FetchEmitTuple t = new FetchEmitTuple("myId-" + i, new FetchKey("mock", i + ".xml"),
+                        new EmitKey("mock", "emit-" + i), new Metadata());
+                processor.offer(t, 1000);
+            }
+            processor.finished();
+            while (processor.checkActive()) {
+                Thread.sleep(100);
+            }
+            processor.close();
+            //fetched by this process, not by the pipes servers
+            assertEquals(totalFiles, MockFetcher.FETCHES.get());
+            assertEquals(totalFiles, MockReporter.RESULTS.size());
+            Set<String> emitKeys = new HashSet<>();
+            for (EmitData d : MockEmitter.EMIT_DATA) {
+                emitKeys.add(d.getEmitKey().getEmitKey());
+                assertEquals("application/mock+xml",
+                        d.getMetadataList().get(0).get(Metadata.CONTENT_TYPE));
+                assertEquals("Nikolai Lobachevsky",
+                        d.getMetadataList().get(0).get("dc:creator"));
+            }
+            assertEquals(totalFiles, emitKeys.size());
+        }
+    }
+
+    @Test
+    public void testPrefetchTimeout() throws Exception {
+        AsyncProcessor processor = new AsyncProcessor(setUp(false,
+                "<prefetchDepth>3</prefetchDepth>"));
+        int numTuples = 10;
+        for (int i = 0; i < numTuples; i++) {
+            String fetchKey = (i == 2 ? MockFetcher.HANG : "") + i + ".xml";
+            FetchEmitTuple t = new FetchEmitTuple("myId-" + i, new FetchKey("mock", fetchKey),
+                    new EmitKey("mock", "emit-" + i), new Metadata());
+            processor.offer(t, 1000);
+        }
+        processor.finished();
+        while (processor.checkActive()) {
+            Thread.sleep(100);
+        }
+        processor.close();
+        //the hung prefetch was given up, and the pipes server timed out on the fetch
+        assertEquals(numTuples, MockReporter.RESULTS.size());
+        int timeouts = 0;
+        for (PipesResult result : MockReporter.RESULTS) {
+            if (result.getStatus() == PipesResult.STATUS.TIMEOUT) {
+                timeouts++;
+            }
+        }
+        assertEquals(1, timeouts);
+        assertEquals(numTuples - 1, MockEmitter.EMIT_DATA.size());
+    }
 }
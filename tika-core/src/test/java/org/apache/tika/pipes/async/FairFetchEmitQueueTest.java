@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.async;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.pipes.FetchEmitTuple;
+import org.apache.tika.pipes.emitter.EmitKey;
+import org.apache.tika.pipes.fetcher.FetchKey;
+import org.apache.tika.pipes.pipesiterator.PipesIterator;
+
+public class FairFetchEmitQueueTest {
+
+    private static FetchEmitTuple tuple(String id, String tenant) {
+        Metadata metadata = new Metadata();
+        if (tenant != null) {
+            metadata.set("tenant", tenant);
+        }
+        return new FetchEmitTuple(id, new FetchKey("mock", id), new EmitKey("mock", id),
+                metadata);
+    }
+
+    @Test
+    public void testFifoWithoutClassKey() throws Exception {
+        FairFetchEmitQueue queue = new FairFetchEmitQueue(10, null, Collections.emptyMap());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(tuple("id" + i, i % 2 == 0 ? "a" : "b")));
+        }
+        assertTrue(queue.offer(PipesIterator.COMPLETED_SEMAPHORE));
+        for (int i = 0; i < 5; i++) {
+            assertEquals("id" + i, queue.poll().getId());
+        }
+        assertSame(PipesIterator.COMPLETED_SEMAPHORE, queue.poll());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        QueueClassStatistics statistics = queue.getStatistics().get(FairFetchEmitQueue.DEFAULT_CLASS);
+        assertEquals(5, statistics.getOffered());
+        assertEquals(5, statistics.getTaken());
+        assertEquals(0, statistics.getQueued());
+    }
+
+    @Test
+    public void testWeights() throws Exception {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("interactive", 4.0);
+        FairFetchEmitQueue queue = new FairFetchEmitQueue(100, "tenant", weights);
+        for (int i = 0; i < 50; i++) {
+            queue.put(tuple("bulk" + i, "bulk"));
+        }
+        for (int i = 0; i < 10; i++) {
+            queue.put(tuple("interactive" + i, "interactive"));
+        }
+        //the semaphore is only taken when the classes are empty
+        queue.put(PipesIterator.COMPLETED_SEMAPHORE);
+        int interactive = 0;
+        for (int i = 0; i < 10; i++) {
+            FetchEmitTuple t = queue.take();
+            if (t.getId().startsWith("interactive")) {
+                assertEquals("interactive" + interactive, t.getId());
+                interactive++;
+            }
+        }
+        //4:1 for the first 10 tuples
+        assertEquals(8, interactive);
+
+        Map<String, QueueClassStatistics> statistics = queue.getStatistics();
+        assertEquals(2, statistics.get("bulk").getTaken());
+        assertEquals(48, statistics.get("bulk").getQueued());
+        assertEquals(8, statistics.get("interactive").getTaken());
+        assertEquals(4.0, statistics.get("interactive").getWeight(), 0.0001);
+        assertEquals(1.0, statistics.get("bulk").getWeight(), 0.0001);
+
+        for (int i = 0; i < 50; i++) {
+            assertFalse(queue.take() == PipesIterator.COMPLETED_SEMAPHORE);
+        }
+        assertSame(PipesIterator.COMPLETED_SEMAPHORE, queue.take());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testIdleClassDoesNotBuildUpCredit() throws Exception {
+        FairFetchEmitQueue queue = new FairFetchEmitQueue(100, "tenant", Collections.emptyMap());
+        queue.put(tuple("a0", "a"));
+        queue.take();
+        for (int i = 0; i < 20; i++) {
+            queue.put(tuple("b" + i, "b"));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("b" + i, queue.take().getId());
+        }
+        //a was idle while b's tuples were taken, it gets about its share
+        //of what follows rather than all of it
+        for (int i = 1; i < 5; i++) {
+            queue.put(tuple("a" + i, "a"));
+        }
+        int a = 0;
+        for (int i = 0; i < 4; i++) {
+            if (queue.take().getId().startsWith("a")) {
+                a++;
+            }
+        }
+        assertEquals(3, a);
+    }
+
+    @Test
+    public void testEmptyClassesAreDropped() throws Exception {
+        FairFetchEmitQueue queue = new FairFetchEmitQueue(10, "tenant", Collections.emptyMap());
+        for (int i = 0; i < 1000; i++) {
+            queue.put(tuple("id" + i, "tenant" + i));
+            assertEquals("id" + i, queue.take().getId());
+        }
+        assertEquals(0, queue.getActiveClasses());
+        queue.put(tuple("a0", "a"));
+        queue.put(tuple("a1", "a"));
+        assertEquals(1, queue.getActiveClasses());
+        queue.take();
+        assertEquals(1, queue.getActiveClasses());
+        queue.take();
+        assertEquals(0, queue.getActiveClasses());
+
+        //the statistics are kept
+        Map<String, QueueClassStatistics> statistics = queue.getStatistics();
+        assertEquals(1001, statistics.size());
+        assertEquals(1, statistics.get("tenant999").getTaken());
+        assertEquals(2, statistics.get("a").getOffered());
+        assertEquals(2, statistics.get("a").getTaken());
+        assertEquals(0, statistics.get("a").getQueued());
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        FairFetchEmitQueue queue = new FairFetchEmitQueue(2, "tenant", Collections.emptyMap());
+        assertTrue(queue.offer(tuple("a0", "a")));
+        assertTrue(queue.offer(tuple("b0", "b")));
+        assertEquals(0, queue.remainingCapacity());
+        assertFalse(queue.offer(tuple("c0", "c")));
+        assertFalse(queue.offer(tuple("c0", "c"), 10, TimeUnit.MILLISECONDS));
+        assertEquals("a0", queue.peek().getId());
+        assertEquals("a0", queue.poll().getId());
+        assertTrue(queue.offer(tuple("c0", "c")));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void testConfig(@TempDir Path dir) throws Exception {
+        Path config = dir.resolve("tika-config.xml");
+        Files.write(config, ("<?xml version=\"1.0\" encoding=\"UTF-8\" ?><properties><async>" +
+                "<queueClassKey>tenant</queueClassKey><queueClassWeights>" +
+                "<weight from=\"interactive\" to=\"4\"/><weight from=\"bulk\" to=\"0.5\"/>" +
+                "</queueClassWeights></async></properties>").getBytes(UTF_8));
+        AsyncConfig asyncConfig = AsyncConfig.load(config);
+        assertEquals("tenant", asyncConfig.getQueueClassKey());
+        assertEquals(4.0, asyncConfig.getQueueClassWeights().get("interactive"), 0.0001);
+        assertEquals(0.5, asyncConfig.getQueueClassWeights().get("bulk"), 0.0001);
+    }
+}
@@ -20,6 +20,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
@@ -37,8 +38,22 @@ public class MockFetcher implements Fetcher {
         return "mock";
     }
 
+    //fetches in this JVM
+    public static final AtomicInteger FETCHES = new AtomicInteger();
+
+    //fetch keys that start with this never return
+    public static final String HANG = "hang";
+
     @Override
     public InputStream fetch(String fetchKey, Metadata metadata, ParseContext parseContext) throws TikaException, IOException {
+        FETCHES.incrementAndGet();
+        if (fetchKey.startsWith(HANG)) {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted", e);
+            }
+        }
         return new ByteArrayInputStream(BYTES);
     }
 }
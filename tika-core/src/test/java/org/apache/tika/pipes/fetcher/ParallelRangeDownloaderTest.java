@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.fetcher;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+
+public class ParallelRangeDownloaderTest {
+
+    private ParallelRangeDownloader downloader;
+
+    @BeforeEach
+    public void setUp() {
+        downloader = new ParallelRangeDownloader(3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        downloader.shutdown();
+    }
+
+    @Test
+    public void testDownload() throws Exception {
+        PartFetcher fetcher = new PartFetcher(bytes(10500));
+        fetcher.md5 = true;
+        Metadata metadata = new Metadata();
+        try (InputStream is = downloader.fetch(fetcher, "key", metadata, new ParseContext(), 1000)) {
+            assertArrayEquals(fetcher.data, IOUtils.toByteArray(is));
+        }
+        assertEquals("10500", metadata.get(Metadata.CONTENT_LENGTH));
+        assertEquals(11, fetcher.ranges.size());
+        assertTrue(fetcher.ranges.contains("10000-10499"));
+
+        //fits in one part
+        fetcher = new PartFetcher(bytes(500));
+        try (InputStream is = downloader.fetch(fetcher, "key", new Metadata(), new ParseContext(), 1000)) {
+            assertArrayEquals(fetcher.data, IOUtils.toByteArray(is));
+        }
+        assertEquals(Arrays.asList("0-999"), fetcher.ranges);
+
+        //no range support, the first response is the whole document
+        fetcher = new PartFetcher(bytes(5000));
+        fetcher.ignoreRanges = true;
+        try (InputStream is = downloader.fetch(fetcher, "key", new Metadata(), new ParseContext(), 1000)) {
+            assertArrayEquals(fetcher.data, IOUtils.toByteArray(is));
+        }
+        assertEquals(1, fetcher.ranges.size());
+    }
+
+    @Test
+    public void testReadBeforeDownloadCompletes() throws Exception {
+        PartFetcher fetcher = new PartFetcher(bytes(10000));
+        fetcher.blockFrom = 5000;
+        try (InputStream is = downloader.fetch(fetcher, "key", new Metadata(), new ParseContext(), 1000)) {
+            byte[] start = new byte[5000];
+            IOUtils.readFully(is, start);
+            assertArrayEquals(Arrays.copyOf(fetcher.data, 5000), start);
+            fetcher.latch.countDown();
+            assertArrayEquals(Arrays.copyOfRange(fetcher.data, 5000, 10000), IOUtils.toByteArray(is));
+        }
+    }
+
+    @Test
+    public void testVerification() throws Exception {
+        PartFetcher fetcher = new PartFetcher(bytes(10000));
+        fetcher.md5 = true;
+        fetcher.corruptPart = 1000;
+        try (InputStream is = downloader.fetch(fetcher, "key", new Metadata(), new ParseContext(), 1000)) {
+            IOException e = assertThrows(IOException.class, () -> IOUtils.toByteArray(is));
+            assertTrue(rootMessage(e).contains("Checksum mismatch"), rootMessage(e));
+        }
+
+        fetcher = new PartFetcher(bytes(10000));
+        fetcher.changeEntityTag = 7000;
+        try (InputStream is = downloader.fetch(fetcher, "key", new Metadata(), new ParseContext(), 1000)) {
+            IOException e = assertThrows(IOException.class, () -> IOUtils.toByteArray(is));
+            assertTrue(rootMessage(e).contains("changed during the download"));
+        }
+
+        fetcher = new PartFetcher(bytes(10000));
+        fetcher.truncatePart = 3000;
+        try (InputStream is = downloader.fetch(fetcher, "key", new Metadata(), new ParseContext(), 1000)) {
+            IOException e = assertThrows(IOException.class, () -> IOUtils.toByteArray(is));
+            assertTrue(rootMessage(e).contains("Expected 1000 bytes"));
+        }
+    }
+
+    @Test
+    public void testDownloadsShareThePool() throws Exception {
+        List<String> log = new CopyOnWriteArrayList<>();
+        PartFetcher large = new PartFetcher(bytes(50000));
+        large.name = "large";
+        large.log = log;
+        large.sleepMillis = 5;
+        PartFetcher small = new PartFetcher(bytes(3000));
+        small.name = "small";
+        small.log = log;
+        try (InputStream largeStream = downloader.fetch(large, "key", new Metadata(),
+                new ParseContext(), 1000);
+                InputStream smallStream = downloader.fetch(small, "key", new Metadata(),
+                        new ParseContext(), 1000)) {
+            assertArrayEquals(small.data, IOUtils.toByteArray(smallStream));
+            assertArrayEquals(large.data, IOUtils.toByteArray(largeStream));
+        }
+        //the small download's parts don't wait behind all of the large one's
+        int lastSmall = log.lastIndexOf("small:2000");
+        assertTrue(lastSmall > 0 && lastSmall < 12, log.toString());
+    }
+
+    @Test
+    public void testGetPath() throws Exception {
+        PartFetcher fetcher = new PartFetcher(bytes(10500));
+        fetcher.blockFrom = 5000;
+        try (TikaInputStream tis = (TikaInputStream) downloader.fetch(fetcher, "key.bin",
+                new Metadata(), new ParseContext(), 1000)) {
+            byte[] start = new byte[1000];
+            IOUtils.readFully(tis, start);
+            assertFalse(tis.hasFile());
+            //too large to wait for
+            assertNull(tis.getPath(5000));
+            fetcher.latch.countDown();
+            Path path = tis.getPath();
+            assertTrue(tis.hasFile());
+            assertArrayEquals(fetcher.data, Files.readAllBytes(path));
+            //the stream carries on where it was
+            assertArrayEquals(Arrays.copyOfRange(fetcher.data, 1000, 10500),
+                    IOUtils.toByteArray(tis));
+        }
+    }
+
+    private static String rootMessage(Throwable t) {
+        while (t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t.getMessage();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i % 253);
+        }
+        return bytes;
+    }
+
+    private static class PartFetcher implements RangeFetcher {
+
+        private final byte[] data;
+        private final List<String> ranges = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private String name = "parts";
+        private List<String> log;
+        private long sleepMillis = 0;
+        private boolean md5;
+        private boolean ignoreRanges;
+        private long blockFrom = -1;
+        private long corruptPart = -1;
+        private long changeEntityTag = -1;
+        private long truncatePart = -1;
+
+        PartFetcher(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public String getName() {
+            return "parts";
+        }
+
+        @Override
+        public InputStream fetch(String fetchKey, Metadata metadata, ParseContext parseContext) {
+            return new ByteArrayInputStream(data);
+        }
+
+        @Override
+        public InputStream fetch(String fetchKey, long startOffset, long endOffset,
+                                 Metadata metadata, ParseContext parseContext) throws IOException {
+            ranges.add(startOffset + "-" + endOffset);
+            if (log != null) {
+                log.add(name + ":" + startOffset);
+            }
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            if (ignoreRanges) {
+                return new ByteArrayInputStream(data);
+            }
+            if (startOffset == blockFrom) {
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            int end = (int) Math.min(endOffset, data.length - 1);
+            byte[] part = Arrays.copyOfRange(data, (int) startOffset, end + 1);
+            metadata.set(TOTAL_LENGTH, Integer.toString(data.length));
+            metadata.set(ENTITY_TAG, startOffset == changeEntityTag ? "v2" : "v1");
+            if (md5) {
+                try {
+                    metadata.set(RANGE_CONTENT_MD5, Base64.getEncoder()
+                            .encodeToString(MessageDigest.getInstance("MD5").digest(part)));
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+            if (startOffset == corruptPart) {
+                part[10]++;
+            }
+            if (startOffset == truncatePart) {
+                part = Arrays.copyOf(part, part.length - 1);
+            }
+            return new ByteArrayInputStream(part);
+        }
+    }
+}
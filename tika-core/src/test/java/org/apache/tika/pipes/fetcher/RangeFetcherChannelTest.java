@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.fetcher;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+
+public class RangeFetcherChannelTest {
+
+    @Test
+    public void testRead() throws Exception {
+        ArrayRangeFetcher fetcher = new ArrayRangeFetcher(bytes(10500), true);
+        Metadata metadata = new Metadata();
+        RangeFetcherChannel channel = RangeFetcherChannel.open(fetcher, "key", metadata,
+                new ParseContext(), 1000, 2);
+        assertEquals(10500, channel.size());
+        assertEquals(Arrays.asList("0-999"), fetcher.ranges);
+
+        //the end, across a block boundary
+        ByteBuffer buffer = ByteBuffer.allocate(700);
+        channel.position(9900);
+        assertEquals(600, channel.read(buffer));
+        assertArrayEquals(Arrays.copyOfRange(fetcher.data, 9900, 10500),
+                Arrays.copyOf(buffer.array(), 600));
+        assertEquals(-1, channel.read(buffer.clear()));
+        assertEquals(Arrays.asList("0-999", "9000-9999", "10000-10499"), fetcher.ranges);
+
+        //cached
+        channel.position(9950);
+        channel.read(buffer.clear());
+        assertEquals(3, channel.getFetchCount());
+        //the first block was evicted
+        channel.position(10);
+        channel.read(buffer.clear());
+        assertArrayEquals(Arrays.copyOfRange(fetcher.data, 10, 710), buffer.array());
+        assertEquals(4, channel.getFetchCount());
+        assertEquals(3500, channel.getFetchedBytes());
+
+        //duplicates have their own position
+        RangeFetcherChannel duplicate = channel.duplicate();
+        assertEquals(0, duplicate.position());
+        duplicate.close();
+        assertFalse(duplicate.isOpen());
+        assertTrue(channel.isOpen());
+    }
+
+    @Test
+    public void testUnknownLength() throws Exception {
+        assertThrows(IOException.class, () -> RangeFetcherChannel.open(
+                new ArrayRangeFetcher(bytes(2000), false), "key", new Metadata(),
+                new ParseContext(), 1000, 2));
+        //fits in the first block
+        RangeFetcherChannel channel = RangeFetcherChannel.open(
+                new ArrayRangeFetcher(bytes(500), false), "key", new Metadata(),
+                new ParseContext(), 1000, 2);
+        assertEquals(500, channel.size());
+    }
+
+    @Test
+    public void testTikaInputStream() throws Exception {
+        ArrayRangeFetcher fetcher = new ArrayRangeFetcher(bytes(5000), true);
+        RangeFetcherChannel channel = RangeFetcherChannel.open(fetcher, "key", new Metadata(),
+                new ParseContext(), 1000, 10);
+        Metadata metadata = new Metadata();
+        try (TikaInputStream tis = TikaInputStream.get(channel, metadata)) {
+            assertEquals("5000", metadata.get(Metadata.CONTENT_LENGTH));
+            assertFalse(tis.hasFile());
+            assertTrue(tis.hasSeekableByteChannel());
+            try (SeekableByteChannel seekable = tis.getSeekableByteChannel()) {
+                ByteBuffer buffer = ByteBuffer.allocate(100);
+                seekable.position(4900).read(buffer);
+                assertArrayEquals(Arrays.copyOfRange(fetcher.data, 4900, 5000), buffer.array());
+            }
+            assertEquals(Arrays.asList("0-999", "4000-4999"), fetcher.ranges);
+            assertArrayEquals(fetcher.data, IOUtils.toByteArray(tis));
+        }
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i % 251);
+        }
+        return bytes;
+    }
+
+    private static class ArrayRangeFetcher implements RangeFetcher {
+
+        private final byte[] data;
+
+        private final boolean reportLength;
+
+        private final List<String> ranges = new ArrayList<>();
+
+        ArrayRangeFetcher(byte[] data, boolean reportLength) {
+            this.data = data;
+            this.reportLength = reportLength;
+        }
+
+        @Override
+        public String getName() {
+            return "array";
+        }
+
+        @Override
+        public InputStream fetch(String fetchKey, Metadata metadata, ParseContext parseContext) {
+            return new ByteArrayInputStream(data);
+        }
+
+        @Override
+        public InputStream fetch(String fetchKey, long startOffset, long endOffset,
+                                 Metadata metadata, ParseContext parseContext) {
+            long end = Math.min(endOffset, data.length - 1);
+            ranges.add(startOffset + "-" + end);
+            if (reportLength) {
+                metadata.set(TOTAL_LENGTH, Integer.toString(data.length));
+            }
+            return new ByteArrayInputStream(data, (int) startOffset,
+                    (int) (end - startOffset + 1));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Times the serialization of a synthetic document through the
+ * {@link BasicContentHandlerFactory} handler stack for each output type,
+ * with and without the {@link FusedTextContentHandler} for text, and reports
+ * the allocation per output byte where the JVM supports measuring it.
+ * The events are sent either through an {@link XHTMLContentHandler}, as
+ * parsers do, or straight to the handler to time only the handler stack.
+ */
+public class ContentHandlerBenchmark {
+
+    private static final int ITERATIONS = 50;
+
+    private static final int PARAGRAPHS = 20000;
+
+    private static final String XHTML = XHTMLContentHandler.XHTML;
+
+    private static final char[] TEXT = ("The quick brown fox jumps over the lazy dog & " +
+            "the <cat>; ").toCharArray();
+
+    public static void main(String[] args) throws Exception {
+        for (boolean direct : new boolean[]{false, true}) {
+            for (BasicContentHandlerFactory.HANDLER_TYPE type :
+                    new BasicContentHandlerFactory.HANDLER_TYPE[]{
+                            BasicContentHandlerFactory.HANDLER_TYPE.XML,
+                            BasicContentHandlerFactory.HANDLER_TYPE.HTML,
+                            BasicContentHandlerFactory.HANDLER_TYPE.TEXT,
+                            BasicContentHandlerFactory.HANDLER_TYPE.BODY}) {
+                benchmark(type, false, false, direct);
+                benchmark(type, true, false, direct);
+            }
+            for (BasicContentHandlerFactory.HANDLER_TYPE type :
+                    new BasicContentHandlerFactory.HANDLER_TYPE[]{
+                            BasicContentHandlerFactory.HANDLER_TYPE.TEXT,
+                            BasicContentHandlerFactory.HANDLER_TYPE.BODY}) {
+                benchmark(type, false, true, direct);
+                benchmark(type, true, true, direct);
+            }
+        }
+    }
+
+    private static void benchmark(BasicContentHandlerFactory.HANDLER_TYPE type,
+                                  boolean stream, boolean fused, boolean direct)
+            throws Exception {
+        BasicContentHandlerFactory factory =
+                new BasicContentHandlerFactory(type, -1, true, null, fused);
+        //warm up
+        long bytes = run(factory, stream, direct);
+        for (int i = 0; i < ITERATIONS; i++) {
+            run(factory, stream, direct);
+        }
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            run(factory, stream, direct);
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = allocated < 0 ? -1 : allocatedBytes() - allocated;
+        System.out.printf(Locale.ROOT,
+                "%-6s %-5s %-5s %-13s %8.1f MB/s, %6.2f bytes allocated per output byte%n",
+                direct ? "direct" : "xhtml", type, fused ? "fused" : "",
+                stream ? "OutputStream" : "String", bytes * ITERATIONS * 1000.0 / elapsed,
+                allocated < 0 ? Double.NaN : (double) allocated / (bytes * ITERATIONS));
+    }
+
+    private static long run(BasicContentHandlerFactory factory, boolean stream, boolean direct)
+            throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ContentHandler handler = stream ?
+                factory.getNewContentHandler(os, StandardCharsets.UTF_8) :
+                factory.getNewContentHandler();
+        ContentHandler target = direct ? handler : new XHTMLContentHandler(handler, new Metadata());
+        AttributesImpl empty = new AttributesImpl();
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", "class", "class", "CDATA", "paragraph");
+        target.startDocument();
+        if (direct) {
+            target.startPrefixMapping("", XHTML);
+            target.startElement(XHTML, "html", "html", empty);
+            target.startElement(XHTML, "body", "body", empty);
+        }
+        for (int i = 0; i < PARAGRAPHS; i++) {
+            target.startElement(XHTML, "p", "p", attributes);
+            target.characters(TEXT, 0, TEXT.length);
+            target.startElement(XHTML, "b", "b", empty);
+            target.characters(TEXT, 4, 5);
+            target.endElement(XHTML, "b", "b");
+            target.characters(TEXT, 9, 10);
+            target.endElement(XHTML, "p", "p");
+        }
+        if (direct) {
+            target.endElement(XHTML, "body", "body");
+            target.endElement(XHTML, "html", "html");
+        }
+        target.endDocument();
+        return stream ? os.size() : handler.toString().length();
+    }
+
+    /**
+     * Looked up by reflection, as it is only available on some JVMs.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        try {
+            Method method = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+            return (Long) method.invoke(bean, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+}
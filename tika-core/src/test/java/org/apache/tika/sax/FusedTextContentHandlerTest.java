@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParseRecord;
+
+/**
+ * Checks that the {@link FusedTextContentHandler} has the same output as
+ * the chain of handlers it replaces.
+ */
+public class FusedTextContentHandlerTest {
+
+    private static final String XHTML = XHTMLContentHandler.XHTML;
+
+    private static final String[] NAMES = {"html", "head", "body", "p", "div", "script",
+            "style", "SCRIPT", "b"};
+
+    private static final char[] CHARS = {'a', 'b', ' ', '\n', '\t', '\u0001', '\u00e9',
+            '\ud83d', '\ude00', '\ufffe', '\uffff', '\ufffd', '\ud7ff', '\ue000'};
+
+    @Test
+    public void testSameOutputAsChain() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            List<Event> events = randomDocument(random);
+            for (BasicContentHandlerFactory.HANDLER_TYPE type :
+                    new BasicContentHandlerFactory.HANDLER_TYPE[]{
+                            BasicContentHandlerFactory.HANDLER_TYPE.TEXT,
+                            BasicContentHandlerFactory.HANDLER_TYPE.BODY}) {
+                for (int writeLimit : new int[]{-1, 0, random.nextInt(20), random.nextInt(200)}) {
+                    for (boolean throwOnWriteLimitReached : new boolean[]{true, false}) {
+                        String message = type + " " + writeLimit + " " +
+                                throwOnWriteLimitReached + " " + events;
+                        Result expected = run(events, type, writeLimit,
+                                throwOnWriteLimitReached, false, true);
+                        assertEquals(expected, run(events, type, writeLimit,
+                                throwOnWriteLimitReached, true, true), message);
+                        //the fused handler replaces invalid characters itself
+                        assertEquals(expected, run(events, type, writeLimit,
+                                throwOnWriteLimitReached, true, false), message);
+                    }
+                }
+                for (int writeLimit : new int[]{-1, random.nextInt(200)}) {
+                    String message = type + " " + writeLimit + " " + events;
+                    assertArrayEquals(runToStream(events, type, writeLimit, false),
+                            runToStream(events, type, writeLimit, true), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFactory() throws Exception {
+        ParseContext parseContext = new ParseContext();
+        ContentHandler handler = new BasicContentHandlerFactory(
+                BasicContentHandlerFactory.HANDLER_TYPE.BODY, 100, false, parseContext, true)
+                .getNewContentHandler();
+        assertTrue(handler instanceof FusedTextContentHandler);
+        handler = new BasicContentHandlerFactory(
+                BasicContentHandlerFactory.HANDLER_TYPE.XML, 100, false, parseContext, true)
+                .getNewContentHandler();
+        assertTrue(handler instanceof WriteOutContentHandler);
+        handler = new BasicContentHandlerFactory(
+                BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1, true, null, true)
+                .getNewContentHandler(new ByteArrayOutputStream(), UTF_8);
+        assertTrue(handler instanceof FusedTextContentHandler);
+    }
+
+    private static Result run(List<Event> events, BasicContentHandlerFactory.HANDLER_TYPE type,
+                              int writeLimit, boolean throwOnWriteLimitReached, boolean fused,
+                              boolean safe) throws SAXException {
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(ParseRecord.class, new ParseRecord());
+        ContentHandler handler = new BasicContentHandlerFactory(type, writeLimit,
+                throwOnWriteLimitReached, parseContext, fused).getNewContentHandler();
+        boolean thrown = false;
+        try {
+            replay(events, safe ? new SafeContentHandler(handler) : handler);
+        } catch (WriteLimitReachedException e) {
+            thrown = true;
+        }
+        return new Result(handler.toString(), thrown,
+                parseContext.get(ParseRecord.class).isWriteLimitReached());
+    }
+
+    private static byte[] runToStream(List<Event> events,
+                                      BasicContentHandlerFactory.HANDLER_TYPE type,
+                                      int writeLimit, boolean fused) throws SAXException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ContentHandler handler = new BasicContentHandlerFactory(type, writeLimit, true, null,
+                fused).getNewContentHandler(os, UTF_8);
+        try {
+            replay(events, new SafeContentHandler(handler));
+        } catch (WriteLimitReachedException e) {
+            //the output stream doesn't get flushed
+        }
+        return os.toByteArray();
+    }
+
+    private static void replay(List<Event> events, ContentHandler handler) throws SAXException {
+        handler.startDocument();
+        for (Event event : events) {
+            if (event.text != null) {
+                char[] ch = ("xx" + event.text + "xx").toCharArray();
+                if (event.ignorable) {
+                    handler.ignorableWhitespace(ch, 2, event.text.length());
+                } else {
+                    handler.characters(ch, 2, event.text.length());
+                }
+            } else if (event.start) {
+                handler.startElement(event.uri, event.name, event.name, new AttributesImpl());
+            } else {
+                handler.endElement(event.uri, event.name, event.name);
+            }
+        }
+        handler.endDocument();
+    }
+
+    private static List<Event> randomDocument(Random random) {
+        List<Event> events = new ArrayList<>();
+        List<Event> open = new ArrayList<>();
+        int length = random.nextInt(40);
+        if (random.nextInt(4) > 0) {
+            //mostly well formed xhtml
+            events.add(open(open, XHTML, "html"));
+            if (random.nextBoolean()) {
+                events.add(text(random));
+                events.add(open(open, XHTML, "head"));
+                events.add(text(random));
+                events.add(close(open));
+            }
+            events.add(open(open, XHTML, "body"));
+        }
+        for (int i = 0; i < length; i++) {
+            int r = random.nextInt(10);
+            if (r < 4) {
+                events.add(text(random));
+            } else if (r < 7 || open.isEmpty() && r < 9) {
+                events.add(open(open, random.nextInt(5) == 0 ? "" : XHTML,
+                        NAMES[random.nextInt(NAMES.length)]));
+            } else if (!open.isEmpty()) {
+                events.add(close(open));
+            } else {
+                //unbalanced end element
+                events.add(new Event(XHTML, "p", false));
+            }
+        }
+        while (!open.isEmpty()) {
+            events.add(close(open));
+        }
+        return events;
+    }
+
+    private static Event open(List<Event> open, String uri, String name) {
+        Event event = new Event(uri, name, true);
+        open.add(event);
+        return event;
+    }
+
+    private static Event close(List<Event> open) {
+        Event start = open.remove(open.size() - 1);
+        return new Event(start.uri, start.name, false);
+    }
+
+    private static Event text(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(30);
+        for (int i = 0; i < length; i++) {
+            sb.append(CHARS[random.nextInt(CHARS.length)]);
+        }
+        Event event = new Event(null, null, false);
+        event.text = sb.toString();
+        event.ignorable = random.nextInt(5) == 0;
+        return event;
+    }
+
+    private static class Event {
+        private final String uri;
+        private final String name;
+        private final boolean start;
+        private String text;
+        private boolean ignorable;
+
+        Event(String uri, String name, boolean start) {
+            this.uri = uri;
+            this.name = name;
+            this.start = start;
+        }
+
+        @Override
+        public String toString() {
+            if (text != null) {
+                return (ignorable ? "ws:" : "") + text.codePoints()
+                        .mapToObj(c -> c < 0x80 ? Character.toString(c) :
+                                String.format(Locale.ROOT, "\\u%04x", c))
+                        .reduce("", String::concat);
+            }
+            return (start ? "<" : "</") + ("".equals(uri) ? "" : "x:") + name + ">";
+        }
+    }
+
+    private static class Result {
+        private final String text;
+        private final boolean thrown;
+        private final boolean writeLimitReached;
+
+        Result(String text, boolean thrown, boolean writeLimitReached) {
+            this.text = text;
+            this.thrown = thrown;
+            this.writeLimitReached = writeLimitReached;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Result)) {
+                return false;
+            }
+            Result other = (Result) o;
+            return text.equals(other.text) && thrown == other.thrown &&
+                    writeLimitReached == other.writeLimitReached;
+        }
+
+        @Override
+        public int hashCode() {
+            return text.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return text + " thrown=" + thrown + " writeLimitReached=" + writeLimitReached;
+        }
+    }
+}
@@ -18,6 +18,11 @@ package org.apache.tika.sax;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.helpers.AttributesImpl;
@@ -69,6 +74,44 @@ public class SerializerTest {
         assertElementWithAttributes("<p class=\"test\">content</p>", new ToHTMLContentHandler());
     }
 
+    @Test
+    public void testBuffering() throws Exception {
+        //more than the buffer, in small and large writes, with and without escaping
+        StringBuilder expected = new StringBuilder();
+        ToXMLContentHandler handler = new ToXMLContentHandler();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ToXMLContentHandler streamHandler = new ToXMLContentHandler(bytes, "UTF-8");
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", "title", "title", "CDATA", "a \"quoted\" <title>");
+        char[] large = new char[10000];
+        Arrays.fill(large, 'x');
+        large[5000] = '&';
+        for (int i = 0; i < 2000; i++) {
+            for (ContentHandler h : new ContentHandler[]{handler, streamHandler}) {
+                h.startElement("", "p", "p", attributes);
+                h.characters("a < b".toCharArray(), 0, 5);
+                h.endElement("", "p", "p");
+            }
+            expected.append("<p title=\"a &quot;quoted&quot; &lt;title&gt;\">a &lt; b</p>");
+            if (i % 500 == 0) {
+                handler.characters(large, 0, large.length);
+                streamHandler.characters(large, 0, large.length);
+                expected.append(new String(large, 0, 5000)).append("&amp;")
+                        .append(new String(large, 5001, 4999));
+            }
+        }
+        //toString includes what is still buffered
+        assertEquals(expected.toString(), handler.toString());
+        streamHandler.endDocument();
+        assertEquals(expected.toString(), bytes.toString(StandardCharsets.UTF_8.name()));
+
+        //a writer that is passed in sees the characters right away
+        StringWriter writer = new StringWriter();
+        ToTextContentHandler textHandler = new ToTextContentHandler(writer);
+        textHandler.characters("content".toCharArray(), 0, 7);
+        assertEquals("content", writer.toString());
+    }
+
     private void assertStartDocument(String expected, ContentHandler handler) throws Exception {
         handler.startDocument();
         assertEquals(expected, handler.toString());
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.grpc;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.tika.ContentChunk;
+import org.apache.tika.DocumentMetadata;
+import org.apache.tika.FetchAndParseReply;
+import org.apache.tika.MetadataField;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+
+/**
+ * The replies of a streamed fetch and parse: the metadata of each document,
+ * followed by the content of that document in chunks.  The replies are
+ * built from the finished pipes result as they are sent, which bounds the
+ * size of each message; the whole result is still held until the last
+ * reply is sent.
+ */
+class DocumentReplyIterator implements Iterator<FetchAndParseReply> {
+
+    static final int DEFAULT_CONTENT_CHUNK_SIZE = 65536;
+
+    private final String fetchKey;
+    private final String status;
+    private final String errorMessage;
+    private final List<Metadata> metadataList;
+    private final int contentChunkSize;
+
+    private int documentIndex = 0;
+    //content of the current document that is still to be sent, or null
+    private String content;
+    private int contentOffset;
+    private boolean started = false;
+
+    DocumentReplyIterator(String fetchKey, String status, String errorMessage,
+                          List<Metadata> metadataList, int contentChunkSize) {
+        this.fetchKey = fetchKey;
+        this.status = status;
+        this.errorMessage = errorMessage;
+        this.metadataList = metadataList == null ? List.of() : metadataList;
+        this.contentChunkSize = contentChunkSize > 0 ? contentChunkSize :
+                DEFAULT_CONTENT_CHUNK_SIZE;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !started || content != null || documentIndex < metadataList.size();
+    }
+
+    @Override
+    public FetchAndParseReply next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        started = true;
+        if (content != null) {
+            return nextChunk();
+        }
+        FetchAndParseReply.Builder builder = FetchAndParseReply.newBuilder()
+                .setFetchKey(fetchKey)
+                .setStatus(status);
+        if (errorMessage != null) {
+            builder.setErrorMessage(errorMessage);
+        }
+        if (documentIndex < metadataList.size()) {
+            Metadata metadata = metadataList.get(documentIndex);
+            builder.addDocuments(toDocumentMetadata(documentIndex, metadata, false));
+            String text = metadata.get(TikaCoreProperties.TIKA_CONTENT);
+            if (text != null && !text.isEmpty()) {
+                content = text;
+                contentOffset = 0;
+            } else {
+                documentIndex++;
+            }
+        }
+        return builder.build();
+    }
+
+    private FetchAndParseReply nextChunk() {
+        int end = Math.min(content.length(), contentOffset + contentChunkSize);
+        //don't split a surrogate pair across messages
+        if (end < content.length() && Character.isHighSurrogate(content.charAt(end - 1)) &&
+                end - 1 > contentOffset) {
+            end--;
+        }
+        boolean last = end == content.length();
+        ContentChunk chunk = ContentChunk.newBuilder()
+                .setDocumentIndex(documentIndex)
+                .setText(content.substring(contentOffset, end))
+                .setLast(last)
+                .build();
+        contentOffset = end;
+        if (last) {
+            content = null;
+            documentIndex++;
+        }
+        return FetchAndParseReply.newBuilder()
+                .setFetchKey(fetchKey)
+                .setStatus(status)
+                .setContentChunk(chunk)
+                .build();
+    }
+
+    /**
+     * @param withContent whether to include X-TIKA:content
+     */
+    static DocumentMetadata toDocumentMetadata(int documentIndex, Metadata metadata,
+                                               boolean withContent) {
+        DocumentMetadata.Builder builder = DocumentMetadata.newBuilder()
+                .setDocumentIndex(documentIndex);
+        for (String name : metadata.names()) {
+            if (!withContent && TikaCoreProperties.TIKA_CONTENT.getName().equals(name)) {
+                continue;
+            }
+            MetadataField.Builder field = MetadataField.newBuilder().setName(name);
+            for (String value : metadata.getValues(name)) {
+                if (value != null) {
+                    field.addValues(value);
+                }
+            }
+            builder.addFields(field);
+        }
+        return builder.build();
+    }
+}
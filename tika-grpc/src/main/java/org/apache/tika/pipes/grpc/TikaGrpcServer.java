@@ -45,6 +45,7 @@ public class TikaGrpcServer {
     private static final Logger LOGGER = LoggerFactory.getLogger(TikaGrpcServer.class);
     public static final int TIKA_SERVER_GRPC_DEFAULT_PORT = 50052;
     private Server server;
+    private TikaGrpcServerImpl tikaGrpcServerImpl;
     @Parameter(names = {"-p", "--port"}, description = "The grpc server port", help = true)
     private Integer port = TIKA_SERVER_GRPC_DEFAULT_PORT;
 
@@ -69,6 +70,9 @@ public class TikaGrpcServer {
     @Parameter(names = {"--client-auth-required"}, description = "Is Mutual TLS required?")
     private boolean clientAuthRequired;
 
+    @Parameter(names = {"--upload-memory-threshold"}, description = "Documents sent with ParseBytes up to this many bytes are kept in memory, larger ones are spooled to disk")
+    private long uploadMemoryThreshold = TikaGrpcServerImpl.DEFAULT_UPLOAD_MEMORY_THRESHOLD;
+
     @Parameter(names = {"-h", "-H", "--help"}, description = "Display help menu")
     private boolean help;
 
@@ -97,9 +101,11 @@ public class TikaGrpcServer {
         }
         File tikaConfigFile = new File(tikaConfigXml.getAbsolutePath());
         healthStatusManager.setStatus(TikaGrpcServer.class.getSimpleName(), ServingStatus.SERVING);
+        tikaGrpcServerImpl = new TikaGrpcServerImpl(tikaConfigFile.getAbsolutePath());
+        tikaGrpcServerImpl.setUploadMemoryThreshold(uploadMemoryThreshold);
         server = Grpc
                 .newServerBuilderForPort(port, creds)
-                .addService(new TikaGrpcServerImpl(tikaConfigFile.getAbsolutePath()))
+                .addService(tikaGrpcServerImpl)
                 .addService(healthStatusManager.getHealthService())
                 .addService(ProtoReflectionServiceV1.newInstance())
                 .build()
@@ -126,6 +132,9 @@ public class TikaGrpcServer {
                     .shutdown()
                     .awaitTermination(30, TimeUnit.SECONDS);
         }
+        if (tikaGrpcServerImpl != null) {
+            tikaGrpcServerImpl.close();
+        }
     }
 
     /**
@@ -202,4 +211,9 @@ public class TikaGrpcServer {
         this.clientAuthRequired = clientAuthRequired;
         return this;
     }
+
+    public TikaGrpcServer setUploadMemoryThreshold(long uploadMemoryThreshold) {
+        this.uploadMemoryThreshold = uploadMemoryThreshold;
+        return this;
+    }
 }
@@ -21,11 +21,25 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
@@ -41,7 +55,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchema;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchemaGenerator;
 import com.google.rpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
 import io.grpc.protobuf.StatusProto;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -61,15 +78,19 @@ import org.apache.tika.GetFetcherReply;
 import org.apache.tika.GetFetcherRequest;
 import org.apache.tika.ListFetchersReply;
 import org.apache.tika.ListFetchersRequest;
+import org.apache.tika.ParseBytesRequest;
 import org.apache.tika.SaveFetcherReply;
 import org.apache.tika.SaveFetcherRequest;
 import org.apache.tika.TikaGrpc;
 import org.apache.tika.config.Initializable;
 import org.apache.tika.config.Param;
 import org.apache.tika.exception.TikaConfigException;
+import org.apache.tika.io.FilenameUtils;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.pipes.FetchEmitTuple;
+import org.apache.tika.pipes.InlineDocumentBytes;
 import org.apache.tika.pipes.PipesClient;
 import org.apache.tika.pipes.PipesConfig;
 import org.apache.tika.pipes.PipesResult;
@@ -78,6 +99,7 @@ import org.apache.tika.pipes.fetcher.AbstractFetcher;
 import org.apache.tika.pipes.fetcher.FetchKey;
 import org.apache.tika.pipes.fetcher.config.AbstractConfig;
 import org.apache.tika.pipes.fetcher.config.FetcherConfigContainer;
+import org.apache.tika.pipes.fetcher.fs.FileSystemFetcher;
 
 class TikaGrpcServerImpl extends TikaGrpc.TikaImplBase {
     private static final Logger LOG = LoggerFactory.getLogger(TikaGrpcServerImpl.class);
@@ -87,11 +109,45 @@ class TikaGrpcServerImpl extends TikaGrpc.TikaImplBase {
     }
     public static final JsonSchemaGenerator JSON_SCHEMA_GENERATOR = new JsonSchemaGenerator(OBJECT_MAPPER);
 
+    /**
+     * Name of the fetcher that reads uploaded documents that were too large
+     * to keep in memory from the upload directory.
+     */
+    static final String UPLOAD_FETCHER_NAME = "tika-grpc-upload";
+
+    static final long DEFAULT_UPLOAD_MEMORY_THRESHOLD = 1024 * 1024;
+
+    static final int DEFAULT_MAX_QUEUED_PARSES = 1000;
+
     /**
      * FetcherID is key, The pair is the Fetcher object and the Metadata
      */
     PipesConfig pipesConfig;
-    PipesClient pipesClient;
+    /**
+     * Idle pipes clients, one per parse thread.  There are
+     * {@link PipesConfig#getNumClients()} of them.
+     */
+    ArrayBlockingQueue<PipesClient> pipesClients;
+    /**
+     * Runs the fetch and parse requests of all calls in the order they
+     * arrive, so that a busy stream can't starve the others.
+     */
+    ExecutorService parseExecutor;
+    /**
+     * Parses of unary, server streaming and upload calls that are queued or
+     * running.  Calls beyond numClients + maxQueuedParses are rejected with
+     * RESOURCE_EXHAUSTED.
+     */
+    final AtomicInteger pendingParses = new AtomicInteger();
+    int maxQueuedParses = DEFAULT_MAX_QUEUED_PARSES;
+    /**
+     * Shared by the bidi streams, which only read their next request while
+     * they hold one of these.
+     */
+    ParsePermits parsePermits;
+    int numClients;
+    Path uploadDirectory;
+    long uploadMemoryThreshold = DEFAULT_UPLOAD_MEMORY_THRESHOLD;
     ExpiringFetcherStore expiringFetcherStore;
 
     String tikaConfigPath;
@@ -110,11 +166,23 @@ class TikaGrpcServerImpl extends TikaGrpc.TikaImplBase {
             tikaConfigPath = tikaConfigFile.getAbsolutePath();
         }
         pipesConfig = PipesConfig.load(tikaConfigFile.toPath());
-        pipesClient = new PipesClient(pipesConfig);
+        numClients = Math.max(1, pipesConfig.getNumClients());
+        pipesClients = new ArrayBlockingQueue<>(numClients, true);
+        for (int i = 0; i < numClients; i++) {
+            pipesClients.add(new PipesClient(pipesConfig));
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        parsePermits = new ParsePermits(numClients);
+        parseExecutor = Executors.newFixedThreadPool(numClients, r -> {
+            Thread t = new Thread(r, "tika-grpc-parse-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
 
         expiringFetcherStore = new ExpiringFetcherStore(pipesConfig.getStaleFetcherTimeoutSeconds(),
                 pipesConfig.getStaleFetcherDelaySeconds());
         this.tikaConfigPath = tikaConfigPath;
+        uploadDirectory = Files.createTempDirectory("tika-grpc-uploads");
         updateTikaConfig();
     }
 
@@ -128,9 +196,18 @@ class TikaGrpcServerImpl extends TikaGrpc.TikaImplBase {
             fetchersElement = tikaConfigDoc.createElement("fetchers");
             tikaConfigDoc.getDocumentElement().appendChild(fetchersElement);
         }
-        for (int i = 0; i < fetchersElement.getChildNodes().getLength(); ++i) {
-            fetchersElement.removeChild(fetchersElement.getChildNodes().item(i));
+        while (fetchersElement.hasChildNodes()) {
+            fetchersElement.removeChild(fetchersElement.getFirstChild());
         }
+        Element uploadFetcher = tikaConfigDoc.createElement("fetcher");
+        uploadFetcher.setAttribute("class", FileSystemFetcher.class.getName());
+        Element uploadFetcherName = tikaConfigDoc.createElement("name");
+        uploadFetcherName.setTextContent(UPLOAD_FETCHER_NAME);
+        uploadFetcher.appendChild(uploadFetcherName);
+        Element basePath = tikaConfigDoc.createElement("basePath");
+        basePath.setTextContent(uploadDirectory.toAbsolutePath().toString());
+        uploadFetcher.appendChild(basePath);
+        fetchersElement.appendChild(uploadFetcher);
         for (var fetcherEntry : expiringFetcherStore.getFetchers().entrySet()) {
             AbstractFetcher fetcherObject = fetcherEntry.getValue();
             Map<String, Object> fetcherConfigParams = OBJECT_MAPPER.convertValue(
@@ -176,84 +253,543 @@ class TikaGrpcServerImpl extends TikaGrpc.TikaImplBase {
     @Override
     public void fetchAndParseServerSideStreaming(FetchAndParseRequest request,
                                                  StreamObserver<FetchAndParseReply> responseObserver) {
-        fetchAndParseImpl(request, responseObserver);
+        if (request.getStreamDocuments()) {
+            streamDocuments(request, responseObserver);
+        } else {
+            replyWhenParsed(request, responseObserver);
+        }
+    }
+
+    /**
+     * Sends the documents one by one and their content in chunks.  The
+     * replies are only built while the transport is ready for more, so
+     * that they aren't all buffered at once.
+     */
+    private void streamDocuments(FetchAndParseRequest request,
+                                 StreamObserver<FetchAndParseReply> responseObserver) {
+        ServerCallStreamObserver<FetchAndParseReply> serverCallStreamObserver =
+                responseObserver instanceof ServerCallStreamObserver ?
+                        (ServerCallStreamObserver<FetchAndParseReply>) responseObserver : null;
+        ReplySender sender = new ReplySender(responseObserver, serverCallStreamObserver);
+        if (serverCallStreamObserver != null) {
+            serverCallStreamObserver.setOnReadyHandler(sender::send);
+            serverCallStreamObserver.setOnCancelHandler(sender::cancel);
+        }
+        parseAsync(request).whenComplete((pipesResult, t) -> {
+            if (t != null) {
+                sender.fail(t);
+                return;
+            }
+            sender.start(new DocumentReplyIterator(request.getFetchKey(),
+                    pipesResult.getStatus().name(), errorMessage(pipesResult),
+                    pipesResult.getEmitData() == null ? null :
+                            pipesResult.getEmitData().getMetadataList(),
+                    request.getContentChunkSize()));
+        });
+    }
+
+    /**
+     * Sends replies while the call is ready for them, called again by the
+     * on ready handler.
+     */
+    private static class ReplySender {
+        private final StreamObserver<FetchAndParseReply> responseObserver;
+        private final ServerCallStreamObserver<FetchAndParseReply> serverCallStreamObserver;
+        private Iterator<FetchAndParseReply> replies;
+        private boolean done = false;
+
+        ReplySender(StreamObserver<FetchAndParseReply> responseObserver,
+                    ServerCallStreamObserver<FetchAndParseReply> serverCallStreamObserver) {
+            this.responseObserver = responseObserver;
+            this.serverCallStreamObserver = serverCallStreamObserver;
+        }
+
+        synchronized void start(Iterator<FetchAndParseReply> replies) {
+            this.replies = replies;
+            send();
+        }
+
+        synchronized void send() {
+            if (replies == null || done) {
+                return;
+            }
+            while (replies.hasNext() &&
+                    (serverCallStreamObserver == null || serverCallStreamObserver.isReady())) {
+                responseObserver.onNext(replies.next());
+            }
+            if (!replies.hasNext()) {
+                done = true;
+                responseObserver.onCompleted();
+            }
+        }
+
+        synchronized void fail(Throwable t) {
+            if (!done) {
+                done = true;
+                responseObserver.onError(toStatusException(t));
+            }
+        }
+
+        synchronized void cancel() {
+            done = true;
+        }
     }
 
+    /**
+     * One permit per pipes client, handed to the bidi streams in the order
+     * they ask for them.  A grantee returns false if it no longer needs the
+     * permit, which then goes to the next one.
+     */
+    static class ParsePermits {
+        private final Deque<BooleanSupplier> waiting = new ArrayDeque<>();
+        private int available;
+
+        ParsePermits(int permits) {
+            this.available = permits;
+        }
+
+        void acquire(BooleanSupplier grantee) {
+            synchronized (this) {
+                if (available == 0) {
+                    waiting.add(grantee);
+                    return;
+                }
+                available--;
+            }
+            //the grantee is called without the lock, it may request the next message
+            if (!grantee.getAsBoolean()) {
+                release();
+            }
+        }
+
+        void release() {
+            while (true) {
+                BooleanSupplier next;
+                synchronized (this) {
+                    next = waiting.poll();
+                    if (next == null) {
+                        available++;
+                        return;
+                    }
+                }
+                if (next.getAsBoolean()) {
+                    return;
+                }
+            }
+        }
+
+        synchronized int getAvailable() {
+            return available;
+        }
+    }
+
+    /**
+     * Requests are parsed concurrently and the replies are sent in the order
+     * the parses finish.  The next request is only read from the stream once
+     * the stream holds one of the {@link ParsePermits}, of which there is one
+     * per pipes client for all bidi streams together, and the permit is
+     * returned when its parse is done.
+     */
     @Override
     public StreamObserver<FetchAndParseRequest> fetchAndParseBiDirectionalStreaming(
             StreamObserver<FetchAndParseReply> responseObserver) {
-        return new StreamObserver<>() {
+        ServerCallStreamObserver<FetchAndParseReply> serverCallStreamObserver =
+                responseObserver instanceof ServerCallStreamObserver ?
+                        (ServerCallStreamObserver<FetchAndParseReply>) responseObserver : null;
+        if (serverCallStreamObserver != null) {
+            serverCallStreamObserver.disableAutoRequest();
+        }
+        var requestObserver = new StreamObserver<FetchAndParseRequest>() {
+            //StreamObservers aren't thread safe, the replies are sent under this lock
+            private final Object lock = new Object();
+            private int inFlight = 0;
+            private boolean completed = false;
+            private boolean closed = false;
+            //a permit is held for a request that hasn't arrived yet
+            private boolean awaitingRequest = false;
+
+            void requestNext() {
+                if (serverCallStreamObserver == null) {
+                    return;
+                }
+                parsePermits.acquire(() -> {
+                    synchronized (lock) {
+                        if (completed || closed) {
+                            return false;
+                        }
+                        awaitingRequest = true;
+                    }
+                    serverCallStreamObserver.request(1);
+                    return true;
+                });
+            }
+
             @Override
             public void onNext(FetchAndParseRequest fetchAndParseRequest) {
-                fetchAndParseImpl(fetchAndParseRequest, responseObserver);
+                boolean permitted;
+                synchronized (lock) {
+                    inFlight++;
+                    permitted = awaitingRequest;
+                    awaitingRequest = false;
+                }
+                fetchAndParseAsync(fetchAndParseRequest, permitted).whenComplete((reply, t) -> {
+                    if (permitted) {
+                        parsePermits.release();
+                    }
+                    boolean more;
+                    synchronized (lock) {
+                        inFlight--;
+                        if (!closed) {
+                            if (t != null) {
+                                closed = true;
+                                responseObserver.onError(toStatusException(t));
+                            } else {
+                                responseObserver.onNext(reply);
+                                if (completed && inFlight == 0) {
+                                    closed = true;
+                                    responseObserver.onCompleted();
+                                }
+                            }
+                        }
+                        more = !completed && !closed;
+                    }
+                    if (more) {
+                        requestNext();
+                    }
+                });
             }
 
             @Override
             public void onError(Throwable throwable) {
                 LOG.error("Parse error occurred", throwable);
+                synchronized (lock) {
+                    closed = true;
+                }
+                releaseUnusedPermit();
             }
 
             @Override
             public void onCompleted() {
-                responseObserver.onCompleted();
+                synchronized (lock) {
+                    completed = true;
+                    if (inFlight == 0 && !closed) {
+                        closed = true;
+                        responseObserver.onCompleted();
+                    }
+                }
+                releaseUnusedPermit();
+            }
+
+            private void releaseUnusedPermit() {
+                boolean release;
+                synchronized (lock) {
+                    release = awaitingRequest;
+                    awaitingRequest = false;
+                }
+                if (release) {
+                    parsePermits.release();
+                }
             }
         };
+        requestObserver.requestNext();
+        return requestObserver;
     }
 
     @Override
     public void fetchAndParse(FetchAndParseRequest request,
                               StreamObserver<FetchAndParseReply> responseObserver) {
-        fetchAndParseImpl(request, responseObserver);
-        responseObserver.onCompleted();
+        replyWhenParsed(request, responseObserver);
+    }
+
+    private void replyWhenParsed(FetchAndParseRequest request,
+                                 StreamObserver<FetchAndParseReply> responseObserver) {
+        fetchAndParseAsync(request).whenComplete((reply, t) -> {
+            if (t != null) {
+                responseObserver.onError(toStatusException(t));
+            } else {
+                responseObserver.onNext(reply);
+                responseObserver.onCompleted();
+            }
+        });
+    }
+
+    /**
+     * The document is collected in an {@link UploadSpool} while the chunks
+     * arrive.  The next chunk is only requested once the previous one has
+     * been spooled.  Small documents are sent to the pipes server with the
+     * fetch emit tuple, larger ones are read from the upload directory.
+     */
+    @Override
+    public StreamObserver<ParseBytesRequest> parseBytes(
+            StreamObserver<FetchAndParseReply> responseObserver) {
+        ServerCallStreamObserver<FetchAndParseReply> serverCallStreamObserver =
+                responseObserver instanceof ServerCallStreamObserver ?
+                        (ServerCallStreamObserver<FetchAndParseReply>) responseObserver : null;
+        if (serverCallStreamObserver != null) {
+            serverCallStreamObserver.disableAutoRequest();
+            serverCallStreamObserver.request(1);
+        }
+        return new StreamObserver<>() {
+            private UploadSpool spool;
+            private String fileName;
+            private boolean failed = false;
+
+            @Override
+            public void onNext(ParseBytesRequest parseBytesRequest) {
+                if (failed) {
+                    return;
+                }
+                try {
+                    if (spool == null) {
+                        fileName = parseBytesRequest.getFileName();
+                        spool = new UploadSpool(uploadDirectory, uploadMemoryThreshold,
+                                FilenameUtils.getSuffixFromPath(fileName));
+                    }
+                    spool.write(parseBytesRequest.getChunk());
+                } catch (IOException e) {
+                    fail(e);
+                    return;
+                }
+                if (serverCallStreamObserver != null) {
+                    serverCallStreamObserver.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                LOG.warn("Upload failed", throwable);
+                failed = true;
+                closeQuietly(spool);
+            }
+
+            @Override
+            public void onCompleted() {
+                if (failed) {
+                    return;
+                }
+                UploadSpool uploadSpool = spool != null ? spool :
+                        new UploadSpool(uploadDirectory, uploadMemoryThreshold, "");
+                String name = fileName != null ? fileName : "";
+                byte[] bytes;
+                try {
+                    bytes = uploadSpool.finish();
+                } catch (IOException e) {
+                    fail(e);
+                    return;
+                }
+                parseAsync(() -> parseUpload(name, bytes, uploadSpool.getPath()), false)
+                        .whenComplete((pipesResult, t) -> {
+                            closeQuietly(uploadSpool);
+                            if (t != null) {
+                                responseObserver.onError(toStatusException(t));
+                            } else {
+                                responseObserver.onNext(toReply(name, pipesResult));
+                                responseObserver.onCompleted();
+                            }
+                        });
+            }
+
+            private void fail(IOException e) {
+                failed = true;
+                closeQuietly(spool);
+                responseObserver.onError(toStatusException(e));
+            }
+        };
+    }
+
+    private PipesResult parseUpload(String fileName, byte[] bytes, Path path)
+            throws IOException, InterruptedException {
+        Metadata tikaMetadata = new Metadata();
+        ParseContext parseContext = new ParseContext();
+        String fetchKey;
+        if (bytes != null) {
+            parseContext.set(InlineDocumentBytes.class,
+                    new InlineDocumentBytes(bytes, StringUtils.isBlank(fileName) ? null : fileName));
+            fetchKey = fileName;
+        } else {
+            fetchKey = path.getFileName().toString();
+        }
+        if (StringUtils.isNotBlank(fileName)) {
+            tikaMetadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+        }
+        return process(new FetchEmitTuple(fileName, new FetchKey(UPLOAD_FETCHER_NAME, fetchKey),
+                new EmitKey(), tikaMetadata, parseContext, FetchEmitTuple.ON_PARSE_EXCEPTION.SKIP));
     }
 
+    private static void closeQuietly(UploadSpool spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            spool.close();
+        } catch (IOException e) {
+            LOG.warn("Couldn't delete upload", e);
+        }
+    }
+
+    private CompletableFuture<FetchAndParseReply> fetchAndParseAsync(FetchAndParseRequest request) {
+        return fetchAndParseAsync(request, false);
+    }
+
+    /**
+     * @param permitted whether the caller holds one of the {@link ParsePermits},
+     *                  which already bound its parses
+     */
+    private CompletableFuture<FetchAndParseReply> fetchAndParseAsync(FetchAndParseRequest request,
+                                                                     boolean permitted) {
+        return parseAsync(() -> parse(request), permitted)
+                .thenApply(pipesResult -> toReply(request.getFetchKey(), pipesResult));
+    }
+
+    private CompletableFuture<PipesResult> parseAsync(FetchAndParseRequest request) {
+        return parseAsync(() -> parse(request), false);
+    }
 
-    private void fetchAndParseImpl(FetchAndParseRequest request,
-                                   StreamObserver<FetchAndParseReply> responseObserver) {
+    /**
+     * Queues the parse for the next free pipes client.  If there are already
+     * maxQueuedParses parses waiting, the parse fails with RESOURCE_EXHAUSTED,
+     * unless it is permitted.
+     */
+    private CompletableFuture<PipesResult> parseAsync(Callable<PipesResult> parse,
+                                                      boolean permitted) {
+        CompletableFuture<PipesResult> future = new CompletableFuture<>();
+        if (!permitted && pendingParses.incrementAndGet() > numClients + maxQueuedParses) {
+            pendingParses.decrementAndGet();
+            future.completeExceptionally(io.grpc.Status.RESOURCE_EXHAUSTED
+                    .withDescription("Too many parses are queued").asException());
+            return future;
+        }
+        try {
+            parseExecutor.execute(() -> {
+                try {
+                    future.complete(parse.call());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(io.grpc.Status.CANCELLED
+                            .withDescription("Interrupted").asException());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    if (!permitted) {
+                        pendingParses.decrementAndGet();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (!permitted) {
+                pendingParses.decrementAndGet();
+            }
+            future.completeExceptionally(io.grpc.Status.UNAVAILABLE
+                    .withDescription("Server is shutting down").asException());
+        }
+        return future;
+    }
+
+    private PipesResult parse(FetchAndParseRequest request)
+            throws StatusException, IOException, InterruptedException {
         AbstractFetcher fetcher =
                 expiringFetcherStore.getFetcherAndLogAccess(request.getFetcherId());
         if (fetcher == null) {
-            throw new RuntimeException(
-                    "Could not find fetcher with name " + request.getFetcherId());
+            throw StatusProto.toStatusException(notFoundStatus(request.getFetcherId()));
         }
         Metadata tikaMetadata = new Metadata();
+        ParseContext parseContext = new ParseContext();
+        String additionalFetchConfigJson = request.getAdditionalFetchConfigJson();
+        if (StringUtils.isNotBlank(additionalFetchConfigJson)) {
+            // The fetch and parse has the option to specify additional configuration
+            AbstractConfig abstractConfig = expiringFetcherStore
+                    .getFetcherConfigs()
+                    .get(fetcher.getName());
+            parseContext.set(FetcherConfigContainer.class, new FetcherConfigContainer()
+                    .setConfigClassName(abstractConfig
+                            .getClass().getName())
+                    .setJson(additionalFetchConfigJson));
+        }
+        return process(new FetchEmitTuple(request.getFetchKey(),
+                new FetchKey(fetcher.getName(), request.getFetchKey()), new EmitKey(), tikaMetadata, parseContext, FetchEmitTuple.ON_PARSE_EXCEPTION.SKIP));
+    }
+
+    private PipesResult process(FetchEmitTuple fetchEmitTuple) throws IOException, InterruptedException {
+        PipesClient pipesClient = pipesClients.take();
         try {
-            ParseContext parseContext = new ParseContext();
-            String additionalFetchConfigJson = request.getAdditionalFetchConfigJson();
-            if (StringUtils.isNotBlank(additionalFetchConfigJson)) {
-                // The fetch and parse has the option to specify additional configuration
-                AbstractConfig abstractConfig = expiringFetcherStore
-                        .getFetcherConfigs()
-                        .get(fetcher.getName());
-                parseContext.set(FetcherConfigContainer.class, new FetcherConfigContainer()
-                        .setConfigClassName(abstractConfig
-                                .getClass().getName())
-                        .setJson(additionalFetchConfigJson));
-            }
-            PipesResult pipesResult = pipesClient.process(new FetchEmitTuple(request.getFetchKey(),
-                    new FetchKey(fetcher.getName(), request.getFetchKey()), new EmitKey(), tikaMetadata, parseContext, FetchEmitTuple.ON_PARSE_EXCEPTION.SKIP));
-            FetchAndParseReply.Builder fetchReplyBuilder =
-                    FetchAndParseReply.newBuilder()
-                                      .setFetchKey(request.getFetchKey())
-                            .setStatus(pipesResult.getStatus().name());
-            if (pipesResult.getStatus().equals(PipesResult.STATUS.FETCH_EXCEPTION)) {
-                fetchReplyBuilder.setErrorMessage(pipesResult.getMessage());
-            }
-            if (pipesResult.getEmitData() != null && pipesResult.getEmitData().getMetadataList() != null) {
-                for (Metadata metadata : pipesResult.getEmitData().getMetadataList()) {
-                    for (String name : metadata.names()) {
-                        String value = metadata.get(name);
-                        if (value != null) {
-                            fetchReplyBuilder.putFields(name, value);
-                        }
+            return pipesClient.process(fetchEmitTuple);
+        } finally {
+            pipesClients.add(pipesClient);
+        }
+    }
+
+    private static FetchAndParseReply toReply(String fetchKey, PipesResult pipesResult) {
+        FetchAndParseReply.Builder fetchReplyBuilder =
+                FetchAndParseReply.newBuilder()
+                                  .setFetchKey(fetchKey)
+                        .setStatus(pipesResult.getStatus().name());
+        String errorMessage = errorMessage(pipesResult);
+        if (errorMessage != null) {
+            fetchReplyBuilder.setErrorMessage(errorMessage);
+        }
+        if (pipesResult.getEmitData() != null && pipesResult.getEmitData().getMetadataList() != null) {
+            List<Metadata> metadataList = pipesResult.getEmitData().getMetadataList();
+            for (int i = 0; i < metadataList.size(); i++) {
+                Metadata metadata = metadataList.get(i);
+                for (String name : metadata.names()) {
+                    String value = metadata.get(name);
+                    if (value != null) {
+                        fetchReplyBuilder.putFields(name, value);
                     }
                 }
+                fetchReplyBuilder.addDocuments(
+                        DocumentReplyIterator.toDocumentMetadata(i, metadata, true));
+            }
+        }
+        return fetchReplyBuilder.build();
+    }
+
+    private static String errorMessage(PipesResult pipesResult) {
+        if (pipesResult.getStatus().equals(PipesResult.STATUS.FETCH_EXCEPTION)) {
+            return pipesResult.getMessage();
+        }
+        return null;
+    }
+
+    private static Throwable toStatusException(Throwable t) {
+        if (t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof StatusException || t instanceof StatusRuntimeException) {
+            return t;
+        }
+        return io.grpc.Status.INTERNAL.withDescription(t.getMessage()).withCause(t).asException();
+    }
+
+    /**
+     * Uploaded documents up to this many bytes are kept in memory, larger
+     * ones are written to a temp file.
+     */
+    void setUploadMemoryThreshold(long uploadMemoryThreshold) {
+        this.uploadMemoryThreshold = uploadMemoryThreshold;
+    }
+
+    /**
+     * Unary, server streaming and upload calls fail with RESOURCE_EXHAUSTED
+     * while this many parses are waiting for a pipes client.
+     */
+    void setMaxQueuedParses(int maxQueuedParses) {
+        this.maxQueuedParses = maxQueuedParses;
+    }
+
+    /**
+     * Stops the parse threads, the pipes clients and the fetcher store.
+     */
+    void close() {
+        parseExecutor.shutdownNow();
+        expiringFetcherStore.close();
+        FileUtils.deleteQuietly(uploadDirectory.toFile());
+        for (PipesClient pipesClient : pipesClients) {
+            try {
+                pipesClient.close();
+            } catch (IOException e) {
+                LOG.warn("Couldn't close pipes client", e);
             }
-            responseObserver.onNext(fetchReplyBuilder.build());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
         }
     }
 
@@ -276,6 +812,9 @@ class TikaGrpcServerImpl extends TikaGrpc.TikaImplBase {
     }
 
     private void saveFetcher(String name, String fetcherClassName, Map<String, Object> paramsMap, Map<String, Param> tikaParamsMap) {
+        if (UPLOAD_FETCHER_NAME.equals(name)) {
+            throw new IllegalArgumentException("The fetcher name " + name + " is reserved");
+        }
         try {
             if (paramsMap == null) {
                 paramsMap = new LinkedHashMap<>();
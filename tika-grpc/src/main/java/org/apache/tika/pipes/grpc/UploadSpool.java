@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.grpc;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.protobuf.ByteString;
+import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
+
+/**
+ * Collects the chunks of an uploaded document.  They are kept in memory up
+ * to a threshold, the whole document is written to a file in the upload
+ * directory once it gets larger.
+ */
+class UploadSpool implements Closeable {
+
+    private final Path directory;
+    private final long memoryThreshold;
+    private final String suffix;
+
+    private UnsynchronizedByteArrayOutputStream buffer =
+            UnsynchronizedByteArrayOutputStream.builder().get();
+    private Path path;
+    private OutputStream fileStream;
+    private long length = 0;
+
+    /**
+     * @param suffix suffix of the file, so that the name can be used for
+     *               detection
+     */
+    UploadSpool(Path directory, long memoryThreshold, String suffix) {
+        this.directory = directory;
+        this.memoryThreshold = memoryThreshold;
+        this.suffix = suffix;
+    }
+
+    void write(ByteString chunk) throws IOException {
+        if (path == null && length + chunk.size() > memoryThreshold) {
+            path = Files.createTempFile(directory, "upload-", suffix);
+            fileStream = new BufferedOutputStream(Files.newOutputStream(path));
+            buffer.writeTo(fileStream);
+            buffer = null;
+        }
+        chunk.writeTo(path == null ? buffer : fileStream);
+        length += chunk.size();
+    }
+
+    /**
+     * Call this after the last chunk.
+     *
+     * @return the document if it is kept in memory, otherwise <code>null</code>
+     */
+    byte[] finish() throws IOException {
+        if (fileStream != null) {
+            fileStream.close();
+            fileStream = null;
+            return null;
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * @return the file with the document, or <code>null</code> if it is
+     * kept in memory
+     */
+    Path getPath() {
+        return path;
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * Deletes the file, if there is one.
+     */
+    @Override
+    public void close() throws IOException {
+        if (fileStream != null) {
+            fileStream.close();
+            fileStream = null;
+        }
+        if (path != null) {
+            Files.deleteIfExists(path);
+        }
+        buffer = null;
+    }
+}
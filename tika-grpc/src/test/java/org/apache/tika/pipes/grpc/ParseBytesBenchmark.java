@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.grpc;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.stub.StreamObserver;
+
+import org.apache.tika.FetchAndParseReply;
+import org.apache.tika.ParseBytesRequest;
+import org.apache.tika.TikaGrpc;
+
+/**
+ * Compares the throughput of uploading a document with the ParseBytes rpc
+ * of a local gRPC server with that of <code>PUT /tika</code> on a running
+ * tika-server, if its url is given.
+ * <p>
+ * Arguments: tika-config.xml, document, [iterations], [threads],
+ * [tika-server url, e.g. http://localhost:9998/tika]
+ */
+public class ParseBytesBenchmark {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        Path tikaConfig = Paths.get(args[0]);
+        Path document = Paths.get(args[1]);
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        String tikaServerUrl = args.length > 4 ? args[4] : null;
+        byte[] bytes = Files.readAllBytes(document);
+
+        TikaGrpcServerImpl tikaGrpcServer = new TikaGrpcServerImpl(tikaConfig.toAbsolutePath().toString());
+        Server server = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                .addService(tikaGrpcServer)
+                .build()
+                .start();
+        ManagedChannel channel = Grpc.newChannelBuilderForAddress("localhost", server.getPort(),
+                InsecureChannelCredentials.create()).build();
+        try {
+            TikaGrpc.TikaStub tikaStub = TikaGrpc.newStub(channel);
+            //warm up
+            run("grpc", iterations / 10 + 1, threads, bytes, () -> parseBytes(tikaStub, bytes), false);
+            run("grpc", iterations, threads, bytes, () -> parseBytes(tikaStub, bytes), true);
+            if (tikaServerUrl != null) {
+                HttpClient httpClient = HttpClient.newHttpClient();
+                HttpRequest request = HttpRequest.newBuilder(URI.create(tikaServerUrl))
+                        .header("Accept", "text/plain")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(bytes))
+                        .build();
+                Task put = () -> {
+                    HttpResponse<String> response =
+                            httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("Status " + response.statusCode());
+                    }
+                };
+                run("tika-server", iterations / 10 + 1, threads, bytes, put, false);
+                run("tika-server", iterations, threads, bytes, put, true);
+            }
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+            tikaGrpcServer.close();
+        }
+    }
+
+    private static void run(String name, int iterations, int threads, byte[] bytes, Task task,
+                            boolean report) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            futures.add(executorService.submit(() -> {
+                task.run();
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+        if (report) {
+            System.out.printf(Locale.ROOT, "%-12s %8.1f docs/s %8.1f MB/s%n", name,
+                    iterations * 1e9 / elapsed,
+                    (double) bytes.length * iterations * 1000 / elapsed);
+        }
+    }
+
+    private static void parseBytes(TikaGrpc.TikaStub tikaStub, byte[] bytes) throws Exception {
+        CompletableFuture<FetchAndParseReply> reply = new CompletableFuture<>();
+        StreamObserver<ParseBytesRequest> requestObserver = tikaStub.parseBytes(new StreamObserver<>() {
+            @Override
+            public void onNext(FetchAndParseReply fetchAndParseReply) {
+                reply.complete(fetchAndParseReply);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                reply.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        for (int offset = 0; offset < bytes.length; offset += CHUNK_SIZE) {
+            requestObserver.onNext(ParseBytesRequest.newBuilder()
+                    .setChunk(ByteString.copyFrom(bytes, offset,
+                            Math.min(CHUNK_SIZE, bytes.length - offset)))
+                    .build());
+        }
+        requestObserver.onCompleted();
+        reply.get(5, TimeUnit.MINUTES);
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+}
@@ -18,11 +18,14 @@ package org.apache.tika.pipes.grpc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -30,15 +33,21 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import com.asarkar.grpc.test.GrpcCleanupExtension;
 import com.asarkar.grpc.test.Resources;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
 import io.grpc.ManagedChannel;
 import io.grpc.Server;
 import io.grpc.Status;
@@ -56,15 +65,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.ContentChunk;
 import org.apache.tika.DeleteFetcherReply;
 import org.apache.tika.DeleteFetcherRequest;
+import org.apache.tika.DocumentMetadata;
 import org.apache.tika.FetchAndParseReply;
 import org.apache.tika.FetchAndParseRequest;
 import org.apache.tika.GetFetcherReply;
 import org.apache.tika.GetFetcherRequest;
+import org.apache.tika.MetadataField;
+import org.apache.tika.ParseBytesRequest;
 import org.apache.tika.SaveFetcherReply;
 import org.apache.tika.SaveFetcherRequest;
 import org.apache.tika.TikaGrpc;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.pipes.PipesClient;
 import org.apache.tika.pipes.PipesResult;
 import org.apache.tika.pipes.fetcher.fs.FileSystemFetcher;
 
@@ -225,7 +240,7 @@ public class TikaGrpcServerTest {
 
         List<FetchAndParseReply> successes = Collections.synchronizedList(new ArrayList<>());
         List<FetchAndParseReply> errors = Collections.synchronizedList(new ArrayList<>());
-        AtomicBoolean finished = new AtomicBoolean(false);
+        CountDownLatch finished = new CountDownLatch(1);
 
         StreamObserver<FetchAndParseReply> replyStreamObserver = new StreamObserver<>() {
             @Override
@@ -246,7 +261,7 @@ public class TikaGrpcServerTest {
             @Override
             public void onCompleted() {
                 LOG.info("Stream completed");
-                finished.set(true);
+                finished.countDown();
             }
         };
 
@@ -277,11 +292,354 @@ public class TikaGrpcServerTest {
                     .setFetchKey("does not exist")
                     .build());
             requestStreamObserver.onCompleted();
+            //the replies are sent as the parses finish
+            assertTrue(finished.await(60, TimeUnit.SECONDS));
             assertEquals(NUM_TEST_DOCS, successes.size());
             assertEquals(1, errors.size());
-            assertTrue(finished.get());
         } finally {
             FileUtils.deleteDirectory(testDocumentFolder);
         }
     }
+
+    @Test
+    public void testFetchAndParseUnknownFetcher(Resources resources) throws Exception {
+        String serverName = InProcessServerBuilder.generateName();
+        TikaGrpcServerImpl tikaGrpcServer = new TikaGrpcServerImpl(tikaConfigXml.getAbsolutePath());
+        Server server = InProcessServerBuilder
+                .forName(serverName)
+                .directExecutor()
+                .addService(tikaGrpcServer)
+                .build()
+                .start();
+        resources.register(server, Duration.ofSeconds(10));
+        ManagedChannel channel = InProcessChannelBuilder
+                .forName(serverName)
+                .directExecutor()
+                .build();
+        resources.register(channel, Duration.ofSeconds(10));
+        TikaGrpc.TikaBlockingStub blockingStub = TikaGrpc.newBlockingStub(channel);
+        try {
+            StatusRuntimeException e = Assertions.assertThrows(StatusRuntimeException.class,
+                    () -> blockingStub.fetchAndParse(FetchAndParseRequest
+                            .newBuilder()
+                            .setFetcherId("does not exist")
+                            .setFetchKey("test.html")
+                            .build()));
+            assertEquals(Status.NOT_FOUND.getCode(), e.getStatus().getCode());
+        } finally {
+            tikaGrpcServer.close();
+        }
+    }
+
+    @Test
+    public void testStreamDocuments(Resources resources) throws Exception {
+        String serverName = InProcessServerBuilder.generateName();
+        TikaGrpcServerImpl tikaGrpcServer = new TikaGrpcServerImpl(tikaConfigXml.getAbsolutePath());
+        Server server = InProcessServerBuilder
+                .forName(serverName)
+                .directExecutor()
+                .addService(tikaGrpcServer)
+                .build()
+                .start();
+        resources.register(server, Duration.ofSeconds(10));
+        ManagedChannel channel = InProcessChannelBuilder
+                .forName(serverName)
+                .directExecutor()
+                .build();
+        resources.register(channel, Duration.ofSeconds(10));
+        TikaGrpc.TikaBlockingStub blockingStub = TikaGrpc.newBlockingStub(channel);
+        try {
+            String fetcherId = createFetcherId(2);
+            blockingStub.saveFetcher(SaveFetcherRequest
+                    .newBuilder()
+                    .setFetcherId(fetcherId)
+                    .setFetcherClass(FileSystemFetcher.class.getName())
+                    .setFetcherConfigJson(OBJECT_MAPPER.writeValueAsString(ImmutableMap
+                            .builder()
+                            .put("basePath", new File("src/test/resources/test-files").getAbsolutePath())
+                            .build()))
+                    .build());
+            FetchAndParseRequest request = FetchAndParseRequest
+                    .newBuilder()
+                    .setFetcherId(fetcherId)
+                    .setFetchKey("018367.docx")
+                    .build();
+            FetchAndParseReply reply = blockingStub.fetchAndParse(request);
+            assertEquals(PipesResult.STATUS.PARSE_SUCCESS.name(), reply.getStatus());
+            //the container and its embedded documents
+            assertTrue(reply.getDocumentsCount() > 1);
+
+            List<DocumentMetadata> documents = new ArrayList<>();
+            List<StringBuilder> contents = new ArrayList<>();
+            Iterator<FetchAndParseReply> replies = blockingStub.fetchAndParseServerSideStreaming(
+                    request.toBuilder().setStreamDocuments(true).setContentChunkSize(100).build());
+            while (replies.hasNext()) {
+                FetchAndParseReply next = replies.next();
+                assertEquals(reply.getStatus(), next.getStatus());
+                if (next.hasContentChunk()) {
+                    ContentChunk chunk = next.getContentChunk();
+                    assertEquals(documents.size() - 1, chunk.getDocumentIndex());
+                    assertTrue(chunk.getText().length() <= 100);
+                    contents.get(chunk.getDocumentIndex()).append(chunk.getText());
+                } else {
+                    assertEquals(1, next.getDocumentsCount());
+                    assertEquals(documents.size(), next.getDocuments(0).getDocumentIndex());
+                    documents.add(next.getDocuments(0));
+                    contents.add(new StringBuilder());
+                }
+            }
+            assertEquals(reply.getDocumentsCount(), documents.size());
+            int embeddedWithContent = 0;
+            for (int i = 0; i < documents.size(); i++) {
+                //each document has its own content in the unary reply
+                DocumentMetadata expected = reply.getDocuments(i);
+                String content = content(expected);
+                assertEquals(content == null ? "" : content, contents.get(i).toString());
+                assertNull(content(documents.get(i)));
+                assertEquals(expected.getFieldsCount(),
+                        documents.get(i).getFieldsCount() + (content == null ? 0 : 1));
+                if (i > 0 && content != null && !content.isBlank()) {
+                    embeddedWithContent++;
+                }
+            }
+            assertTrue(contents.get(0).length() > 0);
+            assertTrue(embeddedWithContent > 0);
+        } finally {
+            tikaGrpcServer.close();
+        }
+    }
+
+    @Test
+    public void testParseBytes(Resources resources) throws Exception {
+        String serverName = InProcessServerBuilder.generateName();
+        TikaGrpcServerImpl tikaGrpcServer = new TikaGrpcServerImpl(tikaConfigXml.getAbsolutePath());
+        Server server = InProcessServerBuilder
+                .forName(serverName)
+                .directExecutor()
+                .addService(tikaGrpcServer)
+                .build()
+                .start();
+        resources.register(server, Duration.ofSeconds(10));
+        ManagedChannel channel = InProcessChannelBuilder
+                .forName(serverName)
+                .directExecutor()
+                .build();
+        resources.register(channel, Duration.ofSeconds(10));
+        TikaGrpc.TikaStub tikaStub = TikaGrpc.newStub(channel);
+        byte[] bytes = FileUtils.readFileToByteArray(new File("src/test/resources/test-files/014760.docx"));
+        try {
+            //kept in memory
+            FetchAndParseReply inMemory = parseBytes(tikaStub, bytes);
+            assertEquals("014760.docx", inMemory.getFetchKey());
+            assertEquals(PipesResult.STATUS.PARSE_SUCCESS.name(), inMemory.getStatus());
+            assertTrue(inMemory.getDocumentsCount() > 0);
+            assertEquals("014760.docx",
+                    inMemory.getFieldsMap().get(TikaCoreProperties.RESOURCE_NAME_KEY));
+
+            //spooled to disk and read by the upload fetcher
+            tikaGrpcServer.setUploadMemoryThreshold(1000);
+            FetchAndParseReply spooled = parseBytes(tikaStub, bytes);
+            assertEquals(PipesResult.STATUS.PARSE_SUCCESS.name(), spooled.getStatus());
+            assertEquals(inMemory.getDocumentsCount(), spooled.getDocumentsCount());
+            assertEquals(content(inMemory.getDocuments(0)).trim(),
+                    content(spooled.getDocuments(0)).trim());
+            assertEquals("014760.docx",
+                    spooled.getFieldsMap().get(TikaCoreProperties.RESOURCE_NAME_KEY));
+            //the spooled file is deleted
+            try (Stream<Path> files = Files.list(tikaGrpcServer.uploadDirectory)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            tikaGrpcServer.close();
+        }
+    }
+
+    @Test
+    public void testTooManyQueuedParses(Resources resources) throws Exception {
+        String serverName = InProcessServerBuilder.generateName();
+        TikaGrpcServerImpl tikaGrpcServer = new TikaGrpcServerImpl(tikaConfigXml.getAbsolutePath());
+        Server server = InProcessServerBuilder
+                .forName(serverName)
+                .directExecutor()
+                .addService(tikaGrpcServer)
+                .build()
+                .start();
+        resources.register(server, Duration.ofSeconds(10));
+        ManagedChannel channel = InProcessChannelBuilder
+                .forName(serverName)
+                .directExecutor()
+                .build();
+        resources.register(channel, Duration.ofSeconds(10));
+        TikaGrpc.TikaStub tikaStub = TikaGrpc.newStub(channel);
+        FetchAndParseRequest request = saveTestFilesFetcher(TikaGrpc.newBlockingStub(channel));
+        tikaGrpcServer.setMaxQueuedParses(0);
+        //the parses wait for a pipes client
+        List<PipesClient> pipesClients = new ArrayList<>();
+        tikaGrpcServer.pipesClients.drainTo(pipesClients);
+        try {
+            List<CompletableFuture<FetchAndParseReply>> replies = new ArrayList<>();
+            try {
+                for (int i = 0; i < tikaGrpcServer.numClients; i++) {
+                    replies.add(fetchAndParse(tikaStub, request));
+                }
+                long start = System.currentTimeMillis();
+                while (tikaGrpcServer.pendingParses.get() < tikaGrpcServer.numClients) {
+                    assertTrue(System.currentTimeMillis() - start < 60000);
+                    Thread.sleep(10);
+                }
+                ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                        () -> fetchAndParse(tikaStub, request).get(60, TimeUnit.SECONDS));
+                assertEquals(Status.RESOURCE_EXHAUSTED.getCode(),
+                        Status.fromThrowable(e.getCause()).getCode());
+            } finally {
+                tikaGrpcServer.pipesClients.addAll(pipesClients);
+            }
+            for (CompletableFuture<FetchAndParseReply> reply : replies) {
+                assertEquals(PipesResult.STATUS.PARSE_SUCCESS.name(),
+                        reply.get(60, TimeUnit.SECONDS).getStatus());
+            }
+            assertEquals(0, tikaGrpcServer.pendingParses.get());
+        } finally {
+            tikaGrpcServer.close();
+        }
+    }
+
+    @Test
+    public void testBiStreamsSharePermits(Resources resources) throws Exception {
+        String serverName = InProcessServerBuilder.generateName();
+        TikaGrpcServerImpl tikaGrpcServer = new TikaGrpcServerImpl(tikaConfigXml.getAbsolutePath());
+        Server server = InProcessServerBuilder
+                .forName(serverName)
+                .directExecutor()
+                .addService(tikaGrpcServer)
+                .build()
+                .start();
+        resources.register(server, Duration.ofSeconds(10));
+        ManagedChannel channel = InProcessChannelBuilder
+                .forName(serverName)
+                .directExecutor()
+                .build();
+        resources.register(channel, Duration.ofSeconds(10));
+        TikaGrpc.TikaStub tikaStub = TikaGrpc.newStub(channel);
+        FetchAndParseRequest request = saveTestFilesFetcher(TikaGrpc.newBlockingStub(channel));
+        try {
+            //more streams than pipes clients
+            int numStreams = tikaGrpcServer.numClients + 1;
+            int numRequests = 3;
+            List<FetchAndParseReply> replies = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch finished = new CountDownLatch(numStreams);
+            for (int i = 0; i < numStreams; i++) {
+                StreamObserver<FetchAndParseRequest> requestObserver =
+                        tikaStub.fetchAndParseBiDirectionalStreaming(new StreamObserver<>() {
+                            @Override
+                            public void onNext(FetchAndParseReply fetchAndParseReply) {
+                                replies.add(fetchAndParseReply);
+                            }
+
+                            @Override
+                            public void onError(Throwable throwable) {
+                                fail(throwable);
+                            }
+
+                            @Override
+                            public void onCompleted() {
+                                finished.countDown();
+                            }
+                        });
+                for (int j = 0; j < numRequests; j++) {
+                    requestObserver.onNext(request);
+                }
+                requestObserver.onCompleted();
+            }
+            assertTrue(finished.await(60, TimeUnit.SECONDS));
+            assertEquals(numStreams * numRequests, replies.size());
+            for (FetchAndParseReply reply : replies) {
+                assertEquals(PipesResult.STATUS.PARSE_SUCCESS.name(), reply.getStatus());
+            }
+            //each stream gave its permits back
+            assertEquals(tikaGrpcServer.numClients, tikaGrpcServer.parsePermits.getAvailable());
+        } finally {
+            tikaGrpcServer.close();
+        }
+    }
+
+    private static FetchAndParseRequest saveTestFilesFetcher(TikaGrpc.TikaBlockingStub blockingStub)
+            throws Exception {
+        String fetcherId = createFetcherId(1);
+        blockingStub.saveFetcher(SaveFetcherRequest
+                .newBuilder()
+                .setFetcherId(fetcherId)
+                .setFetcherClass(FileSystemFetcher.class.getName())
+                .setFetcherConfigJson(OBJECT_MAPPER.writeValueAsString(ImmutableMap
+                        .builder()
+                        .put("basePath", new File("src/test/resources/test-files").getAbsolutePath())
+                        .build()))
+                .build());
+        return FetchAndParseRequest
+                .newBuilder()
+                .setFetcherId(fetcherId)
+                .setFetchKey("014760.docx")
+                .build();
+    }
+
+    private static CompletableFuture<FetchAndParseReply> fetchAndParse(TikaGrpc.TikaStub tikaStub,
+                                                                       FetchAndParseRequest request) {
+        CompletableFuture<FetchAndParseReply> reply = new CompletableFuture<>();
+        tikaStub.fetchAndParse(request, new StreamObserver<>() {
+            @Override
+            public void onNext(FetchAndParseReply fetchAndParseReply) {
+                reply.complete(fetchAndParseReply);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                reply.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        return reply;
+    }
+
+    private static String content(DocumentMetadata documentMetadata) {
+        for (MetadataField field : documentMetadata.getFieldsList()) {
+            if (TikaCoreProperties.TIKA_CONTENT.getName().equals(field.getName())) {
+                return field.getValues(0);
+            }
+        }
+        return null;
+    }
+
+    private static FetchAndParseReply parseBytes(TikaGrpc.TikaStub tikaStub, byte[] bytes)
+            throws Exception {
+        CompletableFuture<FetchAndParseReply> reply = new CompletableFuture<>();
+        StreamObserver<ParseBytesRequest> requestObserver = tikaStub.parseBytes(new StreamObserver<>() {
+            @Override
+            public void onNext(FetchAndParseReply fetchAndParseReply) {
+                reply.complete(fetchAndParseReply);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                reply.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        for (int offset = 0; offset < bytes.length; offset += 4096) {
+            ParseBytesRequest.Builder request = ParseBytesRequest
+                    .newBuilder()
+                    .setChunk(ByteString.copyFrom(bytes, offset, Math.min(4096, bytes.length - offset)));
+            if (offset == 0) {
+                request.setFileName("014760.docx");
+            }
+            requestObserver.onNext(request.build());
+        }
+        requestObserver.onCompleted();
+        return reply.get(60, TimeUnit.SECONDS);
+    }
 }
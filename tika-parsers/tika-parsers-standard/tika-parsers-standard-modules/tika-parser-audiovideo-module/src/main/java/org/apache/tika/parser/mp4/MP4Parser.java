@@ -40,8 +40,10 @@ import com.drew.metadata.mp4.Mp4BoxHandler;
 import com.drew.metadata.mp4.Mp4Directory;
 import com.drew.metadata.mp4.media.Mp4SoundDirectory;
 import com.drew.metadata.mp4.media.Mp4VideoDirectory;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 import org.apache.tika.exception.RuntimeSAXException;
 import org.apache.tika.exception.TikaException;
@@ -52,6 +54,7 @@ import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.XMPDM;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.XHTMLContentHandler;
@@ -97,13 +100,18 @@ public class MP4Parser implements Parser {
 
         TemporaryResources tmp = new TemporaryResources();
         TikaInputStream tstream = TikaInputStream.get(stream, tmp, metadata);
+        boolean metadataOnly = MetadataOnly.isMetadataOnly(context);
 
-        try (InputStream is = Files.newInputStream(tstream.getPath())) {
+        //Mp4Reader skips the media data, without the user data text there's
+        //no need to spool the stream to a file
+        try (InputStream is = metadataOnly && !tstream.hasFile() ?
+                CloseShieldInputStream.wrap(tstream) : Files.newInputStream(tstream.getPath())) {
 
             XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
             xhtml.startDocument();
             com.drew.metadata.Metadata mp4Metadata = new com.drew.metadata.Metadata();
-            Mp4BoxHandler boxHandler = new TikaMp4BoxHandler(mp4Metadata, metadata, xhtml);
+            Mp4BoxHandler boxHandler = new TikaMp4BoxHandler(mp4Metadata, metadata,
+                    metadataOnly ? new XHTMLContentHandler(new DefaultHandler(), metadata) : xhtml);
             try {
                 Mp4Reader.extract(is, boxHandler);
             } catch (RuntimeSAXException e) {
@@ -32,6 +32,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.XMP;
 import org.apache.tika.metadata.XMPDM;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.BodyContentHandler;
 
@@ -119,6 +120,19 @@ public class MP4ParserTest extends TikaTest {
         //TODO: why don't we check the output here?
     }
 
+    @Test
+    public void testMetadataOnly() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+        Metadata metadata = new Metadata();
+        String content = getText("testMP4.m4a", metadata, context);
+        assertEquals("Test Title", metadata.get(TikaCoreProperties.TITLE));
+        assertEquals("Test Album", metadata.get(XMPDM.ALBUM));
+        assertEquals("44100", metadata.get(XMPDM.AUDIO_SAMPLE_RATE));
+        assertEquals("0.07", metadata.get(XMPDM.DURATION));
+        assertEquals("", content.trim());
+    }
+
     // TODO Test a MP4 Video file
     // TODO Test an old QuickTime Video File
     @Test
@@ -20,6 +20,7 @@ package org.apache.tika.parser.html;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -29,6 +30,7 @@ import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import org.apache.tika.detect.DefaultEncodingDetector;
 import org.apache.tika.metadata.Metadata;
 
 public class HtmlEncodingDetectorTest {
@@ -38,6 +40,16 @@ public class HtmlEncodingDetectorTest {
         assertWindows1252("<meta charset='WINDOWS-1252'>");
     }
 
+    @Test
+    public void declaredCharsetOfValidUtf8() throws IOException {
+        //the bytes happen to be valid UTF-8, but the page says otherwise
+        byte[] bytes = ("<html><head><meta charset='WINDOWS-1252'></head>" +
+                "<body>caf\u00e9</body></html>").getBytes(StandardCharsets.UTF_8);
+        assertEquals(Charset.forName("WINDOWS-1252"),
+                new DefaultEncodingDetector().detect(
+                        new BufferedInputStream(new ByteArrayInputStream(bytes)), new Metadata()));
+    }
+
     @Test
     @Disabled("can we can prove this harms detection")
     public void utf16() throws IOException {
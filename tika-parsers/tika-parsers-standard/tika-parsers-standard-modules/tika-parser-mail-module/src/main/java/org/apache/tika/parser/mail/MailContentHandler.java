@@ -64,6 +64,7 @@ import org.apache.tika.parser.mailcommons.MailUtil;
 import org.apache.tika.parser.txt.TXTParser;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.EmbeddedContentHandler;
+import org.apache.tika.sax.StoppingEarlyException;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.apache.tika.utils.StringUtils;
 
@@ -88,6 +89,8 @@ class MailContentHandler implements ContentHandler {
     //keeps track of multipart/alternative and its children
     private Stack<Part> alternativePartBuffer = new Stack<>();
     private Stack<BodyDescriptor> parts = new Stack<>();
+    //whether to stop the parser after the message headers, in metadata only mode
+    private boolean stopAfterHeaders = false;
     MailContentHandler(XHTMLContentHandler xhtml, Detector detector, Metadata metadata,
                        ParseContext context, boolean strictParsing,
                        boolean extractAllAlternatives) {
@@ -271,6 +274,17 @@ class MailContentHandler implements ContentHandler {
 
     @Override
     public void endHeader() throws MimeException {
+        if (stopAfterHeaders && parts.isEmpty()) {
+            throw new MimeException(StoppingEarlyException.INSTANCE);
+        }
+    }
+
+    /**
+     * Stops the parse with a {@link StoppingEarlyException} once the headers
+     * of the message have been read, so that the body isn't parsed.
+     */
+    void setStopAfterHeaders(boolean stopAfterHeaders) {
+        this.stopAfterHeaders = stopAfterHeaders;
     }
 
     @Override
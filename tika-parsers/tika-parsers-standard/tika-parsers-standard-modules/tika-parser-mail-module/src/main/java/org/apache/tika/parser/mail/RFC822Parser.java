@@ -35,8 +35,10 @@ import org.apache.tika.extractor.EmbeddedDocumentUtil;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.StoppingEarlyException;
 import org.apache.tika.sax.XHTMLContentHandler;
 
 /**
@@ -91,6 +93,7 @@ public class RFC822Parser implements Parser {
         MailContentHandler mch = new MailContentHandler(xhtml, localDetector, metadata, context,
                 config.isStrictParsing(), extractAllAlternatives);
         parser.setContentHandler(mch);
+        mch.setStopAfterHeaders(MetadataOnly.isMetadataOnly(context));
         parser.setContentDecoding(true);
         parser.setNoRecurse();
         xhtml.startDocument();
@@ -103,7 +106,9 @@ public class RFC822Parser implements Parser {
         } catch (MimeException e) {
             // Unwrap the exception in case it was not thrown by mime4j
             Throwable cause = e.getCause();
-            if (cause instanceof TikaException) {
+            if (cause instanceof StoppingEarlyException) {
+                //metadata only, the headers have been read
+            } else if (cause instanceof TikaException) {
                 throw (TikaException) cause;
             } else if (cause instanceof SAXException) {
                 throw (SAXException) cause;
@@ -52,6 +52,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.ocr.TesseractOCRParserTest;
@@ -137,6 +138,21 @@ public class RFC822ParserTest extends TikaTest {
 
     }
 
+    @Test
+    public void testMetadataOnly() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+        Metadata metadata = new Metadata();
+        String content = getText("testRFC822-multipart", metadata, context);
+        assertEquals("DigitalPebble", metadata.get(Message.MESSAGE_FROM_NAME));
+        assertEquals("julien@digitalpebble.com", metadata.get(Message.MESSAGE_FROM_EMAIL));
+        assertNotNull(metadata.get(TikaCoreProperties.TITLE));
+        assertEquals("", content.trim());
+
+        List<Metadata> metadataList = getRecursiveMetadata("testRFC822-multipart", context);
+        assertEquals(1, metadataList.size());
+    }
+
     @Test
     public void testMultipart() {
         Metadata metadata = new Metadata();
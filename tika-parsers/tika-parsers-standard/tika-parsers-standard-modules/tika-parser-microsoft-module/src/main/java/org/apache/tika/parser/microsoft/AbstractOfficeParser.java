@@ -121,6 +121,30 @@ public abstract class AbstractOfficeParser implements Parser {
         return defaultOfficeParserConfig.isConcatenatePhoneticRuns();
     }
 
+    /**
+     * @see OfficeParserConfig#setMaxSheetThreads(int)
+     */
+    @Field
+    public void setMaxSheetThreads(int maxSheetThreads) {
+        defaultOfficeParserConfig.setMaxSheetThreads(maxSheetThreads);
+    }
+
+    public int getMaxSheetThreads() {
+        return defaultOfficeParserConfig.getMaxSheetThreads();
+    }
+
+    /**
+     * @see OfficeParserConfig#setMaxBufferedSheetChars(long)
+     */
+    @Field
+    public void setMaxBufferedSheetChars(long maxBufferedSheetChars) {
+        defaultOfficeParserConfig.setMaxBufferedSheetChars(maxBufferedSheetChars);
+    }
+
+    public long getMaxBufferedSheetChars() {
+        return defaultOfficeParserConfig.getMaxBufferedSheetChars();
+    }
+
     public boolean isExtractAllAlternativesFromMSG() {
         return defaultOfficeParserConfig.isExtractAllAlternativesFromMSG();
     }
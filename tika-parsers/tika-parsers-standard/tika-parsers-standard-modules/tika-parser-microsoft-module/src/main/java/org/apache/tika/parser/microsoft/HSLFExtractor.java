@@ -60,6 +60,7 @@ import org.apache.tika.extractor.EmbeddedDocumentUtil;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.PageRange;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.apache.tika.utils.StringUtils;
@@ -92,8 +93,18 @@ public class HSLFExtractor extends AbstractPOIFSExtractor {
 
             xhtml.startElement("div", "class", "slideShow");
 
+            PageRange pageRange = context.get(PageRange.class);
+            int slideNumber = 0;
             /* Iterate over slides and extract text */
             for (HSLFSlide slide : _slides) {
+                slideNumber++;
+                if (pageRange != null) {
+                    if (pageRange.isAfterLast(slideNumber)) {
+                        break;
+                    } else if (!pageRange.contains(slideNumber)) {
+                        continue;
+                    }
+                }
                 xhtml.startElement("div", "class", "slide");
                 HeadersFooters slideHeaderFooters =
                         (officeParserConfig.isIncludeHeadersAndFooters()) ? slide.getHeadersFooters() :
@@ -154,8 +165,13 @@ public class HSLFExtractor extends AbstractPOIFSExtractor {
                 xhtml.endElement("div");
             }
 
-            handleSlideEmbeddedPictures(ss, xhtml);
-            handleShowEmbeddedResources(ss, xhtml, true);
+            //pictures and the catch-all objects are stored for the whole show,
+            //not per slide. If only some slides are wanted, skip them rather
+            //than extract those of all of the slides.
+            if (pageRange == null) {
+                handleSlideEmbeddedPictures(ss, xhtml);
+                handleShowEmbeddedResources(ss, xhtml, true);
+            }
 
             if (officeParserConfig.isExtractMacros()) {
                 extractMacros(ss, xhtml);
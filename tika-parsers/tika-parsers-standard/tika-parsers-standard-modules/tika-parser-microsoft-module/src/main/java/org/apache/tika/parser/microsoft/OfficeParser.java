@@ -54,6 +54,7 @@ import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.PasswordProvider;
 import org.apache.tika.parser.microsoft.ooxml.OOXMLParser;
@@ -182,7 +183,7 @@ public class OfficeParser extends AbstractOfficeParser {
             parse(root, context, metadata, xhtml);
             OfficeParserConfig officeParserConfig = context.get(OfficeParserConfig.class);
 
-            if (officeParserConfig.isExtractMacros()) {
+            if (officeParserConfig.isExtractMacros() && !MetadataOnly.isMetadataOnly(context)) {
                 //now try to get macros.
                 //Note that macros are handled separately for ppt in HSLFExtractor.
 
@@ -216,6 +217,14 @@ public class OfficeParser extends AbstractOfficeParser {
             setType(metadata, type.getType());
         }
 
+        //the summaries are all there is to extract in metadata only mode,
+        //except for encrypted and outlook files, which are handled below
+        if (MetadataOnly.isMetadataOnly(context) && type != POIFSDocumentType.ENCRYPTED &&
+                type != POIFSDocumentType.DRMENCRYPTED && type != POIFSDocumentType.OUTLOOK &&
+                !root.hasEntry("EncryptedPackage")) {
+            return;
+        }
+
         switch (type) {
             case SOLIDWORKS_PART:
             case SOLIDWORKS_ASSEMBLY:
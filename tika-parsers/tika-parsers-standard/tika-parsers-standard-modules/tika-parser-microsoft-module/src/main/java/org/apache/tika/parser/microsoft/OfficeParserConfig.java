@@ -40,6 +40,8 @@ public class OfficeParserConfig implements Serializable {
     private boolean extractAllAlternativesFromMSG = false;
     private String dateOverrideFormat = null;
     private int maxOverride = 0;//ignore
+    private int maxSheetThreads = 1;
+    private long maxBufferedSheetChars = 10_000_000;
 
     /**
      * @return whether or not to extract macros
@@ -291,6 +293,47 @@ public class OfficeParserConfig implements Serializable {
     public void setWriteSelectHeadersInBody(boolean writeSelectHeadersInBody) {
         this.writeSelectHeadersInBody = writeSelectHeadersInBody;
     }
-}
 
+    public int getMaxSheetThreads() {
+        return maxSheetThreads;
+    }
+
+    /**
+     * Maximum number of threads to use to parse the sheets of an xlsx
+     * workbook concurrently.  The sheets are still written to the output in
+     * order, but up to this many sheets are parsed at the same time, and
+     * their content is held in memory, up to
+     * {@link #setMaxBufferedSheetChars(long)}, until it is written.
+     * The default is 1, which parses the sheets one after the other, as they
+     * are written.
+     *
+     * @param maxSheetThreads
+     */
+    public void setMaxSheetThreads(int maxSheetThreads) {
+        if (maxSheetThreads < 1) {
+            throw new IllegalArgumentException("maxSheetThreads must be >= 1");
+        }
+        this.maxSheetThreads = maxSheetThreads;
+    }
+
+    public long getMaxBufferedSheetChars() {
+        return maxBufferedSheetChars;
+    }
 
+    /**
+     * Approximate maximum number of chars of parsed sheets that are held in
+     * memory, waiting to be written, when {@link #setMaxSheetThreads(int)} is
+     * greater than 1.  Once this is reached, the sheets that are parsed ahead
+     * wait until the sheets before them have been written.  The sheet that
+     * is written next never waits, so a single sheet can go over this.
+     * The default is 10,000,000.
+     *
+     * @param maxBufferedSheetChars
+     */
+    public void setMaxBufferedSheetChars(long maxBufferedSheetChars) {
+        if (maxBufferedSheetChars < 1) {
+            throw new IllegalArgumentException("maxBufferedSheetChars must be >= 1");
+        }
+        this.maxBufferedSheetChars = maxBufferedSheetChars;
+    }
+}
@@ -73,6 +73,7 @@ import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.RTFMetadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.html.HtmlEncodingDetector;
@@ -267,6 +268,9 @@ public class OutlookExtractor extends AbstractPOIFSExtractor {
         }
 
         handleGeneralDates(msg, headers, parentMetadata);
+        if (MetadataOnly.isMetadataOnly(parseContext)) {
+            return;
+        }
         writeSelectHeadersInBody(parentMetadata, msg, xhtml);
 
         // Get the message body. Preference order is: html, rtf, text
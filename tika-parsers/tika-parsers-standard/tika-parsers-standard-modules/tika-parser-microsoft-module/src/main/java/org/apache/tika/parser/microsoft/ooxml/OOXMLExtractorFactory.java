@@ -58,12 +58,14 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.EmptyParser;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.microsoft.OfficeParserConfig;
 import org.apache.tika.parser.microsoft.ooxml.xps.XPSExtractorDecorator;
 import org.apache.tika.parser.microsoft.ooxml.xps.XPSTextExtractor;
 import org.apache.tika.parser.microsoft.ooxml.xslf.XSLFEventBasedPowerPointExtractor;
 import org.apache.tika.parser.microsoft.ooxml.xwpf.XWPFEventBasedWordExtractor;
+import org.apache.tika.sax.XHTMLContentHandler;
 import org.apache.tika.utils.RereadableInputStream;
 import org.apache.tika.zip.utils.ZipSalvager;
 
@@ -192,11 +194,14 @@ public class OOXMLExtractorFactory {
             // This has already been set by OOXMLParser's call to configure()
             // We can rely on this being non-null.
             OfficeParserConfig config = context.get(OfficeParserConfig.class);
-            if (config.isUseSAXDocxExtractor()) {
+            //the event based extractors don't load the main document part
+            //when they're created
+            boolean metadataOnly = MetadataOnly.isMetadataOnly(context);
+            if (config.isUseSAXDocxExtractor() || metadataOnly) {
                 poiExtractor = trySXWPF(pkg);
             }
             if (poiExtractor == null) {
-                poiExtractor = tryXSLF(pkg, config.isUseSAXPptxExtractor());
+                poiExtractor = tryXSLF(pkg, config.isUseSAXPptxExtractor() || metadataOnly);
             }
             if (type.equals(OOXMLParser.XPS)) {
                 poiExtractor = new XPSTextExtractor(pkg);
@@ -206,6 +211,14 @@ public class OOXMLExtractorFactory {
                 poiExtractor = EXTRACTOR_FACTORY.create(pkg);
             }
 
+            if (metadataOnly) {
+                new MetadataExtractor(poiExtractor).extract(metadata);
+                XHTMLContentHandler xhtml = new XHTMLContentHandler(baseHandler, metadata);
+                xhtml.startDocument();
+                xhtml.endDocument();
+                return;
+            }
+
             POIXMLDocument document = poiExtractor.getDocument();
             if (poiExtractor instanceof XSSFBEventBasedExcelExtractor) {
                 extractor = new XSSFBExcelExtractorDecorator(context, poiExtractor, locale);
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft.ooxml;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.sax.XHTMLContentHandler;
+
+/**
+ * Records the elements and characters that are written to it, so that
+ * content produced on another thread can be written to the real
+ * {@link XHTMLContentHandler} later, with {@link #replay(XHTMLContentHandler)}.
+ * Only the body content is recorded, the replay adds the indentation and
+ * newlines as if it had been written directly.
+ * <p>
+ * Every recorded event is reported to {@link #buffered(long)} with its
+ * approximate size in chars, so that a subclass can limit how much is held.
+ */
+class XHTMLEventBuffer extends XHTMLContentHandler {
+
+    private static final byte START = 0;
+    private static final byte END = 1;
+    private static final byte CHARACTERS = 2;
+    private static final byte WHITESPACE = 3;
+
+    private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+    //rough cost in chars of recording an event, on top of its text
+    private static final int EVENT_SIZE = 16;
+
+    private final List<Event> events = new ArrayList<>();
+
+    private final StringBuilder text = new StringBuilder();
+
+    private long size = 0;
+
+    XHTMLEventBuffer() {
+        super(new DefaultHandler(), new Metadata());
+    }
+
+    @Override
+    public void startElement(String uri, String local, String name, Attributes attributes)
+            throws SAXException {
+        add(new Event(START, uri, local, name,
+                attributes.getLength() == 0 ? NO_ATTRIBUTES : new AttributesImpl(attributes),
+                0, 0), EVENT_SIZE + 2L * attributes.getLength() * EVENT_SIZE);
+    }
+
+    @Override
+    public void endElement(String uri, String local, String name) throws SAXException {
+        add(new Event(END, uri, local, name, null, 0, 0), EVENT_SIZE);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        addText(CHARACTERS, ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        addText(WHITESPACE, ch, start, length);
+    }
+
+    private void addText(byte type, char[] ch, int start, int length) throws SAXException {
+        add(new Event(type, null, null, null, null, text.length(), length),
+                EVENT_SIZE + (long) length);
+        text.append(ch, start, length);
+    }
+
+    private void add(Event event, long eventSize) throws SAXException {
+        buffered(eventSize);
+        events.add(event);
+        size += eventSize;
+    }
+
+    /**
+     * Called before an event of the given size is recorded.  This does
+     * nothing, subclasses can block or throw to limit the buffered content.
+     *
+     * @param eventSize approximate size of the event in chars
+     * @throws SAXException to stop the recording
+     */
+    protected void buffered(long eventSize) throws SAXException {
+    }
+
+    /**
+     * @return approximate size in chars of the recorded content
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Writes the recorded content to the given handler.
+     *
+     * @param xhtml handler to write to
+     * @throws SAXException if the handler throws it
+     */
+    void replay(XHTMLContentHandler xhtml) throws SAXException {
+        char[] chars = new char[text.length()];
+        text.getChars(0, chars.length, chars, 0);
+        for (Event event : events) {
+            switch (event.type) {
+                case START:
+                    xhtml.startElement(event.uri, event.local, event.name, event.attributes);
+                    break;
+                case END:
+                    xhtml.endElement(event.uri, event.local, event.name);
+                    break;
+                case CHARACTERS:
+                    xhtml.characters(chars, event.start, event.length);
+                    break;
+                default:
+                    xhtml.ignorableWhitespace(chars, event.start, event.length);
+            }
+        }
+    }
+
+    private static class Event {
+        private final byte type;
+        private final String uri;
+        private final String local;
+        private final String name;
+        private final Attributes attributes;
+        private final int start;
+        private final int length;
+
+        Event(byte type, String uri, String local, String name, Attributes attributes,
+                int start, int length) {
+            this.type = type;
+            this.uri = uri;
+            this.local = local;
+            this.name = name;
+            this.attributes = attributes;
+            this.start = start;
+            this.length = length;
+        }
+    }
+}
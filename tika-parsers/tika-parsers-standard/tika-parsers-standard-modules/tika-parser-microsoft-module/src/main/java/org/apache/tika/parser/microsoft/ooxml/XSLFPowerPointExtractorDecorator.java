@@ -63,6 +63,7 @@ import org.xml.sax.helpers.AttributesImpl;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.PageRange;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.XHTMLContentHandler;
 
@@ -73,10 +74,25 @@ public class XSLFPowerPointExtractorDecorator extends AbstractOOXMLExtractor {
 
     private Metadata metadata;
 
+    private final PageRange pageRange;
+
     public XSLFPowerPointExtractorDecorator(Metadata metadata, ParseContext context,
                                             XSLFExtractor extractor) {
         super(context, extractor);
         this.metadata = metadata;
+        this.pageRange = context.get(PageRange.class);
+    }
+
+    /**
+     * @return whether the slide with the given number, from 1, is to be
+     * extracted
+     */
+    private boolean isInPageRange(int slideNumber) {
+        return pageRange == null || pageRange.contains(slideNumber);
+    }
+
+    private boolean isAfterPageRange(int slideNumber) {
+        return pageRange != null && pageRange.isAfterLast(slideNumber);
     }
 
 
@@ -88,7 +104,14 @@ public class XSLFPowerPointExtractorDecorator extends AbstractOOXMLExtractor {
         XSLFCommentAuthors commentAuthors = slideShow.getCommentAuthors();
 
         List<XSLFSlide> slides = slideShow.getSlides();
+        int slideNumber = 0;
         for (XSLFSlide slide : slides) {
+            slideNumber++;
+            if (isAfterPageRange(slideNumber)) {
+                break;
+            } else if (!isInPageRange(slideNumber)) {
+                continue;
+            }
             String slideDesc;
             if (slide.getPackagePart() != null && slide.getPackagePart().getPartName() != null) {
                 slideDesc = getJustFileName(slide.getPackagePart().getPartName().toString());
@@ -305,6 +328,11 @@ public class XSLFPowerPointExtractorDecorator extends AbstractOOXMLExtractor {
         CTSlideIdList ctSlideIdList = document.getSlideReferences();
         if (ctSlideIdList != null) {
             for (int i = 0; i < ctSlideIdList.sizeOfSldIdArray(); i++) {
+                if (isAfterPageRange(i + 1)) {
+                    break;
+                } else if (!isInPageRange(i + 1)) {
+                    continue;
+                }
                 CTSlideIdListEntry ctSlide = ctSlideIdList.getSldIdArray(i);
                 // Add the slide
                 PackagePart slidePart;
@@ -40,6 +40,7 @@ import org.xml.sax.SAXException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ExtractionBudget;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.XHTMLContentHandler;
 
@@ -94,7 +95,7 @@ public class XSSFBExcelExtractorDecorator extends XSSFExcelExtractorDecorator {
             throw new XmlException(e);
         }
 
-        while (iter.hasNext()) {
+        while (iter.hasNext() && !ExtractionBudget.isExhausted(parseContext)) {
             InputStream stream = iter.next();
             PackagePart sheetPart = iter.getSheetPart();
             addDrawingHyperLinks(sheetPart);
@@ -19,6 +19,7 @@ package org.apache.tika.parser.microsoft.ooxml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -26,6 +27,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.poi.hssf.extractor.ExcelExtractor;
 import org.apache.poi.ooxml.extractor.POIXMLTextExtractor;
@@ -69,9 +77,11 @@ import org.apache.tika.exception.RuntimeSAXException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ExtractionBudget;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.microsoft.OfficeParserConfig;
 import org.apache.tika.parser.microsoft.TikaExcelDataFormatter;
+import org.apache.tika.sax.StoppingEarlyException;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.apache.tika.utils.XMLReaderUtils;
 
@@ -80,11 +90,13 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
      * Allows access to headers/footers from raw xml strings
      */
     protected static HeaderFooterHelper hfHelper = new HeaderFooterHelper();
+    private static final AtomicInteger SHEET_THREAD_COUNTER = new AtomicInteger();
     protected final DataFormatter formatter;
     protected final List<PackagePart> sheetParts = new ArrayList<>();
     protected final Map<String, String> drawingHyperlinks = new HashMap<>();
     protected Metadata metadata;
     protected ParseContext parseContext;
+    private final Locale locale;
 
     public XSSFExcelExtractorDecorator(ParseContext context, POIXMLTextExtractor extractor,
                                        Locale locale) {
@@ -94,6 +106,16 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
         this.extractor = (XSSFEventBasedExcelExtractor) extractor;
         configureExtractor(this.extractor, locale);
 
+        this.locale = locale;
+        formatter = newFormatter(context);
+    }
+
+    /**
+     * DataFormatter isn't thread safe, sheets that are parsed concurrently
+     * each get their own.
+     */
+    private DataFormatter newFormatter(ParseContext context) {
+        TikaExcelDataFormatter formatter;
         if (locale == null) {
             formatter = new TikaExcelDataFormatter();
         } else {
@@ -101,9 +123,9 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
         }
         OfficeParserConfig officeParserConfig = context.get(OfficeParserConfig.class);
         if (officeParserConfig != null) {
-            ((TikaExcelDataFormatter) formatter)
-                    .setDateFormatOverride(officeParserConfig.getDateFormatOverride());
+            formatter.setDateFormatOverride(officeParserConfig.getDateFormatOverride());
         }
+        return formatter;
     }
 
     protected void configureExtractor(POIXMLTextExtractor extractor, Locale locale) {
@@ -149,53 +171,34 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
             throw new XmlException(e);
         }
 
-        while (iter.hasNext()) {
-            SheetTextAsHTML sheetExtractor = new SheetTextAsHTML(config, xhtml);
-            PackagePart sheetPart = null;
-            try (InputStream stream = iter.next()) {
-                sheetPart = iter.getSheetPart();
-
-                addDrawingHyperLinks(sheetPart);
-                sheetParts.add(sheetPart);
+        if (config.getMaxSheetThreads() > 1) {
+            processSheetsConcurrently(iter, styles, strings, xhtml);
+        } else {
+            while (iter.hasNext() && !ExtractionBudget.isExhausted(parseContext)) {
+                SheetTextAsHTML sheetExtractor = new SheetTextAsHTML(config, xhtml);
+                PackagePart sheetPart = null;
+                try (InputStream stream = iter.next()) {
+                    sheetPart = iter.getSheetPart();
 
-                Comments comments = iter.getSheetComments();
+                    addDrawingHyperLinks(sheetPart);
+                    sheetParts.add(sheetPart);
 
-                // Start, and output the sheet name
-                xhtml.startElement("div");
-                xhtml.element("h1", iter.getSheetName());
+                    Comments comments = iter.getSheetComments();
 
-                // Extract the main sheet contents
-                xhtml.startElement("table");
-                xhtml.startElement("tbody");
+                    // Start, and output the sheet name
+                    xhtml.startElement("div");
+                    xhtml.element("h1", iter.getSheetName());
 
-                processSheet(sheetExtractor, comments, styles, strings, stream);
-            }
-            xhtml.endElement("tbody");
-            xhtml.endElement("table");
-
-            // Output any headers and footers
-            // (Need to process the sheet to get them, so we can't
-            //  do the headers before the contents)
-            for (String header : sheetExtractor.headers) {
-                extractHeaderFooter(header, xhtml);
-            }
-            for (String footer : sheetExtractor.footers) {
-                extractHeaderFooter(footer, xhtml);
-            }
+                    // Extract the main sheet contents
+                    xhtml.startElement("table");
+                    xhtml.startElement("tbody");
 
-            // Do text held in shapes, if required
-            if (config.isIncludeShapeBasedContent()) {
-                List<XSSFShape> shapes = iter.getShapes();
-                processShapes(shapes, xhtml);
+                    processSheet(sheetExtractor, comments, styles, strings, stream);
+                }
+                endSheet(sheetExtractor,
+                        config.isIncludeShapeBasedContent() ? iter.getShapes() : null, sheetPart,
+                        xhtml);
             }
-
-            //for now dump sheet hyperlinks at bottom of page
-            //consider a double-pass of the inputstream to reunite hyperlinks with cells/textboxes
-            //step 1: extract hyperlink info from bottom of page
-            //step 2: process as we do now, but with cached hyperlink relationship info
-            extractHyperLinks(sheetPart, xhtml);
-            // All done with this sheet
-            xhtml.endElement("div");
         }
 
         //consider adding this back to POI
@@ -209,6 +212,141 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
     }
 
 
+    /**
+     * Writes what follows the rows of a sheet, and closes the sheet's div.
+     */
+    private void endSheet(SheetTextAsHTML sheetExtractor, List<XSSFShape> shapes,
+                          PackagePart sheetPart, XHTMLContentHandler xhtml) throws SAXException {
+        xhtml.endElement("tbody");
+        xhtml.endElement("table");
+
+        // Output any headers and footers
+        // (Need to process the sheet to get them, so we can't
+        //  do the headers before the contents)
+        for (String header : sheetExtractor.headers) {
+            extractHeaderFooter(header, xhtml);
+        }
+        for (String footer : sheetExtractor.footers) {
+            extractHeaderFooter(footer, xhtml);
+        }
+
+        // Do text held in shapes, if required
+        processShapes(shapes, xhtml);
+
+        //for now dump sheet hyperlinks at bottom of page
+        //consider a double-pass of the inputstream to reunite hyperlinks with cells/textboxes
+        //step 1: extract hyperlink info from bottom of page
+        //step 2: process as we do now, but with cached hyperlink relationship info
+        extractHyperLinks(sheetPart, xhtml);
+        // All done with this sheet
+        xhtml.endElement("div");
+    }
+
+    /**
+     * Parses up to {@link OfficeParserConfig#getMaxSheetThreads()} sheets at
+     * the same time into buffers, and writes them in sheet order.  Everything
+     * but the rows is handled on this thread, as the sheets are written.
+     * The sheets after the one that is written next wait while more than
+     * {@link OfficeParserConfig#getMaxBufferedSheetChars()} is buffered.
+     */
+    private void processSheetsConcurrently(XSSFReader.SheetIterator iter, StylesTable styles,
+                                           ReadOnlySharedStringsTable strings,
+                                           XHTMLContentHandler xhtml)
+            throws IOException, SAXException {
+        SheetBufferBudget budget = new SheetBufferBudget(config.getMaxBufferedSheetChars());
+        List<BufferedSheet> sheets = new ArrayList<>();
+        while (iter.hasNext()) {
+            try (InputStream stream = iter.next()) {
+                //the sheet is read again by its task
+                sheets.add(new BufferedSheet(sheets.size(), budget, iter.getSheetName(),
+                        iter.getSheetPart(), iter.getSheetComments(),
+                        config.isIncludeShapeBasedContent() ? iter.getShapes() : null));
+            }
+        }
+        if (sheets.isEmpty()) {
+            return;
+        }
+        int numThreads = Math.min(config.getMaxSheetThreads(), sheets.size());
+        ExecutorService executorService = new ThreadPoolExecutor(numThreads, numThreads,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "tika-xlsx-sheet-" + SHEET_THREAD_COUNTER.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        ArrayDeque<Future<BufferedSheet>> pending = new ArrayDeque<>();
+        try {
+            int next = 0;
+            while (next < sheets.size() && pending.size() < config.getMaxSheetThreads()) {
+                pending.add(submit(executorService, sheets.get(next++), styles, strings));
+            }
+            while (!pending.isEmpty() && !ExtractionBudget.isExhausted(parseContext)) {
+                BufferedSheet sheet = getSheet(pending.removeFirst());
+                if (next < sheets.size()) {
+                    pending.add(submit(executorService, sheets.get(next++), styles, strings));
+                }
+                addDrawingHyperLinks(sheet.sheetPart);
+                sheetParts.add(sheet.sheetPart);
+
+                xhtml.startElement("div");
+                xhtml.element("h1", sheet.sheetName);
+                xhtml.startElement("table");
+                xhtml.startElement("tbody");
+                sheet.buffer.replay(xhtml);
+                //set where processSheet sets it, after the xhtml head is written
+                if (sheet.hasProtection) {
+                    metadata.set(TikaCoreProperties.PROTECTED, "true");
+                }
+                endSheet(sheet.sheetExtractor, sheet.shapes, sheet.sheetPart, xhtml);
+                budget.written(sheet.buffer.size());
+            }
+        } finally {
+            for (Future<BufferedSheet> future : pending) {
+                future.cancel(true);
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    private Future<BufferedSheet> submit(ExecutorService executorService, BufferedSheet sheet,
+                                         StylesTable styles, ReadOnlySharedStringsTable strings) {
+        //the tasks don't share the ParseContext, e.g. a SAXParser in it isn't thread safe
+        ParseContext context = new ParseContext();
+        ExtractionBudget extractionBudget = parseContext.get(ExtractionBudget.class);
+        if (extractionBudget != null) {
+            context.set(ExtractionBudget.class, extractionBudget);
+        }
+        DataFormatter sheetFormatter = newFormatter(parseContext);
+        return executorService.submit(() -> {
+            try (InputStream stream = sheet.sheetPart.getInputStream()) {
+                sheet.hasProtection = parseSheet(sheet.sheetExtractor, sheet.comments, styles,
+                        strings, stream, sheetFormatter, context);
+            }
+            return sheet;
+        });
+    }
+
+    private static BufferedSheet getSheet(Future<BufferedSheet> future)
+            throws IOException, SAXException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing sheets", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
     protected void addDrawingHyperLinks(PackagePart sheetPart) {
         try {
             for (PackageRelationship rel : sheetPart
@@ -346,17 +484,34 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
     public void processSheet(SheetContentsHandler sheetContentsHandler, Comments comments,
                              StylesTable styles, ReadOnlySharedStringsTable strings,
                              InputStream sheetInputStream) throws IOException, SAXException {
+        if (parseSheet(sheetContentsHandler, comments, styles, strings, sheetInputStream,
+                formatter, parseContext)) {
+            metadata.set(TikaCoreProperties.PROTECTED, "true");
+        }
+    }
+
+    /**
+     * @return whether the sheet is protected
+     */
+    private static boolean parseSheet(SheetContentsHandler sheetContentsHandler,
+                                      Comments comments, StylesTable styles,
+                                      ReadOnlySharedStringsTable strings,
+                                      InputStream sheetInputStream, DataFormatter formatter,
+                                      ParseContext parseContext)
+            throws IOException, SAXException {
         try {
 
             XSSFSheetInterestingPartsCapturer handler = new XSSFSheetInterestingPartsCapturer(
                     new XSSFSheetXMLHandler(styles, comments, strings, sheetContentsHandler,
-                            formatter, false));
-            XMLReaderUtils.parseSAX(sheetInputStream, handler, parseContext);
+                            formatter, false), parseContext);
+            try {
+                XMLReaderUtils.parseSAX(sheetInputStream, handler, parseContext);
+            } catch (StoppingEarlyException e) {
+                //the extraction budget is spent, skip the rest of the rows
+            }
             sheetInputStream.close();
 
-            if (handler.hasProtection) {
-                metadata.set(TikaCoreProperties.PROTECTED, "true");
-            }
+            return handler.hasProtection;
         } catch (TikaException e) {
             throw new RuntimeException("SAX parser appears to be broken - " + e.getMessage());
         }
@@ -500,6 +655,67 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
         }
     }
 
+    /**
+     * A sheet that is parsed on another thread, and its buffered rows
+     */
+    private class BufferedSheet {
+        private final String sheetName;
+        private final PackagePart sheetPart;
+        private final Comments comments;
+        private final List<XSSFShape> shapes;
+        private final XHTMLEventBuffer buffer;
+        private final SheetTextAsHTML sheetExtractor;
+        private boolean hasProtection;
+
+        BufferedSheet(int index, SheetBufferBudget budget, String sheetName,
+                      PackagePart sheetPart, Comments comments, List<XSSFShape> shapes) {
+            this.sheetName = sheetName;
+            this.sheetPart = sheetPart;
+            this.comments = comments;
+            this.shapes = shapes;
+            this.buffer = new XHTMLEventBuffer() {
+                @Override
+                protected void buffered(long eventSize) throws SAXException {
+                    budget.reserve(index, eventSize);
+                }
+            };
+            this.sheetExtractor = new SheetTextAsHTML(config, buffer);
+        }
+    }
+
+    /**
+     * Keeps track of how much the sheets that haven't been written yet have
+     * buffered.  The sheet that is written next never waits, the others wait
+     * while the limit is reached, until the sheets before them are written.
+     */
+    private static class SheetBufferBudget {
+        private final long maxChars;
+        private long bufferedChars = 0;
+        private int nextSheet = 0;
+
+        SheetBufferBudget(long maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        synchronized void reserve(int sheet, long chars) throws SAXException {
+            try {
+                while (sheet != nextSheet && bufferedChars + chars > maxChars) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SAXException("Interrupted while waiting to buffer a sheet");
+            }
+            bufferedChars += chars;
+        }
+
+        synchronized void written(long chars) {
+            bufferedChars -= chars;
+            nextSheet++;
+            notifyAll();
+        }
+    }
+
     protected static class HeaderFooterFromString implements HeaderFooter {
         private String text;
 
@@ -535,10 +751,22 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
      */
     protected static class XSSFSheetInterestingPartsCapturer extends DefaultHandler {
         private ContentHandler delegate;
+        private ParseContext parseContext;
         private boolean hasProtection = false;
 
         protected XSSFSheetInterestingPartsCapturer(ContentHandler delegate) {
+            this(delegate, null);
+        }
+
+        /**
+         * @param parseContext if it has an {@link ExtractionBudget}, a
+         *                     {@link StoppingEarlyException} is thrown after
+         *                     the row in which the budget is spent
+         */
+        protected XSSFSheetInterestingPartsCapturer(ContentHandler delegate,
+                                                    ParseContext parseContext) {
             this.delegate = delegate;
+            this.parseContext = parseContext;
         }
 
         public void startElement(String uri, String localName, String qName, Attributes atts)
@@ -559,6 +787,9 @@ public class XSSFExcelExtractorDecorator extends AbstractOOXMLExtractor {
 
         public void endElement(String uri, String localName, String qName) throws SAXException {
             delegate.endElement(uri, localName, qName);
+            if ("row".equals(localName) && ExtractionBudget.isExhausted(parseContext)) {
+                throw StoppingEarlyException.INSTANCE;
+            }
         }
 
         public void endPrefixMapping(String prefix) throws SAXException {
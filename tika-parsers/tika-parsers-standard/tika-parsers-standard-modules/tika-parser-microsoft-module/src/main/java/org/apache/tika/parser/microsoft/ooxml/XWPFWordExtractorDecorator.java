@@ -60,14 +60,20 @@ import org.apache.poi.xwpf.usermodel.XWPFTableRow;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlException;
 import org.apache.xmlbeans.XmlObject;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTBody;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTBookmark;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTBr;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTObject;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTOnOff;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTP;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTPPr;
 import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTSectPr;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.STBrType;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.PageRange;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.microsoft.EMFParser;
 import org.apache.tika.parser.microsoft.FormattingUtils;
@@ -83,6 +89,14 @@ public class XWPFWordExtractorDecorator extends AbstractOOXMLExtractor {
     // Part 3, Step 3
     private static final String LIST_DELIMITER = " ";
 
+    private static final String W_NAMESPACE =
+            "declare namespace w='http://schemas.openxmlformats.org/wordprocessingml/2006/main' ";
+
+    private static final String BREAKS = W_NAMESPACE + ".//w:br";
+
+    //the page breaks Word recorded when it last laid out the document
+    private static final String RENDERED_PAGE_BREAKS = W_NAMESPACE + ".//w:lastRenderedPageBreak";
+
 
     //include all parts that might have embedded objects
     private final static String[] MAIN_PART_RELATIONS =
@@ -96,6 +110,7 @@ public class XWPFWordExtractorDecorator extends AbstractOOXMLExtractor {
     private XWPFDocument document;
     private XWPFStyles styles;
     private Metadata metadata;
+    private final PageRange pageRange;
 
     //This is a map of the rIds of embedded files and the EmbeddedPartMetadata
     //that may be associated with the embedded file. The EmbeddedPartMetadata
@@ -108,6 +123,7 @@ public class XWPFWordExtractorDecorator extends AbstractOOXMLExtractor {
         this.metadata = metadata;
         document = (XWPFDocument) extractor.getDocument();
         styles = document.getStyles();
+        pageRange = context.get(PageRange.class);
     }
 
     /**
@@ -124,7 +140,11 @@ public class XWPFWordExtractorDecorator extends AbstractOOXMLExtractor {
         }
 
         // process text in the order that it occurs in
-        extractIBodyText(document, listManager, xhtml);
+        if (pageRange == null) {
+            extractIBodyText(document, listManager, xhtml);
+        } else {
+            extractPageRange(listManager, xhtml);
+        }
 
         //handle the diagram data
         handleGeneralTextContainingPart(RELATION_DIAGRAM_DATA, "diagram-data",
@@ -154,19 +174,89 @@ public class XWPFWordExtractorDecorator extends AbstractOOXMLExtractor {
                                   XHTMLContentHandler xhtml)
             throws SAXException, XmlException, IOException {
         for (IBodyElement element : bodyElement.getBodyElements()) {
+            extractBodyElement(element, listManager, xhtml);
+        }
+    }
+
+    private void extractBodyElement(IBodyElement element, XWPFListManager listManager,
+                                    XHTMLContentHandler xhtml)
+            throws SAXException, XmlException, IOException {
+        if (element instanceof XWPFParagraph) {
+            XWPFParagraph paragraph = (XWPFParagraph) element;
+            extractParagraph(paragraph, listManager, xhtml);
+        }
+        if (element instanceof XWPFTable) {
+            XWPFTable table = (XWPFTable) element;
+            extractTable(table, listManager, xhtml);
+        }
+        if (element instanceof XWPFSDT) {
+            extractSDT((XWPFSDT) element, xhtml);
+        }
+    }
+
+    /**
+     * Extracts the body elements on the pages of the {@link PageRange}.
+     * The file doesn't have the layout, so pages are counted at the page
+     * breaks that Word recorded when it last laid out the document, or, if
+     * it has none, at the explicit page breaks.  Word records a page break
+     * after an explicit one too, so the two are never added up.  An element
+     * that spans a page break is extracted if any of its pages is in the
+     * range.
+     */
+    private void extractPageRange(XWPFListManager listManager, XHTMLContentHandler xhtml)
+            throws SAXException, XmlException, IOException {
+        int page = 1;
+        boolean first = true;
+        //XWPFSDT doesn't expose its xml, the body has them in the same order
+        int sdtIndex = 0;
+        CTBody body = document.getDocument().getBody();
+        boolean rendered = body.selectPath(RENDERED_PAGE_BREAKS).length > 0;
+        for (IBodyElement element : document.getBodyElements()) {
+            XmlObject xml = null;
             if (element instanceof XWPFParagraph) {
                 XWPFParagraph paragraph = (XWPFParagraph) element;
-                extractParagraph(paragraph, listManager, xhtml);
+                xml = paragraph.getCTP();
+                if (!first && !rendered && isPageBreakBefore(paragraph)) {
+                    page++;
+                }
+            } else if (element instanceof XWPFTable) {
+                xml = ((XWPFTable) element).getCTTbl();
+            } else if (element instanceof XWPFSDT && sdtIndex < body.sizeOfSdtArray()) {
+                xml = body.getSdtArray(sdtIndex++);
             }
-            if (element instanceof XWPFTable) {
-                XWPFTable table = (XWPFTable) element;
-                extractTable(table, listManager, xhtml);
+            first = false;
+            if (pageRange.isAfterLast(page)) {
+                break;
             }
-            if (element instanceof XWPFSDT) {
-                extractSDT((XWPFSDT) element, xhtml);
+            int pageBreaks = xml == null ? 0 : countPageBreaks(xml, rendered);
+            if (pageRange.overlaps(page, page + pageBreaks)) {
+                extractBodyElement(element, listManager, xhtml);
             }
+            page += pageBreaks;
+        }
+    }
+
+    private static boolean isPageBreakBefore(XWPFParagraph paragraph) {
+        CTPPr pPr = paragraph.getCTP().getPPr();
+        if (pPr == null || !pPr.isSetPageBreakBefore()) {
+            return false;
+        }
+        //XWPFParagraph#isPageBreak() is false for <w:pageBreakBefore/>, which means on
+        CTOnOff pageBreakBefore = pPr.getPageBreakBefore();
+        return !pageBreakBefore.isSetVal() || paragraph.isPageBreak();
+    }
 
+    private static int countPageBreaks(XmlObject xml, boolean rendered) {
+        if (rendered) {
+            return xml.selectPath(RENDERED_PAGE_BREAKS).length;
+        }
+        int pageBreaks = 0;
+        for (XmlObject br : xml.selectPath(BREAKS)) {
+            if (br instanceof CTBr && ((CTBr) br).getType() == STBrType.PAGE) {
+                pageBreaks++;
+            }
         }
+        return pageBreaks;
     }
 
     private void extractSDT(XWPFSDT element, XHTMLContentHandler xhtml)
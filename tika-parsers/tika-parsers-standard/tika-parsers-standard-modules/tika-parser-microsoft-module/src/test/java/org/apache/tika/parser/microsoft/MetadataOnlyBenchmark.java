@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import java.io.InputStream;
+import java.util.Locale;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.MetadataOnly;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+
+/**
+ * Times full parses against {@link MetadataOnly} parses of office and
+ * Outlook documents.
+ */
+public class MetadataOnlyBenchmark {
+
+    private static final int ITERATIONS = 50;
+
+    private static final String[] FILES = new String[]{"testWORD_2006ml.docx", "testEXCEL.xlsx",
+            "testPPT_various.pptx", "testWORD_various.doc", "test-outlook.msg"};
+
+    public static void main(String[] args) throws Exception {
+        Parser parser = new AutoDetectParser();
+        for (String file : FILES) {
+            //warm up
+            time(parser, file, false);
+            time(parser, file, true);
+            System.out.printf(Locale.ROOT, "%s: full %.1fms, metadata only %.1fms%n", file,
+                    time(parser, file, false), time(parser, file, true));
+        }
+    }
+
+    private static double time(Parser parser, String file, boolean metadataOnly)
+            throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ParseContext context = new ParseContext();
+            if (metadataOnly) {
+                context.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+            }
+            try (InputStream is = MetadataOnlyBenchmark.class
+                    .getResourceAsStream("/test-documents/" + file)) {
+                parser.parse(is, new BodyContentHandler(-1), new Metadata(), context);
+            }
+        }
+        return (System.nanoTime() - start) / (double) ITERATIONS / 1000000;
+    }
+}
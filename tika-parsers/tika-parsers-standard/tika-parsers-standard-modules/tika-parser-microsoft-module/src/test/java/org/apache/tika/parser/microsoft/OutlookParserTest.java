@@ -42,6 +42,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.RTFMetadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.BasicContentHandlerFactory;
@@ -98,6 +99,17 @@ public class OutlookParserTest extends TikaTest {
         assertTrue(content.startsWith("Microsoft Outlook Express 6"));
     }
 
+    @Test
+    public void testMetadataOnly() throws Exception {
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+        Metadata metadata = new Metadata();
+        String content = getText("test-outlook.msg", metadata, parseContext);
+        assertEquals("Microsoft Outlook Express 6", metadata.get(TikaCoreProperties.TITLE));
+        assertEquals("2007-04-05T16:26:06Z", metadata.get(TikaCoreProperties.CREATED));
+        assertEquals("", content.trim());
+    }
+
     /**
      * Test case for TIKA-197
      *
@@ -33,6 +33,7 @@ import org.apache.tika.exception.EncryptedDocumentException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.Office;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.PageRange;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.BodyContentHandler;
 
@@ -54,6 +55,16 @@ public class PowerPointParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testPageRange() throws Exception {
+        assertContainsCount("<div class=\"slide\">",
+                getXML("testPPT_skipBadCompressedObject.ppt").xml, 14);
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(PageRange.class, new PageRange(2, 3));
+        assertContainsCount("<div class=\"slide\">",
+                getXML("testPPT_skipBadCompressedObject.ppt", parseContext).xml, 2);
+    }
+
     @Test
     public void testVarious() throws Exception {
         Metadata metadata = new Metadata();
@@ -44,6 +44,7 @@ import org.apache.tika.metadata.Office;
 import org.apache.tika.metadata.OfficeOpenXMLExtended;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.sax.BodyContentHandler;
@@ -64,6 +65,21 @@ public class WordParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testMetadataOnly() throws Exception {
+        try (InputStream input = getResourceAsStream("/test-documents/testWORD.doc")) {
+            ContentHandler handler = new BodyContentHandler();
+            Metadata metadata = new Metadata();
+            ParseContext context = new ParseContext();
+            context.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+            new OfficeParser().parse(input, handler, metadata, context);
+
+            assertEquals("Sample Word Document", metadata.get(TikaCoreProperties.TITLE));
+            assertEquals("Keith Bennett", metadata.get(TikaCoreProperties.CREATOR));
+            assertEquals("", handler.toString().trim());
+        }
+    }
+
     @Test
     public void testWordWithWAV() throws Exception {
         try (InputStream input = getResourceAsStream("/test-documents/Doc1_ole.doc")) {
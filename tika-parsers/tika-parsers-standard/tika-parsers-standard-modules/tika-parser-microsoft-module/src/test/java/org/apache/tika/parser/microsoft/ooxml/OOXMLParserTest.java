@@ -67,6 +67,9 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.EmptyParser;
+import org.apache.tika.parser.ExtractionBudget;
+import org.apache.tika.parser.MetadataOnly;
+import org.apache.tika.parser.PageRange;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.PasswordProvider;
@@ -120,6 +123,111 @@ public class OOXMLParserTest extends MultiThreadedTikaTest {
 
     }
 
+    @Test
+    public void testExcelExtractionBudget() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(Locale.class, Locale.US);
+        String xml = getXML("testEXCEL.xlsx", context).xml;
+        assertContainsCount("<h1>", xml, 3);
+        int rows = xml.split("<tr>").length - 1;
+
+        context.set(ExtractionBudget.class, new ExtractionBudget(30));
+        XMLResult r = getXML("testEXCEL.xlsx", context);
+        //neither the rest of the first sheet nor the other sheets are parsed
+        assertContainsCount("<h1>", r.xml, 1);
+        assertTrue(r.xml.split("<tr>").length - 1 < rows);
+        assertContains("Sample Excel Worksheet", r.xml);
+        assertEquals("true", r.metadata.get(TikaCoreProperties.WRITE_LIMIT_REACHED));
+    }
+
+    @Test
+    public void testExcelConcurrentSheets() throws Exception {
+        for (String file : new String[]{"testEXCEL.xlsx", "testEXCEL_headers_footers.xlsx",
+                "testEXCEL_hyperlinks.xlsx", "testEXCEL_textbox.xlsx", "protectedSheets.xlsx"}) {
+            ParseContext context = new ParseContext();
+            context.set(Locale.class, Locale.US);
+            XMLResult expected = getXML(file, context);
+
+            OfficeParserConfig config = new OfficeParserConfig();
+            config.setMaxSheetThreads(2);
+            context.set(OfficeParserConfig.class, config);
+            XMLResult r = getXML(file, context);
+            assertEquals(expected.xml, r.xml, file);
+            assertEquals(expected.metadata.get(TikaCoreProperties.PROTECTED),
+                    r.metadata.get(TikaCoreProperties.PROTECTED), file);
+
+            //the sheets parsed ahead have to wait for the ones before them
+            config.setMaxBufferedSheetChars(1);
+            r = getXML(file, context);
+            assertEquals(expected.xml, r.xml, file);
+        }
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("tika-xlsx-sheet-")) {
+                assertTrue(t.isDaemon(), t.getName());
+            }
+        }
+    }
+
+    @Test
+    public void testPowerPointPageRange() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(PageRange.class, PageRange.parse("2-"));
+        String xml = getXML("testPPT.pptx", context).xml;
+        xml = xml.substring(xml.indexOf("<body>"));
+        assertContainsCount("<div class=\"slide-content\">", xml, 2);
+        assertNotContained("Attachment Test", xml);
+        assertContains("This is a test file data", xml);
+        assertContains("Black Panther", xml);
+    }
+
+    @Test
+    public void testWordPageRange() throws Exception {
+        //each hard page break is followed by the page break Word rendered
+        //after it; only the rendered ones are counted
+        ParseContext context = new ParseContext();
+        context.set(PageRange.class, new PageRange(2, 2));
+        String xml = getXML("testWORD_page_breaks.docx", context).xml;
+        xml = xml.substring(xml.indexOf("<body>"));
+        assertNotContained("End of first page", xml);
+        assertContains("Second page", xml);
+        //this paragraph flows onto page 3
+        assertContains("onto third page", xml);
+        assertNotContained("Third page", xml);
+
+        context.set(PageRange.class, new PageRange(3, 3));
+        xml = getXML("testWORD_page_breaks.docx", context).xml;
+        xml = xml.substring(xml.indexOf("<body>"));
+        assertNotContained("<p>Second page</p>", xml);
+        assertContains("onto third page", xml);
+        assertContains("Third page", xml);
+
+        //testWORD_2006ml.docx has rendered page breaks, but none after its
+        //hard page breaks, so the title page and the contents are on page 1
+        context.set(PageRange.class, new PageRange(1, 1));
+        xml = getXML("testWORD_2006ml.docx", context).xml;
+        xml = xml.substring(xml.indexOf("<body>"));
+        assertContains("Contents", xml);
+        assertContains("over the lazy brown dog", xml);
+        assertNotContained("serious word art", xml);
+    }
+
+    @Test
+    public void testWordPageRangeExplicitBreaks() throws Exception {
+        //without rendered page breaks, the explicit ones are counted
+        ParseContext context = new ParseContext();
+        context.set(PageRange.class, new PageRange(2, 2));
+        String xml = getXML("testWORD_explicit_page_breaks.docx", context).xml;
+        xml = xml.substring(xml.indexOf("<body>"));
+        assertContains("Second page", xml);
+        assertNotContained("Third page", xml);
+
+        context.set(PageRange.class, new PageRange(3, 3));
+        xml = getXML("testWORD_explicit_page_breaks.docx", context).xml;
+        xml = xml.substring(xml.indexOf("<body>"));
+        assertNotContained("Second page", xml);
+        assertContains("Third page", xml);
+    }
+
     @Test
     public void testExcelFormats() throws Exception {
         Metadata metadata = new Metadata();
@@ -348,6 +456,19 @@ public class OOXMLParserTest extends MultiThreadedTikaTest {
 
     }
 
+    @Test
+    public void testMetadataOnly() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+        for (String file : new String[]{"testWORD.docx", "testEXCEL.xlsx", "testPPT.pptx"}) {
+            Metadata metadata = new Metadata();
+            String content = getText(file, metadata, context);
+            assertEquals("", content.trim(), file);
+            assertNotNull(metadata.get(TikaCoreProperties.TITLE), file);
+            assertNotNull(metadata.get(TikaCoreProperties.CREATOR), file);
+        }
+    }
+
     /**
      * Test the plain text output of the Word converter
      *
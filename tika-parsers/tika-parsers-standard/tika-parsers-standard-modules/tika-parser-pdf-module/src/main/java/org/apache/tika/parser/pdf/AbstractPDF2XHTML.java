@@ -108,6 +108,8 @@ import org.apache.tika.metadata.PDF;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.TikaPagedText;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.ExtractionBudget;
+import org.apache.tika.parser.PageRange;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.pdf.updates.IncrementalUpdateRecord;
@@ -1347,14 +1349,23 @@ class AbstractPDF2XHTML extends PDFTextStripper {
 
     /**
      * See TIKA-2845 for why we need to override this.
+     * <p>
+     * Pages outside of the {@link PageRange} in the parse context, if any,
+     * are skipped.
      *
      * @param pages
      * @throws IOException
      */
     @Override
     protected void processPages(PDPageTree pages) throws IOException {
+        PageRange pageRange = context.get(PageRange.class);
         for (PDPage page : pages) {
-            if (getCurrentPageNo() >= getStartPage() && getCurrentPageNo() <= getEndPage()) {
+            if (ExtractionBudget.isExhausted(context) ||
+                    (pageRange != null && pageRange.isAfterLast(getCurrentPageNo()))) {
+                break;
+            }
+            if (getCurrentPageNo() >= getStartPage() && getCurrentPageNo() <= getEndPage() &&
+                    (pageRange == null || pageRange.contains(getCurrentPageNo()))) {
                 processPage(page);
             }
             pageIndex++;
@@ -74,6 +74,7 @@ import org.apache.tika.metadata.PDF;
 import org.apache.tika.metadata.PagedText;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.PasswordProvider;
@@ -203,9 +204,17 @@ public class PDFParser implements Parser, RenderingParser, Initializable {
             checkIllustrator(pdfDocument, metadata);
             AccessChecker checker = localConfig.getAccessChecker();
             checker.check(metadata);
-            renderPagesBeforeParse(tstream, handler, metadata, context, localConfig);
+            boolean metadataOnly = MetadataOnly.isMetadataOnly(context);
+            if (!metadataOnly) {
+                renderPagesBeforeParse(tstream, handler, metadata, context, localConfig);
+            }
             if (handler != null) {
-                if (shouldHandleXFAOnly(hasXFA, localConfig)) {
+                if (metadataOnly) {
+                    //the document level metadata has been extracted above
+                    XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+                    xhtml.startDocument();
+                    xhtml.endDocument();
+                } else if (shouldHandleXFAOnly(hasXFA, localConfig)) {
                     handleXFAOnly(pdfDocument, handler, metadata, context);
                 } else if (localConfig.getOcrStrategy()
                         .equals(PDFParserConfig.OCR_STRATEGY.OCR_ONLY)) {
@@ -55,6 +55,7 @@ import org.apache.tika.extractor.DocumentSelector;
 import org.apache.tika.metadata.Font;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.PDF;
+import org.apache.tika.metadata.PagedText;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.TikaPagedText;
 import org.apache.tika.metadata.XMP;
@@ -62,6 +63,9 @@ import org.apache.tika.metadata.XMPMM;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.ExtractionBudget;
+import org.apache.tika.parser.MetadataOnly;
+import org.apache.tika.parser.PageRange;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.PasswordProvider;
@@ -1468,6 +1472,44 @@ public class PDFParserTest extends TikaTest {
         assertEquals(1, metadataList.size());
         assertEquals(1, metadataList.get(0).getInt(PDF.OCR_PAGE_COUNT));
     }
+
+    @Test
+    public void testExtractionBudget() throws Exception {
+        assertContainsCount("<div class=\"page\">", getXML("testJournalParser.pdf").xml, 10);
+
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(ExtractionBudget.class, new ExtractionBudget(100));
+        XMLResult r = getXML("testJournalParser.pdf", parseContext);
+        //the remaining pages aren't processed once the budget is spent
+        assertContainsCount("<div class=\"page\">", r.xml, 1);
+        assertEquals(10, r.metadata.getInt(PagedText.N_PAGES));
+        assertEquals("true", r.metadata.get(TikaCoreProperties.WRITE_LIMIT_REACHED));
+    }
+
+    @Test
+    public void testPageRange() throws Exception {
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(PageRange.class, new PageRange(2, 3));
+        XMLResult r = getXML("testJournalParser.pdf", parseContext);
+        assertContainsCount("<div class=\"page\">", r.xml, 2);
+        assertEquals(10, r.metadata.getInt(PagedText.N_PAGES));
+
+        parseContext.set(PageRange.class, PageRange.parse("1,10"));
+        assertContainsCount("<div class=\"page\">",
+                getXML("testJournalParser.pdf", parseContext).xml, 2);
+    }
+
+    @Test
+    public void testMetadataOnly() throws Exception {
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+        XMLResult r = getXML("testPDF.pdf", parseContext);
+        assertEquals("Apache Tika - Apache Tika", r.metadata.get(TikaCoreProperties.TITLE));
+        assertEquals(1, r.metadata.getInt(PagedText.N_PAGES));
+        assertNotContained("<div class=\"page\">", r.xml);
+        assertNotContained("Tika", r.xml.substring(r.xml.indexOf("<body")));
+    }
+
     /**
      * TODO -- need to test signature extraction
      */
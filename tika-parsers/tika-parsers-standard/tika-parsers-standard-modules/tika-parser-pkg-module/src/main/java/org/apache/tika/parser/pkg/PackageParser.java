@@ -32,6 +32,7 @@ import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -53,6 +54,7 @@ import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException;
 import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException.Feature;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.commons.io.input.UnsynchronizedByteArrayInputStream;
 import org.xml.sax.ContentHandler;
@@ -71,6 +73,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractEncodingDetectorParser;
+import org.apache.tika.parser.ExtractionBudget;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.PasswordProvider;
 import org.apache.tika.sax.XHTMLContentHandler;
@@ -234,6 +237,8 @@ public class PackageParser extends AbstractEncodingDetectorParser {
 
     private boolean detectCharsetsInEntryNames = true;
 
+    private boolean randomAccessZip = false;
+
     public PackageParser() {
         super();
     }
@@ -267,6 +272,10 @@ public class PackageParser extends AbstractEncodingDetectorParser {
             throws TikaException, IOException, SAXException {
         ArchiveInputStream ais = null;
         String encoding = null;
+        if ((randomAccessZip || isFetchedInRanges(stream)) &&
+                parseZipFile(stream, handler, metadata, context)) {
+            return;
+        }
         try {
             ArchiveStreamFactory factory =
                     context.get(ArchiveStreamFactory.class, new ArchiveStreamFactory());
@@ -333,7 +342,7 @@ public class PackageParser extends AbstractEncodingDetectorParser {
         //this keeps track of how many entries were processed.
         AtomicInteger entryCnt = new AtomicInteger();
         try {
-            parseEntries(ais, metadata, extractor, xhtml, false, entryCnt);
+            parseEntries(ais, metadata, extractor, xhtml, false, entryCnt, context);
         } catch (UnsupportedZipFeatureException zfe) {
             // If this is a zip archive which requires a data descriptor, parse it again
             if (zfe.getFeature() == Feature.DATA_DESCRIPTOR) {
@@ -343,7 +352,7 @@ public class PackageParser extends AbstractEncodingDetectorParser {
                 stream.reset();
                 ais = new ZipArchiveInputStream(CloseShieldInputStream.wrap(stream), encoding, true,
                         true);
-                parseEntries(ais, metadata, extractor, xhtml, true, entryCnt);
+                parseEntries(ais, metadata, extractor, xhtml, true, entryCnt, context);
             }
         } finally {
             ais.close();
@@ -352,6 +361,98 @@ public class PackageParser extends AbstractEncodingDetectorParser {
         }
     }
 
+    /**
+     * Streaming a zip that is fetched in ranges would fetch all of it, so
+     * that is always read via its central directory.
+     */
+    private static boolean isFetchedInRanges(InputStream stream) {
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        return tis != null && !tis.hasFile() && tis.hasSeekableByteChannel();
+    }
+
+    /**
+     * If the stream is backed by a file or a channel that is fetched in
+     * ranges and it is a zip, this opens the zip via its central directory
+     * and hands each entry to the embedded parser as a bounded stream over
+     * the file rather than spooling a copy of it.
+     *
+     * @return <code>true</code> if the zip was parsed, <code>false</code> if the
+     * caller should fall back to streaming
+     */
+    private boolean parseZipFile(InputStream stream, ContentHandler handler, Metadata metadata,
+                                 ParseContext context)
+            throws TikaException, IOException, SAXException {
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        if (tis == null || !tis.hasSeekableByteChannel()) {
+            return false;
+        }
+        try {
+            if (!ArchiveStreamFactory.ZIP.equals(ArchiveStreamFactory.detect(tis))) {
+                return false;
+            }
+        } catch (ArchiveException e) {
+            return false;
+        }
+        ArchiveStreamFactory factory =
+                context.get(ArchiveStreamFactory.class, new ArchiveStreamFactory());
+        String encoding = factory.getEntryEncoding();
+
+        //the zip detector may have left an open ZipFile; reuse it
+        //unless the user has requested a specific entry encoding
+        ZipFile zip = null;
+        boolean closeZip = false;
+        if (encoding == null && tis.getOpenContainer() instanceof ZipFile) {
+            zip = (ZipFile) tis.getOpenContainer();
+        } else {
+            try {
+                ZipFile.Builder builder = ZipFile.builder();
+                if (tis.hasFile()) {
+                    builder.setFile(tis.getFile());
+                } else {
+                    builder.setSeekableByteChannel(tis.getSeekableByteChannel());
+                }
+                if (encoding != null) {
+                    builder.setCharset(encoding);
+                }
+                zip = builder.get();
+                closeZip = true;
+            } catch (IOException e) {
+                //corrupt or truncated central directory, try to salvage what
+                //we can by streaming
+                return false;
+            }
+        }
+        try {
+            updateMediaType(ZIP, metadata);
+            EmbeddedDocumentExtractor extractor =
+                    EmbeddedDocumentUtil.getEmbeddedDocumentExtractor(context);
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            try {
+                Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+                while (entries.hasMoreElements() && !ExtractionBudget.isExhausted(context)) {
+                    ZipArchiveEntry entry = entries.nextElement();
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    boolean canRead = zip.canReadEntryData(entry);
+                    try (InputStream entryStream = canRead ? zip.getInputStream(entry) : null) {
+                        parseEntry(entryStream, canRead, entry, extractor, metadata, xhtml);
+                    } catch (PasswordRequiredException e) {
+                        throw new EncryptedDocumentException(e);
+                    }
+                }
+            } finally {
+                xhtml.endDocument();
+            }
+        } finally {
+            if (closeZip) {
+                zip.close();
+            }
+        }
+        return true;
+    }
+
     /**
      * Parse the entries of the zip archive
      *
@@ -361,17 +462,21 @@ public class PackageParser extends AbstractEncodingDetectorParser {
      * @param xhtml                   the xhtml handler
      * @param shouldUseDataDescriptor indicates if a data descriptor is required or not
      * @param entryCnt                index of the entry
+     * @param context                 parse context, entries are no longer
+     *                                parsed once its {@link ExtractionBudget}
+     *                                is exhausted
      * @throws TikaException if the document could not be parsed
      * @throws IOException   if a UnsupportedZipFeatureException is met
      * @throws SAXException  if the SAX events could not be processed
      */
     private void parseEntries(ArchiveInputStream ais, Metadata metadata,
                               EmbeddedDocumentExtractor extractor, XHTMLContentHandler xhtml,
-                              boolean shouldUseDataDescriptor, AtomicInteger entryCnt)
+                              boolean shouldUseDataDescriptor, AtomicInteger entryCnt,
+                              ParseContext context)
             throws TikaException, IOException, SAXException {
         try {
             ArchiveEntry entry = ais.getNextEntry();
-            while (entry != null) {
+            while (entry != null && !ExtractionBudget.isExhausted(context)) {
                 if (shouldUseDataDescriptor && entryCnt.get() > 0) {
                     // With shouldUseDataDescriptor being true, we are reading
                     // the zip once again. The number of entryCnt entries have
@@ -413,7 +518,10 @@ public class PackageParser extends AbstractEncodingDetectorParser {
     }
 
     private void updateMediaType(ArchiveInputStream ais, Metadata metadata) {
-        MediaType type = getMediaType(ais);
+        updateMediaType(getMediaType(ais), metadata);
+    }
+
+    private void updateMediaType(MediaType type, Metadata metadata) {
         if (type.equals(MediaType.OCTET_STREAM)) {
             return;
         }
@@ -441,6 +549,14 @@ public class PackageParser extends AbstractEncodingDetectorParser {
                             EmbeddedDocumentExtractor extractor, Metadata parentMetadata,
                             XHTMLContentHandler xhtml)
             throws SAXException, IOException, TikaException {
+        parseEntry(archive, archive.canReadEntryData(entry), entry, extractor, parentMetadata,
+                xhtml);
+    }
+
+    private void parseEntry(InputStream entryStream, boolean canReadEntryData, ArchiveEntry entry,
+                            EmbeddedDocumentExtractor extractor, Metadata parentMetadata,
+                            XHTMLContentHandler xhtml)
+            throws SAXException, IOException, TikaException {
         String name = entry.getName();
         
         //Try to detect charset of archive entry in case of non-unicode filename is used
@@ -465,7 +581,7 @@ public class PackageParser extends AbstractEncodingDetectorParser {
             }
         }
         
-        if (archive.canReadEntryData(entry)) {
+        if (canReadEntryData) {
             // Fetch the metadata on the entry contained in the archive
             Metadata entrydata =
                     handleEntryMetadata(name, null, entry.getLastModifiedDate(), entry.getSize(),
@@ -477,7 +593,7 @@ public class PackageParser extends AbstractEncodingDetectorParser {
                 // InputStream, which ArchiveInputStream isn't, so wrap
                 TemporaryResources tmp = new TemporaryResources();
                 try {
-                    TikaInputStream tis = TikaInputStream.get(archive, tmp, entrydata);
+                    TikaInputStream tis = TikaInputStream.get(entryStream, tmp, entrydata);
                     extractor.parseEmbedded(tis, xhtml, entrydata, true);
                 } finally {
                     tmp.dispose();
@@ -563,4 +679,25 @@ public class PackageParser extends AbstractEncodingDetectorParser {
     public boolean isDetectCharsetsInEntryNames() {
         return detectCharsetsInEntryNames;
     }
+
+    /**
+     * If the input is a zip file that is already on disk (e.g. a
+     * {@link TikaInputStream} backed by a file), read the entries via the
+     * central directory and hand each embedded parser a bounded stream over
+     * the entry instead of spooling it. Falls back to streaming if the
+     * central directory can't be read. The default is <code>false</code>.
+     * Zips that are fetched in ranges, see
+     * {@link TikaInputStream#getSeekableByteChannel()}, are always read
+     * this way.
+     *
+     * @param randomAccessZip
+     */
+    @Field
+    public void setRandomAccessZip(boolean randomAccessZip) {
+        this.randomAccessZip = randomAccessZip;
+    }
+
+    public boolean isRandomAccessZip() {
+        return randomAccessZip;
+    }
 }
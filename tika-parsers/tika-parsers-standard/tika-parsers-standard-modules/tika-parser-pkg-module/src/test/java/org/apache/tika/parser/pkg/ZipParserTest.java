@@ -16,6 +16,7 @@
  */
 package org.apache.tika.parser.pkg;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -23,19 +24,34 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.junit.jupiter.api.Test;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 import org.apache.tika.Tika;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ExtractionBudget;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.pipes.fetcher.RangeFetcher;
+import org.apache.tika.pipes.fetcher.RangeFetcherChannel;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ExtractionBudgetContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
 
 /**
  * Test case for parsing zip files.
@@ -159,4 +175,127 @@ public class ZipParserTest extends AbstractPkgTest {
             assertEquals(4, tracker.lastSeenStart[3]);
         }
     }
+
+    @Test
+    public void testRandomAccessZip() throws Exception {
+        PackageParser parser = new PackageParser();
+        parser.setRandomAccessZip(true);
+        Metadata metadata = new Metadata();
+        try (InputStream stream = TikaInputStream.get(
+                getResourceAsFile("/test-documents/testZip_with_DataDescriptor.zip").toPath())) {
+            parser.parse(stream, new BodyContentHandler(), metadata, trackingContext);
+        }
+        assertEquals("application/zip", metadata.get(Metadata.CONTENT_TYPE));
+        assertEquals(5, tracker.filenames.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("en" + i, tracker.filenames.get(i));
+        }
+        assertEquals(4, tracker.lastSeenStart[3]);
+
+        tracker.reset();
+        try (InputStream stream = TikaInputStream.get(
+                getResourceAsFile("/test-documents/test-documents.zip").toPath())) {
+            parser.parse(stream, new BodyContentHandler(), new Metadata(), trackingContext);
+        }
+        assertEquals(9, tracker.filenames.size());
+        assertEquals("testEXCEL.xls", tracker.filenames.get(0));
+        assertEquals("testXML.xml", tracker.filenames.get(8));
+        for (String mod : tracker.modifiedAts) {
+            assertNotNull(mod);
+        }
+    }
+
+    @Test
+    public void testZipFetchedInRanges() throws Exception {
+        byte[] big = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(big);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(bos)) {
+            zos.putArchiveEntry(new ZipArchiveEntry("big.bin"));
+            zos.write(big);
+            zos.closeArchiveEntry();
+            zos.putArchiveEntry(new ZipArchiveEntry("small.xml"));
+            zos.write("<?xml version=\"1.0\"?><root>small</root>".getBytes(UTF_8));
+            zos.closeArchiveEntry();
+        }
+        byte[] zip = bos.toByteArray();
+        RangeFetcherChannel channel = RangeFetcherChannel.open(new ArrayRangeFetcher(zip),
+                "key", new Metadata(), new ParseContext(), 64 * 1024, 16);
+        Metadata metadata = new Metadata();
+        try (TikaInputStream tis = TikaInputStream.get(channel, metadata)) {
+            AUTO_DETECT_PARSER.parse(tis, new BodyContentHandler(), metadata, trackingContext);
+        }
+        assertEquals("application/zip", metadata.get(Metadata.CONTENT_TYPE));
+        assertEquals(Arrays.asList("big.bin", "small.xml"), tracker.filenames);
+        assertTrue(new String(tracker.lastSeenStart, UTF_8).startsWith("<?xml"));
+        //the start, the central directory and the start of each entry
+        assertTrue(channel.getFetchedBytes() < zip.length / 10, "fetched " +
+                channel.getFetchedBytes() + " of " + zip.length);
+    }
+
+    @Test
+    public void testExtractionBudget() throws Exception {
+        EmbeddedTrackingParser writingTracker = new EmbeddedTrackingParser() {
+            @Override
+            public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                              ParseContext context)
+                    throws IOException, SAXException, TikaException {
+                super.parse(stream, handler, metadata, context);
+                XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+                xhtml.startDocument();
+                xhtml.element("p", "0123456789");
+                xhtml.endDocument();
+            }
+        };
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, writingTracker);
+        context.set(ExtractionBudget.class, new ExtractionBudget(100));
+        BodyContentHandler handler = new BodyContentHandler();
+        try (InputStream stream = getResourceAsStream("/test-documents/test-documents.zip")) {
+            AUTO_DETECT_PARSER.parse(stream, handler, new Metadata(), context);
+        }
+        //the entries after the one that spent the budget aren't parsed
+        assertEquals(4, writingTracker.filenames.size());
+        assertEquals(100, handler.toString().length());
+
+        writingTracker.reset();
+        PackageParser parser = new PackageParser();
+        parser.setRandomAccessZip(true);
+        ExtractionBudget budget = new ExtractionBudget(100);
+        context.set(ExtractionBudget.class, budget);
+        try (InputStream stream = TikaInputStream.get(
+                getResourceAsFile("/test-documents/test-documents.zip").toPath())) {
+            parser.parse(stream, new ExtractionBudgetContentHandler(new BodyContentHandler(),
+                    budget, context), new Metadata(), context);
+        }
+        assertEquals(4, writingTracker.filenames.size());
+    }
+
+    private static class ArrayRangeFetcher implements RangeFetcher {
+
+        private final byte[] data;
+
+        ArrayRangeFetcher(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public String getName() {
+            return "array";
+        }
+
+        @Override
+        public InputStream fetch(String fetchKey, Metadata metadata, ParseContext parseContext) {
+            return new ByteArrayInputStream(data);
+        }
+
+        @Override
+        public InputStream fetch(String fetchKey, long startOffset, long endOffset,
+                                 Metadata metadata, ParseContext parseContext) {
+            long end = Math.min(endOffset, data.length - 1);
+            metadata.set(TOTAL_LENGTH, Integer.toString(data.length));
+            return new ByteArrayInputStream(data, (int) startOffset,
+                    (int) (end - startOffset + 1));
+        }
+    }
 }
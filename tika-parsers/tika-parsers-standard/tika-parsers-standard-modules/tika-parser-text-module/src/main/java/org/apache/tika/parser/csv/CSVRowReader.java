@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.csv;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads csv cells following the same rules as
+ * {@link org.apache.commons.csv.CSVFormat#EXCEL}: cells may be encapsulated
+ * in double quotes with <code>""</code> as an escaped quote, anything between
+ * a closing quote and the next delimiter is kept, and the end of the file
+ * ends an encapsulated cell.
+ * <p>
+ * Unlike the commons-csv parser, this doesn't create a String per cell or
+ * a record per row.  Each cell is read into a buffer that is reused for
+ * the next cell.
+ */
+class CSVRowReader {
+
+    /**
+     * There are no more cells.
+     */
+    static final int EOF = -1;
+
+    /**
+     * A cell that is followed by more cells in the same row.
+     */
+    static final int CELL = 0;
+
+    /**
+     * The last cell in a row.
+     */
+    static final int LAST_CELL = 1;
+
+    private static final int QUOTE = '"';
+
+    private final Reader reader;
+
+    private final char delimiter;
+
+    private final char[] buffer = new char[8192];
+
+    private int position = 0;
+
+    private int limit = 0;
+
+    private boolean eof = false;
+
+    private char[] cell = new char[256];
+
+    private int cellLength = 0;
+
+    private boolean startOfRow = true;
+
+    CSVRowReader(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next cell, which is then available via {@link #getCell()}
+     * and {@link #getCellLength()} until the next call.
+     *
+     * @return {@link #CELL}, {@link #LAST_CELL} or {@link #EOF}
+     * @throws IOException on read errors
+     */
+    int next() throws IOException {
+        cellLength = 0;
+        int c = read();
+        if (c == -1) {
+            //a row that ends in a delimiter has an empty last cell
+            return startOfRow ? EOF : endRow();
+        }
+        if (c == QUOTE) {
+            while (true) {
+                c = read();
+                if (c == -1) {
+                    return endRow();
+                } else if (c == QUOTE) {
+                    c = read();
+                    if (c != QUOTE) {
+                        break;
+                    }
+                }
+                append(c);
+            }
+            //and on to whatever is left up to the next delimiter
+        }
+        while (true) {
+            if (c == -1 || c == '\n') {
+                return endRow();
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    position++;
+                }
+                return endRow();
+            } else if (c == delimiter) {
+                startOfRow = false;
+                return CELL;
+            }
+            append(c);
+            c = read();
+        }
+    }
+
+    char[] getCell() {
+        return cell;
+    }
+
+    int getCellLength() {
+        return cellLength;
+    }
+
+    private int endRow() {
+        startOfRow = true;
+        return LAST_CELL;
+    }
+
+    private void append(int c) {
+        if (cellLength == cell.length) {
+            char[] grown = new char[cell.length * 2];
+            System.arraycopy(cell, 0, grown, 0, cellLength);
+            cell = grown;
+        }
+        cell[cellLength++] = (char) c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int n = reader.read(buffer, 0, buffer.length);
+        while (n == 0) {
+            n = reader.read(buffer, 0, buffer.length);
+        }
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+}
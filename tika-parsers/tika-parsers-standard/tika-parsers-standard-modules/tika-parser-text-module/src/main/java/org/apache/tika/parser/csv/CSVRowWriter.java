@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.csv;
+
+import org.xml.sax.SAXException;
+
+import org.apache.tika.sax.XHTMLContentHandler;
+
+/**
+ * Writes the rows of a csv to xhtml, either as a table or as delimited text.
+ */
+abstract class CSVRowWriter {
+
+    final XHTMLContentHandler xhtml;
+
+    CSVRowWriter(XHTMLContentHandler xhtml) {
+        this.xhtml = xhtml;
+    }
+
+    abstract void start() throws SAXException;
+
+    abstract void startRow() throws SAXException;
+
+    abstract void cell(char[] chars, int offset, int length) throws SAXException;
+
+    abstract void endRow() throws SAXException;
+
+    abstract void end() throws SAXException;
+
+    /**
+     * A table with a row per csv row and a cell per csv cell.
+     */
+    static class Table extends CSVRowWriter {
+
+        private static final String TD = "td";
+        private static final String TR = "tr";
+        private static final String TABLE = "table";
+
+        Table(XHTMLContentHandler xhtml) {
+            super(xhtml);
+        }
+
+        @Override
+        void start() throws SAXException {
+            xhtml.startElement(TABLE);
+        }
+
+        @Override
+        void startRow() throws SAXException {
+            xhtml.startElement(TR);
+        }
+
+        @Override
+        void cell(char[] chars, int offset, int length) throws SAXException {
+            xhtml.startElement(TD);
+            if (length > 0) {
+                xhtml.characters(chars, offset, length);
+            }
+            xhtml.endElement(TD);
+        }
+
+        @Override
+        void endRow() throws SAXException {
+            xhtml.endElement(TR);
+        }
+
+        @Override
+        void end() throws SAXException {
+            xhtml.endElement(TABLE);
+        }
+    }
+
+    /**
+     * The csv as text in a <code>pre</code> element: one line per row and
+     * cells separated by the delimiter, in double quotes if needed.  Several
+     * rows are written with a single <code>characters</code> call.
+     */
+    static class DelimitedText extends CSVRowWriter {
+
+        private static final String PRE = "pre";
+
+        private static final int FLUSH_THRESHOLD = 8192;
+
+        private final char delimiter;
+
+        private char[] text = new char[FLUSH_THRESHOLD * 2];
+
+        private int length = 0;
+
+        private boolean firstCell = true;
+
+        DelimitedText(XHTMLContentHandler xhtml, char delimiter) {
+            super(xhtml);
+            this.delimiter = delimiter;
+        }
+
+        @Override
+        void start() throws SAXException {
+            xhtml.startElement(PRE);
+        }
+
+        @Override
+        void startRow() throws SAXException {
+            firstCell = true;
+        }
+
+        @Override
+        void cell(char[] chars, int offset, int length) throws SAXException {
+            if (!firstCell) {
+                append(delimiter);
+            }
+            firstCell = false;
+            if (needsQuotes(chars, offset, length)) {
+                append('"');
+                for (int i = offset; i < offset + length; i++) {
+                    if (chars[i] == '"') {
+                        append('"');
+                    }
+                    append(chars[i]);
+                }
+                append('"');
+            } else {
+                ensureCapacity(length);
+                System.arraycopy(chars, offset, text, this.length, length);
+                this.length += length;
+            }
+        }
+
+        @Override
+        void endRow() throws SAXException {
+            append('\n');
+            if (length >= FLUSH_THRESHOLD) {
+                flush();
+            }
+        }
+
+        @Override
+        void end() throws SAXException {
+            flush();
+            xhtml.endElement(PRE);
+        }
+
+        private boolean needsQuotes(char[] chars, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                char c = chars[i];
+                if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void append(char c) {
+            ensureCapacity(1);
+            text[length++] = c;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > text.length) {
+                char[] grown = new char[Math.max(text.length * 2, length + extra)];
+                System.arraycopy(text, 0, grown, 0, length);
+                text = grown;
+            }
+        }
+
+        private void flush() throws SAXException {
+            if (length > 0) {
+                xhtml.characters(text, 0, length);
+                length = 0;
+            }
+        }
+    }
+}
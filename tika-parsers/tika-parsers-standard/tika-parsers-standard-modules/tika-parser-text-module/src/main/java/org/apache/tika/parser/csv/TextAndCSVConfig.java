@@ -41,6 +41,11 @@ public class TextAndCSVConfig implements Serializable {
     private Map<String, Character> nameToDelimiterMap = NAME_TO_DELIMITER_MAP;
     private Map<Character, String> delimiterToNameMap = DELIMITER_TO_NAME_MAP;
 
+    private boolean streaming = false;
+    private int maxRows = -1;
+    private int maxColumns = -1;
+    private boolean delimitedTextOutput = false;
+
     public Map<String, Character> getNameToDelimiterMap() {
         return nameToDelimiterMap;
     }
@@ -55,4 +60,56 @@ public class TextAndCSVConfig implements Serializable {
         nameToDelimiterMap.entrySet()
                           .forEach(e -> delimiterToNameMap.put(e.getValue(), e.getKey()));
     }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * If <code>true</code>, csv/tsv files are read with a lightweight reader
+     * that reuses its buffers instead of with commons-csv.  It follows the
+     * same rules as commons-csv's EXCEL format.
+     *
+     * @param streaming whether or not to use the lightweight reader
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * @param maxRows maximum number of rows to read, <code>-1</code> for no limit
+     */
+    public void setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    public int getMaxColumns() {
+        return maxColumns;
+    }
+
+    /**
+     * @param maxColumns maximum number of cells to write per row,
+     *                   <code>-1</code> for no limit
+     */
+    public void setMaxColumns(int maxColumns) {
+        this.maxColumns = maxColumns;
+    }
+
+    public boolean isDelimitedTextOutput() {
+        return delimitedTextOutput;
+    }
+
+    /**
+     * If <code>true</code>, csv/tsv files are written as delimited text in
+     * a <code>pre</code> element instead of as a table with an element per cell.
+     *
+     * @param delimitedTextOutput whether or not to write delimited text
+     */
+    public void setDelimitedTextOutput(boolean delimitedTextOutput) {
+        this.delimitedTextOutput = delimitedTextOutput;
+    }
 }
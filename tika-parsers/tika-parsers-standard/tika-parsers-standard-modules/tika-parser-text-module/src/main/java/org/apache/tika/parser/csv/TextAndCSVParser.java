@@ -92,9 +92,14 @@ public class TextAndCSVParser extends AbstractEncodingDetectorParser {
     public static final Property NUM_ROWS = Property.externalInteger(
             CSV_PREFIX + TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER + "num_rows");
 
-    private static final String TD = "td";
-    private static final String TR = "tr";
-    private static final String TABLE = "table";
+    /**
+     * If the file is detected as a csv/tsv, whether rows or cells were skipped
+     * because of the maximum number of rows or columns.  If rows were skipped,
+     * {@link #NUM_ROWS} is not set.
+     */
+    public static final Property TRUNCATED = Property.externalBoolean(
+            CSV_PREFIX + TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER + "truncated");
+
     private static final int DEFAULT_MARK_LIMIT = 20000;
 
     private static final Set<MediaType> SUPPORTED_TYPES = Collections
@@ -184,29 +189,59 @@ public class TextAndCSVParser extends AbstractEncodingDetectorParser {
         metadata.set(DELIMITER_PROPERTY, textAndCSVConfig.getDelimiterToNameMap().get(csvFormat.getDelimiterString().charAt(0)));
 
         XHTMLContentHandler xhtmlContentHandler = new XHTMLContentHandler(handler, metadata);
+        CSVRowWriter rowWriter = textAndCSVConfig.isDelimitedTextOutput() ?
+                new CSVRowWriter.DelimitedText(xhtmlContentHandler, params.getDelimiter()) :
+                new CSVRowWriter.Table(xhtmlContentHandler);
+        if (textAndCSVConfig.isStreaming()) {
+            xhtmlContentHandler.startDocument();
+            rowWriter.start();
+            parseRows(new CSVRowReader(reader, params.getDelimiter()), rowWriter,
+                    textAndCSVConfig, metadata);
+            rowWriter.end();
+            xhtmlContentHandler.endDocument();
+            return;
+        }
         int totalRows = 0;
+        int maxRows = textAndCSVConfig.getMaxRows();
+        int maxColumns = textAndCSVConfig.getMaxColumns();
+        char[] cellChars = new char[256];
         try (CSVParser commonsParser = CSVParser.builder().setReader(reader).setFormat(csvFormat).get()) {
             xhtmlContentHandler.startDocument();
-            xhtmlContentHandler.startElement(TABLE);
+            rowWriter.start();
             int firstRowColCount = 0;
             try {
+                boolean hitMaxRows = false;
                 for (CSVRecord row : commonsParser) {
-                    xhtmlContentHandler.startElement(TR);
+                    if (maxRows > -1 && totalRows >= maxRows) {
+                        metadata.set(TRUNCATED, true);
+                        hitMaxRows = true;
+                        break;
+                    }
+                    rowWriter.startRow();
+                    int colCount = 0;
                     for (String cell : row) {
                         if (totalRows == 0) {
                             firstRowColCount++;
                         }
-                        xhtmlContentHandler.startElement(TD);
-                        xhtmlContentHandler.characters(cell);
-                        xhtmlContentHandler.endElement(TD);
+                        if (maxColumns > -1 && colCount++ >= maxColumns) {
+                            metadata.set(TRUNCATED, true);
+                            continue;
+                        }
+                        if (cell.length() > cellChars.length) {
+                            cellChars = new char[cell.length()];
+                        }
+                        cell.getChars(0, cell.length(), cellChars, 0);
+                        rowWriter.cell(cellChars, 0, cell.length());
                     }
-                    xhtmlContentHandler.endElement(TR);
+                    rowWriter.endRow();
                     if (totalRows == 0) {
                         metadata.set(NUM_COLUMNS, firstRowColCount);
                     }
                     totalRows++;
                 }
-                metadata.set(NUM_ROWS, totalRows);
+                if (!hitMaxRows) {
+                    metadata.set(NUM_ROWS, totalRows);
+                }
             } catch (UncheckedIOException e) {
                 if (e.getCause() != null && e.getCause().getMessage() != null &&
                         e.getCause().getMessage().contains("encapsulated")) {
@@ -214,7 +249,7 @@ public class TextAndCSVParser extends AbstractEncodingDetectorParser {
                     //try to get the rest of the content...treat it as text for now
                     //There will be some content lost because of buffering.
                     //TODO -- figure out how to improve this
-                    xhtmlContentHandler.endElement(TABLE);
+                    rowWriter.end();
                     xhtmlContentHandler.startElement("div", "name", "after exception");
                     handleText(reader, xhtmlContentHandler);
                     xhtmlContentHandler.endElement("div");
@@ -230,11 +265,46 @@ public class TextAndCSVParser extends AbstractEncodingDetectorParser {
                 }
             }
 
-            xhtmlContentHandler.endElement(TABLE);
+            rowWriter.end();
             xhtmlContentHandler.endDocument();
         }
     }
 
+    private void parseRows(CSVRowReader rowReader, CSVRowWriter rowWriter,
+                           TextAndCSVConfig textAndCSVConfig, Metadata metadata)
+            throws IOException, SAXException {
+        int maxRows = textAndCSVConfig.getMaxRows();
+        int maxColumns = textAndCSVConfig.getMaxColumns();
+        int totalRows = 0;
+        int colCount = 0;
+        int state = rowReader.next();
+        while (state != CSVRowReader.EOF) {
+            if (colCount == 0) {
+                if (maxRows > -1 && totalRows >= maxRows) {
+                    metadata.set(TRUNCATED, true);
+                    return;
+                }
+                rowWriter.startRow();
+            }
+            if (maxColumns > -1 && colCount >= maxColumns) {
+                metadata.set(TRUNCATED, true);
+            } else {
+                rowWriter.cell(rowReader.getCell(), 0, rowReader.getCellLength());
+            }
+            colCount++;
+            if (state == CSVRowReader.LAST_CELL) {
+                rowWriter.endRow();
+                if (totalRows == 0) {
+                    metadata.set(NUM_COLUMNS, colCount);
+                }
+                totalRows++;
+                colCount = 0;
+            }
+            state = rowReader.next();
+        }
+        metadata.set(NUM_ROWS, totalRows);
+    }
+
     private void handleText(Reader reader, Charset charset, ContentHandler handler,
                             Metadata metadata) throws SAXException, IOException, TikaException {
         // Automatically detect the character encoding
@@ -365,6 +435,54 @@ public class TextAndCSVParser extends AbstractEncodingDetectorParser {
         metadata.set(Metadata.CONTENT_TYPE, type.toString());
     }
 
+    /**
+     * See {@link TextAndCSVConfig#setStreaming(boolean)}.
+     */
+    @Field
+    public void setStreaming(boolean streaming) {
+        defaultTextAndCSVConfig.setStreaming(streaming);
+    }
+
+    public boolean isStreaming() {
+        return defaultTextAndCSVConfig.isStreaming();
+    }
+
+    @Field
+    public void setMaxRows(int maxRows) throws TikaConfigException {
+        if (maxRows < -1) {
+            throw new TikaConfigException("maxRows must be >= -1: " + maxRows);
+        }
+        defaultTextAndCSVConfig.setMaxRows(maxRows);
+    }
+
+    public int getMaxRows() {
+        return defaultTextAndCSVConfig.getMaxRows();
+    }
+
+    @Field
+    public void setMaxColumns(int maxColumns) throws TikaConfigException {
+        if (maxColumns < -1) {
+            throw new TikaConfigException("maxColumns must be >= -1: " + maxColumns);
+        }
+        defaultTextAndCSVConfig.setMaxColumns(maxColumns);
+    }
+
+    public int getMaxColumns() {
+        return defaultTextAndCSVConfig.getMaxColumns();
+    }
+
+    /**
+     * See {@link TextAndCSVConfig#setDelimitedTextOutput(boolean)}.
+     */
+    @Field
+    public void setDelimitedTextOutput(boolean delimitedTextOutput) {
+        defaultTextAndCSVConfig.setDelimitedTextOutput(delimitedTextOutput);
+    }
+
+    public boolean isDelimitedTextOutput() {
+        return defaultTextAndCSVConfig.isDelimitedTextOutput();
+    }
+
     @Field
     public void setNameToDelimiterMap(Map<String, String> map) throws TikaConfigException {
         Map<String, Character> m = new HashMap<>();
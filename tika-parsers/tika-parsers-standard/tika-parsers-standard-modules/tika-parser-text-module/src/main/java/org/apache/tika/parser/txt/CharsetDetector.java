@@ -120,10 +120,14 @@ public class CharsetDetector {
     // removed if appropriate.
     private final int kBufSize;
     int fInputLen;          // Length of the byte data in fInputBytes.
-    short[] fByteStats =      // byte frequency statistics for the input text.
-            new short[256];  //   Value is percent, not absolute.
+    int[] fByteStats =      // byte frequency statistics for the input text.
+            new int[256];  //   Value is percent, not absolute.
     boolean fC1Bytes =          // True if any bytes in the range 0x80 - 0x9F are in the input;
             false;
+    boolean fRawHighBytes =     // True if any bytes in the range 0x80 - 0xFF are in the
+            false;              //   raw input.  If not, the multi-byte scans can be skipped.
+    CharsetRecog_sbcs.NGramHistogram fNGramHistogram; // ngram counts of the input text,
+    //   shared by the single byte recognizers.
     String fDeclaredEncoding;
     byte[] fRawInput;     // Original, untouched input bytes.
     //  If user gave us a byte array, this is it.
@@ -136,6 +140,8 @@ public class CharsetDetector {
     //
     private boolean fStripTags =   // If true, setText() will strip tags from input text.
             false;
+    private byte[] fStreamBuffer;  // Buffer that setText(InputStream) reads into, reused
+    //   from one call to the next.
     private boolean[] fEnabledRecognizers;   // If not null, active set of charset recognizers had
 
     /**
@@ -152,6 +158,28 @@ public class CharsetDetector {
         fInputBytes = new byte[kBufSize];
     }
 
+    int getMarkLimit() {
+        return kBufSize;
+    }
+
+    /**
+     * Drops the input text and the declared encoding, but keeps the buffers,
+     * so that this detector can be reused for unrelated input.
+     *
+     * @return This CharsetDetector
+     */
+    CharsetDetector reset() {
+        fDeclaredEncoding = null;
+        fInputStream = null;
+        fRawInput = null;
+        fRawLength = 0;
+        fInputLen = 0;
+        if (fNGramHistogram != null) {
+            fNGramHistogram.clear();
+        }
+        return this;
+    }
+
     /**
      * Get the names of all charsets supported by <code>CharsetDetector</code> class.
      * <p>
@@ -231,9 +259,13 @@ public class CharsetDetector {
     public CharsetDetector setText(InputStream in) throws IOException {
         fInputStream = in;
         fInputStream.mark(kBufSize);
-        byte[] inputBytes = new byte[kBufSize];   // Always make a new buffer because the
-        //   previous one may have come from the caller,
-        //   in which case we can't touch it.
+        if (fStreamBuffer == null) {
+            // Don't reuse fRawInput, it may have come from the caller,
+            //   in which case we can't touch it.  CharsetMatches don't hold
+            //   on to the head of a stream, so this buffer is ours to reuse.
+            fStreamBuffer = new byte[kBufSize];
+        }
+        byte[] inputBytes = fStreamBuffer;
         long bytesRead = -1;
         try {
             bytesRead = IOUtils.read(fInputStream, inputBytes);
@@ -247,6 +279,9 @@ public class CharsetDetector {
         if (bytesRead < 1) {
             return setText(new byte[0]);
         } else if (kBufSize > bytesRead) {
+            // Some recognizers look past the length of the input, clear
+            //   whatever an earlier stream left there.
+            Arrays.fill(inputBytes, (int) bytesRead, kBufSize, (byte) 0);
             return setText(inputBytes, (int) bytesRead);
         } else {
             return setText(inputBytes);
@@ -513,7 +548,7 @@ public class CharsetDetector {
         // Tally up the byte occurence statistics.
         //   These are available for use by the various detectors.
         //
-        Arrays.fill(fByteStats, (short) 0);
+        Arrays.fill(fByteStats, 0);
         for (srci = 0; srci < fInputLen; srci++) {
             int val = fInputBytes[srci] & 0x00ff;
             fByteStats[val]++;
@@ -526,6 +561,18 @@ public class CharsetDetector {
                 break;
             }
         }
+
+        fRawHighBytes = false;
+        for (srci = 0; srci < fRawLength; srci++) {
+            if (fRawInput[srci] < 0) {
+                fRawHighBytes = true;
+                break;
+            }
+        }
+
+        if (fNGramHistogram != null) {
+            fNGramHistogram.clear();
+        }
     }
 
     /**
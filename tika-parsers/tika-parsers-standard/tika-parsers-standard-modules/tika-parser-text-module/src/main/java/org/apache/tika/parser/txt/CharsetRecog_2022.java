@@ -94,6 +94,17 @@ abstract class CharsetRecog_2022 extends CharsetRecognizer {
     }
 
 
+    /**
+     * Skips the scan if there isn't a single escape in the text, there
+     * can't be any escape sequences then.
+     */
+    int match(CharsetDetector det, byte[][] escapeSequences) {
+        if (det.fByteStats[0x1b] == 0) {
+            return 0;
+        }
+        return match(det.fInputBytes, det.fInputLen, escapeSequences);
+    }
+
     static class CharsetRecog_2022JP extends CharsetRecog_2022 {
         private byte[][] escapeSequences = {{0x1b, 0x24, 0x28, 0x43},   // KS X 1001:1992
                 {0x1b, 0x24, 0x28, 0x44},   // JIS X 212-1990
@@ -114,7 +125,7 @@ abstract class CharsetRecog_2022 extends CharsetRecognizer {
         }
 
         CharsetMatch match(CharsetDetector det) {
-            int confidence = match(det.fInputBytes, det.fInputLen, escapeSequences);
+            int confidence = match(det, escapeSequences);
             return confidence == 0 ? null : new CharsetMatch(det, this, confidence);
         }
     }
@@ -127,7 +138,7 @@ abstract class CharsetRecog_2022 extends CharsetRecognizer {
         }
 
         CharsetMatch match(CharsetDetector det) {
-            int confidence = match(det.fInputBytes, det.fInputLen, escapeSequences);
+            int confidence = match(det, escapeSequences);
             return confidence == 0 ? null : new CharsetMatch(det, this, confidence);
         }
     }
@@ -151,7 +162,7 @@ abstract class CharsetRecog_2022 extends CharsetRecognizer {
         }
 
         CharsetMatch match(CharsetDetector det) {
-            int confidence = match(det.fInputBytes, det.fInputLen, escapeSequences);
+            int confidence = match(det, escapeSequences);
             return confidence == 0 ? null : new CharsetMatch(det, this, confidence);
         }
     }
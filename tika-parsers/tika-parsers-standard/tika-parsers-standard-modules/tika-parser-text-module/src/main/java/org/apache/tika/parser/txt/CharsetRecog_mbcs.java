@@ -52,6 +52,13 @@ abstract class CharsetRecog_mbcs extends CharsetRecognizer {
         int badCharCount = 0;
         int totalCharCount = 0;
         int confidence = 0;
+
+        if (!det.fRawHighBytes) {
+            // Plain ASCII is all single byte chars in every supported encoding.
+            //   Same result as the scan below, without the scan.
+            return det.fRawLength < 10 ? 0 : 10;
+        }
+
         iteratedChar iter = new iteratedChar();
 
         detectBlock:
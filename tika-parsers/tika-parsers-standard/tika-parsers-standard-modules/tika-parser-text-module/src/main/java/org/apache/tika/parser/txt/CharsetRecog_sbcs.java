@@ -10,6 +10,8 @@
 
 package org.apache.tika.parser.txt;
 
+import java.util.Arrays;
+
 /**
  * This class recognizes single-byte encodings. Because the encoding scheme is so
  * simple, language statistics are used to do the matching.
@@ -42,89 +44,172 @@ abstract class CharsetRecog_sbcs extends CharsetRecognizer {
     }
 
     int match(CharsetDetector det, int[] ngrams, byte[] byteMap, byte spaceChar) {
-        NGramParser parser = new NGramParser(ngrams, byteMap);
-        return parser.parse(det, spaceChar);
+        return NGramHistogram.get(det, byteMap, spaceChar, false).score(ngrams);
     }
 
     int matchIBM420(CharsetDetector det, int[] ngrams, byte[] byteMap, byte spaceChar) {
-        NGramParser_IBM420 parser = new NGramParser_IBM420(ngrams, byteMap);
-        return parser.parse(det, spaceChar);
+        return NGramHistogram.get(det, byteMap, spaceChar, true).score(ngrams);
     }
 
-    static class NGramParser {
-        //        private static final int N_GRAM_SIZE = 3;
-        private static final int N_GRAM_MASK = 0xFFFFFF;
+    /**
+     * Occurrence counts of the ngrams in the input text after it has been
+     * mapped through one byteMap.
+     * <p/>
+     * All of the languages of an encoding, and recognizers such as the
+     * EBCDIC 500 and IBM424 ones, share a byteMap.  Their ngram tables are
+     * scored against the same counts, so the input is mapped and scanned once
+     * per byteMap rather than once per ngram table.  The detector holds on to
+     * the histogram of the last byteMap, and its arrays are reused for the next
+     * byteMap and the next input.
+     */
+    static class NGramHistogram {
+        private static final int EMPTY = -1;
 
-        protected int byteIndex = 0;
-        protected byte[] byteMap;
-        protected byte spaceChar;
-        private int ngram = 0;
-        private int[] ngramList;
-        private int ngramCount;
-        private int hitCount;
+        private static final int INITIAL_CAPACITY = 1024;
 
-        public NGramParser(int[] theNgramList, byte[] theByteMap) {
-            ngramList = theNgramList;
-            byteMap = theByteMap;
+        private byte[] byteMap;
+        private byte spaceChar;
+        private boolean ibm420;
 
-            ngram = 0;
+        //open addressing hash table of 24 bit ngrams, EMPTY marks a free slot
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private int size;
+        private int ngramCount;
 
-            ngramCount = hitCount = 0;
+        static NGramHistogram get(CharsetDetector det, byte[] byteMap, byte spaceChar,
+                                  boolean ibm420) {
+            NGramHistogram histogram = det.fNGramHistogram;
+            if (histogram == null) {
+                histogram = new NGramHistogram();
+                det.fNGramHistogram = histogram;
+            }
+            if (histogram.byteMap != byteMap || histogram.spaceChar != spaceChar ||
+                    histogram.ibm420 != ibm420) {
+                histogram.reset(byteMap, spaceChar, ibm420);
+                NGramParser parser = ibm420 ? new NGramParser_IBM420(histogram, byteMap) :
+                        new NGramParser(histogram, byteMap);
+                parser.parse(det, spaceChar);
+            }
+            return histogram;
         }
 
-        /*
-         * Binary search for value in table, which must have exactly 64 entries.
+        /**
+         * Forgets the counts, they have to be recomputed for new input text.
          */
-        private static int search(int[] table, int value) {
-            int index = 0;
+        void clear() {
+            byteMap = null;
+        }
 
-            if (table[index + 32] <= value) {
-                index += 32;
-            }
+        private void reset(byte[] byteMap, byte spaceChar, boolean ibm420) {
+            this.byteMap = byteMap;
+            this.spaceChar = spaceChar;
+            this.ibm420 = ibm420;
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            ngramCount = 0;
+        }
 
-            if (table[index + 16] <= value) {
-                index += 16;
-            }
+        private static int slot(int ngram, int mask) {
+            int h = ngram * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
 
-            if (table[index + 8] <= value) {
-                index += 8;
+        void add(int ngram) {
+            ngramCount++;
+            int mask = keys.length - 1;
+            int i = slot(ngram, mask);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == ngram) {
+                    counts[i]++;
+                    return;
+                }
+                i = (i + 1) & mask;
             }
-
-            if (table[index + 4] <= value) {
-                index += 4;
+            keys[i] = ngram;
+            counts[i] = 1;
+            if (++size * 4 > keys.length * 3) {
+                grow();
             }
+        }
 
-            if (table[index + 2] <= value) {
-                index += 2;
+        private int count(int ngram) {
+            int mask = keys.length - 1;
+            int i = slot(ngram, mask);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == ngram) {
+                    return counts[i];
+                }
+                i = (i + 1) & mask;
             }
-
-            if (table[index + 1] <= value) {
-                index += 1;
+            return 0;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != EMPTY) {
+                    int i = slot(oldKeys[j], mask);
+                    while (keys[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    counts[i] = oldCounts[j];
+                }
             }
+        }
 
-            if (table[index] > value) {
-                index -= 1;
+        /**
+         * @param ngrams sorted table of distinct ngrams
+         * @return the confidence that the text is in the language of the table
+         */
+        int score(int[] ngrams) {
+            int hitCount = 0;
+            for (int ngram : ngrams) {
+                hitCount += count(ngram);
             }
 
-            if (index < 0 || table[index] != value) {
-                return -1;
+            double rawPercent = (double) hitCount / (double) ngramCount;
+
+//                if (rawPercent <= 2.0) {
+//                    return 0;
+//                }
+
+            // TODO - This is a bit of a hack to take care of a case
+            // were we were getting a confidence of 135...
+            if (rawPercent > 0.33) {
+                return 98;
             }
 
-            return index;
+            return (int) (rawPercent * 300.0);
         }
+    }
 
-        private void lookup(int thisNgram) {
-            ngramCount += 1;
+    static class NGramParser {
+        //        private static final int N_GRAM_SIZE = 3;
+        private static final int N_GRAM_MASK = 0xFFFFFF;
 
-            if (search(ngramList, thisNgram) >= 0) {
-                hitCount += 1;
-            }
+        protected int byteIndex = 0;
+        protected byte[] byteMap;
+        protected byte spaceChar;
+        private int ngram = 0;
+        private final NGramHistogram histogram;
+
+        public NGramParser(NGramHistogram histogram, byte[] theByteMap) {
+            this.histogram = histogram;
+            byteMap = theByteMap;
 
+            ngram = 0;
         }
 
         protected void addByte(int b) {
             ngram = ((ngram << 8) + (b & 0xFF)) & N_GRAM_MASK;
-            lookup(ngram);
+            histogram.add(ngram);
         }
 
         private int nextByte(CharsetDetector det) {
@@ -154,11 +239,7 @@ abstract class CharsetRecog_sbcs extends CharsetRecognizer {
 
         }
 
-        public int parse(CharsetDetector det) {
-            return parse(det, (byte) 0x20);
-        }
-
-        public int parse(CharsetDetector det, byte spaceCh) {
+        public void parse(CharsetDetector det, byte spaceCh) {
 
             this.spaceChar = spaceCh;
 
@@ -166,20 +247,6 @@ abstract class CharsetRecog_sbcs extends CharsetRecognizer {
 
             // TODO: Is this OK? The buffer could have ended in the middle of a word...
             addByte(spaceChar);
-
-            double rawPercent = (double) hitCount / (double) ngramCount;
-
-//                if (rawPercent <= 2.0) {
-//                    return 0;
-//                }
-
-            // TODO - This is a bit of a hack to take care of a case
-            // were we were getting a confidence of 135...
-            if (rawPercent > 0.33) {
-                return 98;
-            }
-
-            return (int) (rawPercent * 300.0);
         }
     }
 
@@ -239,8 +306,8 @@ abstract class CharsetRecog_sbcs extends CharsetRecognizer {
         private byte alef = 0x00;
 
 
-        public NGramParser_IBM420(int[] theNgramList, byte[] theByteMap) {
-            super(theNgramList, theByteMap);
+        public NGramParser_IBM420(NGramHistogram histogram, byte[] theByteMap) {
+            super(histogram, theByteMap);
         }
 
         private byte isLamAlef(byte b) {
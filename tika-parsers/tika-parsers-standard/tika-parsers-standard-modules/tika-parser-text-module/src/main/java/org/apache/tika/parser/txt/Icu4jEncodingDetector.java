@@ -33,6 +33,9 @@ import org.apache.tika.utils.CharsetUtils;
 
 public class Icu4jEncodingDetector implements EncodingDetector {
 
+    //the detectors' buffers are reused by later detections on the same thread
+    private static final ThreadLocal<CharsetDetector> DETECTORS = new ThreadLocal<>();
+
     @Field
     private boolean stripMarkup = false;
 
@@ -46,8 +49,20 @@ public class Icu4jEncodingDetector implements EncodingDetector {
             return null;
         }
 
-        CharsetDetector detector = new CharsetDetector(markLimit);
+        CharsetDetector detector = DETECTORS.get();
+        if (detector == null || detector.getMarkLimit() != markLimit) {
+            detector = new CharsetDetector(markLimit);
+            DETECTORS.set(detector);
+        }
+        try {
+            return detect(detector, input, metadata);
+        } finally {
+            detector.reset();
+        }
+    }
 
+    private Charset detect(CharsetDetector detector, InputStream input, Metadata metadata)
+            throws IOException {
         String incomingCharset = metadata.get(Metadata.CONTENT_ENCODING);
         String incomingType = metadata.get(Metadata.CONTENT_TYPE);
         if (incomingCharset == null && incomingType != null) {
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.csv;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.xml.sax.helpers.DefaultHandler;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.ParseContext;
+
+/**
+ * Times parsing of a wide and a long csv with the commons-csv parser,
+ * the streaming parser and the streaming parser with delimited text output.
+ */
+public class TextAndCSVParserBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    public static void main(String[] args) throws Exception {
+        benchmark("wide", csv(2000, 1000));
+        benchmark("long", csv(500000, 10));
+    }
+
+    private static void benchmark(String name, byte[] csv) throws Exception {
+        TextAndCSVConfig commons = new TextAndCSVConfig();
+        TextAndCSVConfig streaming = new TextAndCSVConfig();
+        streaming.setStreaming(true);
+        TextAndCSVConfig delimited = new TextAndCSVConfig();
+        delimited.setStreaming(true);
+        delimited.setDelimitedTextOutput(true);
+        System.out.printf(Locale.ROOT, "%s (%d bytes): commons-csv %dms, streaming %dms, " +
+                        "streaming delimited text %dms%n", name, csv.length,
+                time(csv, commons), time(csv, streaming), time(csv, delimited));
+    }
+
+    private static long time(byte[] csv, TextAndCSVConfig config) throws Exception {
+        TextAndCSVParser parser = new TextAndCSVParser();
+        ParseContext context = new ParseContext();
+        context.set(TextAndCSVConfig.class, config);
+        //warm up
+        parse(parser, csv, context);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parse(parser, csv, context);
+        }
+        return (System.nanoTime() - start) / ITERATIONS / 1000000;
+    }
+
+    private static void parse(TextAndCSVParser parser, byte[] csv, ParseContext context)
+            throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.CONTENT_TYPE_USER_OVERRIDE,
+                "text/csv; charset=UTF-8; delimiter=comma");
+        parser.parse(new ByteArrayInputStream(csv), new DefaultHandler(), metadata, context);
+    }
+
+    private static byte[] csv(int rows, int columns) {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                if (column > 0) {
+                    sb.append(',');
+                }
+                if (column % 5 == 4) {
+                    sb.append("\"quoted, ").append(row).append('"');
+                } else {
+                    sb.append("cell").append(column * row);
+                }
+            }
+            sb.append("\r\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
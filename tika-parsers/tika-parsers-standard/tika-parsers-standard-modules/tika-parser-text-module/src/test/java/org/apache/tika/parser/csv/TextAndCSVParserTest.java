@@ -36,6 +36,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 
 public class TextAndCSVParserTest extends TikaTest {
@@ -252,6 +253,84 @@ public class TextAndCSVParserTest extends TikaTest {
         assertContains("colon", r.metadata.get(Metadata.CONTENT_TYPE));
     }
 
+    @Test
+    public void testStreaming() throws Exception {
+        String[] csvs = {"a,b\n", "a,b", "a,b\n\n", "\n", "a,b\r\nc,d\r\n", "a,b\rc,d",
+                "a,\"b\"x,c\n", "a,\"b\" ,c\n", "a,\"b\"\"c\",d", "a,\"b\nc\",d\n",
+                "a,\"unterminated\n", "a,b\"c,d\n", " \"a\",b\n", "a,,b,\n", "a,b\n\nc\n",
+                "\"a\"\"\"", "a,\"\"\n", "a,\"b\"\"\n", "\"a\"b\"c\",d\n", "a,", "a,\"",
+                "x,\"a\"\"b,c\nd,e\n", "a,<b>&amp;,c\n"};
+        TextAndCSVConfig streaming = new TextAndCSVConfig();
+        streaming.setStreaming(true);
+        for (String csv : csvs) {
+            Metadata expectedMetadata = csvMetadata();
+            String expected = getXML(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                    PARSER, expectedMetadata).xml;
+            Metadata metadata = csvMetadata();
+            String xml = getXML(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                    PARSER, metadata, parseContext(streaming)).xml;
+            assertEquals(expected, xml, csv);
+            assertEquals(expectedMetadata.get(TextAndCSVParser.NUM_ROWS),
+                    metadata.get(TextAndCSVParser.NUM_ROWS), csv);
+            assertEquals(expectedMetadata.get(TextAndCSVParser.NUM_COLUMNS),
+                    metadata.get(TextAndCSVParser.NUM_COLUMNS), csv);
+        }
+    }
+
+    @Test
+    public void testMaxRowsAndColumns() throws Exception {
+        byte[] csv = "a,b,c\nd,e,f\ng,h,i\n".getBytes(StandardCharsets.UTF_8);
+        for (boolean streaming : new boolean[]{false, true}) {
+            TextAndCSVConfig config = new TextAndCSVConfig();
+            config.setStreaming(streaming);
+            config.setMaxRows(2);
+            config.setMaxColumns(2);
+            Metadata metadata = csvMetadata();
+            String xml = getXML(new ByteArrayInputStream(csv), PARSER, metadata,
+                    parseContext(config)).xml;
+            assertContains("<td>d</td>", xml);
+            assertContains("<td>e</td>", xml);
+            assertNotContained("<td>f</td>", xml);
+            assertNotContained("<td>g</td>", xml);
+            assertEquals("true", metadata.get(TextAndCSVParser.TRUNCATED));
+            assertEquals(3, metadata.getInt(TextAndCSVParser.NUM_COLUMNS));
+            assertNull(metadata.get(TextAndCSVParser.NUM_ROWS));
+
+            config.setMaxRows(-1);
+            metadata = csvMetadata();
+            getXML(new ByteArrayInputStream(csv), PARSER, metadata, parseContext(config));
+            assertEquals("true", metadata.get(TextAndCSVParser.TRUNCATED));
+            assertEquals(3, metadata.getInt(TextAndCSVParser.NUM_ROWS));
+        }
+    }
+
+    @Test
+    public void testDelimitedTextOutput() throws Exception {
+        byte[] csv = "a,\"b,c\"\n\"d\"\"e\",f\n".getBytes(StandardCharsets.UTF_8);
+        for (boolean streaming : new boolean[]{false, true}) {
+            TextAndCSVConfig config = new TextAndCSVConfig();
+            config.setStreaming(streaming);
+            config.setDelimitedTextOutput(true);
+            String xml = getXML(new ByteArrayInputStream(csv), PARSER, csvMetadata(),
+                    parseContext(config)).xml;
+            assertContains("<pre>a,\"b,c\"\n\"d\"\"e\",f\n</pre>", xml);
+            assertNotContained("<td>", xml);
+        }
+    }
+
+    private static Metadata csvMetadata() {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.CONTENT_TYPE_USER_OVERRIDE,
+                "text/csv; charset=UTF-8; delimiter=comma");
+        return metadata;
+    }
+
+    private static ParseContext parseContext(TextAndCSVConfig textAndCSVConfig) {
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(TextAndCSVConfig.class, textAndCSVConfig);
+        return parseContext;
+    }
+
     private void assertContainsIgnoreWhiteSpaceDiffs(String expected, String xml) {
         assertContains(expected, xml.replaceAll("[\r\n\t ]", " "));
     }
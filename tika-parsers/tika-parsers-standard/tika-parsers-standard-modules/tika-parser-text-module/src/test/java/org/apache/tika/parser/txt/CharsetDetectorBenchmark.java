@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.txt;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Times charset detection of text in a number of languages and encodings,
+ * or of the files given as arguments.
+ */
+public class CharsetDetectorBenchmark {
+
+    private static final int ITERATIONS = 1000;
+
+    private static final String[][] SAMPLES = {
+            {"UTF-8", "The quick brown fox jumps over the lazy dog. "},
+            {"ISO-8859-1", "Der schnelle braune Fuchs springt über den faulen Hund. "},
+            {"ISO-8859-1", "Le vif renard brun saute par-dessus le chien paresseux à côté. "},
+            {"UTF-8", "Le vif renard brun saute par-dessus le chien paresseux à côté. "},
+            {"windows-1251", "Съешь же ещё этих мягких французских булок, да выпей чаю. "},
+            {"KOI8-R", "Съешь же ещё этих мягких французских булок, да выпей чаю. "},
+            {"ISO-8859-7", "Η γρήγορη καφέ αλεπού πηδάει πάνω από το τεμπέλικο σκυλί. "},
+            {"windows-1256", "نص حكيم له سر قاطع وذو شأن عظيم مكتوب على ثوب أخضر. "},
+            {"ISO-8859-8", "דג סקרן שט בים מאוכזב ולפתע מצא חברה. "},
+            {"Shift_JIS", "いろはにほへと ちりぬるを わかよたれそ つねならむ。"},
+            {"GB18030", "我能吞下玻璃而不伤身体。敏捷的棕色狐狸跳过了懒狗。"},
+            {"Big5", "我能吞下玻璃而不傷身體。敏捷的棕色狐狸跳過了懶狗。"},
+            {"EUC-KR", "다람쥐 헌 쳇바퀴에 타고파. 키스의 고유조건은 입술끼리 만나야 하고. "},
+            {"IBM500", "The quick brown fox jumps over the lazy dog. "},
+    };
+
+    public static void main(String[] args) throws Exception {
+        long start = System.currentTimeMillis();
+        if (args.length > 0) {
+            for (String arg : args) {
+                benchmark(new File(arg));
+            }
+        } else {
+            for (String[] sample : SAMPLES) {
+                benchmark(sample[0], repeat(sample[1], CharsetDetector.DEFAULT_MARK_LIMIT)
+                        .getBytes(Charset.forName(sample[0])));
+            }
+        }
+        System.out.println("Total benchmark time: " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private static void benchmark(File file) throws Exception {
+        if (file.isHidden()) {
+            // ignore
+        } else if (file.isFile()) {
+            benchmark(file.toString(), Files.readAllBytes(file.toPath()));
+        } else if (file.isDirectory()) {
+            for (File child : file.listFiles()) {
+                benchmark(child);
+            }
+        }
+    }
+
+    private static void benchmark(String name, byte[] content) throws Exception {
+        Icu4jEncodingDetector detector = new Icu4jEncodingDetector();
+        Charset charset = detector.detect(stream(content), new Metadata());
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            detector.detect(stream(content), new Metadata());
+        }
+        long reused = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            CharsetDetector charsetDetector = new CharsetDetector();
+            charsetDetector.enableInputFilter(true);
+            charsetDetector.setText(stream(content));
+            charsetDetector.detectAll();
+        }
+        long fresh = (System.nanoTime() - start) / ITERATIONS;
+        System.out.printf(Locale.ROOT, "%8dns per detection, %8dns with a new detector (%s) = %s%n",
+                reused, fresh, name, charset);
+    }
+
+    private static BufferedInputStream stream(byte[] content) {
+        return new BufferedInputStream(new ByteArrayInputStream(content));
+    }
+
+    private static String repeat(String s, int length) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
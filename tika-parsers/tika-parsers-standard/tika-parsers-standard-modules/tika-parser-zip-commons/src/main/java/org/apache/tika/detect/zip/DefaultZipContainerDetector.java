@@ -181,7 +181,7 @@ public class DefaultZipContainerDetector implements Detector {
 
             if (TikaInputStream.isTikaInputStream(input)) {
                 TikaInputStream tis = TikaInputStream.cast(input);
-                if (markLimit < 1 || tis.hasFile()) {
+                if (markLimit < 1 || tis.hasSeekableByteChannel()) {
                     return detectZipFormatOnFile(tis, metadata);
                 } else {
                     return tryStreaming(tis, metadata);
@@ -226,7 +226,7 @@ public class DefaultZipContainerDetector implements Detector {
     private MediaType detectZipFormatOnFile(TikaInputStream tis, Metadata metadata) {
         ZipFile zip = null;
         try {
-            zip = ZipFile.builder().setFile(tis.getFile()).get();
+            zip = openZipFile(tis);
 
             for (ZipContainerDetector zipDetector : getDetectors()) {
                 MediaType type = zipDetector.detect(zip, tis);
@@ -270,6 +270,18 @@ public class DefaultZipContainerDetector implements Detector {
 
     }
 
+    /**
+     * Opens the file, or if the stream is over a remote document that is
+     * fetched in ranges, a channel that only fetches the central directory
+     * and the entries that are read.
+     */
+    private static ZipFile openZipFile(TikaInputStream tis) throws IOException {
+        if (!tis.hasFile() && tis.hasSeekableByteChannel()) {
+            return ZipFile.builder().setSeekableByteChannel(tis.getSeekableByteChannel()).get();
+        }
+        return ZipFile.builder().setFile(tis.getFile()).get();
+    }
+
     MediaType detectStreaming(InputStream input, Metadata metadata) throws IOException {
         BoundedInputStream boundedInputStream = new BoundedInputStream(markLimit, input);
         boundedInputStream.mark(markLimit);
@@ -36,8 +36,12 @@ import org.junit.jupiter.api.Test;
 import org.apache.tika.TikaTest;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.ConcurrentParsingEmbeddedDocumentExtractorFactory;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.EmbeddedDocumentExtractorFactory;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.digestutils.CommonsDigester;
 import org.apache.tika.sax.AbstractRecursiveParserWrapperHandler;
@@ -433,6 +437,96 @@ public class RecursiveParserWrapperTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testConcurrentEmbedded() throws Exception {
+        ConcurrentParsingEmbeddedDocumentExtractorFactory factory =
+                new ConcurrentParsingEmbeddedDocumentExtractorFactory();
+        factory.setNumThreads(4);
+        factory.setMaxPending(2);
+        for (String fileName : new String[]{"test_recursive_embedded.docx",
+                "test-documents.zip"}) {
+            for (int maxEmbedded : new int[]{-1, 4}) {
+                List<Metadata> serial = getMetadata(fileName, null, maxEmbedded);
+                List<Metadata> concurrent = getMetadata(fileName, factory, maxEmbedded);
+                assertSameEmbedded(serial, concurrent, fileName);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentEmbeddedMaxDepth() throws Exception {
+        String fileName = "test_recursive_embedded.docx";
+        ConcurrentParsingEmbeddedDocumentExtractorFactory factory =
+                new ConcurrentParsingEmbeddedDocumentExtractorFactory();
+        factory.setNumThreads(4);
+        int unlimited = getMetadata(fileName, null, -1).size();
+        try {
+            for (int maxDepth : new int[]{2, 3}) {
+                List<Metadata> serial = getMetadata(fileName, null, -1, maxDepth);
+                List<Metadata> concurrent = getMetadata(fileName, factory, -1, maxDepth);
+                assertTrue(serial.size() < unlimited);
+                assertSameEmbedded(serial, concurrent, fileName + " " + maxDepth);
+                for (Metadata m : concurrent) {
+                    assertTrue(m.getInt(TikaCoreProperties.EMBEDDED_DEPTH) < maxDepth);
+                }
+            }
+        } finally {
+            factory.close();
+        }
+        //a new pool is started after close
+        assertEquals(unlimited, getMetadata(fileName, factory, -1).size());
+        factory.close();
+    }
+
+    private static void assertSameEmbedded(List<Metadata> serial, List<Metadata> concurrent,
+                                           String message) {
+        assertEquals(serial.size(), concurrent.size(), message);
+        for (int i = 0; i < serial.size(); i++) {
+            for (Property p : new Property[]{TikaCoreProperties.EMBEDDED_ID,
+                    TikaCoreProperties.EMBEDDED_ID_PATH, TikaCoreProperties.EMBEDDED_DEPTH,
+                    TikaCoreProperties.FINAL_EMBEDDED_RESOURCE_PATH,
+                    TikaCoreProperties.TIKA_CONTENT}) {
+                assertEquals(serial.get(i).get(p), concurrent.get(i).get(p),
+                        message + " " + i + " " + p.getName());
+            }
+            assertEquals(serial.get(i).get(Metadata.CONTENT_TYPE),
+                    concurrent.get(i).get(Metadata.CONTENT_TYPE));
+        }
+        assertEquals(
+                serial.get(0).get(AbstractRecursiveParserWrapperHandler
+                        .EMBEDDED_RESOURCE_LIMIT_REACHED),
+                concurrent.get(0).get(AbstractRecursiveParserWrapperHandler
+                        .EMBEDDED_RESOURCE_LIMIT_REACHED));
+    }
+
+    private List<Metadata> getMetadata(String fileName,
+                                       EmbeddedDocumentExtractorFactory extractorFactory,
+                                       int maxEmbedded) throws Exception {
+        return getMetadata(fileName, extractorFactory, maxEmbedded, -1);
+    }
+
+    private List<Metadata> getMetadata(String fileName,
+                                       EmbeddedDocumentExtractorFactory extractorFactory,
+                                       int maxEmbedded, int maxDepth) throws Exception {
+        ParseContext context = new ParseContext();
+        Metadata metadata = new Metadata();
+        if (extractorFactory != null) {
+            context.set(EmbeddedDocumentExtractor.class,
+                    extractorFactory.newInstance(metadata, context));
+        }
+        RecursiveParserWrapper wrapper = new RecursiveParserWrapper(AUTO_DETECT_PARSER);
+        RecursiveParserWrapperHandler handler = new RecursiveParserWrapperHandler(
+                new BasicContentHandlerFactory(BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1),
+                maxEmbedded);
+        if (maxDepth > -1) {
+            handler.setMaxEmbeddedDepth(maxDepth);
+        }
+        try (InputStream stream = getResourceAsStream("/test-documents/" + fileName)) {
+            wrapper.parse(stream, handler, metadata, context);
+        }
+        return handler.getMetadataList();
+    }
+
     private List<Metadata> getMetadata(Metadata metadata,
                                        ContentHandlerFactory contentHandlerFactory,
                                        boolean catchEmbeddedExceptions,
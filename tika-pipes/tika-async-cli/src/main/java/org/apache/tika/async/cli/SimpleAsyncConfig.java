@@ -24,14 +24,21 @@ class SimpleAsyncConfig {
     private Long timeoutMs;
     private String xmx;
     private String fileList;
+    private String checkpointDir;
 
     public SimpleAsyncConfig(String inputDir, String outputDir, Integer numClients, Long timeoutMs, String xmx, String fileList) {
+        this(inputDir, outputDir, numClients, timeoutMs, xmx, fileList, null);
+    }
+
+    public SimpleAsyncConfig(String inputDir, String outputDir, Integer numClients, Long timeoutMs, String xmx, String fileList,
+                             String checkpointDir) {
         this.inputDir = inputDir;
         this.outputDir = outputDir;
         this.numClients = numClients;
         this.timeoutMs = timeoutMs;
         this.xmx = xmx;
         this.fileList = fileList;
+        this.checkpointDir = checkpointDir;
     }
 
     public String getInputDir() {
@@ -57,4 +64,8 @@ class SimpleAsyncConfig {
     public String getFileList() {
         return fileList;
     }
+
+    public String getCheckpointDir() {
+        return checkpointDir;
+    }
 }
@@ -49,6 +49,8 @@ public class TikaAsyncCLI {
         options.addOption("?", "help", false, "this help message");
         options.addOption("t", "timeoutMs", true, "timeout for each parse in milliseconds");
         options.addOption("l", "fileList", true, "file list");
+        options.addOption("c", "checkpointDir", true,
+                "directory for a journal of the processed files, so that a restarted run skips them");
 
         return options;
     }
@@ -100,6 +102,7 @@ public class TikaAsyncCLI {
         Long timeoutMs = null;
         Integer numClients = null;
         String fileList = null;
+        String checkpointDir = null;
         if (line.hasOption("i")) {
             inputDir = line.getOptionValue("i");
         }
@@ -118,8 +121,11 @@ public class TikaAsyncCLI {
         if (line.hasOption("l")) {
             fileList = line.getOptionValue("l");
         }
+        if (line.hasOption("c")) {
+            checkpointDir = line.getOptionValue("c");
+        }
         return new SimpleAsyncConfig(inputDir, outputDir,
-                numClients, timeoutMs, xmx, fileList);
+                numClients, timeoutMs, xmx, fileList, checkpointDir);
     }
 
 
@@ -144,6 +150,9 @@ public class TikaAsyncCLI {
             }
             long elapsed = System.currentTimeMillis() - start;
             LOG.info("Successfully finished processing {} files in {} ms", processor.getTotalProcessed(), elapsed);
+            if (processor.getTotalSkipped() > 0) {
+                LOG.info("Skipped {} files that had been processed before", processor.getTotalSkipped());
+            }
 
         }
     }
@@ -140,6 +140,10 @@ class TikaConfigAsyncWriter {
         if (simpleAsyncConfig.getTimeoutMs() != null) {
             appendTextElement(document, async, "timeoutMillis", Long.toString(simpleAsyncConfig.getTimeoutMs()));
         }
+        if (!StringUtils.isBlank(simpleAsyncConfig.getCheckpointDir())) {
+            appendTextElement(document, async, "checkpointDir",
+                    Paths.get(simpleAsyncConfig.getCheckpointDir()).toAbsolutePath().toString());
+        }
     }
 
     private static  void appendTextElement(Document document, Element parent, String itemName, String text, String... attrs) {
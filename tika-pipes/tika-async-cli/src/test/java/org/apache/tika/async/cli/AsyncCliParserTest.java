@@ -69,13 +69,14 @@ public class AsyncCliParserTest {
     @Test
     public void testAll() throws Exception {
         SimpleAsyncConfig simpleAsyncConfig = TikaAsyncCLI.parseCommandLine(
-                new String[]{"-i", "input", "-o", "output", "-n", "5", "-t", "30000", "-x", "1g"});
+                new String[]{"-i", "input", "-o", "output", "-n", "5", "-t", "30000", "-x", "1g", "-c", "checkpoints"});
         assertEquals("input", simpleAsyncConfig.getInputDir());
         assertEquals("output", simpleAsyncConfig.getOutputDir());
         assertNull(simpleAsyncConfig.getFileList());
         assertEquals(5, simpleAsyncConfig.getNumClients());
         assertEquals(30000L, simpleAsyncConfig.getTimeoutMs());
         assertEquals("1g", simpleAsyncConfig.getXmx());
+        assertEquals("checkpoints", simpleAsyncConfig.getCheckpointDir());
     }
 
     //TODO -- test for file list with and without inputDir
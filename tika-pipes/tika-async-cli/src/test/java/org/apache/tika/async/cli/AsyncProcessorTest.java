@@ -18,6 +18,8 @@ package org.apache.tika.async.cli;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -142,4 +144,76 @@ public class AsyncProcessorTest extends TikaTest {
                 .get(1)
                 .get(TikaCoreProperties.TIKA_CONTENT));
     }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        Path checkpointDir = basedir.resolve("checkpoints");
+        Path tikaConfig = configDir.resolve("tika-config-checkpoint.xml");
+        String xml = Files.readString(configDir.resolve("tika-config.xml"), StandardCharsets.UTF_8);
+        xml = xml.replace("</properties>", "<async><checkpointDir>" +
+                checkpointDir.toAbsolutePath() + "</checkpointDir></async></properties>");
+        Files.writeString(tikaConfig, xml, StandardCharsets.UTF_8);
+
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(HandlerConfig.class, HandlerConfig.DEFAULT_HANDLER_CONFIG);
+        FetchEmitTuple t = new FetchEmitTuple("myId-1", new FetchKey("fs", "mock.xml"),
+                new EmitKey("json", "emit-1"), new Metadata(), parseContext,
+                FetchEmitTuple.ON_PARSE_EXCEPTION.EMIT);
+
+        try (AsyncProcessor processor = new AsyncProcessor(tikaConfig)) {
+            assertTrue(processor.offer(t, 1000));
+            processor.finished();
+            while (processor.checkActive()) {
+                Thread.sleep(100);
+            }
+            assertEquals(1, processor.getTotalProcessed());
+            assertEquals(0, processor.getTotalSkipped());
+        }
+        assertTrue(Files.isRegularFile(jsonDir.resolve("emit-1.json")));
+        Files.delete(jsonDir.resolve("emit-1.json"));
+
+        //a restart skips what has been emitted
+        try (AsyncProcessor processor = new AsyncProcessor(tikaConfig)) {
+            assertTrue(processor.offer(t, 1000));
+            assertTrue(processor.offer(List.of(t), 1000));
+            processor.finished();
+            while (processor.checkActive()) {
+                Thread.sleep(100);
+            }
+            assertEquals(0, processor.getTotalProcessed());
+            assertEquals(2, processor.getTotalSkipped());
+        }
+        assertFalse(Files.exists(jsonDir.resolve("emit-1.json")));
+    }
+
+    @Test
+    public void testNoCheckpointOnEmitFailure() throws Exception {
+        Path checkpointDir = basedir.resolve("checkpoints");
+        Path tikaConfig = configDir.resolve("tika-config-checkpoint.xml");
+        String xml = Files.readString(configDir.resolve("tika-config.xml"), StandardCharsets.UTF_8);
+        xml = xml.replace("</properties>", "<async><checkpointDir>" +
+                checkpointDir.toAbsolutePath() + "</checkpointDir></async></properties>");
+        Files.writeString(tikaConfig, xml, StandardCharsets.UTF_8);
+        //the emitter can't create its output directory
+        Files.writeString(jsonDir, "not a directory", StandardCharsets.UTF_8);
+
+        ParseContext parseContext = new ParseContext();
+        parseContext.set(HandlerConfig.class, HandlerConfig.DEFAULT_HANDLER_CONFIG);
+        FetchEmitTuple t = new FetchEmitTuple("myId-1", new FetchKey("fs", "mock.xml"),
+                new EmitKey("json", "emit-1"), new Metadata(), parseContext,
+                FetchEmitTuple.ON_PARSE_EXCEPTION.EMIT);
+
+        for (int i = 0; i < 2; i++) {
+            //the failed emit isn't checkpointed, so the restart processes the tuple again
+            try (AsyncProcessor processor = new AsyncProcessor(tikaConfig)) {
+                assertTrue(processor.offer(t, 1000));
+                processor.finished();
+                while (processor.checkActive()) {
+                    Thread.sleep(100);
+                }
+                assertEquals(1, processor.getTotalProcessed());
+                assertEquals(0, processor.getTotalSkipped());
+            }
+        }
+    }
 }
@@ -51,6 +51,7 @@ import org.apache.http.HttpConnection;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpInetConnection;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -76,6 +77,7 @@ import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.pipes.fetcher.AbstractFetcher;
+import org.apache.tika.pipes.fetcher.ParallelRangeDownloader;
 import org.apache.tika.pipes.fetcher.RangeFetcher;
 import org.apache.tika.pipes.fetcher.config.FetcherConfigContainer;
 import org.apache.tika.pipes.fetcher.http.config.HttpFetcherConfig;
@@ -156,8 +158,29 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
 
     JwtGenerator jwtGenerator;
 
+    private ParallelRangeDownloader parallelRangeDownloader;
+
     @Override
     public InputStream fetch(String fetchKey, Metadata metadata, ParseContext parseContext) throws IOException, TikaException {
+        long maxSpoolSize = httpFetcherConfig.getMaxSpoolSize();
+        if (parallelRangeDownloader != null && maxSpoolSize != 0) {
+            InputStream is = parallelRangeDownloader.fetch(this, fetchKey, metadata, parseContext,
+                    httpFetcherConfig.getParallelPartSize(), maxSpoolSize < 0 ? -1 : maxSpoolSize);
+            String totalLength = metadata.get(TOTAL_LENGTH);
+            if (maxSpoolSize > 0 && totalLength != null && Long.parseLong(totalLength) > maxSpoolSize) {
+                metadata.set(HTTP_FETCH_TRUNCATED, "true");
+            }
+            return is;
+        }
+        HttpGet get = newGet(fetchKey, metadata, parseContext);
+        return execute(get, metadata, httpClient, true, -1);
+    }
+
+    /**
+     * Builds a request with the redirect config and the request headers that
+     * apply to every request for a fetch, including range requests.
+     */
+    private HttpGet newGet(String fetchKey, Metadata metadata, ParseContext parseContext) throws IOException, TikaException {
         HttpFetcherConfig additionalHttpFetcherConfig = getAdditionalHttpFetcherConfig(parseContext);
         HttpGet get = new HttpGet(fetchKey);
         RequestConfig requestConfig = RequestConfig
@@ -168,7 +191,7 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
         get.setConfig(requestConfig);
         setHttpRequestHeaders(metadata, get);
         putAdditionalHeadersOnRequest(additionalHttpFetcherConfig, get);
-        return execute(get, metadata, httpClient, true);
+        return get;
     }
 
     private void setHttpRequestHeaders(Metadata metadata, HttpGet get) {
@@ -212,12 +235,9 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
     @Override
     public InputStream fetch(String fetchKey, long startRange, long endRange, Metadata metadata,
                              ParseContext parseContext) throws IOException, TikaException {
-        HttpFetcherConfig additionalHttpFetcherConfig = getAdditionalHttpFetcherConfig(parseContext);
-        HttpGet get = new HttpGet(fetchKey);
-        putAdditionalHeadersOnRequest(additionalHttpFetcherConfig, get);
-
+        HttpGet get = newGet(fetchKey, metadata, parseContext);
         get.setHeader("Range", "bytes=" + startRange + "-" + endRange);
-        return execute(get, metadata, httpClient, true);
+        return execute(get, metadata, httpClient, true, startRange);
     }
 
     private void putAdditionalHeadersOnRequest(HttpFetcherConfig additionalFetcherConfig, HttpGet httpGet) throws TikaException {
@@ -257,7 +277,12 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
         get.setHeader(headerKey, headerValue);
     }
 
-    private InputStream execute(HttpGet get, Metadata metadata, HttpClient client, boolean retryOnBadLength) throws IOException {
+    /**
+     * @param rangeStart start of the requested range, or -1 if the whole
+     *                   document is requested
+     */
+    private InputStream execute(HttpGet get, Metadata metadata, HttpClient client, boolean retryOnBadLength,
+                                long rangeStart) throws IOException {
         HttpClientContext context = HttpClientContext.create();
         HttpResponse response = null;
         final AtomicBoolean timeout = new AtomicBoolean(false);
@@ -291,6 +316,9 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
             if (code < 200 || code > 299) {
                 throw new IOException("bad status code: " + code + " :: " + responseToString(response));
             }
+            if (rangeStart > -1) {
+                checkRange(get, response, code, rangeStart);
+            }
             try (InputStream is = response
                     .getEntity()
                     .getContent()) {
@@ -305,7 +333,7 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
                 //and then compresses the stream. See HTTPCLIENT-2176
                 LOG.warn("premature end of content-length delimited message; retrying with " + "content compression" +
                         " disabled for {}", get.getURI());
-                return execute(get, metadata, noCompressHttpClient, false);
+                return execute(get, metadata, noCompressHttpClient, false, rangeStart);
             }
             throw e;
         } catch (IOException e) {
@@ -329,6 +357,41 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
         }
     }
 
+    /**
+     * Makes sure that the body of the response to a range request starts at
+     * the requested offset.  A server that doesn't support ranges may ignore
+     * the Range header and send the whole document with a 200; that is only
+     * what was asked for if the range starts at 0.
+     */
+    private static void checkRange(HttpGet get, HttpResponse response, int code, long rangeStart)
+            throws IOException {
+        Header contentRange = response.getFirstHeader("Content-Range");
+        if (contentRange == null) {
+            if (code == HttpStatus.SC_PARTIAL_CONTENT || rangeStart == 0) {
+                return;
+            }
+            throw new IOException("The server ignored the range request for bytes from " +
+                    rangeStart + " of " + get.getURI() + ": status code " + code);
+        }
+        //e.g. "bytes 0-1023/146515"
+        String value = contentRange.getValue().trim();
+        long start = -1;
+        if (value.startsWith("bytes ")) {
+            int dash = value.indexOf('-');
+            if (dash > -1) {
+                try {
+                    start = Long.parseLong(value.substring(6, dash).trim());
+                } catch (NumberFormatException e) {
+                    //reported below
+                }
+            }
+        }
+        if (start != rangeStart) {
+            throw new IOException("Requested bytes from " + rangeStart + " of " + get.getURI() +
+                    " but the server sent Content-Range: " + value);
+        }
+    }
+
     private InputStream spool(InputStream content, Metadata metadata) throws IOException {
         long start = System.currentTimeMillis();
         TemporaryResources tmp = new TemporaryResources();
@@ -371,6 +434,26 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
                     .getValue());
         }
 
+        //e.g. "bytes 0-1023/146515" in the response to a range request
+        Header contentRange = response.getFirstHeader("Content-Range");
+        if (contentRange != null) {
+            String value = contentRange.getValue();
+            int slash = value.lastIndexOf('/');
+            if (slash > -1 && !value.endsWith("*")) {
+                metadata.set(TOTAL_LENGTH, value.substring(slash + 1).trim());
+            }
+        }
+
+        Header etag = response.getFirstHeader("ETag");
+        if (etag != null) {
+            metadata.set(ENTITY_TAG, etag.getValue());
+        }
+        //the checksum is of the encoded bytes
+        Header contentMd5 = response.getFirstHeader("Content-MD5");
+        if (contentMd5 != null && (entity == null || entity.getContentEncoding() == null)) {
+            metadata.set(RANGE_CONTENT_MD5, contentMd5.getValue());
+        }
+
         //load headers
         if (httpFetcherConfig.getHttpHeaders() != null) {
             for (String h : httpFetcherConfig.getHttpHeaders()) {
@@ -506,6 +589,44 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
         httpFetcherConfig.setMaxSpoolSize(maxSpoolSize);
     }
 
+    /**
+     * If this is greater than 0, documents are downloaded with range
+     * requests of this many bytes, several at a time, see
+     * {@link #setParallelDownloads(int)}.  Parsing starts as soon as the
+     * first part has been downloaded.  The default is -1, a single request.
+     *
+     * @param parallelPartSize
+     */
+    @Field
+    public void setParallelPartSize(long parallelPartSize) {
+        httpFetcherConfig.setParallelPartSize(parallelPartSize);
+    }
+
+    /**
+     * Maximum number of range requests to run at once across all downloads
+     * when {@link #setParallelPartSize(long)} is set.  The default is 4.
+     *
+     * @param parallelDownloads
+     */
+    @Field
+    public void setParallelDownloads(int parallelDownloads) {
+        httpFetcherConfig.setParallelDownloads(parallelDownloads);
+    }
+
+    /**
+     * If <code>true</code>, this fetcher's clients use the connection pool
+     * that is shared by all http clients in the JVM with the same pool
+     * settings, and {@link #setMaxConnections(int)} limits their connections
+     * together.  The default is <code>false</code>.
+     *
+     * @param shareConnectionManager
+     * @see HttpClientFactory#setShareConnectionManager(boolean)
+     */
+    @Field
+    public void setShareConnectionManager(boolean shareConnectionManager) {
+        httpFetcherConfig.setShareConnectionManager(shareConnectionManager);
+    }
+
     @Field
     public void setMaxRedirects(int maxRedirects) {
         httpFetcherConfig.setMaxRedirects(maxRedirects);
@@ -633,6 +754,9 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
         if (httpFetcherConfig.getMaxConnectionsPerRoute() != null) {
             httpClientFactory.setMaxConnectionsPerRoute(httpFetcherConfig.getMaxConnectionsPerRoute());
         }
+        if (httpFetcherConfig.getShareConnectionManager() != null) {
+            httpClientFactory.setShareConnectionManager(httpFetcherConfig.getShareConnectionManager());
+        }
         if (!StringUtils.isBlank(httpFetcherConfig.getAuthScheme())) {
             httpClientFactory.setUserName(httpFetcherConfig.getUserName());
             httpClientFactory.setPassword(httpFetcherConfig.getPassword());
@@ -649,6 +773,10 @@ public class HttpFetcher extends AbstractFetcher implements Initializable, Range
         HttpClientFactory cp = httpClientFactory.copy();
         cp.setDisableContentCompression(true);
         noCompressHttpClient = cp.build();
+        if (httpFetcherConfig.getParallelPartSize() != null &&
+                httpFetcherConfig.getParallelPartSize() > 0) {
+            parallelRangeDownloader = new ParallelRangeDownloader(httpFetcherConfig.getParallelDownloads());
+        }
 
         if (!StringUtils.isBlank(httpFetcherConfig.getJwtPrivateKeyBase64())) {
             PrivateKey key = JwtPrivateKeyCreds.convertBase64ToPrivateKey(httpFetcherConfig.getJwtPrivateKeyBase64());
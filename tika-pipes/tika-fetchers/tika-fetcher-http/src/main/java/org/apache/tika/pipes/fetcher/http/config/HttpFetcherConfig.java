@@ -45,6 +45,9 @@ public class HttpFetcherConfig extends AbstractConfig {
     private int jwtExpiresInSeconds;
     private String jwtSecret;
     private String jwtPrivateKeyBase64;
+    private Long parallelPartSize = -1L;
+    private Integer parallelDownloads = 4;
+    private Boolean shareConnectionManager = false;
 
 
     public String getUserName() {
@@ -253,4 +256,31 @@ public class HttpFetcherConfig extends AbstractConfig {
         this.jwtPrivateKeyBase64 = jwtPrivateKeyBase64;
         return this;
     }
+
+    public Long getParallelPartSize() {
+        return parallelPartSize;
+    }
+
+    public HttpFetcherConfig setParallelPartSize(Long parallelPartSize) {
+        this.parallelPartSize = parallelPartSize;
+        return this;
+    }
+
+    public Integer getParallelDownloads() {
+        return parallelDownloads;
+    }
+
+    public HttpFetcherConfig setParallelDownloads(Integer parallelDownloads) {
+        this.parallelDownloads = parallelDownloads;
+        return this;
+    }
+
+    public Boolean getShareConnectionManager() {
+        return shareConnectionManager;
+    }
+
+    public HttpFetcherConfig setShareConnectionManager(Boolean shareConnectionManager) {
+        this.shareConnectionManager = shareConnectionManager;
+        return this;
+    }
 }
@@ -16,7 +16,9 @@
  */
 package org.apache.tika.pipes.fetcher.http;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -25,6 +27,7 @@ import static org.mockito.Mockito.when;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -37,6 +40,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
 
@@ -53,6 +57,7 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.protocol.HttpContext;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -63,6 +68,7 @@ import org.mockito.Mockito;
 
 import org.apache.tika.TikaTest;
 import org.apache.tika.client.HttpClientFactory;
+import org.apache.tika.client.SharedConnectionManagers;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.metadata.Metadata;
@@ -70,6 +76,8 @@ import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.pipes.fetcher.FetcherManager;
+import org.apache.tika.pipes.fetcher.RangeFetcher;
+import org.apache.tika.pipes.fetcher.RangeFetcherChannel;
 import org.apache.tika.pipes.fetcher.config.FetcherConfigContainer;
 import org.apache.tika.pipes.fetcher.http.config.HttpFetcherConfig;
 import org.apache.tika.pipes.fetcher.http.config.HttpHeaders;
@@ -121,6 +129,33 @@ class HttpFetcherTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testSharedConnectionManager() throws Exception {
+        HttpClientFactory factory = new HttpClientFactory();
+        //off by default
+        assertFalse(factory.isShareConnectionManager());
+        factory.setShareConnectionManager(true);
+        factory.setMaxConnections(123);
+        factory.build();
+        //like the fetcher's client without content compression
+        HttpClientFactory copy = factory.copy();
+        copy.setDisableContentCompression(true);
+        copy.build();
+        assertEquals(123, copy.getPoolStats().getMax());
+        assertEquals(1, countPools("maxConnections=123,"));
+
+        HttpClientFactory unshared = factory.copy();
+        unshared.setShareConnectionManager(false);
+        unshared.build();
+        assertEquals(123, unshared.getPoolStats().getMax());
+        assertEquals(1, countPools("maxConnections=123,"));
+    }
+
+    private static long countPools(String prefix) {
+        return SharedConnectionManagers.getStatistics().keySet().stream()
+                .filter(k -> k.startsWith(prefix)).count();
+    }
+
     @Test
     public void test4xxResponse() throws Exception {
         // Setup client to respond with 403
@@ -134,6 +169,21 @@ class HttpFetcherTest extends TikaTest {
         assertEquals(TEST_URL, meta.get("http-connection:target-url"));
     }
 
+    @Test
+    public void testRangeTotalLength() throws Exception {
+        HttpResponse response = buildMockResponse(HttpStatus.SC_PARTIAL_CONTENT,
+                IOUtils.toInputStream("0123456789", Charset.defaultCharset()));
+        when(response.getFirstHeader("Content-Range"))
+                .thenReturn(new BasicHeader("Content-Range", "bytes 0-9/146515"));
+        mockClientResponse(response);
+
+        Metadata meta = new Metadata();
+        try (InputStream is = httpFetcher.fetch(TEST_URL, 0, 9, meta, new ParseContext())) {
+            assertEquals("0123456789", IOUtils.toString(is, Charset.defaultCharset()));
+        }
+        assertEquals("146515", meta.get(RangeFetcher.TOTAL_LENGTH));
+    }
+
     @Test
     public void testJwt() throws Exception {
         byte[] randomBytes = new byte[32];
@@ -265,6 +315,94 @@ class HttpFetcherTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testRangeFetcherChannel() throws Exception {
+        byte[] data = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(data);
+        HttpFetcher httpFetcher =
+                (HttpFetcher) getFetcherManager("tika-config-http.xml").getFetcher("http");
+        try (RangeHttpServer server = new RangeHttpServer(data)) {
+            RangeFetcherChannel channel = RangeFetcherChannel.open(httpFetcher, server.getUrl(),
+                    new Metadata(), new ParseContext(), 64 * 1024, 16);
+            assertEquals(data.length, channel.size());
+            //e.g. the central directory of a zip file
+            ByteBuffer buffer = ByteBuffer.allocate(1000);
+            channel.position(data.length - 1000).read(buffer);
+            assertArrayEquals(Arrays.copyOfRange(data, data.length - 1000, data.length),
+                    buffer.array());
+            //the first block and the last one
+            assertEquals(2, server.getRequests());
+            assertEquals(128 * 1024, server.getBytesServed());
+        }
+    }
+
+    @Test
+    public void testServerIgnoresRange() throws Exception {
+        byte[] data = new byte[4 * 1024 * 1024];
+        new Random(42).nextBytes(data);
+        HttpFetcher httpFetcher =
+                (HttpFetcher) getFetcherManager("tika-config-http.xml").getFetcher("http");
+        try (RangeHttpServer server = new RangeHttpServer(data)) {
+            server.setIgnoreRange(true);
+            //the whole document starts at the requested offset
+            try (InputStream is = httpFetcher.fetch(server.getUrl(), 0, 999, new Metadata(),
+                    new ParseContext())) {
+                assertArrayEquals(Arrays.copyOfRange(data, 0, 1000), IOUtils.toByteArray(is, 1000));
+            }
+            //but not at this one
+            assertThrows(IOException.class, () -> httpFetcher.fetch(server.getUrl(), 1000, 1999,
+                    new Metadata(), new ParseContext()));
+            assertThrows(IOException.class, () -> RangeFetcherChannel.open(httpFetcher,
+                    server.getUrl(), new Metadata(), new ParseContext(), 64 * 1024, 16));
+        }
+    }
+
+    @Test
+    public void testParallelDownload() throws Exception {
+        byte[] data = new byte[1024 * 1024 + 17];
+        new Random(42).nextBytes(data);
+        HttpFetcher httpFetcher = new HttpFetcher();
+        httpFetcher.setParallelPartSize(64 * 1024);
+        httpFetcher.setParallelDownloads(3);
+        httpFetcher.initialize(Collections.emptyMap());
+        try (RangeHttpServer server = new RangeHttpServer(data)) {
+            server.setContentMd5(true);
+            Metadata metadata = new Metadata();
+            try (InputStream is = httpFetcher.fetch(server.getUrl(), metadata, new ParseContext())) {
+                assertArrayEquals(data, IOUtils.toByteArray(is));
+            }
+            assertEquals(Integer.toString(data.length), metadata.get(Metadata.CONTENT_LENGTH));
+            assertEquals(17, server.getRequests());
+
+            server.setCorruptOffset(5 * 64 * 1024);
+            try (InputStream is = httpFetcher.fetch(server.getUrl(), new Metadata(), new ParseContext())) {
+                assertThrows(IOException.class, () -> IOUtils.toByteArray(is));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelDownloadHeadersAndLimit() throws Exception {
+        byte[] data = new byte[1024 * 1024 + 17];
+        new Random(42).nextBytes(data);
+        HttpFetcher httpFetcher = new HttpFetcher();
+        httpFetcher.setParallelPartSize(64 * 1024);
+        httpFetcher.setParallelDownloads(3);
+        httpFetcher.setMaxSpoolSize(200 * 1024);
+        httpFetcher.initialize(Collections.emptyMap());
+        try (RangeHttpServer server = new RangeHttpServer(data)) {
+            Metadata metadata = new Metadata();
+            metadata.add("httpRequestHeaders", "X-Test: per-fetch");
+            try (InputStream is = httpFetcher.fetch(server.getUrl(), metadata, new ParseContext())) {
+                assertArrayEquals(Arrays.copyOfRange(data, 0, 200 * 1024), IOUtils.toByteArray(is));
+            }
+            assertEquals("true", metadata.get(HttpFetcher.HTTP_FETCH_TRUNCATED));
+            //only the parts within the limit are fetched, each with the per-fetch header
+            assertEquals(4, server.getRequests());
+            assertEquals(4, server.getRequests("X-Test: per-fetch"));
+        }
+    }
+
     FetcherManager getFetcherManager(String path) throws Exception {
         return FetcherManager.load(Paths.get(HttpFetcherTest.class
                 .getResource("/" + path)
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.pipes.fetcher.http;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal local http server that serves a byte array and supports single
+ * range requests, for testing without network access.  It handles one
+ * request per connection.
+ */
+class RangeHttpServer implements Closeable {
+
+    private static final Pattern RANGE = Pattern.compile("(?i)range:\\s*bytes=(\\d+)-(\\d*)");
+
+    private final byte[] data;
+
+    private final ServerSocket serverSocket;
+
+    private final Thread thread;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final List<List<String>> requestHeaders = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    private volatile boolean contentMd5 = false;
+
+    private volatile int corruptOffset = -1;
+
+    private volatile boolean ignoreRange = false;
+
+    RangeHttpServer(byte[] data) throws IOException {
+        this.data = data;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        thread = new Thread(this::serve, "range-http-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + serverSocket.getLocalPort() + "/data";
+    }
+
+    /**
+     * Whether to send the Content-MD5 of each response
+     */
+    void setContentMd5(boolean contentMd5) {
+        this.contentMd5 = contentMd5;
+    }
+
+    /**
+     * Flips a byte of the response that starts at this offset, after the
+     * Content-MD5 has been calculated
+     */
+    void setCorruptOffset(int corruptOffset) {
+        this.corruptOffset = corruptOffset;
+    }
+
+    /**
+     * Whether to ignore the Range header and send the whole document with a
+     * 200, as servers that don't support ranges do
+     */
+    void setIgnoreRange(boolean ignoreRange) {
+        this.ignoreRange = ignoreRange;
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of requests that had this header line
+     */
+    int getRequests(String headerLine) {
+        int n = 0;
+        for (List<String> headers : requestHeaders) {
+            if (headers.contains(headerLine)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    long getBytesServed() {
+        return bytesServed.get();
+    }
+
+    private void serve() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                handle(socket);
+            } catch (IOException e) {
+                //closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII));
+        int start = 0;
+        int end = data.length - 1;
+        String status = "200 OK";
+        String contentRange = null;
+        List<String> headerLines = new ArrayList<>();
+        String line = reader.readLine();
+        while (line != null && !line.isEmpty()) {
+            headerLines.add(line);
+            Matcher m = RANGE.matcher(line);
+            if (m.matches() && !ignoreRange) {
+                start = Integer.parseInt(m.group(1));
+                if (!m.group(2).isEmpty()) {
+                    end = Math.min(end, Integer.parseInt(m.group(2)));
+                }
+                status = "206 Partial Content";
+                contentRange = String.format(Locale.ROOT, "bytes %d-%d/%d", start, end,
+                        data.length);
+            }
+            line = reader.readLine();
+        }
+        requestHeaders.add(headerLines);
+        requests.incrementAndGet();
+        int length = end - start + 1;
+        byte[] body = Arrays.copyOfRange(data, start, end + 1);
+        StringBuilder headers = new StringBuilder();
+        headers.append("HTTP/1.1 ").append(status).append("\r\n");
+        headers.append("Content-Length: ").append(length).append("\r\n");
+        headers.append("ETag: \"v1\"\r\n");
+        if (contentMd5) {
+            headers.append("Content-MD5: ").append(Base64.getEncoder().encodeToString(md5(body)))
+                    .append("\r\n");
+        }
+        if (start == corruptOffset) {
+            body[0]++;
+        }
+        if (contentRange != null) {
+            headers.append("Content-Range: ").append(contentRange).append("\r\n");
+        }
+        headers.append("Connection: close\r\n\r\n");
+        OutputStream os = socket.getOutputStream();
+        os.write(headers.toString().getBytes(US_ASCII));
+        os.write(body);
+        os.flush();
+        bytesServed.addAndGet(length);
+    }
+
+    private static byte[] md5(byte[] bytes) throws IOException {
+        try {
+            return MessageDigest.getInstance("MD5").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        try {
+            thread.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
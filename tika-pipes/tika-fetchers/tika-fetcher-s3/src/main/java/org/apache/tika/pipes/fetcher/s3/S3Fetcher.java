@@ -57,6 +57,7 @@ import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.pipes.fetcher.AbstractFetcher;
+import org.apache.tika.pipes.fetcher.ParallelRangeDownloader;
 import org.apache.tika.pipes.fetcher.RangeFetcher;
 import org.apache.tika.pipes.fetcher.s3.config.S3FetcherConfig;
 import org.apache.tika.utils.StringUtils;
@@ -89,6 +90,8 @@ public class S3Fetcher extends AbstractFetcher implements Initializable, RangeFe
 
         setExtractUserMetadata(s3FetcherConfig.isExtractUserMetadata());
         setPathStyleAccessEnabled(s3FetcherConfig.isPathStyleAccessEnabled());
+        setParallelPartSize(s3FetcherConfig.getParallelPartSize());
+        setParallelDownloads(s3FetcherConfig.getParallelDownloads());
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(S3Fetcher.class);
@@ -130,8 +133,16 @@ public class S3Fetcher extends AbstractFetcher implements Initializable, RangeFe
     private long maxLength = -1;
     private boolean pathStyleAccessEnabled = false;
 
+    private long parallelPartSize = -1;
+    private int parallelDownloads = 4;
+    private ParallelRangeDownloader parallelRangeDownloader;
+
     @Override
     public InputStream fetch(String fetchKey, Metadata metadata, ParseContext parseContext) throws TikaException, IOException {
+        if (parallelRangeDownloader != null) {
+            return parallelRangeDownloader.fetch(this, fetchKey, metadata, parseContext,
+                    parallelPartSize);
+        }
         return fetch(fetchKey, -1, -1, metadata);
     }
 
@@ -168,6 +179,9 @@ public class S3Fetcher extends AbstractFetcher implements Initializable, RangeFe
             } catch (AmazonClientException e) {
                 LOGGER.warn("client exception fetching on retry=" + tries, e);
                 ex = new IOException(e);
+            } catch (FileTooLongException e) {
+                //retrying won't make it shorter
+                throw e;
             } catch (IOException e) {
                 LOGGER.warn("client exception fetching on retry=" + tries, e);
                 ex = e;
@@ -201,9 +215,25 @@ public class S3Fetcher extends AbstractFetcher implements Initializable, RangeFe
             }
             long length = s3Object.getObjectMetadata().getContentLength();
             metadata.set(Metadata.CONTENT_LENGTH, Long.toString(length));
+            //the limit is on the whole object, not on the range
+            long objectLength = length;
+            if (objectRequest.getRange() != null) {
+                objectLength = s3Object.getObjectMetadata().getInstanceLength();
+                metadata.set(TOTAL_LENGTH, Long.toString(objectLength));
+            }
+            //the etag isn't always the md5 of the object, e.g. for multipart uploads,
+            //so it is only used to check that the object doesn't change between ranges
+            if (s3Object.getObjectMetadata().getETag() != null) {
+                metadata.set(ENTITY_TAG, s3Object.getObjectMetadata().getETag());
+            }
+            if (s3Object.getObjectMetadata().getContentMD5() != null) {
+                metadata.set(RANGE_CONTENT_MD5, s3Object.getObjectMetadata().getContentMD5());
+            }
             if (maxLength > -1) {
-                if (length > maxLength) {
-                    throw new FileTooLongException(length, maxLength);
+                if (objectLength > maxLength) {
+                    //don't read the rest of the object to reuse the connection
+                    s3Object.getObjectContent().abort();
+                    throw new FileTooLongException(objectLength, maxLength);
                 }
             }
             LOGGER.debug("took {} ms to fetch file's metadata", System.currentTimeMillis() - start);
@@ -337,6 +367,29 @@ public class S3Fetcher extends AbstractFetcher implements Initializable, RangeFe
         this.sleepBeforeRetryMillis = sleepBeforeRetryMillis;
     }
 
+    /**
+     * If this is greater than 0, objects larger than this are downloaded in
+     * parts of this size with concurrent range requests.  The object is
+     * written to a temp file and parsing can start as soon as the first part
+     * has been downloaded.
+     *
+     * @param parallelPartSize size of the parts in bytes, or -1 to download
+     *                         objects with a single request
+     */
+    @Field
+    public void setParallelPartSize(long parallelPartSize) {
+        this.parallelPartSize = parallelPartSize;
+    }
+
+    /**
+     * @param parallelDownloads maximum number of concurrent range requests,
+     *                          shared by all fetches of this fetcher
+     */
+    @Field
+    public void setParallelDownloads(int parallelDownloads) {
+        this.parallelDownloads = parallelDownloads;
+    }
+
     @Field
     public void setAccessKey(String accessKey) {
         this.accessKey = accessKey;
@@ -395,6 +448,10 @@ public class S3Fetcher extends AbstractFetcher implements Initializable, RangeFe
                 throttleSeconds[i] = sleepBeforeRetryMillis * 1000;
             }
         }
+        //this is called again to re-initialize the client on retries
+        if (parallelPartSize > 0 && parallelRangeDownloader == null) {
+            parallelRangeDownloader = new ParallelRangeDownloader(parallelDownloads);
+        }
     }
 
     @Override
@@ -34,6 +34,8 @@ public class S3FetcherConfig extends AbstractConfig {
     private String endpointConfigurationService;
     private boolean pathStyleAccessEnabled;
     private long[] throttleSeconds;
+    private long parallelPartSize = -1;
+    private int parallelDownloads = 4;
 
     public boolean isSpoolToTemp() {
         return spoolToTemp;
@@ -169,4 +171,22 @@ public class S3FetcherConfig extends AbstractConfig {
         this.throttleSeconds = throttleSeconds;
         return this;
     }
+
+    public long getParallelPartSize() {
+        return parallelPartSize;
+    }
+
+    public S3FetcherConfig setParallelPartSize(long parallelPartSize) {
+        this.parallelPartSize = parallelPartSize;
+        return this;
+    }
+
+    public int getParallelDownloads() {
+        return parallelDownloads;
+    }
+
+    public S3FetcherConfig setParallelDownloads(int parallelDownloads) {
+        this.parallelDownloads = parallelDownloads;
+        return this;
+    }
 }
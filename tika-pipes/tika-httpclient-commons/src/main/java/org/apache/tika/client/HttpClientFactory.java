@@ -30,6 +30,7 @@ import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -70,6 +71,7 @@ import org.apache.http.impl.client.LaxRedirectStrategy;
 import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContexts;
@@ -109,6 +111,11 @@ public class HttpClientFactory {
     private String authScheme = "basic"; //ntlm or basic
     private boolean credentialsAESEncrypted = false;
     private boolean disableContentCompression = false;
+    private boolean shareConnectionManager = false;
+    private long connectionTimeToLiveMs = -1;
+    private long idleConnectionTimeoutMs = 60000;
+    private int validateAfterInactivityMs = 2000;
+    private PoolingHttpClientConnectionManager connectionManager;
 
     public String getProxyHost() {
         return proxyHost;
@@ -237,6 +244,71 @@ public class HttpClientFactory {
         this.disableContentCompression = disableContentCompression;
     }
 
+    public boolean isShareConnectionManager() {
+        return shareConnectionManager;
+    }
+
+    /**
+     * If <code>true</code>, clients built with the same pool settings share a
+     * connection manager, see {@link SharedConnectionManagers}.  Note that
+     * {@link #setMaxConnections(int)} and {@link #setMaxConnectionsPerRoute(int)}
+     * then limit the connections of all of those clients together, not of each
+     * client.  The default is <code>false</code>, each client gets its own pool.
+     *
+     * @param shareConnectionManager whether to use a connection pool that is
+     *                               shared with the other clients in this JVM
+     */
+    public void setShareConnectionManager(boolean shareConnectionManager) {
+        this.shareConnectionManager = shareConnectionManager;
+    }
+
+    public long getConnectionTimeToLiveMs() {
+        return connectionTimeToLiveMs;
+    }
+
+    /**
+     * @param connectionTimeToLiveMs maximum lifetime of a pooled connection,
+     *                               or -1 for no limit
+     */
+    public void setConnectionTimeToLiveMs(long connectionTimeToLiveMs) {
+        this.connectionTimeToLiveMs = connectionTimeToLiveMs;
+    }
+
+    public long getIdleConnectionTimeoutMs() {
+        return idleConnectionTimeoutMs;
+    }
+
+    /**
+     * @param idleConnectionTimeoutMs pooled connections that have been idle
+     *                                for longer than this are closed,
+     *                                -1 to keep them
+     */
+    public void setIdleConnectionTimeoutMs(long idleConnectionTimeoutMs) {
+        this.idleConnectionTimeoutMs = idleConnectionTimeoutMs;
+    }
+
+    public int getValidateAfterInactivityMs() {
+        return validateAfterInactivityMs;
+    }
+
+    /**
+     * @param validateAfterInactivityMs pooled connections that have been idle
+     *                                  for longer than this are checked before
+     *                                  they are reused
+     */
+    public void setValidateAfterInactivityMs(int validateAfterInactivityMs) {
+        this.validateAfterInactivityMs = validateAfterInactivityMs;
+    }
+
+    /**
+     * @return the number of leased, pending and available connections in
+     * the pool of the last client that was built, or <code>null</code> if
+     * none has been built yet
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager == null ? null : connectionManager.getTotalStats();
+    }
+
     public HttpClientFactory copy() throws TikaConfigException {
         HttpClientFactory cp = new HttpClientFactory();
         cp.setAllowedHostsForRedirect(new HashSet<>(allowedHostsForRedirect));
@@ -253,6 +325,10 @@ public class HttpClientFactory {
         cp.setProxyPort(proxyPort);
         cp.setRequestTimeout(requestTimeout);
         cp.setSocketTimeout(socketTimeout);
+        cp.setShareConnectionManager(shareConnectionManager);
+        cp.setConnectionTimeToLiveMs(connectionTimeToLiveMs);
+        cp.setIdleConnectionTimeoutMs(idleConnectionTimeoutMs);
+        cp.setValidateAfterInactivityMs(validateAfterInactivityMs);
         return cp;
     }
 
@@ -276,18 +352,34 @@ public class HttpClientFactory {
                 RegistryBuilder.<ConnectionSocketFactory>create().register("https", sslsf)
                         .register("http", new PlainConnectionSocketFactory()).build();
 
-        PoolingHttpClientConnectionManager manager =
-                new PoolingHttpClientConnectionManager(socketFactoryRegistry);
-        manager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
-        manager.setMaxTotal(maxConnections);
-
         HttpClientBuilder builder = HttpClients.custom();
+        if (shareConnectionManager) {
+            LOG.info("sharing a connection pool of maxConnections={} and maxConnectionsPerRoute={} " +
+                    "with the other clients with the same pool settings", maxConnections,
+                    maxConnectionsPerRoute);
+            connectionManager = SharedConnectionManagers.get(
+                    new SharedConnectionManagers.Settings(maxConnections, maxConnectionsPerRoute,
+                            connectionTimeToLiveMs, idleConnectionTimeoutMs,
+                            validateAfterInactivityMs), socketFactoryRegistry);
+            //closing this client must not close the pool
+            builder.setConnectionManagerShared(true);
+        } else {
+            connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry,
+                    null, null, null, connectionTimeToLiveMs, TimeUnit.MILLISECONDS);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+            builder.evictExpiredConnections();
+            if (idleConnectionTimeoutMs > 0) {
+                builder.evictIdleConnections(idleConnectionTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+        }
         if (disableContentCompression) {
             builder.disableContentCompression();
         }
         addCredentialsProvider(builder);
         addProxy(builder);
-        return builder.setConnectionManager(manager)
+        return builder.setConnectionManager(connectionManager)
                 .setRedirectStrategy(new CustomRedirectStrategy(allowedHostsForRedirect))
                 .setDefaultRequestConfig(RequestConfig.custom().setTargetPreferredAuthSchemes(
                         Arrays.asList(AuthSchemes.BASIC, AuthSchemes.NTLM))
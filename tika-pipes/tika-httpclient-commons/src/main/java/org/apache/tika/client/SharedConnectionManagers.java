@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.client;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.config.Registry;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Connection managers that are shared by all the http clients in this JVM
+ * that are built with the same pool settings and with
+ * {@link HttpClientFactory#setShareConnectionManager(boolean)} on, e.g. by
+ * the http fetcher and the OpenSearch and Solr emitters.  Connections and TLS sessions to a host
+ * are then reused across clients, instead of each client opening its own.
+ * <p>
+ * The managers are never shut down; a single daemon thread closes expired
+ * connections and connections that have been idle for too long.
+ */
+public class SharedConnectionManagers {
+
+    private static final long EVICTION_INTERVAL_MS = 5000;
+
+    private static final Map<Settings, PoolingHttpClientConnectionManager> MANAGERS =
+            new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService evictor;
+
+    private SharedConnectionManagers() {
+    }
+
+    /**
+     * Returns the manager for these settings, creating it with the given
+     * socket factories if this is the first client with these settings.
+     */
+    static PoolingHttpClientConnectionManager get(Settings settings,
+                                                  Registry<ConnectionSocketFactory> socketFactories) {
+        PoolingHttpClientConnectionManager manager = MANAGERS.computeIfAbsent(settings, s -> {
+            PoolingHttpClientConnectionManager m =
+                    new PoolingHttpClientConnectionManager(socketFactories, null, null, null,
+                            s.connectionTimeToLiveMs, TimeUnit.MILLISECONDS);
+            m.setDefaultMaxPerRoute(s.maxConnectionsPerRoute);
+            m.setMaxTotal(s.maxConnections);
+            m.setValidateAfterInactivity(s.validateAfterInactivityMs);
+            return m;
+        });
+        startEvictor();
+        return manager;
+    }
+
+    /**
+     * @return the number of leased, pending and available connections of
+     * each shared pool, by a description of its settings
+     */
+    public static Map<String, PoolStats> getStatistics() {
+        Map<String, PoolStats> statistics = new TreeMap<>();
+        for (Map.Entry<Settings, PoolingHttpClientConnectionManager> e : MANAGERS.entrySet()) {
+            statistics.put(e.getKey().toString(), e.getValue().getTotalStats());
+        }
+        return statistics;
+    }
+
+    private static synchronized void startEvictor() {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "shared-connection-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        evictor.scheduleWithFixedDelay(SharedConnectionManagers::evict, EVICTION_INTERVAL_MS,
+                EVICTION_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void evict() {
+        for (Map.Entry<Settings, PoolingHttpClientConnectionManager> e : MANAGERS.entrySet()) {
+            PoolingHttpClientConnectionManager manager = e.getValue();
+            manager.closeExpiredConnections();
+            if (e.getKey().idleConnectionTimeoutMs > 0) {
+                manager.closeIdleConnections(e.getKey().idleConnectionTimeoutMs,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * The settings that clients must agree on to share a pool
+     */
+    static class Settings {
+        private final int maxConnections;
+        private final int maxConnectionsPerRoute;
+        private final long connectionTimeToLiveMs;
+        private final long idleConnectionTimeoutMs;
+        private final int validateAfterInactivityMs;
+
+        Settings(int maxConnections, int maxConnectionsPerRoute, long connectionTimeToLiveMs,
+                 long idleConnectionTimeoutMs, int validateAfterInactivityMs) {
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            this.connectionTimeToLiveMs = connectionTimeToLiveMs;
+            this.idleConnectionTimeoutMs = idleConnectionTimeoutMs;
+            this.validateAfterInactivityMs = validateAfterInactivityMs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Settings)) {
+                return false;
+            }
+            Settings s = (Settings) o;
+            return maxConnections == s.maxConnections &&
+                    maxConnectionsPerRoute == s.maxConnectionsPerRoute &&
+                    connectionTimeToLiveMs == s.connectionTimeToLiveMs &&
+                    idleConnectionTimeoutMs == s.idleConnectionTimeoutMs &&
+                    validateAfterInactivityMs == s.validateAfterInactivityMs;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(maxConnections, maxConnectionsPerRoute, connectionTimeToLiveMs,
+                    idleConnectionTimeoutMs, validateAfterInactivityMs);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "maxConnections=%d, maxConnectionsPerRoute=%d, connectionTimeToLiveMs=%d, " +
+                            "idleConnectionTimeoutMs=%d, validateAfterInactivityMs=%d",
+                    maxConnections, maxConnectionsPerRoute, connectionTimeToLiveMs,
+                    idleConnectionTimeoutMs, validateAfterInactivityMs);
+        }
+    }
+}
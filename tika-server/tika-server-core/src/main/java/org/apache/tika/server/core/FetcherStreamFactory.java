@@ -29,6 +29,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.detect.BoundedDetector;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
@@ -82,11 +83,7 @@ public class FetcherStreamFactory implements InputStreamFactory {
     public InputStream getInputStream(InputStream is, Metadata metadata, HttpHeaders httpHeaders, UriInfo uriInfo) throws IOException {
         MultivaluedMap params = (uriInfo == null) ? null : uriInfo.getQueryParameters();
         String fetcherName = getParam("fetcherName", httpHeaders, params);
-        String fetchKey = getParam("fetchKey", httpHeaders, params);
-        fetchKey = urlDecode(fetchKey);
-        if (StringUtils.isBlank(fetchKey)) {
-            fetchKey = getParam("fetchKeyLiteral", httpHeaders, params);
-        }
+        String fetchKey = getFetchKey(httpHeaders, params);
         ParseContext parseContext = new ParseContext();
         TikaResource.fillParseContext(httpHeaders.getRequestHeaders(), metadata, parseContext);
         long fetchRangeStart = getLong(getParam("fetchRangeStart", httpHeaders, params));
@@ -118,6 +115,42 @@ public class FetcherStreamFactory implements InputStreamFactory {
         return is;
     }
 
+    /**
+     * If the request names a {@link RangeFetcher}, this only fetches the ranges
+     * that the detector needs, otherwise it reads the prefix of the stream.
+     */
+    @Override
+    public BoundedDetector.Result detect(BoundedDetector detector, InputStream is, Metadata metadata, HttpHeaders httpHeaders, UriInfo uriInfo)
+            throws IOException, TikaException {
+        MultivaluedMap params = (uriInfo == null) ? null : uriInfo.getQueryParameters();
+        String fetcherName = getParam("fetcherName", httpHeaders, params);
+        String fetchKey = getFetchKey(httpHeaders, params);
+        if (StringUtils.isBlank(fetcherName) || StringUtils.isBlank(fetchKey)) {
+            return InputStreamFactory.super.detect(detector, is, metadata, httpHeaders, uriInfo);
+        }
+        Fetcher fetcher;
+        try {
+            fetcher = fetcherManager.getFetcher(fetcherName);
+        } catch (IOException e) {
+            throw new TikaException("Couldn't get fetcher: " + fetcherName, e);
+        }
+        if (!(fetcher instanceof RangeFetcher)) {
+            return InputStreamFactory.super.detect(detector, is, metadata, httpHeaders, uriInfo);
+        }
+        ParseContext parseContext = new ParseContext();
+        TikaResource.fillParseContext(httpHeaders.getRequestHeaders(), metadata, parseContext);
+        LOG.debug("going to detect '{}' from ranges of fetcher: {}", fetchKey, fetcherName);
+        return detector.detectWithBudget((RangeFetcher) fetcher, fetchKey, metadata, parseContext);
+    }
+
+    private String getFetchKey(HttpHeaders httpHeaders, MultivaluedMap params) {
+        String fetchKey = urlDecode(getParam("fetchKey", httpHeaders, params));
+        if (StringUtils.isBlank(fetchKey)) {
+            fetchKey = getParam("fetchKeyLiteral", httpHeaders, params);
+        }
+        return fetchKey;
+    }
+
     private String urlDecode(String fetchKey) {
         if (fetchKey == null) {
             return fetchKey;
@@ -23,6 +23,9 @@ import java.io.InputStream;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.UriInfo;
 
+import org.apache.tika.detect.BoundedDetector;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 
 /**
@@ -35,4 +38,25 @@ public interface InputStreamFactory {
 
     InputStream getInputStream(InputStream is, Metadata metadata, HttpHeaders httpHeaders, UriInfo uriInfo) throws IOException;
 
+    /**
+     * Detects the media type with a detector that reads at most a bounded number of
+     * bytes.  Implementations that fetch the document may fetch only the ranges the
+     * detector needs.
+     *
+     * @throws TikaException if the document couldn't be fetched
+     * @throws IOException   if the detection failed
+     */
+    default BoundedDetector.Result detect(BoundedDetector detector, InputStream is, Metadata metadata, HttpHeaders httpHeaders, UriInfo uriInfo)
+            throws IOException, TikaException {
+        InputStream stream;
+        try {
+            stream = getInputStream(is, metadata, httpHeaders, uriInfo);
+        } catch (IOException e) {
+            throw new TikaException("Couldn't get the input stream", e);
+        }
+        try (TikaInputStream tis = TikaInputStream.get(stream)) {
+            return detector.detectWithBudget(tis, metadata);
+        }
+    }
+
 }
@@ -23,11 +23,13 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
@@ -46,6 +48,7 @@ import org.apache.tika.parser.ParseContext;
 import org.apache.tika.pipes.FetchEmitTuple;
 import org.apache.tika.pipes.async.AsyncProcessor;
 import org.apache.tika.pipes.async.OfferLargerThanQueueSize;
+import org.apache.tika.pipes.async.QueueClassStatistics;
 import org.apache.tika.pipes.emitter.EmitData;
 import org.apache.tika.pipes.emitter.EmitterManager;
 import org.apache.tika.pipes.extractor.EmbeddedDocumentBytesConfig;
@@ -157,6 +160,31 @@ public class AsyncResource {
         }
     }
 
+    /**
+     * Returns the number of tuples waiting, taken and how long they waited
+     * for each class of the queue, see
+     * {@link org.apache.tika.pipes.async.AsyncConfig#setQueueClassKey(String)}.
+     *
+     * @return map of class name to its statistics
+     */
+    @GET
+    @Path("queue")
+    @Produces("application/json")
+    public Map<String, Object> getQueueStatistics() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (QueueClassStatistics s : asyncProcessor.getQueueStatistics().values()) {
+            Map<String, Object> classMap = new LinkedHashMap<>();
+            classMap.put("weight", s.getWeight());
+            classMap.put("queued", s.getQueued());
+            classMap.put("offered", s.getOffered());
+            classMap.put("taken", s.getTaken());
+            classMap.put("mean_wait_millis", s.getMeanWaitMillis());
+            classMap.put("max_wait_millis", s.getMaxWaitMillis());
+            map.put(s.getName(), classMap);
+        }
+        return map;
+    }
+
     private Map<String, Object> ok(int size) {
         Map<String, Object> map = new HashMap<>();
         map.put("status", "ok");
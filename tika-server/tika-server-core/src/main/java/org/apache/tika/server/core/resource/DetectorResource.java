@@ -24,12 +24,16 @@ import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.tika.detect.BoundedDetector;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
@@ -39,6 +43,19 @@ import org.apache.tika.server.core.ServerStatus;
 
 @Path("/detect")
 public class DetectorResource {
+
+    /**
+     * Header or query parameter with the maximum number of bytes to read or
+     * fetch for detection, see {@link BoundedDetector}
+     */
+    public static final String DETECT_MAX_BYTES = "detectMaxBytes";
+
+    /**
+     * Response header that is set when the type was detected from only part
+     * of the document
+     */
+    public static final String DETECTION_TRUNCATED_HEADER = "X-Tika-Detection-Truncated";
+
     private static final Logger LOG = LoggerFactory.getLogger(DetectorResource.class);
     private final ServerStatus serverStatus;
 
@@ -50,7 +67,7 @@ public class DetectorResource {
     @Path("stream")
     @Consumes("*/*")
     @Produces("text/plain")
-    public String detect(final InputStream is, @Context HttpHeaders httpHeaders, @Context final UriInfo info) {
+    public Response detect(final InputStream is, @Context HttpHeaders httpHeaders, @Context final UriInfo info) {
         Metadata met = new Metadata();
 
         String filename = TikaResource.detectFilename(httpHeaders.getRequestHeaders());
@@ -61,15 +78,25 @@ public class DetectorResource {
         long timeoutMillis = TikaResource.getTaskTimeout(parseContext);
         long taskId = serverStatus.start(ServerStatus.TASK.DETECT, filename, timeoutMillis);
 
-        try (TikaInputStream tis = TikaInputStream.get(TikaResource.getInputStream(is, met, httpHeaders, info))) {
-            return TikaResource
-                    .getConfig()
-                    .getDetector()
-                    .detect(tis, met)
-                    .toString();
+        int maxBytes = getDetectMaxBytes(httpHeaders, info);
+        try {
+            if (maxBytes > 0) {
+                return detectBounded(maxBytes, is, met, httpHeaders, info);
+            }
+            try (TikaInputStream tis = TikaInputStream.get(TikaResource.getInputStream(is, met, httpHeaders, info))) {
+                return Response
+                        .ok(TikaResource
+                                .getConfig()
+                                .getDetector()
+                                .detect(tis, met)
+                                .toString())
+                        .build();
+            }
         } catch (IOException e) {
             LOG.warn("Unable to detect MIME type for file. Reason: {} ({})", e.getMessage(), filename, e);
-            return MediaType.OCTET_STREAM.toString();
+            return Response
+                    .ok(MediaType.OCTET_STREAM.toString())
+                    .build();
         } catch (OutOfMemoryError e) {
             LOG.error("OOM while detecting: ({})", filename, e);
             serverStatus.setStatus(ServerStatus.STATUS.ERROR);
@@ -81,4 +108,40 @@ public class DetectorResource {
             serverStatus.complete(taskId);
         }
     }
+
+    /**
+     * Reads or fetches at most <code>maxBytes</code>, and sets the
+     * {@link #DETECTION_TRUNCATED_HEADER} if the document was longer.
+     */
+    private Response detectBounded(int maxBytes, InputStream is, Metadata metadata, HttpHeaders httpHeaders, UriInfo info)
+            throws IOException {
+        BoundedDetector detector = new BoundedDetector(TikaResource
+                .getConfig()
+                .getDetector(), maxBytes);
+        BoundedDetector.Result result = TikaResource.detect(detector, is, metadata, httpHeaders, info);
+        Response.ResponseBuilder builder = Response.ok(result
+                .getMediaType()
+                .toString());
+        if (result.isTruncated()) {
+            builder.header(DETECTION_TRUNCATED_HEADER, "true");
+        }
+        return builder.build();
+    }
+
+    private static int getDetectMaxBytes(HttpHeaders httpHeaders, UriInfo info) {
+        String val = info == null ? null : info
+                .getQueryParameters()
+                .getFirst(DETECT_MAX_BYTES);
+        if (StringUtils.isBlank(val)) {
+            val = httpHeaders.getHeaderString(DETECT_MAX_BYTES);
+        }
+        if (StringUtils.isBlank(val)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(val.trim());
+        } catch (NumberFormatException e) {
+            throw new WebApplicationException("Couldn't parse " + DETECT_MAX_BYTES + ": " + val, Response.Status.BAD_REQUEST);
+        }
+    }
 }
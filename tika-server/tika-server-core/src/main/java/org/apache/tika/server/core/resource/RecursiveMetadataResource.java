@@ -42,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.listfilter.MetadataListFilter;
+import org.apache.tika.parser.MetadataOnly;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.RecursiveParserWrapper;
@@ -67,6 +68,10 @@ public class RecursiveMetadataResource {
         RecursiveParserWrapper wrapper = new RecursiveParserWrapper(parser);
         fillMetadata(parser, metadata, httpHeaders);
         fillParseContext(httpHeaders, metadata, context);
+        if (handlerConfig.isMetadataOnly()) {
+            //e.g. /rmeta/ignore with maxEmbeddedResources 0
+            context.set(MetadataOnly.class, MetadataOnly.INSTANCE);
+        }
         TikaResource.logRequest(LOG, "/rmeta", metadata);
 
         BasicContentHandlerFactory.HANDLER_TYPE type = handlerConfig.getType();
@@ -64,6 +64,7 @@ import org.xml.sax.SAXException;
 import org.apache.tika.Tika;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.config.TikaTaskTimeout;
+import org.apache.tika.detect.BoundedDetector;
 import org.apache.tika.exception.EncryptedDocumentException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.WriteLimitReachedException;
@@ -167,6 +168,20 @@ public class TikaResource {
         }
     }
 
+    /**
+     * A failure to fetch the document is thrown as a {@link TikaServerParseException},
+     * as in {@link #getInputStream(InputStream, Metadata, HttpHeaders, UriInfo)}, but
+     * a failed detection is thrown as an {@link IOException}.
+     */
+    public static BoundedDetector.Result detect(BoundedDetector detector, InputStream is, Metadata metadata, HttpHeaders headers, UriInfo uriInfo)
+            throws IOException {
+        try {
+            return INPUTSTREAM_FACTORY.detect(detector, is, metadata, headers, uriInfo);
+        } catch (TikaException e) {
+            throw new TikaServerParseException(e);
+        }
+    }
+
     /**
      * Utility method to set a property on a class via reflection.
      *
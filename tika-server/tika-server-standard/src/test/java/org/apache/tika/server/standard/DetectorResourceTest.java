@@ -19,6 +19,7 @@ package org.apache.tika.server.standard;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -101,4 +102,27 @@ public class DetectorResourceTest extends CXFTestBase {
         assertEquals("text/csv", readMime);
 
     }
+
+    @Test
+    public void testDetectMaxBytes() throws Exception {
+        Response response = WebClient
+                .create(endPoint + DETECT_STREAM_PATH)
+                .type("text/csv")
+                .accept("*/*")
+                .header("Content-Disposition", "attachment; filename=" + FOO_CSV)
+                .header(DetectorResource.DETECT_MAX_BYTES, "10")
+                .put(ClassLoader.getSystemResourceAsStream(FOO_CSV));
+        assertEquals("text/csv", getStringFromInputStream((InputStream) response.getEntity()));
+        assertEquals("true", response.getHeaderString(DetectorResource.DETECTION_TRUNCATED_HEADER));
+
+        response = WebClient
+                .create(endPoint + DETECT_STREAM_PATH)
+                .type("text/csv")
+                .accept("*/*")
+                .header("Content-Disposition", "attachment; filename=" + FOO_CSV)
+                .header(DetectorResource.DETECT_MAX_BYTES, "100000")
+                .put(ClassLoader.getSystemResourceAsStream(FOO_CSV));
+        assertEquals("text/csv", getStringFromInputStream((InputStream) response.getEntity()));
+        assertNull(response.getHeaderString(DetectorResource.DETECTION_TRUNCATED_HEADER));
+    }
 }
@@ -416,6 +416,26 @@ public class RecursiveMetadataResourceTest extends CXFTestBase {
         }
     }
 
+    @Test
+    public void testIgnoreWithoutEmbedded() throws Exception {
+        //nothing but the container's metadata is needed, so its body is skipped
+        Response response = WebClient
+                .create(endPoint + META_PATH + IGNORE_PATH)
+                .accept("application/json")
+                .header("maxEmbeddedResources", "0")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_RECURSIVE_DOC));
+        assertEquals(200, response.getStatus());
+        Reader reader = new InputStreamReader((InputStream) response.getEntity(), UTF_8);
+        List<Metadata> metadataList = JsonMetadataList.fromJson(reader);
+        assertEquals(1, metadataList.size());
+        assertEquals("Microsoft Office Word", metadataList
+                .get(0)
+                .get("extended-properties:Application"));
+        assertNull(metadataList
+                .get(0)
+                .get(TikaCoreProperties.TIKA_CONTENT));
+    }
+
     // TIKA-3227
     @Test
     public void testSkipEmbedded() throws Exception {